@@ -2,7 +2,9 @@ package co.cloudfly.erp.dian.domain.repository;
 
 import co.cloudfly.erp.dian.domain.entity.DianResolution;
 import co.cloudfly.erp.dian.domain.enums.DianDocumentType;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -93,4 +95,24 @@ public interface DianResolutionRepository extends JpaRepository<DianResolution,
             Long tenantId,
             Long companyId,
             DianDocumentType documentType);
+
+    /**
+     * Resoluciones vigentes de un tipo de documento, bloqueadas para asignar
+     * el siguiente número sin saltos. Con companyId null devuelve las de todas
+     * las compañías del tenant.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM DianResolution r " +
+            "WHERE r.tenantId = :tenantId " +
+            "AND (:companyId IS NULL OR r.companyId = :companyId) " +
+            "AND r.documentType = :documentType " +
+            "AND r.active = true " +
+            "AND r.validFrom <= :today " +
+            "AND r.validTo >= :today " +
+            "ORDER BY r.id")
+    List<DianResolution> findValidForUpdate(
+            @Param("tenantId") Long tenantId,
+            @Param("companyId") Long companyId,
+            @Param("documentType") DianDocumentType documentType,
+            @Param("today") LocalDate today);
 }
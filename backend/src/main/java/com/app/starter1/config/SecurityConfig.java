@@ -2,6 +2,7 @@ package com.app.starter1.config;
 
 import org.springframework.beans.factory.annotation.Value;
 import com.app.starter1.config.filter.JwtTokenValidator;
+import com.app.starter1.config.filter.VerifiedTokenCache;
 import com.app.starter1.util.JwtUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
@@ -30,6 +31,8 @@ public class SecurityConfig {
         @Autowired
         JwtUtils jwtUtils;
         @Autowired
+        VerifiedTokenCache verifiedTokenCache;
+        @Autowired
         private final AuthenticationConfiguration authenticationConfiguration;
 
         @Value("${cors.allowed.origin}")
@@ -572,7 +575,7 @@ public class SecurityConfig {
 
                                         // Configurar el resto de los endpoints (no especificados)
                                         http.anyRequest().denyAll();
-                                }).addFilterBefore(new JwtTokenValidator(jwtUtils), BasicAuthenticationFilter.class)
+                                }).addFilterBefore(new JwtTokenValidator(jwtUtils, verifiedTokenCache), BasicAuthenticationFilter.class)
                                 .build();
         }
 
@@ -6,27 +6,28 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.Collection;
+import java.nio.ByteBuffer;
+import java.util.List;
 
 public class JwtTokenValidator extends OncePerRequestFilter {
 
 
     private JwtUtils jwtUtils;
+    private VerifiedTokenCache tokenCache;
 
-    public JwtTokenValidator(JwtUtils jwtUtils) {
+    public JwtTokenValidator(JwtUtils jwtUtils, VerifiedTokenCache tokenCache) {
         this.jwtUtils = jwtUtils;
+        this.tokenCache = tokenCache;
     }
 
     @Override
@@ -37,35 +38,63 @@ public class JwtTokenValidator extends OncePerRequestFilter {
 
         String jwtToken = request.getHeader(HttpHeaders.AUTHORIZATION);
 
-        try {
-            if (jwtToken != null && jwtToken.startsWith("Bearer ")) {
-                System.out.println("Hay token: " + jwtToken);
-                jwtToken = jwtToken.substring(7); // Eliminar el prefijo "Bearer "
-
-                DecodedJWT decodedJWT = jwtUtils.validateToken(jwtToken);
-                String username = jwtUtils.extractUsernameToken(decodedJWT);
-                String authorities = jwtUtils.getSpecificClaim(decodedJWT, "authorities").asString();
-
-                Collection<? extends GrantedAuthority> grantedAuthorities = AuthorityUtils
-                        .commaSeparatedStringToAuthorityList(authorities);
-
-                SecurityContext context = SecurityContextHolder.getContext();
-                Authentication authentication = new UsernamePasswordAuthenticationToken(username, null, grantedAuthorities);
-                context.setAuthentication(authentication);
-                SecurityContextHolder.setContext(context);
-            }
-
-            filterChain.doFilter(request, response); // Continuar con la cadena de filtros
+        if (jwtToken == null || !jwtToken.startsWith("Bearer ")) {
+            filterChain.doFilter(request, response);
+            return;
+        }
 
+        long start = System.nanoTime();
+        Authentication authentication;
+        try {
+            authentication = authenticate(jwtToken.substring(7)); // Eliminar el prefijo "Bearer "
         } catch (IllegalArgumentException e) {
+            tokenCache.recordFilterTime(System.nanoTime() - start, true);
             handleErrorResponse(response, "El token no está presente o no tiene el formato correcto.");
+            return;
         } catch (com.auth0.jwt.exceptions.TokenExpiredException e) {
+            tokenCache.recordFilterTime(System.nanoTime() - start, true);
             handleErrorResponse(response, "El token ha expirado.");
+            return;
         } catch (com.auth0.jwt.exceptions.JWTVerificationException e) {
+            tokenCache.recordFilterTime(System.nanoTime() - start, true);
             handleErrorResponse(response, "El token es inválido.");
+            return;
         } catch (Exception e) {
+            tokenCache.recordFilterTime(System.nanoTime() - start, true);
             handleErrorResponse(response, "Ocurrió un error inesperado durante la validación del token.");
+            return;
+        }
+
+        SecurityContext context = SecurityContextHolder.getContext();
+        context.setAuthentication(authentication);
+        SecurityContextHolder.setContext(context);
+        tokenCache.recordFilterTime(System.nanoTime() - start, false);
+
+        filterChain.doFilter(request, response); // Continuar con la cadena de filtros
+    }
+
+    /**
+     * Authentication del token: desde la caché si ya fue verificado, si no
+     * verifica la firma y la guarda hasta que el token expire
+     */
+    private Authentication authenticate(String jwtToken) {
+        ByteBuffer key = tokenCache.keyOf(jwtToken);
+        Authentication cached = tokenCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        DecodedJWT decodedJWT = jwtUtils.validateToken(jwtToken);
+        String username = jwtUtils.extractUsernameToken(decodedJWT);
+        String authorities = jwtUtils.getSpecificClaim(decodedJWT, "authorities").asString();
+
+        List<GrantedAuthority> grantedAuthorities = tokenCache.authorities(authorities);
+        Authentication authentication = new UsernamePasswordAuthenticationToken(username, null, grantedAuthorities);
+
+        if (decodedJWT.getExpiresAt() != null) {
+            tokenCache.put(key, authentication, decodedJWT.getExpiresAt().getTime());
         }
+        return authentication;
     }
 
     private void handleErrorResponse(HttpServletResponse response, String message) throws IOException {
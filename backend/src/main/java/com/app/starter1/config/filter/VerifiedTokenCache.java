@@ -0,0 +1,160 @@
+package com.app.starter1.config.filter;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché de tokens JWT ya verificados.
+ *
+ * La clave es el SHA-256 del token (el token no se guarda) y el valor la
+ * Authentication ya construida, válida hasta la expiración del token. Las
+ * listas de authorities se comparten entre tokens con el mismo claim.
+ * También acumula la latencia del filtro y la registra cada minuto (este
+ * módulo no tiene Micrometer).
+ *
+ * Existe una copia en backend_new (com.app.config.VerifiedTokenCache) que solo
+ * difiere en cómo publica las métricas (timer y counters de Micrometer):
+ * cualquier cambio de la caché debe aplicarse en ambas.
+ */
+@Component
+@Slf4j
+public class VerifiedTokenCache {
+
+    private static final int MAX_TOKENS = 10_000;
+    private static final int MAX_AUTHORITY_SETS = 1_000;
+    private static final long REPORT_INTERVAL_MS = TimeUnit.MINUTES.toMillis(1);
+
+    private final Map<ByteBuffer, CachedToken> tokens = new ConcurrentHashMap<>();
+    private final Map<String, List<GrantedAuthority>> authoritySets = new ConcurrentHashMap<>();
+
+    private final ThreadLocal<MessageDigest> sha256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    });
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final AtomicLong nextReportAt = new AtomicLong(System.currentTimeMillis() + REPORT_INTERVAL_MS);
+
+    /**
+     * Clave de caché del token
+     */
+    public ByteBuffer keyOf(String token) {
+        MessageDigest digest = sha256.get();
+        digest.reset();
+        return ByteBuffer.wrap(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    /**
+     * Authentication del token si ya fue verificado y no ha expirado
+     */
+    public Authentication get(ByteBuffer key) {
+        CachedToken cached = tokens.get(key);
+        if (cached == null) {
+            misses.increment();
+            return null;
+        }
+        if (cached.expiresAt() <= System.currentTimeMillis()) {
+            tokens.remove(key, cached);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return cached.authentication();
+    }
+
+    public void put(ByteBuffer key, Authentication authentication, long expiresAt) {
+        if (tokens.size() >= MAX_TOKENS) {
+            evictExpired();
+            if (tokens.size() >= MAX_TOKENS) {
+                // Sin espacio: se descarta todo y se vuelve a poblar con los tokens en uso
+                tokens.clear();
+            }
+        }
+        tokens.put(key, new CachedToken(authentication, expiresAt));
+    }
+
+    /**
+     * Lista de authorities compartida para el claim "authorities"
+     */
+    public List<GrantedAuthority> authorities(String claim) {
+        String value = claim != null ? claim : "";
+        List<GrantedAuthority> cached = authoritySets.get(value);
+        if (cached != null) {
+            return cached;
+        }
+        List<GrantedAuthority> parsed = List.copyOf(AuthorityUtils.commaSeparatedStringToAuthorityList(value));
+        if (authoritySets.size() < MAX_AUTHORITY_SETS) {
+            authoritySets.putIfAbsent(value, parsed);
+        }
+        return parsed;
+    }
+
+    /**
+     * Registra la duración de una pasada por el filtro
+     */
+    public void recordFilterTime(long nanos, boolean failed) {
+        requests.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+        if (failed) {
+            failures.increment();
+        }
+
+        long now = System.currentTimeMillis();
+        long reportAt = nextReportAt.get();
+        if (now >= reportAt && nextReportAt.compareAndSet(reportAt, now + REPORT_INTERVAL_MS)) {
+            report();
+        }
+    }
+
+    public Stats getStats() {
+        long count = requests.sum();
+        return new Stats(count, hits.sum(), misses.sum(), failures.sum(), tokens.size(),
+                count > 0 ? totalNanos.sum() / count / 1000 : 0,
+                maxNanos.get() / 1000);
+    }
+
+    private void report() {
+        Stats stats = getStats();
+        log.info("JWT filter: {} peticiones, {} hits, {} misses, {} rechazos, {} tokens en caché, "
+                + "promedio {} us, máximo {} us",
+                stats.requests(), stats.hits(), stats.misses(), stats.failures(), stats.cachedTokens(),
+                stats.avgMicros(), stats.maxMicros());
+        maxNanos.reset();
+    }
+
+    private void evictExpired() {
+        long now = System.currentTimeMillis();
+        tokens.entrySet().removeIf(entry -> entry.getValue().expiresAt() <= now);
+    }
+
+    public record Stats(long requests, long hits, long misses, long failures, int cachedTokens,
+            long avgMicros, long maxMicros) {
+    }
+
+    private record CachedToken(Authentication authentication, long expiresAt) {
+    }
+}
@@ -1,15 +1,30 @@
 package com.app.starter1.controller;
 
+import com.app.starter1.dto.accounting.BalanceGeneralDTO;
+import com.app.starter1.dto.accounting.EstadoResultadosDTO;
 import com.app.starter1.dto.accounting.TrialBalanceDTO;
 import com.app.starter1.persistence.entity.AccountingLedger;
+import com.app.starter1.persistence.entity.AccountingVoucher;
 import com.app.starter1.persistence.repository.AccountingLedgerRepository;
 import com.app.starter1.persistence.repository.AccountingFiscalPeriodRepository;
+import com.app.starter1.services.AccountingBookWriter;
+import com.app.starter1.services.BalanceGeneralService;
+import com.app.starter1.services.EstadoResultadosService;
+import com.app.starter1.services.LibroDiarioService;
+import com.app.starter1.services.LibroMayorService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -25,6 +40,10 @@ public class AccountingReportController {
 
     private final AccountingLedgerRepository ledgerRepository;
     private final AccountingFiscalPeriodRepository fiscalPeriodRepository;
+    private final LibroMayorService libroMayorService;
+    private final LibroDiarioService libroDiarioService;
+    private final EstadoResultadosService estadoResultadosService;
+    private final BalanceGeneralService balanceGeneralService;
 
     /**
      * Balance de Prueba (Trial Balance)
@@ -120,6 +139,103 @@ public class AccountingReportController {
         return ResponseEntity.ok(summary);
     }
 
+    /**
+     * Exporta el Libro Mayor de una cuenta en streaming (CSV o JSON Lines)
+     */
+    @GetMapping("/libro-mayor/{accountCode}/export")
+    public void exportLibroMayor(
+            @PathVariable String accountCode,
+            @RequestParam Integer tenantId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+            @RequestParam(defaultValue = "csv") String format,
+            HttpServletResponse response) throws IOException {
+
+        AccountingBookWriter.Format exportFormat = AccountingBookWriter.Format.from(format);
+        log.info("📗 Exporting Libro Mayor for account: {}, {} - {} as {}", accountCode, fromDate, toDate,
+                exportFormat);
+
+        prepareExportResponse(response, exportFormat,
+                "libro-mayor-" + accountCode + "-" + fromDate + "-" + toDate);
+        libroMayorService.exportLibroMayor(accountCode, fromDate, toDate, tenantId, exportFormat,
+                response.getOutputStream());
+    }
+
+    /**
+     * Exporta el Libro Diario en streaming (CSV o JSON Lines)
+     */
+    @GetMapping("/libro-diario/export")
+    public void exportLibroDiario(
+            @RequestParam Integer tenantId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+            @RequestParam(required = false) AccountingVoucher.VoucherType voucherType,
+            @RequestParam(defaultValue = "csv") String format,
+            HttpServletResponse response) throws IOException {
+
+        AccountingBookWriter.Format exportFormat = AccountingBookWriter.Format.from(format);
+        log.info("📘 Exporting Libro Diario for tenant: {}, {} - {} as {}", tenantId, fromDate, toDate,
+                exportFormat);
+
+        prepareExportResponse(response, exportFormat, "libro-diario-" + fromDate + "-" + toDate);
+        libroDiarioService.exportLibroDiario(fromDate, toDate, voucherType, tenantId, exportFormat,
+                response.getOutputStream());
+    }
+
+    /**
+     * Estado de Resultados de un rango de fechas
+     */
+    @GetMapping("/reports/estado-resultados")
+    public ResponseEntity<EstadoResultadosDTO> getEstadoResultados(
+            @RequestParam Integer tenantId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate) {
+
+        return ResponseEntity.ok(estadoResultadosService.getEstadoResultados(fromDate, toDate, tenantId));
+    }
+
+    /**
+     * Estado de Resultados comparativo, un estado por mes entre from y to (AAAA-MM)
+     */
+    @GetMapping("/reports/estado-resultados/mensual")
+    public ResponseEntity<List<EstadoResultadosDTO>> getEstadoResultadosMensual(
+            @RequestParam Integer tenantId,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth to) {
+
+        return ResponseEntity.ok(estadoResultadosService.getEstadoResultadosMensual(from, to, tenantId));
+    }
+
+    /**
+     * Balance General a una fecha
+     */
+    @GetMapping("/reports/balance-general")
+    public ResponseEntity<BalanceGeneralDTO> getBalanceGeneral(
+            @RequestParam Integer tenantId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate asOfDate) {
+
+        return ResponseEntity.ok(balanceGeneralService.getBalanceGeneral(asOfDate, tenantId));
+    }
+
+    /**
+     * Balance General comparativo al cierre de cada mes indicado (AAAA-MM, separados por coma)
+     */
+    @GetMapping("/reports/balance-general/comparativo")
+    public ResponseEntity<List<BalanceGeneralDTO>> getBalanceGeneralComparativo(
+            @RequestParam Integer tenantId,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") List<YearMonth> months) {
+
+        return ResponseEntity.ok(balanceGeneralService.getBalanceGeneralComparativo(months, tenantId));
+    }
+
+    private void prepareExportResponse(HttpServletResponse response, AccountingBookWriter.Format format,
+            String fileName) {
+        response.setContentType(format.getContentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + fileName + "." + format.getExtension() + "\"");
+    }
+
     /**
      * DTO interno para resumen del balance
      */
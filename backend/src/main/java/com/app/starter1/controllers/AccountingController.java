@@ -4,13 +4,17 @@ import com.app.starter1.persistence.entity.AccountingFiscalPeriod;
 import com.app.starter1.persistence.entity.AccountingLedger;
 import com.app.starter1.persistence.repository.AccountingFiscalPeriodRepository;
 import com.app.starter1.persistence.repository.AccountingLedgerRepository;
+import com.app.starter1.services.AccountBalanceCubeService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.YearMonth;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/accounting")
@@ -20,6 +24,7 @@ public class AccountingController {
 
     private final AccountingLedgerRepository ledgerRepository;
     private final AccountingFiscalPeriodRepository periodRepository;
+    private final AccountBalanceCubeService balanceCubeService;
 
     @GetMapping("/periods")
     @PreAuthorize("hasAnyRole('ADMIN', 'ACCOUNTANT')")
@@ -38,6 +43,17 @@ public class AccountingController {
         return ResponseEntity.ok(ledgerRepository.findByTenantIdAndFiscalPeriodId(tenantId, periodId));
     }
 
+    @PostMapping("/balance-cube/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> rebuildBalanceCube(
+            @RequestParam Integer tenantId,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth to) {
+        int rows = balanceCubeService.rebuild(tenantId, from, to);
+        return ResponseEntity.ok(Map.of("tenantId", tenantId, "from", from.toString(), "to", to.toString(),
+                "rows", rows));
+    }
+
     @PostMapping("/periods/close")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> closePeriod(@RequestParam Long periodId) {
@@ -11,6 +11,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Controlador para Comprobantes Contables
@@ -68,6 +69,14 @@ public class AccountingVoucherController {
         return ResponseEntity.ok(service.postVoucher(id));
     }
 
+    @PostMapping("/post")
+    @PreAuthorize("hasAnyRole('SUPERADMIN', 'ADMIN')")
+    public ResponseEntity<Map<String, Object>> postVouchers(@RequestBody List<Long> ids) {
+        log.info("POST /accounting/vouchers/post - {} vouchers", ids.size());
+        List<Long> posted = service.postVouchers(ids);
+        return ResponseEntity.ok(Map.of("posted", posted.size(), "voucherIds", posted));
+    }
+
     @PostMapping("/{id}/void")
     @PreAuthorize("hasAnyRole('SUPERADMIN', 'ADMIN')")
     public ResponseEntity<VoucherResponseDTO> voidVoucher(@PathVariable Long id) {
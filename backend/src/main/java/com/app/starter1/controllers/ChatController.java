@@ -25,22 +25,24 @@ public class ChatController {
     private final UserMethods userMethods;
 
     /**
-     * GET /api/chat/contacts/{platform}
-     * Obtener contactos agrupados por stage para una plataforma
+     * GET /api/chat/contacts/{platform}?cursor=&limit=
+     * Obtener contactos agrupados por stage para una plataforma (paginado por cursor)
      */
     @GetMapping("/contacts/{platform}")
     public ResponseEntity<ContactGroupDTO> getContactsByPlatform(
-            @PathVariable String platform) {
+            @PathVariable String platform,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
 
         try {
             Long tenantId = userMethods.getTenantId();
             MessagePlatform messagePlatform = MessagePlatform.valueOf(platform.toUpperCase());
 
-            ContactGroupDTO contacts = chatService.getContactsByPlatform(tenantId, messagePlatform);
+            ContactGroupDTO contacts = chatService.getContactsByPlatform(tenantId, messagePlatform, cursor, limit);
             return ResponseEntity.ok(contacts);
 
         } catch (IllegalArgumentException e) {
-            log.error("Invalid platform: {}", platform);
+            log.error("Invalid platform or cursor: {} {}", platform, cursor);
             return ResponseEntity.badRequest().build();
         }
     }
@@ -60,6 +62,22 @@ public class ChatController {
         return ResponseEntity.ok(messages);
     }
 
+    /**
+     * GET /api/chat/messages/{conversationId}/history?before=&after=&limit=
+     * Historial paginado por id: sin parámetros los más recientes, "before"
+     * para cargar anteriores y "after" para los nuevos
+     */
+    @GetMapping("/messages/{conversationId}/history")
+    public ResponseEntity<MessagePageDTO> getMessageHistory(
+            @PathVariable String conversationId,
+            @RequestParam(required = false) Long before,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "50") int limit) {
+
+        Long tenantId = userMethods.getTenantId();
+        return ResponseEntity.ok(chatService.getMessageHistory(tenantId, conversationId, before, after, limit));
+    }
+
     /**
      * POST /api/chat/messages
      * Guardar mensaje nuevo (llamado por Socket.IO microservice)
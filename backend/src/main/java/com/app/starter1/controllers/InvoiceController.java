@@ -31,9 +31,10 @@ public class InvoiceController {
         return ResponseEntity.ok(invoiceService.getInvoiceById(id));
     }
 
+    // Anula la factura: conserva su consecutivo, no se borra
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteInvoice(@PathVariable Long id) {
-        invoiceService.deleteInvoice(id);
+        invoiceService.voidInvoice(id);
         return ResponseEntity.noContent().build();
     }
 }
@@ -0,0 +1,71 @@
+package com.app.starter1.controllers;
+
+import com.app.starter1.persistence.entity.PayrollJob;
+import com.app.starter1.persistence.entity.PayrollJobError;
+import com.app.starter1.services.PayrollJobService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+/**
+ * Procesos masivos de nómina en segundo plano (procesar, liquidar, enviar colillas)
+ */
+@RestController
+@RequestMapping("/api/hr/payroll")
+@RequiredArgsConstructor
+public class PayrollJobController {
+
+    private final PayrollJobService jobService;
+
+    /**
+     * Encola un proceso masivo y devuelve el job para consultar su avance
+     */
+    @PostMapping("/periods/{periodId}/jobs")
+    public ResponseEntity<PayrollJob> submitJob(
+            @PathVariable Long periodId,
+            @RequestParam Long customerId,
+            @RequestParam PayrollJob.JobType type) {
+
+        PayrollJob job = jobService.submit(type, periodId, customerId);
+        return ResponseEntity.accepted().body(job);
+    }
+
+    @GetMapping("/periods/{periodId}/jobs")
+    public ResponseEntity<List<PayrollJob>> getJobsForPeriod(
+            @PathVariable Long periodId,
+            @RequestParam Long customerId) {
+
+        return ResponseEntity.ok(jobService.getJobsForPeriod(periodId, customerId));
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<PayrollJob> getJob(
+            @PathVariable Long jobId,
+            @RequestParam Long customerId) {
+
+        return ResponseEntity.ok(jobService.getJob(jobId, customerId));
+    }
+
+    @GetMapping("/jobs/{jobId}/errors")
+    public ResponseEntity<List<PayrollJobError>> getJobErrors(
+            @PathVariable Long jobId,
+            @RequestParam Long customerId) {
+
+        return ResponseEntity.ok(jobService.getErrors(jobId, customerId));
+    }
+
+    /**
+     * Stream SSE con el estado del job hasta que termine
+     */
+    @GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamJob(
+            @PathVariable Long jobId,
+            @RequestParam Long customerId) {
+
+        return jobService.stream(jobId, customerId);
+    }
+}
@@ -4,13 +4,16 @@ import com.app.starter1.dto.hr.PayrollReceiptDTO;
 import com.app.starter1.persistence.entity.PayrollReceipt;
 import com.app.starter1.services.PayrollProcessingService;
 import com.app.starter1.services.PayrollNotificationService;
+import com.app.starter1.services.PayrollPdfBatchService;
 import com.app.starter1.persistence.repository.PayrollReceiptRepository;
 import com.app.starter1.persistence.repository.PayrollPeriodRepository;
 import com.app.starter1.persistence.repository.CustomerRepository;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -22,6 +25,7 @@ public class PayrollProcessingController {
 
         private final PayrollProcessingService processingService;
         private final PayrollNotificationService notificationService;
+        private final PayrollPdfBatchService pdfBatchService;
         private final PayrollReceiptRepository receiptRepository;
         private final PayrollPeriodRepository periodRepository;
         private final CustomerRepository customerRepository;
@@ -148,6 +152,24 @@ public class PayrollProcessingController {
                                 .body(pdfBytes);
         }
 
+        /**
+         * Descarga los comprobantes de todo el período en un ZIP o en un solo PDF
+         */
+        @GetMapping("/periods/{periodId}/receipts/pdf")
+        public void downloadPeriodReceiptsPdf(
+                        @PathVariable Long periodId,
+                        @RequestParam Long customerId,
+                        @RequestParam(defaultValue = "zip") String format,
+                        HttpServletResponse response) throws IOException {
+
+                PayrollPdfBatchService.Format exportFormat = PayrollPdfBatchService.Format.from(format);
+
+                response.setContentType(exportFormat.getContentType());
+                response.setHeader("Content-Disposition",
+                                "attachment; filename=nomina_periodo_" + periodId + "." + exportFormat.getExtension());
+                pdfBatchService.exportPeriod(periodId, customerId, exportFormat, response.getOutputStream());
+        }
+
         private PayrollReceiptDTO convertToDTO(PayrollReceipt receipt) {
                 PayrollReceiptDTO.DevengosDTO devengos = PayrollReceiptDTO.DevengosDTO.builder()
                                 .salario(receipt.getSalaryAmount())
@@ -2,7 +2,9 @@ package com.app.starter1.controllers;
 
 import com.app.starter1.dto.ProductRequestDTO;
 import com.app.starter1.dto.ProductResponseDTO;
+import com.app.starter1.persistence.entity.StockMovement;
 import com.app.starter1.persistence.services.ProductService;
+import com.app.starter1.persistence.services.StockLedgerService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -13,9 +15,11 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
+    private final StockLedgerService stockLedgerService;
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, StockLedgerService stockLedgerService) {
         this.productService = productService;
+        this.stockLedgerService = stockLedgerService;
     }
 
     // Crear o actualizar producto
@@ -73,4 +77,28 @@ public class ProductController {
         List<ProductResponseDTO> products = productService.searchByName(query, tenantId);
         return ResponseEntity.ok(products);
     }
+
+    /*
+     * ------------------------------ Inventario ------------------------------
+     */
+
+    /**
+     * Últimos movimientos de inventario del producto
+     */
+    @GetMapping("/{id}/movimientos")
+    public ResponseEntity<List<StockMovement>> getStockMovements(
+            @PathVariable Long id,
+            @RequestParam Long tenantId,
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(stockLedgerService.getMovements(tenantId, id, limit));
+    }
+
+    /**
+     * Productos cuyo stock no coincide con el saldo del último movimiento
+     */
+    @GetMapping("/stock/conciliacion")
+    public ResponseEntity<List<StockLedgerService.StockDiscrepancy>> getStockDiscrepancies(
+            @RequestParam Long tenantId) {
+        return ResponseEntity.ok(stockLedgerService.findDiscrepancies(tenantId));
+    }
 }
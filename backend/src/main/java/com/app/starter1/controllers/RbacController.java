@@ -1,6 +1,7 @@
 package com.app.starter1.controllers;
 
 import com.app.starter1.dto.rbac.*;
+import com.app.starter1.services.rbac.RbacCache;
 import com.app.starter1.services.rbac.RbacService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -12,6 +13,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -211,6 +213,15 @@ public class RbacController {
         return ResponseEntity.ok(rbacService.getAllModulesWithActions());
     }
 
+    /**
+     * RBAC cache hit/miss counters
+     */
+    @GetMapping("/cache/stats")
+    @PreAuthorize("hasRole('SUPERADMIN')")
+    public ResponseEntity<Map<String, RbacCache.CacheStats>> getCacheStats() {
+        return ResponseEntity.ok(rbacService.getCacheStats());
+    }
+
     // ========================
     // HELPERS
     // ========================
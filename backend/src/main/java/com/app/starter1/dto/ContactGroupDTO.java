@@ -15,6 +15,9 @@ import java.util.Map;
 public class ContactGroupDTO {
     private Map<String, List<ContactCardDTO>> groups;
 
+    // Cursor para pedir la siguiente página del inbox (null si no hay más)
+    private String nextCursor;
+
     // Constructor helper
     public static ContactGroupDTO of(Map<String, List<ContactCardDTO>> groups) {
         return ContactGroupDTO.builder()
@@ -0,0 +1,26 @@
+package com.app.starter1.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Página de mensajes de una conversación paginada por id.
+ * Los mensajes van en orden cronológico (más antiguo primero).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessagePageDTO {
+    private List<MessageDTO> messages;
+    // Pasar como "before" para cargar mensajes anteriores
+    private Long oldestId;
+    // Pasar como "after" para cargar mensajes posteriores
+    private Long newestId;
+    // Indica si quedan más mensajes en la dirección pedida
+    private boolean hasMore;
+}
@@ -35,6 +35,7 @@ public class ProductRequestDTO {
     private String allowBackorders; // NO, ALLOW, ALLOW_NOTIFY
 
     private Integer inventoryQty;
+    private Integer expectedInventoryQty; // stock que el formulario leyó; requerido para cambiar inventoryQty
 
     private Boolean soldIndividually;
 
@@ -0,0 +1,72 @@
+package com.app.starter1.persistence.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Saldos mensuales pre-agregados por cuenta y centro de costo.
+ * Se mantiene de forma incremental al contabilizar/anular comprobantes y
+ * alimenta el Estado de Resultados y el Balance General.
+ */
+@Entity
+@Table(name = "account_balance_cube", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_balance_cube_key", columnNames = { "tenant_id", "period_yyyymm", "account_code",
+                "cost_center_id" })
+}, indexes = {
+        @Index(name = "idx_balance_cube_tenant_period", columnList = "tenant_id, period_yyyymm")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AccountBalanceCube {
+
+    /**
+     * Valor de cost_center_id para movimientos sin centro de costo
+     * (evita NULL dentro de la llave única)
+     */
+    public static final long NO_COST_CENTER = 0L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tenant_id", nullable = false)
+    private Integer tenantId;
+
+    /**
+     * Período en formato AAAAMM (ej. 202501)
+     */
+    @Column(name = "period_yyyymm", nullable = false)
+    private Integer periodYyyymm;
+
+    @Column(name = "account_code", nullable = false, length = 10)
+    private String accountCode;
+
+    @Column(name = "cost_center_id", nullable = false)
+    @Builder.Default
+    private Long costCenterId = NO_COST_CENTER;
+
+    @Column(name = "debit_amount", precision = 15, scale = 2, nullable = false)
+    @Builder.Default
+    private BigDecimal debitAmount = BigDecimal.ZERO;
+
+    @Column(name = "credit_amount", precision = 15, scale = 2, nullable = false)
+    @Builder.Default
+    private BigDecimal creditAmount = BigDecimal.ZERO;
+
+    @Column(name = "last_updated")
+    private LocalDateTime lastUpdated;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        lastUpdated = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,30 @@
+package com.app.starter1.persistence.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Tenants cuyo cubo de saldos ya se cargó completo desde accounting_entries.
+ * Desde entonces el cubo se mantiene de forma incremental y el arranque no
+ * vuelve a cargarlo.
+ */
+@Entity
+@Table(name = "account_balance_cube_backfill")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AccountBalanceCubeBackfill {
+
+    @Id
+    @Column(name = "tenant_id")
+    private Integer tenantId;
+
+    @Column(name = "completed_at", nullable = false)
+    private LocalDateTime completedAt;
+}
@@ -7,13 +7,18 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 /**
  * Entidad que representa un Movimiento Contable (línea de un comprobante)
  */
 @Entity
-@Table(name = "accounting_entries")
+@Table(name = "accounting_entries", indexes = {
+        // Cubren las sumas por cuenta de los reportes sin leer la tabla ni unir comprobantes
+        @Index(name = "idx_entry_tenant_account_date", columnList = "tenant_id, voucher_status, account_code, voucher_date, debit_amount, credit_amount"),
+        @Index(name = "idx_entry_tenant_date", columnList = "tenant_id, voucher_status, voucher_date, account_code, debit_amount, credit_amount")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -31,6 +36,25 @@ public class AccountingEntry {
     @JoinColumn(name = "voucher_id", nullable = false)
     private AccountingVoucher voucher;
 
+    /**
+     * Copia de AccountingVoucher.tenantId para filtrar reportes sin unir comprobantes
+     */
+    @Column(name = "tenant_id")
+    private Integer tenantId;
+
+    /**
+     * Copia de AccountingVoucher.date
+     */
+    @Column(name = "voucher_date")
+    private LocalDate voucherDate;
+
+    /**
+     * Copia de AccountingVoucher.status
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "voucher_status", length = 20)
+    private AccountingVoucher.VoucherStatus voucherStatus;
+
     /**
      * Número de línea dentro del comprobante
      */
@@ -96,6 +120,23 @@ public class AccountingEntry {
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
+        syncFromVoucher();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        syncFromVoucher();
+    }
+
+    /**
+     * Copia tenant, fecha y estado del comprobante a las columnas desnormalizadas
+     */
+    public void syncFromVoucher() {
+        if (voucher != null) {
+            tenantId = voucher.getTenantId();
+            voucherDate = voucher.getDate();
+            voucherStatus = voucher.getStatus();
+        }
     }
 
     /**
@@ -1,5 +1,6 @@
 package com.app.starter1.persistence.entity;
 
+import com.app.starter1.util.PhoneNumbers;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -10,7 +11,11 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "contacts")
+@Table(name = "contacts", indexes = {
+        @Index(name = "idx_contacts_tenant_phone_suffix", columnList = "tenant_id, phone_suffix"),
+        // Contactos pendientes de indexar (ContactPhoneIndexer)
+        @Index(name = "idx_contacts_phone_suffix", columnList = "phone_suffix")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -28,6 +33,13 @@ public class Contact {
 
     private String phone;
 
+    // Teléfono en E.164 y sus últimos dígitos, derivados de phone (ver PhoneNumbers)
+    @Column(name = "phone_normalized", length = 20)
+    private String phoneNormalized;
+
+    @Column(name = "phone_suffix", length = 10)
+    private String phoneSuffix;
+
     private String address;
 
     private String taxId; // RUC, DNI, etc.
@@ -157,10 +169,20 @@ public class Contact {
     protected void onCreate() {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
+        indexPhone();
     }
 
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
+        indexPhone();
+    }
+
+    /**
+     * Recalcula phoneNormalized y phoneSuffix a partir de phone
+     */
+    public void indexPhone() {
+        phoneNormalized = PhoneNumbers.toE164(phone);
+        phoneSuffix = phone != null ? PhoneNumbers.suffix(phone) : null;
     }
 }
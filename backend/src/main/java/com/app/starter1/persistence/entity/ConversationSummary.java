@@ -0,0 +1,75 @@
+package com.app.starter1.persistence.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Modelo de lectura del inbox: una fila por conversación con el último
+ * mensaje, los no leídos y una copia de los datos del contacto.
+ * Se mantiene desde ConversationSummaryService.
+ */
+@Entity
+@Table(name = "conversation_summary", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_conv_summary_conversation", columnNames = {
+                "tenant_id", "platform", "conversation_id" })
+}, indexes = {
+        @Index(name = "idx_conv_summary_inbox", columnList = "tenant_id, platform, last_message_time, id"),
+        @Index(name = "idx_conv_summary_contact", columnList = "tenant_id, contact_id")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConversationSummary {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tenant_id", nullable = false)
+    private Long tenantId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "platform", length = 40, nullable = false)
+    private MessagePlatform platform;
+
+    @Column(name = "conversation_id", length = 100, nullable = false)
+    private String conversationId;
+
+    // Copia del contacto al momento del último mensaje
+    @Column(name = "contact_id")
+    private Long contactId;
+
+    @Column(name = "contact_name")
+    private String contactName;
+
+    @Column(name = "contact_avatar_url", length = 500)
+    private String contactAvatarUrl;
+
+    @Column(name = "contact_stage", length = 50)
+    private String contactStage;
+
+    @Column(name = "external_id", length = 200)
+    private String externalId;
+
+    // Último mensaje
+    @Column(name = "last_message_id", nullable = false)
+    private Long lastMessageId;
+
+    @Column(name = "last_message", length = 500)
+    private String lastMessage;
+
+    @Column(name = "last_message_time", nullable = false)
+    private LocalDateTime lastMessageTime;
+
+    @Column(name = "unread_count", nullable = false)
+    private Integer unreadCount;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
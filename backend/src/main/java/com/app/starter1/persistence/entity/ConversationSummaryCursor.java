@@ -0,0 +1,41 @@
+package com.app.starter1.persistence.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Hasta qué mensaje llegó la puesta al día de conversation_summary para un
+ * tenant y plataforma. Solo lo avanza ConversationSummaryService.catchUp.
+ */
+@Entity
+@Table(name = "conversation_summary_cursor", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_conv_summary_cursor", columnNames = { "tenant_id", "platform" })
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConversationSummaryCursor {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tenant_id", nullable = false)
+    private Long tenantId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "platform", length = 40, nullable = false)
+    private MessagePlatform platform;
+
+    @Column(name = "last_message_id", nullable = false)
+    private Long lastMessageId;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,52 @@
+package com.app.starter1.persistence.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Ventas acumuladas por tenant, compañía y día. SalesAggregateService la
+ * actualiza en la misma transacción que crea o anula la orden; las órdenes
+ * anuladas no suman. company_id es 0 para las órdenes sin compañía (POS).
+ */
+@Entity
+@Table(name = "daily_sales", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_daily_sales", columnNames = { "tenant_id", "company_id", "sales_date" })
+}, indexes = {
+        @Index(name = "idx_daily_sales_date", columnList = "sales_date")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailySales {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tenant_id", nullable = false)
+    private Long tenantId;
+
+    @Column(name = "company_id", nullable = false)
+    @Builder.Default
+    private Long companyId = 0L;
+
+    @Column(name = "sales_date", nullable = false)
+    private LocalDate salesDate;
+
+    @Column(name = "order_count", nullable = false)
+    private Integer orderCount;
+
+    @Column(name = "revenue", nullable = false, precision = 19, scale = 2)
+    private BigDecimal revenue;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
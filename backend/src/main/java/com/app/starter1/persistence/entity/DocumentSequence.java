@@ -0,0 +1,58 @@
+package com.app.starter1.persistence.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Consecutivo por tenant y tipo de documento. next_value es el primer número
+ * que aún no se ha entregado a ningún nodo; DocumentSequenceService lo avanza
+ * de a bloques.
+ */
+@Entity
+@Table(name = "document_sequences", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_document_sequence", columnNames = { "tenant_id", "document_type", "series" })
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentSequence {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tenant_id", nullable = false)
+    private Long tenantId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "document_type", length = 30, nullable = false)
+    private DocumentType documentType;
+
+    // Subserie dentro del tipo (ej: tipo de comprobante); "" si no aplica
+    @Column(name = "series", length = 30, nullable = false)
+    @Builder.Default
+    private String series = "";
+
+    @Column(name = "next_value", nullable = false)
+    private Long nextValue;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public enum DocumentType {
+        ORDER_INVOICE, // Factura POS
+        INVOICE, // Factura de venta sin resolución DIAN
+        ACCOUNTING_VOUCHER, // Comprobante contable (serie = tipo)
+        CREDIT_NOTE, // Nota crédito sin resolución DIAN
+        DEBIT_NOTE, // Nota débito sin resolución DIAN
+        SUPPORT_DOCUMENT // Documento soporte sin resolución DIAN
+    }
+}
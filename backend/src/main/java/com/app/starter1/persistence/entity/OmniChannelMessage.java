@@ -11,7 +11,7 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "omni_channel_messages", indexes = {
         @Index(name = "idx_msg_tenant_contact", columnList = "tenant_id, contact_id"),
-        @Index(name = "idx_msg_tenant_conv", columnList = "tenant_id, internal_conversation_id"),
+        @Index(name = "idx_msg_tenant_conv", columnList = "tenant_id, internal_conversation_id, id"),
         @Index(name = "idx_msg_platform_conv", columnList = "platform, external_conversation_id"),
         @Index(name = "idx_msg_created_at", columnList = "created_at")
 })
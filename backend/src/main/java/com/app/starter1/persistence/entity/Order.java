@@ -26,6 +26,10 @@ public class Order {
     @Column(nullable = false, name = "tenant_id")
     private Long tenantId;
 
+    // Lo asigna backend_new; las ventas POS no tienen compañía
+    @Column(name = "company_id", insertable = false, updatable = false)
+    private Long companyId;
+
     @Column(name = "customer_id")
     private Long customerId; // Opcional - puede ser venta sin cliente
 
@@ -0,0 +1,101 @@
+package com.app.starter1.persistence.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Proceso masivo de nómina ejecutado en segundo plano (procesamiento,
+ * liquidación o envío de colillas) con su avance y punto de reanudación
+ */
+@Entity
+@Table(name = "payroll_jobs", indexes = {
+        @Index(name = "idx_payroll_job_period_type_status", columnList = "payroll_period_id, job_type, status"),
+        @Index(name = "idx_payroll_job_status", columnList = "status")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PayrollJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "customer_id", nullable = false)
+    private Long customerId;
+
+    @Column(name = "payroll_period_id", nullable = false)
+    private Long periodId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "job_type", length = 20, nullable = false)
+    private JobType jobType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 20, nullable = false)
+    @Builder.Default
+    private JobStatus status = JobStatus.QUEUED;
+
+    // === AVANCE ===
+    @Column(name = "total_items", nullable = false)
+    @Builder.Default
+    private Integer totalItems = 0;
+
+    @Column(name = "processed_items", nullable = false)
+    @Builder.Default
+    private Integer processedItems = 0;
+
+    @Column(name = "error_count", nullable = false)
+    @Builder.Default
+    private Integer errorCount = 0;
+
+    @Column(name = "last_employee_id")
+    private Long lastEmployeeId; // Último empleado confirmado (punto de reanudación)
+
+    @Column(name = "attempts", nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    @Column(name = "message", columnDefinition = "TEXT")
+    private String message;
+
+    // === FECHAS DE CONTROL ===
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public enum JobType {
+        PROCESS, // Procesamiento de nómina (recibos)
+        LIQUIDATE, // Liquidación del período
+        SEND_RECEIPTS // Envío masivo de colillas
+    }
+
+    public enum JobStatus {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    public boolean isFinished() {
+        return status == JobStatus.COMPLETED || status == JobStatus.FAILED;
+    }
+}
@@ -48,6 +48,8 @@ public class Product {
     @Column(length = 20)
     private String allowBackorders;      // NO, ALLOW, ALLOW_NOTIFY
 
+    // Solo se modifica con StockLedgerService (UPDATE atómico + stock_movements)
+    @Column(updatable = false)
     private Integer inventoryQty;
 
     private Boolean soldIndividually;
@@ -0,0 +1,64 @@
+package com.app.starter1.persistence.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Movimiento de inventario (solo inserción). Cada cambio de inventory_qty
+ * hecho por StockLedgerService deja un registro con la cantidad (negativa en
+ * salidas) y el saldo resultante, que sirve para auditar y conciliar.
+ */
+@Entity
+@Table(name = "stock_movements", indexes = {
+        @Index(name = "idx_stock_movement_product", columnList = "tenant_id, product_id, id"),
+        @Index(name = "idx_stock_movement_reference", columnList = "reference_type, reference_id")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMovement {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tenant_id", nullable = false)
+    private Long tenantId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "movement_type", length = 30, nullable = false)
+    private MovementType movementType;
+
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+
+    @Column(name = "balance_after", nullable = false)
+    private Integer balanceAfter;
+
+    // Documento que originó el movimiento (ORDER, PRODUCT)
+    @Column(name = "reference_type", length = 30)
+    private String referenceType;
+
+    @Column(name = "reference_id")
+    private Long referenceId;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public enum MovementType {
+        SALE, // Venta POS
+        SALE_CANCELLATION, // Anulación de venta
+        ADJUSTMENT // Ajuste manual desde el producto
+    }
+}
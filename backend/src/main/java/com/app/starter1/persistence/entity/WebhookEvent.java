@@ -0,0 +1,73 @@
+package com.app.starter1.persistence.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento de webhook recibido y pendiente de procesar. El webhook responde al
+ * guardar el registro; el procesamiento ocurre por lotes en segundo plano.
+ * Un nodo reclama el lote (PROCESSING, owner) antes de procesarlo.
+ */
+@Entity
+@Table(name = "webhook_events", indexes = {
+        @Index(name = "idx_webhook_event_source_status", columnList = "source, status, id"),
+        @Index(name = "idx_webhook_event_status_processed", columnList = "status, processed_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebhookEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "source", length = 20, nullable = false)
+    private String source; // FACEBOOK
+
+    @Column(name = "payload", columnDefinition = "MEDIUMTEXT", nullable = false)
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 20, nullable = false)
+    @Builder.Default
+    private EventStatus status = EventStatus.PENDING;
+
+    @Column(name = "error", length = 1000)
+    private String error;
+
+    // Intentos fallidos; el evento sigue PENDING hasta agotar los reintentos
+    @Column(name = "attempts", nullable = false, columnDefinition = "INT NOT NULL DEFAULT 0")
+    @Builder.Default
+    private Integer attempts = 0;
+
+    // PENDING: antes de esta hora no se reintenta (backoff), null = listo.
+    // PROCESSING: vence el reclamo; después otro nodo puede tomarlo
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    // Nodo que reclamó el evento mientras está PROCESSING
+    @Column(name = "owner", length = 64)
+    private String owner;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    public enum EventStatus {
+        PENDING,
+        PROCESSING,
+        PROCESSED,
+        FAILED
+    }
+}
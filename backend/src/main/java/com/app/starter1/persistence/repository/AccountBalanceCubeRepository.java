@@ -0,0 +1,45 @@
+package com.app.starter1.persistence.repository;
+
+import com.app.starter1.persistence.entity.AccountBalanceCube;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AccountBalanceCubeRepository extends JpaRepository<AccountBalanceCube, Long> {
+
+    /**
+     * Suma débitos y créditos por cuenta para un rango de períodos AAAAMM (inclusive)
+     */
+    @Query("SELECT c.accountCode AS accountCode, " +
+            "COALESCE(SUM(c.debitAmount), 0) AS debitTotal, " +
+            "COALESCE(SUM(c.creditAmount), 0) AS creditTotal " +
+            "FROM AccountBalanceCube c " +
+            "WHERE c.tenantId = :tenantId " +
+            "AND c.periodYyyymm BETWEEN :fromPeriod AND :toPeriod " +
+            "GROUP BY c.accountCode")
+    List<AccountMovementSummary> sumByAccount(
+            @Param("tenantId") Integer tenantId,
+            @Param("fromPeriod") Integer fromPeriod,
+            @Param("toPeriod") Integer toPeriod);
+
+    /**
+     * Suma débitos y créditos por período y cuenta para un rango de períodos AAAAMM.
+     * Cada fila contiene: periodYyyymm, accountCode, debitTotal, creditTotal
+     */
+    @Query("SELECT c.periodYyyymm, c.accountCode, " +
+            "COALESCE(SUM(c.debitAmount), 0), " +
+            "COALESCE(SUM(c.creditAmount), 0) " +
+            "FROM AccountBalanceCube c " +
+            "WHERE c.tenantId = :tenantId " +
+            "AND c.periodYyyymm BETWEEN :fromPeriod AND :toPeriod " +
+            "GROUP BY c.periodYyyymm, c.accountCode " +
+            "ORDER BY c.periodYyyymm ASC")
+    List<Object[]> sumByPeriodAndAccount(
+            @Param("tenantId") Integer tenantId,
+            @Param("fromPeriod") Integer fromPeriod,
+            @Param("toPeriod") Integer toPeriod);
+}
@@ -0,0 +1,12 @@
+package com.app.starter1.persistence.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Proyección con la suma de débitos y créditos de una cuenta
+ */
+public interface AccountMovementSummary {
+    String getAccountCode();
+    BigDecimal getDebitTotal();
+    BigDecimal getCreditTotal();
+}
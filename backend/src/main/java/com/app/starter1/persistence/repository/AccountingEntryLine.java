@@ -0,0 +1,24 @@
+package com.app.starter1.persistence.repository;
+
+import com.app.starter1.persistence.entity.AccountingVoucher;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Proyección plana de un movimiento contable con los datos de su comprobante,
+ * usada para recorrer los libros sin cargar entidades
+ */
+public interface AccountingEntryLine {
+    LocalDate getDate();
+    AccountingVoucher.VoucherType getVoucherType();
+    String getVoucherNumber();
+    Long getVoucherId();
+    String getAccountCode();
+    String getAccountName();
+    Long getThirdPartyId();
+    String getThirdPartyName();
+    String getDescription();
+    BigDecimal getDebitAmount();
+    BigDecimal getCreditAmount();
+}
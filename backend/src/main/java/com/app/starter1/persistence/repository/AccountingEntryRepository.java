@@ -2,13 +2,20 @@ package com.app.starter1.persistence.repository;
 
 import com.app.starter1.persistence.entity.AccountingEntry;
 import com.app.starter1.persistence.entity.AccountingVoucher;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository para AccountingEntry
@@ -16,15 +23,22 @@ import java.util.List;
 @Repository
 public interface AccountingEntryRepository extends JpaRepository<AccountingEntry, Long> {
 
+        /**
+         * Integer.MIN_VALUE indica a Connector/J que entregue las filas en streaming
+         */
+        String STREAMING_FETCH_SIZE = "-2147483648";
+
         /**
          * Encuentra movimientos por cuenta y rango de fechas
          */
         @Query("SELECT e FROM AccountingEntry e " +
-                        "WHERE e.account.code = :accountCode " +
-                        "AND e.voucher.date BETWEEN :fromDate AND :toDate " +
-                        "AND e.voucher.status = :status " +
-                        "ORDER BY e.voucher.date ASC, e.voucher.id ASC, e.lineNumber ASC")
-        List<AccountingEntry> findByAccountCodeAndVoucherDateBetweenAndVoucherStatusOrderByVoucherDateAscVoucherIdAsc(
+                        "WHERE e.tenantId = :tenantId " +
+                        "AND e.voucherStatus = :status " +
+                        "AND e.account.code = :accountCode " +
+                        "AND e.voucherDate BETWEEN :fromDate AND :toDate " +
+                        "ORDER BY e.voucherDate ASC, e.voucher.id ASC, e.lineNumber ASC")
+        List<AccountingEntry> findByTenantIdAndAccountCodeAndVoucherDateBetweenAndVoucherStatus(
+                        @Param("tenantId") Integer tenantId,
                         @Param("accountCode") String accountCode,
                         @Param("fromDate") LocalDate fromDate,
                         @Param("toDate") LocalDate toDate,
@@ -34,11 +48,13 @@ public interface AccountingEntryRepository extends JpaRepository<AccountingEntry
          * Encuentra movimientos anteriores a una fecha (para saldo inicial)
          */
         @Query("SELECT e FROM AccountingEntry e " +
-                        "WHERE e.account.code = :accountCode " +
-                        "AND e.voucher.date < :beforeDate " +
-                        "AND e.voucher.status = :status " +
-                        "ORDER BY e.voucher.date ASC, e.voucher.id ASC")
-        List<AccountingEntry> findByAccountCodeAndVoucherDateBeforeAndVoucherStatusOrderByVoucherDateAsc(
+                        "WHERE e.tenantId = :tenantId " +
+                        "AND e.voucherStatus = :status " +
+                        "AND e.account.code = :accountCode " +
+                        "AND e.voucherDate < :beforeDate " +
+                        "ORDER BY e.voucherDate ASC, e.voucher.id ASC")
+        List<AccountingEntry> findByTenantIdAndAccountCodeAndVoucherDateBeforeAndVoucherStatus(
+                        @Param("tenantId") Integer tenantId,
                         @Param("accountCode") String accountCode,
                         @Param("beforeDate") LocalDate beforeDate,
                         @Param("status") AccountingVoucher.VoucherStatus status);
@@ -50,10 +66,115 @@ public interface AccountingEntryRepository extends JpaRepository<AccountingEntry
                         "COALESCE(SUM(e.debitAmount), 0), " +
                         "COALESCE(SUM(e.creditAmount), 0) " +
                         "FROM AccountingEntry e " +
-                        "WHERE e.account.code = :accountCode " +
-                        "AND e.voucher.status = :status")
+                        "WHERE e.tenantId = :tenantId " +
+                        "AND e.voucherStatus = :status " +
+                        "AND e.account.code = :accountCode")
         Object[] sumDebitAndCreditByAccountCode(
+                        @Param("tenantId") Integer tenantId,
+                        @Param("accountCode") String accountCode,
+                        @Param("status") AccountingVoucher.VoucherStatus status);
+
+        /**
+         * Suma débitos y créditos agrupados por cuenta hasta una fecha (inclusive)
+         * en una sola consulta, para reportes como el Balance de Prueba
+         */
+        @Query("SELECT e.account.code AS accountCode, " +
+                        "COALESCE(SUM(e.debitAmount), 0) AS debitTotal, " +
+                        "COALESCE(SUM(e.creditAmount), 0) AS creditTotal " +
+                        "FROM AccountingEntry e " +
+                        "WHERE e.tenantId = :tenantId " +
+                        "AND e.voucherStatus = :status " +
+                        "AND e.voucherDate <= :asOfDate " +
+                        "GROUP BY e.account.code")
+        List<AccountMovementSummary> sumMovementsByAccountUpToDate(
+                        @Param("tenantId") Integer tenantId,
+                        @Param("asOfDate") LocalDate asOfDate,
+                        @Param("status") AccountingVoucher.VoucherStatus status);
+
+        /**
+         * Suma débitos y créditos agrupados por cuenta en un rango de fechas (inclusive)
+         */
+        @Query("SELECT e.account.code AS accountCode, " +
+                        "COALESCE(SUM(e.debitAmount), 0) AS debitTotal, " +
+                        "COALESCE(SUM(e.creditAmount), 0) AS creditTotal " +
+                        "FROM AccountingEntry e " +
+                        "WHERE e.tenantId = :tenantId " +
+                        "AND e.voucherStatus = :status " +
+                        "AND e.voucherDate BETWEEN :fromDate AND :toDate " +
+                        "GROUP BY e.account.code")
+        List<AccountMovementSummary> sumMovementsByAccountBetweenDates(
+                        @Param("tenantId") Integer tenantId,
+                        @Param("fromDate") LocalDate fromDate,
+                        @Param("toDate") LocalDate toDate,
+                        @Param("status") AccountingVoucher.VoucherStatus status);
+
+        /**
+         * Suma débitos y créditos de una cuenta en un rango de fechas (inclusive)
+         */
+        @Query("SELECT e.account.code AS accountCode, " +
+                        "COALESCE(SUM(e.debitAmount), 0) AS debitTotal, " +
+                        "COALESCE(SUM(e.creditAmount), 0) AS creditTotal " +
+                        "FROM AccountingEntry e " +
+                        "WHERE e.tenantId = :tenantId " +
+                        "AND e.voucherStatus = :status " +
+                        "AND e.account.code = :accountCode " +
+                        "AND e.voucherDate BETWEEN :fromDate AND :toDate " +
+                        "GROUP BY e.account.code")
+        Optional<AccountMovementSummary> sumMovementsByAccountBetween(
+                        @Param("accountCode") String accountCode,
+                        @Param("tenantId") Integer tenantId,
+                        @Param("fromDate") LocalDate fromDate,
+                        @Param("toDate") LocalDate toDate,
+                        @Param("status") AccountingVoucher.VoucherStatus status);
+
+        /**
+         * Recorre los movimientos de una cuenta en orden de libro mayor.
+         * Usa un result set en streaming de MySQL para no materializar el período.
+         */
+        @Query("SELECT e.voucherDate AS date, v.voucherType AS voucherType, v.voucherNumber AS voucherNumber, " +
+                        "v.id AS voucherId, a.code AS accountCode, a.name AS accountName, " +
+                        "tp.id AS thirdPartyId, tp.name AS thirdPartyName, e.description AS description, " +
+                        "e.debitAmount AS debitAmount, e.creditAmount AS creditAmount " +
+                        "FROM AccountingEntry e JOIN e.voucher v JOIN e.account a LEFT JOIN e.thirdParty tp " +
+                        "WHERE e.tenantId = :tenantId " +
+                        "AND e.voucherStatus = :status " +
+                        "AND a.code = :accountCode " +
+                        "AND e.voucherDate BETWEEN :fromDate AND :toDate " +
+                        "ORDER BY e.voucherDate ASC, v.id ASC, e.lineNumber ASC")
+        @QueryHints({
+                        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAMING_FETCH_SIZE),
+                        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+        })
+        Stream<AccountingEntryLine> streamLedgerLines(
                         @Param("accountCode") String accountCode,
+                        @Param("tenantId") Integer tenantId,
+                        @Param("fromDate") LocalDate fromDate,
+                        @Param("toDate") LocalDate toDate,
+                        @Param("status") AccountingVoucher.VoucherStatus status);
+
+        /**
+         * Recorre los movimientos de un rango de fechas en orden de libro diario.
+         * Si voucherType es null se incluyen todos los tipos de comprobante.
+         */
+        @Query("SELECT e.voucherDate AS date, v.voucherType AS voucherType, v.voucherNumber AS voucherNumber, " +
+                        "v.id AS voucherId, a.code AS accountCode, a.name AS accountName, " +
+                        "tp.id AS thirdPartyId, tp.name AS thirdPartyName, e.description AS description, " +
+                        "e.debitAmount AS debitAmount, e.creditAmount AS creditAmount " +
+                        "FROM AccountingEntry e JOIN e.voucher v JOIN e.account a LEFT JOIN e.thirdParty tp " +
+                        "WHERE e.tenantId = :tenantId " +
+                        "AND e.voucherStatus = :status " +
+                        "AND e.voucherDate BETWEEN :fromDate AND :toDate " +
+                        "AND (:voucherType IS NULL OR v.voucherType = :voucherType) " +
+                        "ORDER BY e.voucherDate ASC, v.voucherNumber ASC, v.id ASC, e.lineNumber ASC")
+        @QueryHints({
+                        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAMING_FETCH_SIZE),
+                        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+        })
+        Stream<AccountingEntryLine> streamJournalLines(
+                        @Param("tenantId") Integer tenantId,
+                        @Param("fromDate") LocalDate fromDate,
+                        @Param("toDate") LocalDate toDate,
+                        @Param("voucherType") AccountingVoucher.VoucherType voucherType,
                         @Param("status") AccountingVoucher.VoucherStatus status);
 
         /**
@@ -61,6 +182,38 @@ public interface AccountingEntryRepository extends JpaRepository<AccountingEntry
          */
         List<AccountingEntry> findByVoucherIdOrderByLineNumber(Long voucherId);
 
+        /**
+         * Encuentra entradas de varios comprobantes
+         */
+        List<AccountingEntry> findByVoucherIdInOrderByVoucherIdAscLineNumberAsc(Collection<Long> voucherIds);
+
+        /**
+         * Sincroniza tenant, fecha y estado desnormalizados con los de sus comprobantes
+         */
+        @Modifying(flushAutomatically = true, clearAutomatically = true)
+        @Query(value = "UPDATE accounting_entries e JOIN accounting_vouchers v ON v.id = e.voucher_id " +
+                        "SET e.tenant_id = v.tenant_id, e.voucher_date = v.date, e.voucher_status = v.status " +
+                        "WHERE e.voucher_id IN (:voucherIds)", nativeQuery = true)
+        int syncVoucherColumns(@Param("voucherIds") Collection<Long> voucherIds);
+
+        /**
+         * 1 si hay movimientos sin sincronizar con su comprobante (tenant_id nulo), 0 si no
+         */
+        @Query(value = "SELECT COUNT(*) FROM (SELECT 1 FROM accounting_entries WHERE tenant_id IS NULL LIMIT 1) t",
+                        nativeQuery = true)
+        long countUnsyncedSample();
+
+        /**
+         * Completa las columnas desnormalizadas de movimientos anteriores a su creación.
+         * Las tres columnas se escriben juntas, así que tenant_id nulo identifica las pendientes.
+         */
+        @Modifying
+        @Query(value = "UPDATE accounting_entries e JOIN accounting_vouchers v ON v.id = e.voucher_id " +
+                        "SET e.tenant_id = v.tenant_id, e.voucher_date = v.date, e.voucher_status = v.status " +
+                        "WHERE e.tenant_id IS NULL",
+                        nativeQuery = true)
+        int backfillVoucherColumns();
+
         /**
          * Elimina entradas por ID de comprobante
          */
@@ -1,9 +1,14 @@
 package com.app.starter1.persistence.repository;
 
 import com.app.starter1.persistence.entity.AccountingFiscalPeriod;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -11,4 +16,19 @@ public interface AccountingFiscalPeriodRepository extends JpaRepository<Accounti
     Optional<AccountingFiscalPeriod> findByTenantIdAndYearAndMonth(Integer tenantId, Integer year, Integer month);
 
     boolean existsByTenantIdAndYearAndMonth(Integer tenantId, Integer year, Integer month);
+
+    /**
+     * Períodos con el estado indicado anteriores a (year, month), del más reciente al más antiguo
+     */
+    @Query("SELECT p FROM AccountingFiscalPeriod p " +
+            "WHERE p.tenantId = :tenantId " +
+            "AND p.status IN :statuses " +
+            "AND (p.year < :year OR (p.year = :year AND p.month < :month)) " +
+            "ORDER BY p.year DESC, p.month DESC")
+    List<AccountingFiscalPeriod> findPreviousByStatus(
+            @Param("tenantId") Integer tenantId,
+            @Param("year") Integer year,
+            @Param("month") Integer month,
+            @Param("statuses") Collection<AccountingFiscalPeriod.PeriodStatus> statuses,
+            Pageable pageable);
 }
@@ -2,8 +2,11 @@ package com.app.starter1.persistence.repository;
 
 import com.app.starter1.persistence.entity.AccountingLedger;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,4 +16,33 @@ public interface AccountingLedgerRepository extends JpaRepository<AccountingLedg
             String accountCode);
 
     List<AccountingLedger> findByTenantIdAndFiscalPeriodId(Integer tenantId, Long fiscalPeriodId);
+
+    /**
+     * Identificadores de ledger existentes para los períodos y cuentas indicados.
+     * Cada fila contiene: tenantId, fiscalPeriodId, accountCode, id
+     */
+    @Query("SELECT l.tenantId, l.fiscalPeriod.id, l.account.code, l.id FROM AccountingLedger l " +
+            "WHERE l.fiscalPeriod.id IN :periodIds " +
+            "AND l.account.code IN :accountCodes " +
+            "ORDER BY l.id ASC")
+    List<Object[]> findLedgerIds(
+            @Param("periodIds") Collection<Long> periodIds,
+            @Param("accountCodes") Collection<String> accountCodes);
+
+    /**
+     * Acumula los movimientos de una cuenta en el ledger hasta el período indicado (inclusive)
+     */
+    @Query("SELECT l.account.code AS accountCode, " +
+            "COALESCE(SUM(l.debitAmount), 0) AS debitTotal, " +
+            "COALESCE(SUM(l.creditAmount), 0) AS creditTotal " +
+            "FROM AccountingLedger l JOIN l.fiscalPeriod p " +
+            "WHERE l.tenantId = :tenantId " +
+            "AND l.account.code = :accountCode " +
+            "AND (p.year < :year OR (p.year = :year AND p.month <= :month)) " +
+            "GROUP BY l.account.code")
+    Optional<AccountMovementSummary> sumMovementsByAccountUpToPeriod(
+            @Param("tenantId") Integer tenantId,
+            @Param("accountCode") String accountCode,
+            @Param("year") Integer year,
+            @Param("month") Integer month);
 }
@@ -18,4 +18,9 @@ public interface ContactRepository extends JpaRepository<Contact, Long> {
     List<Contact> findByTenantIdAndNameContainingIgnoreCase(Integer tenantId, String name);
 
     List<Contact> findByTenantIdAndPhoneContaining(Integer tenantId, String phone);
+
+    /**
+     * Contactos por sufijo de teléfono (índice tenant_id, phone_suffix)
+     */
+    List<Contact> findByTenantIdAndPhoneSuffixOrderByIdAsc(Integer tenantId, String phoneSuffix);
 }
@@ -0,0 +1,44 @@
+package com.app.starter1.persistence.repository;
+
+import com.app.starter1.persistence.entity.ConversationSummary;
+import com.app.starter1.persistence.entity.MessagePlatform;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ConversationSummaryRepository extends JpaRepository<ConversationSummary, Long> {
+
+    /**
+     * Primera página del inbox (más recientes primero)
+     */
+    @Query("SELECT s FROM ConversationSummary s " +
+            "WHERE s.tenantId = :tenantId " +
+            "AND s.platform = :platform " +
+            "AND s.contactId IS NOT NULL " +
+            "ORDER BY s.lastMessageTime DESC, s.id DESC")
+    List<ConversationSummary> findInbox(
+            @Param("tenantId") Long tenantId,
+            @Param("platform") MessagePlatform platform,
+            Pageable pageable);
+
+    /**
+     * Página siguiente del inbox a partir del cursor (lastMessageTime, id)
+     */
+    @Query("SELECT s FROM ConversationSummary s " +
+            "WHERE s.tenantId = :tenantId " +
+            "AND s.platform = :platform " +
+            "AND s.contactId IS NOT NULL " +
+            "AND (s.lastMessageTime < :beforeTime " +
+            "  OR (s.lastMessageTime = :beforeTime AND s.id < :beforeId)) " +
+            "ORDER BY s.lastMessageTime DESC, s.id DESC")
+    List<ConversationSummary> findInboxBefore(
+            @Param("tenantId") Long tenantId,
+            @Param("platform") MessagePlatform platform,
+            @Param("beforeTime") LocalDateTime beforeTime,
+            @Param("beforeId") Long beforeId,
+            Pageable pageable);
+}
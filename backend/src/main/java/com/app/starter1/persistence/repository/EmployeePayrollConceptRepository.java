@@ -2,6 +2,7 @@ package com.app.starter1.persistence.repository;
 
 import com.app.starter1.persistence.entity.EmployeePayrollConcept;
 import com.app.starter1.persistence.entity.Employee;
+import com.app.starter1.persistence.entity.Customer;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -20,4 +21,11 @@ public interface EmployeePayrollConceptRepository extends JpaRepository<Employee
             "(epc.endDate IS NULL OR epc.endDate >= :date)")
     List<EmployeePayrollConcept> findValidConceptsForEmployeeOnDate(
             @Param("employee") Employee employee, @Param("date") LocalDate date);
+
+    /**
+     * Conceptos activos de todos los empleados de un cliente, con el concepto ya cargado
+     */
+    @Query("SELECT epc FROM EmployeePayrollConcept epc JOIN FETCH epc.payrollConcept " +
+            "WHERE epc.employee.customer = :customer AND epc.isActive = true")
+    List<EmployeePayrollConcept> findActiveByCustomerWithConcept(@Param("customer") Customer customer);
 }
@@ -2,6 +2,8 @@ package com.app.starter1.persistence.repository;
 
 import com.app.starter1.persistence.entity.NotaCredito;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
@@ -27,4 +29,9 @@ public interface NotaCreditoRepository extends JpaRepository<NotaCredito, Long>
     boolean existsByNumeroNotaCredito(String numero);
 
     long countByTenantIdAndEstado(Long tenantId, NotaCredito.EstadoNotaCredito estado);
+
+    // Último número de la serie interna del tenant (prefijo con relleno de ceros)
+    @Query("SELECT MAX(n.numeroNotaCredito) FROM NotaCredito n " +
+            "WHERE n.tenantId = :tenantId AND n.numeroNotaCredito LIKE CONCAT(:prefix, '%')")
+    String findLastNumero(@Param("tenantId") Long tenantId, @Param("prefix") String prefix);
 }
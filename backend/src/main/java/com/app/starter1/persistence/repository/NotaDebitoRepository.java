@@ -2,6 +2,8 @@ package com.app.starter1.persistence.repository;
 
 import com.app.starter1.persistence.entity.NotaDebito;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
@@ -26,4 +28,9 @@ public interface NotaDebitoRepository extends JpaRepository<NotaDebito, Long> {
     boolean existsByNumeroNotaDebito(String numero);
 
     long countByTenantIdAndEstado(Long tenantId, NotaDebito.EstadoNotaDebito estado);
+
+    // Último número de la serie interna del tenant (prefijo con relleno de ceros)
+    @Query("SELECT MAX(n.numeroNotaDebito) FROM NotaDebito n " +
+            "WHERE n.tenantId = :tenantId AND n.numeroNotaDebito LIKE CONCAT(:prefix, '%')")
+    String findLastNumero(@Param("tenantId") Long tenantId, @Param("prefix") String prefix);
 }
@@ -5,6 +5,7 @@ import com.app.starter1.persistence.entity.OmniChannelMessage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -25,6 +26,46 @@ public interface OmniChannelMessageRepository extends JpaRepository<OmniChannelM
             @Param("conversationId") String conversationId,
             Pageable pageable);
 
+    /**
+     * Últimos mensajes de una conversación, más reciente primero
+     */
+    @Query("SELECT m FROM OmniChannelMessage m " +
+            "WHERE m.tenantId = :tenantId " +
+            "AND m.internalConversationId = :conversationId " +
+            "ORDER BY m.id DESC")
+    List<OmniChannelMessage> findLatestByConversation(
+            @Param("tenantId") Long tenantId,
+            @Param("conversationId") String conversationId,
+            Pageable pageable);
+
+    /**
+     * Mensajes anteriores a un id, más reciente primero
+     */
+    @Query("SELECT m FROM OmniChannelMessage m " +
+            "WHERE m.tenantId = :tenantId " +
+            "AND m.internalConversationId = :conversationId " +
+            "AND m.id < :beforeId " +
+            "ORDER BY m.id DESC")
+    List<OmniChannelMessage> findByConversationBefore(
+            @Param("tenantId") Long tenantId,
+            @Param("conversationId") String conversationId,
+            @Param("beforeId") Long beforeId,
+            Pageable pageable);
+
+    /**
+     * Mensajes posteriores a un id, más antiguo primero
+     */
+    @Query("SELECT m FROM OmniChannelMessage m " +
+            "WHERE m.tenantId = :tenantId " +
+            "AND m.internalConversationId = :conversationId " +
+            "AND m.id > :afterId " +
+            "ORDER BY m.id ASC")
+    List<OmniChannelMessage> findByConversationAfter(
+            @Param("tenantId") Long tenantId,
+            @Param("conversationId") String conversationId,
+            @Param("afterId") Long afterId,
+            Pageable pageable);
+
     /**
      * Contar mensajes no leídos en una conversación
      */
@@ -60,6 +101,7 @@ public interface OmniChannelMessageRepository extends JpaRepository<OmniChannelM
     /**
      * Marcar mensajes como leídos
      */
+    @Modifying
     @Query("UPDATE OmniChannelMessage m " +
             "SET m.readAt = CURRENT_TIMESTAMP " +
             "WHERE m.id IN :messageIds " +
@@ -0,0 +1,13 @@
+package com.app.starter1.persistence.repository;
+
+import com.app.starter1.persistence.entity.PayrollJobError;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PayrollJobErrorRepository extends JpaRepository<PayrollJobError, Long> {
+
+    List<PayrollJobError> findByJobIdOrderByIdAsc(Long jobId);
+}
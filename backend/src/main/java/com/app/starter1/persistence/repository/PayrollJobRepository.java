@@ -0,0 +1,41 @@
+package com.app.starter1.persistence.repository;
+
+import com.app.starter1.persistence.entity.PayrollJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PayrollJobRepository extends JpaRepository<PayrollJob, Long> {
+
+    Optional<PayrollJob> findByIdAndCustomerId(Long id, Long customerId);
+
+    Optional<PayrollJob> findFirstByPeriodIdAndJobTypeAndStatusInOrderByIdDesc(
+            Long periodId, PayrollJob.JobType jobType, Collection<PayrollJob.JobStatus> statuses);
+
+    List<PayrollJob> findByStatusInOrderByIdAsc(Collection<PayrollJob.JobStatus> statuses);
+
+    List<PayrollJob> findByCustomerIdAndPeriodIdOrderByIdDesc(Long customerId, Long periodId);
+
+    @Modifying
+    @Query("UPDATE PayrollJob j SET j.totalItems = :totalItems, j.updatedAt = :now WHERE j.id = :id")
+    int updateTotalItems(@Param("id") Long id, @Param("totalItems") int totalItems,
+            @Param("now") LocalDateTime now);
+
+    /**
+     * Suma el avance de un bloque confirmado y mueve el punto de reanudación
+     */
+    @Modifying
+    @Query("UPDATE PayrollJob j SET j.processedItems = j.processedItems + :processed, " +
+            "j.errorCount = j.errorCount + :errors, j.lastEmployeeId = :lastEmployeeId, j.updatedAt = :now " +
+            "WHERE j.id = :id")
+    int recordProgress(@Param("id") Long id, @Param("lastEmployeeId") Long lastEmployeeId,
+            @Param("processed") int processed, @Param("errors") int errors, @Param("now") LocalDateTime now);
+}
@@ -4,8 +4,12 @@ import com.app.starter1.persistence.entity.PayrollReceiptDetail;
 import com.app.starter1.persistence.entity.PayrollReceipt;
 import com.app.starter1.persistence.entity.PayrollConcept;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -18,4 +22,8 @@ public interface PayrollReceiptDetailRepository extends JpaRepository<PayrollRec
             PayrollConcept.ConceptType conceptType);
 
     void deleteByPayrollReceipt(PayrollReceipt payrollReceipt);
+
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM PayrollReceiptDetail d WHERE d.payrollReceipt IN :receipts")
+    int deleteByPayrollReceiptIn(@Param("receipts") Collection<PayrollReceipt> receipts);
 }
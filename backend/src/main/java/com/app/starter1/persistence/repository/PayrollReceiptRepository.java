@@ -5,8 +5,10 @@ import com.app.starter1.persistence.entity.PayrollPeriod;
 import com.app.starter1.persistence.entity.Employee;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,4 +25,29 @@ public interface PayrollReceiptRepository extends JpaRepository<PayrollReceipt,
 
     @Query("SELECT COUNT(r) FROM PayrollReceipt r WHERE r.payrollPeriod = :period AND r.status = :status")
     long countByPayrollPeriodAndStatus(PayrollPeriod period, PayrollReceipt.ReceiptStatus status);
+
+    List<PayrollReceipt> findByPayrollPeriodAndEmployeeIdIn(PayrollPeriod payrollPeriod,
+            Collection<Long> employeeIds);
+
+    /**
+     * Pares (employeeId, receiptId) de los recibos de un periodo para los empleados indicados
+     */
+    @Query("SELECT r.employee.id, r.id FROM PayrollReceipt r " +
+            "WHERE r.payrollPeriod.id = :periodId AND r.employee.id IN :employeeIds")
+    List<Object[]> findReceiptIds(@Param("periodId") Long periodId,
+            @Param("employeeIds") Collection<Long> employeeIds);
+
+    /**
+     * Pares (employeeId, receiptId) de todos los recibos de un periodo, en orden de empleado
+     */
+    @Query("SELECT r.employee.id, r.id FROM PayrollReceipt r " +
+            "WHERE r.payrollPeriod.id = :periodId ORDER BY r.employee.id")
+    List<Object[]> findReceiptIdsByPeriod(@Param("periodId") Long periodId);
+
+    /**
+     * Recibos con empleado, cliente y período cargados, listos para generar PDF fuera de la transacción
+     */
+    @Query("SELECT r FROM PayrollReceipt r JOIN FETCH r.employee e JOIN FETCH e.customer " +
+            "JOIN FETCH r.payrollPeriod WHERE r.id IN :ids ORDER BY e.id")
+    List<PayrollReceipt> findForRenderingByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -21,6 +21,8 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     // Dashboard: Productos con stock bajo
     List<Product> findByInventoryQtyLessThan(Integer qty);
 
+    long countByInventoryQtyLessThan(Integer qty);
+
     // Dashboard: Top productos por stock (placeholder para ventas)
     List<Product> findTop5ByOrderByInventoryQtyDesc();
 }
@@ -0,0 +1,14 @@
+package com.app.starter1.persistence.repository;
+
+import com.app.starter1.persistence.entity.StockMovement;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+
+    List<StockMovement> findByTenantIdAndProductIdOrderByIdDesc(Long tenantId, Long productId, Pageable pageable);
+}
@@ -0,0 +1,72 @@
+package com.app.starter1.persistence.repository;
+
+import com.app.starter1.persistence.entity.WebhookEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface WebhookEventRepository extends JpaRepository<WebhookEvent, Long> {
+
+    /**
+     * Reclama para owner hasta limit eventos listos en orden de llegada: los
+     * pendientes sin reintento en espera y los PROCESSING cuyo reclamo venció
+     * (el nodo que los tenía se detuvo). Otro nodo no puede tomarlos hasta
+     * leaseUntil.
+     */
+    @Modifying
+    @Query(value = "UPDATE webhook_events SET status = 'PROCESSING', owner = :owner, next_attempt_at = :leaseUntil " +
+            "WHERE source = :source AND status IN ('PENDING', 'PROCESSING') " +
+            "AND (next_attempt_at IS NULL OR next_attempt_at <= :now) " +
+            "ORDER BY id LIMIT :limit", nativeQuery = true)
+    int claim(@Param("source") String source, @Param("owner") String owner, @Param("now") LocalDateTime now,
+            @Param("leaseUntil") LocalDateTime leaseUntil, @Param("limit") int limit);
+
+    @Query("SELECT e FROM WebhookEvent e WHERE e.source = :source AND e.owner = :owner " +
+            "AND e.status = com.app.starter1.persistence.entity.WebhookEvent.EventStatus.PROCESSING " +
+            "ORDER BY e.id ASC")
+    List<WebhookEvent> findClaimed(@Param("source") String source, @Param("owner") String owner,
+            Pageable pageable);
+
+    /**
+     * Marca procesados los eventos que owner aún tiene reclamados; devuelve
+     * menos filas que ids si el reclamo de alguno venció
+     */
+    @Modifying
+    @Query("UPDATE WebhookEvent e SET e.status = com.app.starter1.persistence.entity.WebhookEvent.EventStatus.PROCESSED, " +
+            "e.owner = NULL, e.processedAt = :now WHERE e.id IN :ids AND e.owner = :owner " +
+            "AND e.status = com.app.starter1.persistence.entity.WebhookEvent.EventStatus.PROCESSING")
+    int markProcessed(@Param("ids") Collection<Long> ids, @Param("owner") String owner,
+            @Param("now") LocalDateTime now);
+
+    /**
+     * Registra un intento fallido: el evento vuelve a pendiente hasta nextAttemptAt
+     */
+    @Modifying
+    @Query("UPDATE WebhookEvent e SET e.status = com.app.starter1.persistence.entity.WebhookEvent.EventStatus.PENDING, " +
+            "e.owner = NULL, e.attempts = :attempts, e.nextAttemptAt = :nextAttemptAt, e.error = :error " +
+            "WHERE e.id = :id")
+    int scheduleRetry(@Param("id") Long id, @Param("attempts") int attempts,
+            @Param("nextAttemptAt") LocalDateTime nextAttemptAt, @Param("error") String error);
+
+    @Modifying
+    @Query("UPDATE WebhookEvent e SET e.status = :status, e.owner = NULL, e.error = :error, e.processedAt = :now " +
+            "WHERE e.id = :id")
+    int updateStatus(@Param("id") Long id, @Param("status") WebhookEvent.EventStatus status,
+            @Param("error") String error, @Param("now") LocalDateTime now);
+
+    /**
+     * Borra hasta limit eventos terminados (PROCESSED o FAILED) antes de before
+     */
+    @Modifying
+    @Query(value = "DELETE FROM webhook_events WHERE status IN ('PROCESSED', 'FAILED') AND processed_at < :before " +
+            "ORDER BY processed_at LIMIT :limit", nativeQuery = true)
+    int purgeFinished(@Param("before") LocalDateTime before, @Param("limit") int limit);
+}
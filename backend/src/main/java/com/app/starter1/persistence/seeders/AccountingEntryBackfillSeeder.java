@@ -0,0 +1,33 @@
+package com.app.starter1.persistence.seeders;
+
+import com.app.starter1.persistence.repository.AccountingEntryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Completa tenant_id, voucher_date y voucher_status en movimientos contables
+ * creados antes de que existieran esas columnas (o insertados por SQL directo).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AccountingEntryBackfillSeeder implements CommandLineRunner {
+
+    private final AccountingEntryRepository entryRepository;
+
+    @Override
+    @Transactional
+    public void run(String... args) throws Exception {
+        // Consulta acotada por idx_entry_tenant_date: evita el UPDATE completo en cada arranque
+        if (entryRepository.countUnsyncedSample() == 0) {
+            return;
+        }
+        int updated = entryRepository.backfillVoucherColumns();
+        if (updated > 0) {
+            log.info("Movimientos contables sincronizados con su comprobante: {}", updated);
+        }
+    }
+}
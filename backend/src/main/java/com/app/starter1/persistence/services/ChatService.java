@@ -4,6 +4,7 @@ import com.app.starter1.dto.*;
 import com.app.starter1.persistence.entity.*;
 import com.app.starter1.persistence.repository.ChatbotConfigRepository;
 import com.app.starter1.persistence.repository.ContactRepository;
+import com.app.starter1.persistence.repository.ConversationSummaryRepository;
 import com.app.starter1.persistence.repository.OmniChannelMessageRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -27,16 +28,44 @@ public class ChatService {
     private final ContactRepository contactRepository;
     private final EvolutionApiService evolutionApiService;
     private final ChatbotConfigRepository chatbotConfigRepository;
+    private final ConversationSummaryRepository summaryRepository;
+    private final ConversationSummaryService summaryService;
+    private final ContactResolver contactResolver;
+
+    private static final int DEFAULT_INBOX_SIZE = 100;
+    private static final int MAX_INBOX_SIZE = 500;
+    private static final int MAX_HISTORY_SIZE = 200;
 
     /**
      * Obtener contactos agrupados por stage para una plataforma
      */
-    @Transactional(readOnly = true)
+    @Transactional
     public ContactGroupDTO getContactsByPlatform(Long tenantId, MessagePlatform platform) {
+        return getContactsByPlatform(tenantId, platform, null, DEFAULT_INBOX_SIZE);
+    }
+
+    /**
+     * Página del inbox agrupada por stage, más recientes primero.
+     * Se lee de conversation_summary (una consulta por índice); cursor es el
+     * nextCursor de la página anterior o null para la primera.
+     */
+    @Transactional
+    public ContactGroupDTO getContactsByPlatform(Long tenantId, MessagePlatform platform, String cursor, int limit) {
         log.info("Getting contacts for tenant {} and platform {}", tenantId, platform);
 
-        // Obtener últimos mensajes por conversación
-        List<OmniChannelMessage> lastMessages = messageRepository.findLastMessagesByPlatform(tenantId, platform);
+        // Incorporar mensajes recibidos por otros servicios desde la última lectura
+        summaryService.catchUp(tenantId, platform);
+
+        int pageSize = Math.max(1, Math.min(limit, MAX_INBOX_SIZE));
+        Pageable pageable = PageRequest.of(0, pageSize);
+        List<ConversationSummary> summaries;
+        if (cursor == null || cursor.isBlank()) {
+            summaries = summaryRepository.findInbox(tenantId, platform, pageable);
+        } else {
+            InboxCursor position = InboxCursor.parse(cursor);
+            summaries = summaryRepository.findInboxBefore(tenantId, platform, position.lastMessageTime(),
+                    position.id(), pageable);
+        }
 
         // Crear mapa de cards agrupados por stage
         Map<String, List<ContactCardDTO>> groupedContacts = new HashMap<>();
@@ -44,43 +73,33 @@ public class ChatService {
         groupedContacts.put("POTENTIAL", new ArrayList<>());
         groupedContacts.put("CLIENT", new ArrayList<>());
 
-        for (OmniChannelMessage message : lastMessages) {
-            if (message.getContactId() == null) {
-                continue; // Skip messages sin contacto asociado
+        // Ya vienen ordenados por última actividad
+        for (ConversationSummary summary : summaries) {
+            ContactCardDTO card = ContactCardDTO.builder()
+                    .contactId(summary.getContactId())
+                    .name(summary.getContactName())
+                    .avatarUrl(summary.getContactAvatarUrl())
+                    .externalId(summary.getExternalId())
+                    .lastMessage(summary.getLastMessage())
+                    .lastMessageTime(summary.getLastMessageTime())
+                    .unreadCount(summary.getUnreadCount())
+                    .stage(summary.getContactStage() != null ? summary.getContactStage() : "LEAD")
+                    .conversationId(summary.getConversationId())
+                    .platform(platform.name())
+                    .build();
+
+            List<ContactCardDTO> group = groupedContacts.get(card.getStage());
+            if (group != null) {
+                group.add(card);
             }
-
-            // Buscar contacto
-            contactRepository.findById(message.getContactId()).ifPresent(contact -> {
-                // Contar mensajes no leídos
-                Integer unreadCount = messageRepository.countUnreadByConversation(
-                        tenantId,
-                        message.getInternalConversationId());
-
-                ContactCardDTO card = ContactCardDTO.builder()
-                        .contactId(contact.getId())
-                        .name(contact.getName())
-                        .avatarUrl(contact.getAvatarUrl())
-                        .externalId(message.getExternalSenderId())
-                        .lastMessage(message.getBody() != null ? message.getBody() : "[Media]")
-                        .lastMessageTime(message.getCreatedAt())
-                        .unreadCount(unreadCount)
-                        .stage(contact.getStage() != null ? contact.getStage() : "LEAD")
-                        .conversationId(message.getInternalConversationId())
-                        .platform(platform.name())
-                        .build();
-
-                String stage = card.getStage();
-                if (groupedContacts.containsKey(stage)) {
-                    groupedContacts.get(stage).add(card);
-                }
-            });
         }
 
-        // Ordenar por última actividad
-        groupedContacts.values()
-                .forEach(list -> list.sort((a, b) -> b.getLastMessageTime().compareTo(a.getLastMessageTime())));
-
-        return ContactGroupDTO.of(groupedContacts);
+        ContactGroupDTO result = ContactGroupDTO.of(groupedContacts);
+        if (summaries.size() == pageSize) {
+            ConversationSummary last = summaries.get(summaries.size() - 1);
+            result.setNextCursor(new InboxCursor(last.getLastMessageTime(), last.getId()).format());
+        }
+        return result;
     }
 
     /**
@@ -99,6 +118,44 @@ public class ChatService {
         return messages.map(this::mapToDTO);
     }
 
+    /**
+     * Historial de una conversación paginado por id (keyset).
+     * Sin before ni after devuelve los más recientes; con before, los
+     * anteriores a ese id; con after, los posteriores. El costo no depende de
+     * la longitud de la conversación.
+     */
+    @Transactional(readOnly = true)
+    public MessagePageDTO getMessageHistory(Long tenantId, String conversationId, Long before, Long after,
+            int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_HISTORY_SIZE));
+        // Se pide uno extra para saber si hay más
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+
+        List<OmniChannelMessage> rows;
+        if (after != null) {
+            rows = messageRepository.findByConversationAfter(tenantId, conversationId, after, pageable);
+        } else if (before != null) {
+            rows = messageRepository.findByConversationBefore(tenantId, conversationId, before, pageable);
+        } else {
+            rows = messageRepository.findLatestByConversation(tenantId, conversationId, pageable);
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<OmniChannelMessage> page = new ArrayList<>(hasMore ? rows.subList(0, pageSize) : rows);
+        if (after == null) {
+            // Las consultas hacia atrás vienen en orden descendente
+            Collections.reverse(page);
+        }
+
+        List<MessageDTO> messages = page.stream().map(this::mapToDTO).collect(Collectors.toList());
+        return MessagePageDTO.builder()
+                .messages(messages)
+                .oldestId(messages.isEmpty() ? null : messages.get(0).getId())
+                .newestId(messages.isEmpty() ? null : messages.get(messages.size() - 1).getId())
+                .hasMore(hasMore)
+                .build();
+    }
+
     /**
      * Guardar mensaje nuevo (llamado por Socket.IO o Evolution API)
      */
@@ -106,6 +163,37 @@ public class ChatService {
     public MessageDTO saveMessage(MessageCreateRequest request) {
         log.info("Saving new message for conversation: {}", request.getConversationId());
 
+        OmniChannelMessage saved = messageRepository.save(buildMessage(request));
+        summaryService.refreshConversation(saved.getTenantId(), saved.getPlatform(),
+                saved.getInternalConversationId());
+        return mapToDTO(saved);
+    }
+
+    /**
+     * Guardar un lote de mensajes en una sola transacción (ingesta de webhooks).
+     * El resumen se actualiza una vez por conversación.
+     */
+    @Transactional
+    public List<MessageDTO> saveMessages(List<MessageCreateRequest> requests) {
+        if (requests.isEmpty()) {
+            return List.of();
+        }
+        List<OmniChannelMessage> messages = requests.stream().map(this::buildMessage).collect(Collectors.toList());
+        List<OmniChannelMessage> saved = messageRepository.saveAll(messages);
+
+        Set<String> refreshed = new HashSet<>();
+        for (OmniChannelMessage message : saved) {
+            String key = message.getTenantId() + ":" + message.getPlatform() + ":" + message.getInternalConversationId();
+            if (refreshed.add(key)) {
+                summaryService.refreshConversation(message.getTenantId(), message.getPlatform(),
+                        message.getInternalConversationId());
+            }
+        }
+        log.info("Saved batch of {} messages in {} conversations", saved.size(), refreshed.size());
+        return saved.stream().map(this::mapToDTO).collect(Collectors.toList());
+    }
+
+    private OmniChannelMessage buildMessage(MessageCreateRequest request) {
         OmniChannelMessage message = new OmniChannelMessage();
         message.setTenantId(request.getTenantId());
         message.setInternalConversationId(request.getConversationId());
@@ -127,21 +215,18 @@ public class ChatService {
         String phone = extractPhoneFromConversation(conversationId);
 
         if (phone != null) {
-            List<Contact> contacts = contactRepository.findByTenantIdAndPhoneContaining(
-                    request.getTenantId().intValue(), phone);
+            Long contactId = contactResolver.resolve(request.getTenantId().intValue(), phone);
 
-            if (!contacts.isEmpty()) {
-                message.setContactId(contacts.get(0).getId());
-                log.debug("Message associated with contact ID: {}", contacts.get(0).getId());
+            if (contactId != null) {
+                message.setContactId(contactId);
+                log.debug("Message associated with contact ID: {}", contactId);
             } else {
                 log.warn("No contact found with phone: {}. Message saved without contact_id", phone);
             }
         } else {
             log.warn("Could not extract phone from conversation: {}", conversationId);
         }
-
-        OmniChannelMessage saved = messageRepository.save(message);
-        return mapToDTO(saved);
+        return message;
     }
 
     /**
@@ -232,6 +317,7 @@ public class ChatService {
     public void markAsRead(List<Long> messageIds, Long tenantId) {
         log.info("Marking {} messages as read", messageIds.size());
         messageRepository.markAsRead(messageIds, tenantId);
+        summaryService.recountUnread(tenantId, messageIds);
     }
 
     /**
@@ -251,6 +337,7 @@ public class ChatService {
 
         contact.setStage(newStage);
         contactRepository.save(contact);
+        summaryService.updateContactStage(tenantId, contactId, newStage);
     }
 
     /**
@@ -286,4 +373,27 @@ public class ChatService {
         // Por ahora, asumimos que conversationId ya contiene el formato correcto
         return conversationId;
     }
+
+    /**
+     * Posición en el inbox: (lastMessageTime, id) de la última fila entregada
+     */
+    private record InboxCursor(LocalDateTime lastMessageTime, Long id) {
+
+        String format() {
+            return lastMessageTime + "_" + id;
+        }
+
+        static InboxCursor parse(String cursor) {
+            int separator = cursor.lastIndexOf('_');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Invalid inbox cursor: " + cursor);
+            }
+            try {
+                return new InboxCursor(LocalDateTime.parse(cursor.substring(0, separator)),
+                        Long.parseLong(cursor.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid inbox cursor: " + cursor, e);
+            }
+        }
+    }
 }
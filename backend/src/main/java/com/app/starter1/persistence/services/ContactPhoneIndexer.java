@@ -0,0 +1,106 @@
+package com.app.starter1.persistence.services;
+
+import com.app.starter1.util.PhoneNumbers;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Completa phone_normalized y phone_suffix de los contactos insertados fuera
+ * de JPA (chat-socket-service o SQL directo), que no pasan por
+ * Contact.indexPhone.
+ *
+ * Corre en segundo plano, por lotes y con JDBC: no toca updated_at ni frena
+ * la recepción de mensajes. Al arrancar indexa los contactos antiguos y luego
+ * revisa cada minuto los nuevos.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ContactPhoneIndexer {
+
+    private static final int BATCH_SIZE = 500;
+    private static final long INTERVAL_MS = TimeUnit.MINUTES.toMillis(1);
+
+    private static final String PENDING_SQL = "SELECT id, tenant_id, phone FROM contacts " +
+            "WHERE phone_suffix IS NULL AND phone IS NOT NULL ORDER BY id LIMIT ?";
+
+    private static final String INDEX_SQL = "UPDATE contacts SET phone_normalized = ?, phone_suffix = ? " +
+            "WHERE id = ? AND phone_suffix IS NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ContactResolver contactResolver;
+
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "contact-phone-indexer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        worker.scheduleWithFixedDelay(this::indexPending, 0, INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    /**
+     * Indexa los contactos pendientes en lotes hasta no dejar ninguno
+     */
+    void indexPending() {
+        try {
+            int total = 0;
+            int indexed;
+            do {
+                indexed = indexBatch();
+                total += indexed;
+            } while (indexed == BATCH_SIZE);
+            if (total > 0) {
+                log.info("Indexed phones of {} contacts", total);
+            }
+        } catch (Exception e) {
+            log.error("Error indexing contact phones: {}", e.getMessage(), e);
+        }
+    }
+
+    private int indexBatch() {
+        List<PendingContact> pending = jdbcTemplate.query(PENDING_SQL,
+                (rs, rowNum) -> new PendingContact(rs.getLong("id"), rs.getInt("tenant_id"), rs.getString("phone")),
+                BATCH_SIZE);
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        List<Object[]> rows = new ArrayList<>(pending.size());
+        for (PendingContact contact : pending) {
+            rows.add(new Object[] {
+                    PhoneNumbers.toE164(contact.phone()), PhoneNumbers.suffix(contact.phone()), contact.id() });
+        }
+        jdbcTemplate.batchUpdate(INDEX_SQL, rows);
+
+        // Un número resuelto antes por sufijo puede tener ahora una coincidencia exacta
+        Set<String> suffixKeys = new HashSet<>();
+        pending.forEach(contact -> suffixKeys.add(
+                ContactResolver.suffixKey(contact.tenantId(), PhoneNumbers.suffix(contact.phone()))));
+        contactResolver.evictAll(suffixKeys);
+        return pending.size();
+    }
+
+    private record PendingContact(Long id, Integer tenantId, String phone) {
+    }
+}
@@ -0,0 +1,128 @@
+package com.app.starter1.persistence.services;
+
+import com.app.starter1.persistence.entity.Contact;
+import com.app.starter1.persistence.repository.ContactRepository;
+import com.app.starter1.util.PhoneNumbers;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resuelve el contacto de un mensaje entrante a partir del teléfono.
+ *
+ * Busca por el sufijo indexado (tenant_id, phone_suffix), prefiere la
+ * coincidencia exacta en E.164 y guarda el resultado en un LRU acotado por
+ * tenant y número normalizado. Solo se guardan aciertos: un teléfono
+ * desconocido vuelve a consultar el índice, así un contacto recién creado se
+ * encuentra en el siguiente mensaje. Los contactos insertados fuera de JPA
+ * los indexa ContactPhoneIndexer en segundo plano.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ContactResolver {
+
+    private static final int MAX_ENTRIES = 20_000;
+    private static final long TTL_MS = TimeUnit.MINUTES.toMillis(10);
+
+    private final ContactRepository contactRepository;
+
+    private final Map<String, CachedContact> cache = Collections.synchronizedMap(
+            new LinkedHashMap<>(1024, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedContact> eldest) {
+                    return size() > MAX_ENTRIES;
+                }
+            });
+
+    /**
+     * Id del contacto del tenant con ese teléfono, o null si no existe
+     */
+    @Transactional(readOnly = true)
+    public Long resolve(Integer tenantId, String phone) {
+        String suffix = PhoneNumbers.suffix(phone);
+        if (suffix.isEmpty()) {
+            return null;
+        }
+
+        String e164 = PhoneNumbers.toE164(phone);
+        String key = tenantId + ":" + (e164 != null ? e164 : suffix);
+        long now = System.currentTimeMillis();
+        CachedContact cached = cache.get(key);
+        if (cached != null && cached.expiresAt() > now) {
+            return cached.contactId();
+        }
+
+        Long contactId = lookup(tenantId, e164, suffix);
+        if (contactId != null) {
+            cache.put(key, new CachedContact(contactId, suffixKey(tenantId, suffix), now + TTL_MS));
+        } else {
+            cache.remove(key);
+        }
+        return contactId;
+    }
+
+    /**
+     * Descarta las resoluciones de los números con el mismo sufijo (también
+     * las que llegaron al contacto sin coincidencia exacta); se repite al
+     * confirmar la transacción para no dejar en caché un valor leído antes
+     * del commit
+     */
+    public void evict(Integer tenantId, String phone) {
+        if (tenantId == null || phone == null) {
+            return;
+        }
+        evictAll(Set.of(suffixKey(tenantId, PhoneNumbers.suffix(phone))));
+    }
+
+    /**
+     * Como evict, para varios teléfonos en una sola pasada por la caché
+     *
+     * @param suffixKeys claves de suffixKey(tenantId, sufijo)
+     */
+    public void evictAll(Set<String> suffixKeys) {
+        if (suffixKeys.isEmpty()) {
+            return;
+        }
+        cache.values().removeIf(cached -> suffixKeys.contains(cached.suffixKey()));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.values().removeIf(cached -> suffixKeys.contains(cached.suffixKey()));
+                }
+            });
+        }
+    }
+
+    public static String suffixKey(Integer tenantId, String suffix) {
+        return tenantId + ":" + suffix;
+    }
+
+    private Long lookup(Integer tenantId, String e164, String suffix) {
+        List<Contact> candidates = contactRepository.findByTenantIdAndPhoneSuffixOrderByIdAsc(tenantId, suffix);
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        // Con varios candidatos se prefiere el que coincide con el número completo
+        for (Contact candidate : candidates) {
+            if (e164 != null && e164.equals(candidate.getPhoneNormalized())) {
+                return candidate.getId();
+            }
+        }
+        return candidates.get(0).getId();
+    }
+
+    private record CachedContact(Long contactId, String suffixKey, long expiresAt) {
+    }
+}
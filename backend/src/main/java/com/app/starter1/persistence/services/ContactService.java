@@ -16,9 +16,14 @@ import java.util.stream.Collectors;
 public class ContactService {
 
     private final ContactRepository contactRepository;
+    private final ContactResolver contactResolver;
+    private final ConversationSummaryService summaryService;
 
-    public ContactService(ContactRepository contactRepository) {
+    public ContactService(ContactRepository contactRepository, ContactResolver contactResolver,
+            ConversationSummaryService summaryService) {
         this.contactRepository = contactRepository;
+        this.contactResolver = contactResolver;
+        this.summaryService = summaryService;
     }
 
     @Transactional
@@ -27,6 +32,7 @@ public class ContactService {
         BeanUtils.copyProperties(request, contact);
 
         Contact savedContact = contactRepository.save(contact);
+        contactResolver.evict(savedContact.getTenantId(), savedContact.getPhone());
         return mapToDTO(savedContact);
     }
 
@@ -64,19 +70,24 @@ public class ContactService {
     public ContactResponseDTO update(Long id, ContactRequestDTO request) {
         Contact contact = contactRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Contact not found"));
+        String previousPhone = contact.getPhone();
 
         BeanUtils.copyProperties(request, contact, "id", "createdAt", "tenantId");
 
         Contact savedContact = contactRepository.save(contact);
+        contactResolver.evict(savedContact.getTenantId(), previousPhone);
+        contactResolver.evict(savedContact.getTenantId(), savedContact.getPhone());
+        summaryService.updateContact(savedContact.getTenantId().longValue(), savedContact.getId(),
+                savedContact.getName(), savedContact.getAvatarUrl(), savedContact.getStage());
         return mapToDTO(savedContact);
     }
 
     @Transactional
     public void delete(Long id) {
-        if (!contactRepository.existsById(id)) {
-            throw new RuntimeException("Contact not found");
-        }
-        contactRepository.deleteById(id);
+        Contact contact = contactRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Contact not found"));
+        contactRepository.delete(contact);
+        contactResolver.evict(contact.getTenantId(), contact.getPhone());
     }
 
     private ContactResponseDTO mapToDTO(Contact contact) {
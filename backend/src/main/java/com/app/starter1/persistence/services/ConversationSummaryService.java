@@ -0,0 +1,212 @@
+package com.app.starter1.persistence.services;
+
+import com.app.starter1.persistence.entity.MessagePlatform;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mantiene la tabla conversation_summary a partir de omni_channel_messages.
+ *
+ * Los mensajes también los insertan chat-socket-service y backend_new
+ * directamente en la base de datos, así que además de las actualizaciones
+ * puntuales desde ChatService existe una puesta al día por lotes. Lleva su
+ * propio cursor por tenant y plataforma (conversation_summary_cursor), que
+ * las actualizaciones puntuales no mueven, y vuelve a revisar una ventana de
+ * ids por debajo de él para incluir mensajes con id menor que confirmaron
+ * después de uno mayor.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ConversationSummaryService {
+
+    // Ids por debajo del cursor que se vuelven a revisar en cada puesta al día
+    static final long SAFETY_WINDOW = 1000;
+
+    // Último mensaje de cada conversación con mensajes en el rango revisado
+    private static final String CATCH_UP_SQL = upsertFromLatest(
+            "SELECT MAX(n.id) AS id FROM omni_channel_messages n " +
+            "WHERE n.tenant_id = ? AND n.platform = ? AND n.id > ? AND n.id <= ? " +
+            "AND n.internal_conversation_id IS NOT NULL " +
+            "GROUP BY n.internal_conversation_id");
+
+    // Último mensaje de una conversación
+    private static final String REFRESH_CONVERSATION_SQL = upsertFromLatest(
+            "SELECT MAX(n.id) AS id FROM omni_channel_messages n " +
+            "WHERE n.tenant_id = ? AND n.platform = ? AND n.internal_conversation_id = ? " +
+            "HAVING MAX(n.id) IS NOT NULL");
+
+    private static final String CURSOR_SQL = "SELECT last_message_id FROM conversation_summary_cursor " +
+            "WHERE tenant_id = ? AND platform = ?";
+
+    // Cantidad y último id de los mensajes desde el inicio de la ventana
+    private static final String WINDOW_SQL = "SELECT COUNT(*) AS total, COALESCE(MAX(id), 0) AS max_id " +
+            "FROM omni_channel_messages WHERE tenant_id = ? AND platform = ? AND id > ?";
+
+    private static final String ADVANCE_CURSOR_SQL = "INSERT INTO conversation_summary_cursor " +
+            "(tenant_id, platform, last_message_id, updated_at) VALUES (?, ?, ?, NOW()) AS new " +
+            "ON DUPLICATE KEY UPDATE " +
+            "last_message_id = GREATEST(conversation_summary_cursor.last_message_id, new.last_message_id), " +
+            "updated_at = new.updated_at";
+
+    private static final String RECOUNT_UNREAD_SQL = "UPDATE conversation_summary s " +
+            "SET s.unread_count = (SELECT COUNT(*) FROM omni_channel_messages u " +
+            "    WHERE u.tenant_id = s.tenant_id " +
+            "    AND u.internal_conversation_id = s.conversation_id " +
+            "    AND u.direction = 'INBOUND' " +
+            "    AND u.read_at IS NULL), " +
+            "s.updated_at = NOW() " +
+            "WHERE s.tenant_id = :tenantId " +
+            "AND s.conversation_id IN (SELECT DISTINCT m.internal_conversation_id FROM omni_channel_messages m " +
+            "    WHERE m.tenant_id = :tenantId AND m.id IN (:messageIds))";
+
+    private static final String UPDATE_CONTACT_STAGE_SQL = "UPDATE conversation_summary " +
+            "SET contact_stage = ?, updated_at = NOW() " +
+            "WHERE tenant_id = ? AND contact_id = ?";
+
+    private static final String UPDATE_CONTACT_SQL = "UPDATE conversation_summary " +
+            "SET contact_name = ?, contact_avatar_url = ?, contact_stage = ?, updated_at = NOW() " +
+            "WHERE tenant_id = ? AND contact_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    // Ventana vista en la última puesta al día de este nodo, por tenant y plataforma
+    private final Map<String, Window> lastWindows = new ConcurrentHashMap<>();
+
+    /**
+     * Incorpora al resumen los mensajes del tenant y plataforma desde el
+     * cursor menos la ventana de seguridad. Si la ventana no cambió desde la
+     * última vez (mismos mensajes) solo lee, así que el inbox no escribe en
+     * cada consulta.
+     */
+    @Transactional
+    public void catchUp(Long tenantId, MessagePlatform platform) {
+        List<Long> cursors = jdbcTemplate.queryForList(CURSOR_SQL, Long.class, tenantId, platform.name());
+        long cursor = cursors.isEmpty() ? 0L : cursors.get(0);
+        long from = Math.max(0L, cursor - SAFETY_WINDOW);
+
+        Window window = jdbcTemplate.queryForObject(WINDOW_SQL,
+                (rs, rowNum) -> new Window(from, rs.getLong("total"), rs.getLong("max_id")),
+                tenantId, platform.name(), from);
+        String key = tenantId + ":" + platform.name();
+        if (window == null || window.total() == 0 || window.equals(lastWindows.get(key))) {
+            return;
+        }
+
+        int updated = jdbcTemplate.update(CATCH_UP_SQL, tenantId, platform.name(), from, window.maxId());
+        jdbcTemplate.update(ADVANCE_CURSOR_SQL, tenantId, platform.name(), window.maxId());
+        // Solo se recuerda una vez confirmada; si la transacción falla se repite
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    lastWindows.put(key, window);
+                }
+            });
+        } else {
+            lastWindows.put(key, window);
+        }
+        log.debug("Conversation summary caught up for tenant {} / {} from message {} to {} ({} rows)",
+                tenantId, platform, from, window.maxId(), updated);
+    }
+
+    /**
+     * Recalcula el resumen de una conversación a partir de su último mensaje
+     */
+    @Transactional
+    public void refreshConversation(Long tenantId, MessagePlatform platform, String conversationId) {
+        if (conversationId == null) {
+            return;
+        }
+        jdbcTemplate.update(REFRESH_CONVERSATION_SQL, tenantId, platform.name(), conversationId);
+    }
+
+    /**
+     * Recalcula los no leídos de las conversaciones de los mensajes indicados
+     */
+    @Transactional
+    public void recountUnread(Long tenantId, Collection<Long> messageIds) {
+        if (messageIds == null || messageIds.isEmpty()) {
+            return;
+        }
+        namedJdbcTemplate.update(RECOUNT_UNREAD_SQL, new MapSqlParameterSource()
+                .addValue("tenantId", tenantId)
+                .addValue("messageIds", messageIds));
+    }
+
+    /**
+     * Propaga el cambio de stage del contacto a sus conversaciones
+     */
+    @Transactional
+    public void updateContactStage(Long tenantId, Long contactId, String stage) {
+        jdbcTemplate.update(UPDATE_CONTACT_STAGE_SQL, stage, tenantId, contactId);
+    }
+
+    /**
+     * Propaga nombre, avatar y stage editados del contacto a sus conversaciones
+     */
+    @Transactional
+    public void updateContact(Long tenantId, Long contactId, String name, String avatarUrl, String stage) {
+        jdbcTemplate.update(UPDATE_CONTACT_SQL, name, avatarUrl, stage, tenantId, contactId);
+    }
+
+    /**
+     * Inserta o actualiza el resumen de las conversaciones cuyo último mensaje
+     * devuelve latestSelect (una columna "id"). Las filas nuevas se leen con
+     * el alias "new" de la tabla derivada, no con VALUES() (obsoleto desde
+     * MySQL 8.0.20).
+     */
+    private static String upsertFromLatest(String latestSelect) {
+        return "INSERT INTO conversation_summary (tenant_id, platform, conversation_id, contact_id, contact_name, " +
+                "contact_avatar_url, contact_stage, external_id, last_message_id, last_message, last_message_time, " +
+                "unread_count, updated_at) " +
+                "SELECT * FROM (" +
+                "SELECT m.tenant_id, m.platform, m.internal_conversation_id AS conversation_id, m.contact_id, " +
+                "c.name AS contact_name, c.avatar_url AS contact_avatar_url, c.stage AS contact_stage, " +
+                "m.external_sender_id AS external_id, m.id AS last_message_id, " +
+                "LEFT(COALESCE(m.body, '[Media]'), 500) AS last_message, m.created_at AS last_message_time, " +
+                "(SELECT COUNT(*) FROM omni_channel_messages u " +
+                "    WHERE u.tenant_id = m.tenant_id " +
+                "    AND u.internal_conversation_id = m.internal_conversation_id " +
+                "    AND u.direction = 'INBOUND' " +
+                "    AND u.read_at IS NULL) AS unread_count, " +
+                "NOW() AS updated_at " +
+                "FROM (" + latestSelect + ") latest " +
+                "JOIN omni_channel_messages m ON m.id = latest.id " +
+                "LEFT JOIN contacts c ON c.id = m.contact_id" +
+                ") AS new " +
+                "ON DUPLICATE KEY UPDATE " +
+                "conversation_summary.contact_id = COALESCE(new.contact_id, conversation_summary.contact_id), " +
+                "conversation_summary.contact_name = IF(new.contact_id IS NULL, " +
+                "    conversation_summary.contact_name, new.contact_name), " +
+                "conversation_summary.contact_avatar_url = IF(new.contact_id IS NULL, " +
+                "    conversation_summary.contact_avatar_url, new.contact_avatar_url), " +
+                "conversation_summary.contact_stage = IF(new.contact_id IS NULL, " +
+                "    conversation_summary.contact_stage, new.contact_stage), " +
+                "conversation_summary.external_id = new.external_id, " +
+                "conversation_summary.last_message_id = new.last_message_id, " +
+                "conversation_summary.last_message = new.last_message, " +
+                "conversation_summary.last_message_time = new.last_message_time, " +
+                "conversation_summary.unread_count = new.unread_count, " +
+                "conversation_summary.updated_at = new.updated_at";
+    }
+
+    /**
+     * Mensajes desde from: si la cantidad o el último id cambian, llegó algo
+     */
+    private record Window(long from, long total, long maxId) {
+    }
+}
@@ -82,6 +82,8 @@ public class CustomerService {
                         freePlan.get().getId(),
                         savedCustomer.getId(),
                         com.app.starter1.persistence.entity.BillingCycle.MONTHLY,
+                        null,
+                        null,
                         false, // autoRenew
                         null, // customModuleIds
                         null, // customAiTokensLimit
@@ -10,10 +10,8 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.TextStyle;
-import java.math.BigDecimal;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -24,39 +22,32 @@ public class DashboardService {
         private final OrderRepository orderRepository;
         private final ProductRepository productRepository;
         private final CustomerRepository customerRepository;
+        private final SalesAggregateService salesAggregateService;
 
         public DashboardStatsDTO getStats() {
                 // Fecha actual y rangos
                 LocalDate today = LocalDate.now();
-                LocalDateTime startOfDay = today.atStartOfDay();
-                LocalDateTime endOfDay = today.plusDays(1).atStartOfDay();
                 LocalDate firstDayOfMonth = today.withDayOfMonth(1);
                 LocalDate firstDayOfLastMonth = firstDayOfMonth.minusMonths(1);
-                LocalDateTime startOfMonth = firstDayOfMonth.atStartOfDay();
-                LocalDateTime startOfLastMonth = firstDayOfLastMonth.atStartOfDay();
 
                 // ===== SALES MODULE =====
-                // Ventas del mes actual
-                List<Order> monthOrders = orderRepository.findByCreatedAtBetween(startOfMonth, endOfDay);
-                Double totalRevenue = monthOrders.stream()
-                                .map(Order::getTotal)
-                                .reduce(BigDecimal.ZERO, BigDecimal::add)
-                                .doubleValue();
-
-                // Ventas del mes anterior para comparación
-                List<Order> lastMonthOrders = orderRepository.findByCreatedAtBetween(startOfLastMonth, startOfMonth);
-                Double lastMonthRevenue = lastMonthOrders.stream()
-                                .map(Order::getTotal)
-                                .reduce(BigDecimal.ZERO, BigDecimal::add)
-                                .doubleValue();
+                // Mes actual y mes anterior desde el acumulado diario (una sola lectura)
+                Map<LocalDate, SalesAggregateService.DailyTotal> daily = salesAggregateService
+                                .findDailyTotals(null, firstDayOfLastMonth, today);
+                SalesAggregateService.DailyTotal month = sum(daily, firstDayOfMonth, today);
+                SalesAggregateService.DailyTotal lastMonth = sum(daily, firstDayOfLastMonth,
+                                firstDayOfMonth.minusDays(1));
+
+                Double totalRevenue = month.revenue().doubleValue();
+                Double lastMonthRevenue = lastMonth.revenue().doubleValue();
 
                 Double revenueChange = lastMonthRevenue > 0
                                 ? ((totalRevenue - lastMonthRevenue) / lastMonthRevenue) * 100
                                 : 0.0;
 
                 // Total de pedidos del mes
-                Integer totalOrders = monthOrders.size();
-                Integer lastMonthOrdersCount = lastMonthOrders.size();
+                Integer totalOrders = (int) month.orders();
+                Integer lastMonthOrdersCount = (int) lastMonth.orders();
                 Double ordersChange = lastMonthOrdersCount > 0
                                 ? ((double) (totalOrders - lastMonthOrdersCount) / lastMonthOrdersCount) * 100
                                 : 0.0;
@@ -74,8 +65,8 @@ public class DashboardService {
 
                 // ===== ACCOUNTING MODULE =====
                 // Facturas (simulado por ahora)
-                Integer totalInvoices = monthOrders.size(); // TODO: usar InvoiceRepository cuando esté disponible
-                Integer lowStockProducts = productRepository.findByInventoryQtyLessThan(10).size();
+                Integer totalInvoices = totalOrders; // TODO: usar InvoiceRepository cuando esté disponible
+                Integer lowStockProducts = (int) productRepository.countByInventoryQtyLessThan(10);
 
                 // ===== HR MODULE =====
                 // Empleados (simulado por ahora)
@@ -140,66 +131,67 @@ public class DashboardService {
 
         public SalesChartDTO getSalesChart(String period) {
                 List<SalesChartDTO.DataPoint> dataPoints = new ArrayList<>();
-                LocalDateTime now = LocalDateTime.now();
+                LocalDate today = LocalDate.now();
+                Locale locale = new Locale("es", "ES");
 
                 switch (period) {
-                        case "7d":
+                        case "7d": {
+                                Map<LocalDate, SalesAggregateService.DailyTotal> daily = salesAggregateService
+                                                .findDailyTotals(null, today.minusDays(6), today);
                                 for (int i = 6; i >= 0; i--) {
-                                        LocalDate date = LocalDate.now().minusDays(i);
-                                        LocalDateTime start = date.atStartOfDay();
-                                        LocalDateTime end = date.plusDays(1).atStartOfDay();
-
-                                        List<Order> orders = orderRepository.findByCreatedAtBetween(start, end);
-                                        Double sales = orders.stream()
-                                                        .map(Order::getTotal)
-                                                        .reduce(BigDecimal.ZERO, BigDecimal::add)
-                                                        .doubleValue();
-
-                                        String dayName = date.getDayOfWeek().getDisplayName(TextStyle.SHORT,
-                                                        new Locale("es", "ES"));
-                                        dataPoints.add(new SalesChartDTO.DataPoint(dayName, sales, orders.size()));
+                                        LocalDate date = today.minusDays(i);
+                                        String dayName = date.getDayOfWeek().getDisplayName(TextStyle.SHORT, locale);
+                                        dataPoints.add(toDataPoint(dayName, sum(daily, date, date)));
                                 }
                                 break;
+                        }
 
-                        case "30d":
+                        case "30d": {
+                                // Cuatro semanas de 7 días terminando hoy
+                                Map<LocalDate, SalesAggregateService.DailyTotal> daily = salesAggregateService
+                                                .findDailyTotals(null, today.minusDays(27), today);
                                 for (int week = 3; week >= 0; week--) {
-                                        LocalDateTime weekStart = now.minusWeeks(week + 1);
-                                        LocalDateTime weekEnd = now.minusWeeks(week);
-
-                                        List<Order> orders = orderRepository.findByCreatedAtBetween(weekStart, weekEnd);
-                                        Double sales = orders.stream()
-                                                        .map(Order::getTotal)
-                                                        .reduce(BigDecimal.ZERO, BigDecimal::add)
-                                                        .doubleValue();
-
-                                        dataPoints.add(new SalesChartDTO.DataPoint("Sem " + (4 - week), sales,
-                                                        orders.size()));
+                                        LocalDate weekEnd = today.minusWeeks(week);
+                                        dataPoints.add(toDataPoint("Sem " + (4 - week),
+                                                        sum(daily, weekEnd.minusDays(6), weekEnd)));
                                 }
                                 break;
-
-                        case "year":
-                                for (int month = 11; month >= 0; month--) {
-                                        LocalDateTime monthStart = now.minusMonths(month).withDayOfMonth(1)
-                                                        .toLocalDate().atStartOfDay();
-                                        LocalDateTime monthEnd = monthStart.plusMonths(1);
-
-                                        List<Order> orders = orderRepository.findByCreatedAtBetween(monthStart,
-                                                        monthEnd);
-                                        Double sales = orders.stream()
-                                                        .map(Order::getTotal)
-                                                        .reduce(BigDecimal.ZERO, BigDecimal::add)
-                                                        .doubleValue();
-
+                        }
+
+                        case "year": {
+                                LocalDate firstMonth = today.withDayOfMonth(1).minusMonths(11);
+                                Map<LocalDate, SalesAggregateService.DailyTotal> daily = salesAggregateService
+                                                .findDailyTotals(null, firstMonth, today);
+                                for (int month = 0; month < 12; month++) {
+                                        LocalDate monthStart = firstMonth.plusMonths(month);
                                         String monthName = monthStart.getMonth().getDisplayName(TextStyle.SHORT,
-                                                        new Locale("es", "ES"));
-                                        dataPoints.add(new SalesChartDTO.DataPoint(monthName, sales, orders.size()));
+                                                        locale);
+                                        dataPoints.add(toDataPoint(monthName,
+                                                        sum(daily, monthStart, monthStart.plusMonths(1).minusDays(1))));
                                 }
                                 break;
+                        }
                 }
 
                 return new SalesChartDTO(period, dataPoints);
         }
 
+        private static SalesAggregateService.DailyTotal sum(Map<LocalDate, SalesAggregateService.DailyTotal> daily,
+                        LocalDate from, LocalDate to) {
+                SalesAggregateService.DailyTotal total = SalesAggregateService.DailyTotal.EMPTY;
+                for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+                        SalesAggregateService.DailyTotal day = daily.get(date);
+                        if (day != null) {
+                                total = total.plus(day);
+                        }
+                }
+                return total;
+        }
+
+        private static SalesChartDTO.DataPoint toDataPoint(String label, SalesAggregateService.DailyTotal total) {
+                return new SalesChartDTO.DataPoint(label, total.revenue().doubleValue(), (int) total.orders());
+        }
+
         public List<ActivityDTO> getRecentActivity(Integer limit) {
                 List<ActivityDTO> activities = new ArrayList<>();
 
@@ -0,0 +1,166 @@
+package com.app.starter1.persistence.services;
+
+import co.cloudfly.erp.dian.domain.entity.DianResolution;
+import co.cloudfly.erp.dian.domain.enums.DianDocumentType;
+import co.cloudfly.erp.dian.domain.repository.DianResolutionRepository;
+import com.app.starter1.persistence.entity.DocumentSequence;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Numeración de documentos por tenant y tipo.
+ *
+ * Modo por bloques: cada nodo reserva en document_sequences un bloque de
+ * números contiguos en una transacción propia (un UPDATE, sin retener el
+ * bloqueo durante la creación del documento) y los entrega desde memoria. Los
+ * números no usados de un bloque se pierden al reiniciar, por lo que puede
+ * haber saltos; sirve para series internas.
+ *
+ * Modo sin saltos: para series con resolución DIAN el número se toma de
+ * dian_resolutions.current_number bloqueando la fila dentro de la transacción
+ * del documento. Si el documento no se guarda el número se devuelve con el
+ * rollback, y nunca se sale del rango ni de la vigencia de la resolución.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DocumentSequenceService {
+
+    private static final int BLOCK_SIZE = 20;
+
+    // LAST_INSERT_ID(expr) deja el nuevo valor en la conexión: reservar y leer sin SELECT ... FOR UPDATE
+    private static final String RESERVE_SQL = "UPDATE document_sequences " +
+            "SET next_value = LAST_INSERT_ID(next_value + ?), updated_at = ? " +
+            "WHERE tenant_id = ? AND document_type = ? AND series = ?";
+
+    private static final String LAST_ID_SQL = "SELECT LAST_INSERT_ID()";
+
+    private static final String SEED_SQL = "INSERT IGNORE INTO document_sequences " +
+            "(tenant_id, document_type, series, next_value, updated_at) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final DianResolutionRepository dianResolutionRepository;
+
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+
+    /**
+     * Siguiente número de la serie interna. lastUsed se consulta solo la
+     * primera vez que se usa la serie, para continuar la numeración existente.
+     */
+    public long next(Long tenantId, DocumentSequence.DocumentType type, String series, LongSupplier lastUsed) {
+        String normalizedSeries = series != null ? series : "";
+        Block block = blocks.computeIfAbsent(tenantId + ":" + type + ":" + normalizedSeries, key -> new Block());
+        synchronized (block) {
+            if (block.next >= block.end) {
+                block.end = reserve(tenantId, type, normalizedSeries, lastUsed);
+                block.next = block.end - BLOCK_SIZE;
+            }
+            return block.next++;
+        }
+    }
+
+    public long next(Long tenantId, DocumentSequence.DocumentType type, LongSupplier lastUsed) {
+        return next(tenantId, type, "", lastUsed);
+    }
+
+    /**
+     * Siguiente número de la resolución DIAN vigente de la compañía para el
+     * tipo de documento, o vacío si no tiene resolución. Sin compañía (null)
+     * solo se asigna si las resoluciones vigentes del tenant son de una sola
+     * compañía. Debe llamarse dentro de la transacción que guarda el
+     * documento.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Optional<RegulatedNumber> nextRegulated(Long tenantId, Long companyId, DianDocumentType type) {
+        List<DianResolution> resolutions = dianResolutionRepository.findValidForUpdate(tenantId, companyId, type,
+                LocalDate.now());
+        if (resolutions.isEmpty()) {
+            return Optional.empty();
+        }
+        if (companyId == null && resolutions.stream().map(DianResolution::getCompanyId).distinct().count() > 1) {
+            throw new IllegalStateException("Hay resoluciones DIAN vigentes de " + type.getDescription()
+                    + " de varias compañías; el documento debe indicar su compañía");
+        }
+
+        for (DianResolution resolution : resolutions) {
+            long number = resolution.getCurrentNumber();
+            if (number <= resolution.getNumberRangeTo()) {
+                resolution.setCurrentNumber(number + 1);
+                return Optional.of(new RegulatedNumber(resolution.getId(), resolution.getPrefix(), number));
+            }
+        }
+        throw new IllegalStateException("Las resoluciones DIAN vigentes de " + type.getDescription()
+                + " agotaron su rango autorizado");
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Optional<RegulatedNumber> nextRegulated(Long tenantId, DianDocumentType type) {
+        return nextRegulated(tenantId, null, type);
+    }
+
+    /**
+     * Número al final de un consecutivo ("NC-3-000042" -> 42), 0 si no tiene
+     */
+    public static long trailingNumber(String documentNumber) {
+        if (documentNumber == null) {
+            return 0;
+        }
+        int start = documentNumber.length();
+        while (start > 0 && Character.isDigit(documentNumber.charAt(start - 1))) {
+            start--;
+        }
+        return start < documentNumber.length() ? Long.parseLong(documentNumber.substring(start)) : 0;
+    }
+
+    /**
+     * Reserva el siguiente bloque y devuelve su límite (exclusivo)
+     */
+    private long reserve(Long tenantId, DocumentSequence.DocumentType type, String series, LongSupplier lastUsed) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        Long end = tx.execute(status -> {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            Object[] args = { BLOCK_SIZE, now, tenantId, type.name(), series };
+            if (jdbcTemplate.update(RESERVE_SQL, args) == 0) {
+                // Primera vez: la serie continúa después del último número existente
+                long seed = lastUsed.getAsLong() + 1;
+                jdbcTemplate.update(SEED_SQL, tenantId, type.name(), series, seed, now);
+                jdbcTemplate.update(RESERVE_SQL, args);
+                log.info("Secuencia {} {} del tenant {} iniciada en {}", type, series, tenantId, seed);
+            }
+            return jdbcTemplate.queryForObject(LAST_ID_SQL, Long.class);
+        });
+        return end;
+    }
+
+    /**
+     * Número asignado dentro de una resolución DIAN
+     */
+    public record RegulatedNumber(Long resolutionId, String prefix, long number) {
+        public String formatted() {
+            return prefix + number;
+        }
+    }
+
+    private static final class Block {
+        private long next;
+        private long end;
+    }
+}
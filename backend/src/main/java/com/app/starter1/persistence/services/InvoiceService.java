@@ -1,10 +1,12 @@
 package com.app.starter1.persistence.services;
 
+import co.cloudfly.erp.dian.domain.enums.DianDocumentType;
 import com.app.starter1.dto.InvoiceRequestDTO;
 import com.app.starter1.dto.InvoiceResponseDTO;
 import com.app.starter1.persistence.entity.*;
 import com.app.starter1.persistence.repository.ContactRepository;
 import com.app.starter1.persistence.repository.InvoiceRepository;
+import com.app.starter1.persistence.repository.OrderRepository;
 import com.app.starter1.persistence.repository.ProductRepository;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,7 +15,6 @@ import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
@@ -31,6 +32,12 @@ public class InvoiceService {
     @Autowired
     private com.app.starter1.services.AccountingIntegrationService accountingIntegrationService;
 
+    @Autowired
+    private DocumentSequenceService documentSequenceService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
     @Transactional
     public InvoiceResponseDTO createInvoice(InvoiceRequestDTO request) {
         Invoice invoice = new Invoice();
@@ -41,7 +48,7 @@ public class InvoiceService {
         invoice.setDueDate(request.getDueDate());
         invoice.setStatus(request.getStatus() != null ? request.getStatus() : InvoiceStatus.DRAFT);
         invoice.setNotes(request.getNotes());
-        invoice.setInvoiceNumber("INV-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase());
+        invoice.setInvoiceNumber(nextInvoiceNumber(request.getTenantId(), request.getOrderId()));
 
         BigDecimal orderSubtotal = BigDecimal.ZERO;
 
@@ -145,9 +152,38 @@ public class InvoiceService {
                 .orElseThrow(() -> new RuntimeException("Invoice not found"));
     }
 
+    /**
+     * Las facturas tienen consecutivo desde su creación (DIAN, sin saltos), así
+     * que no se borran: se anulan y el número queda registrado
+     */
     @Transactional
-    public void deleteInvoice(Long id) {
-        invoiceRepository.deleteById(id);
+    public void voidInvoice(Long id) {
+        Invoice invoice = invoiceRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Invoice not found"));
+        if (invoice.getStatus() == InvoiceStatus.CANCELLED) {
+            return;
+        }
+        if (invoice.getCufe() != null) {
+            // Ya validada por la DIAN: se corrige con nota crédito
+            throw new IllegalStateException("La factura " + invoice.getInvoiceNumber()
+                    + " ya fue enviada a la DIAN; anúlela con una nota crédito");
+        }
+        invoice.setStatus(InvoiceStatus.CANCELLED);
+        invoiceRepository.save(invoice);
+    }
+
+    /**
+     * Consecutivo de la resolución DIAN de facturación vigente de la compañía
+     * del pedido o, sin resolución, de la serie interna del tenant
+     */
+    private String nextInvoiceNumber(Long tenantId, Long orderId) {
+        Long companyId = orderId != null
+                ? orderRepository.findById(orderId).map(Order::getCompanyId).orElse(null)
+                : null;
+        return documentSequenceService.nextRegulated(tenantId, companyId, DianDocumentType.INVOICE)
+                .map(DocumentSequenceService.RegulatedNumber::formatted)
+                .orElseGet(() -> String.format("INV-%d-%06d", tenantId, documentSequenceService.next(tenantId,
+                        DocumentSequence.DocumentType.INVOICE, () -> 0)));
     }
 
     private InvoiceResponseDTO mapToDTO(Invoice invoice) {
@@ -11,8 +11,9 @@ import com.app.starter1.persistence.repository.SubscriptionRepository;
 import com.app.starter1.persistence.repository.UserRepository;
 import com.app.starter1.persistence.repository.rbac.RbacModuleRepository;
 import com.app.starter1.persistence.repository.rbac.RbacRoleRepository;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.app.starter1.persistence.entity.rbac.RolePermission;
+import com.app.starter1.services.rbac.CompiledModuleMenu;
+import com.app.starter1.services.rbac.ModuleMenuRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -31,7 +32,7 @@ public class MenuService {
     private final RbacRoleRepository rbacRoleRepository;
     private final UserRepository userRepository;
     private final SubscriptionRepository subscriptionRepository;
-    private final ObjectMapper objectMapper;
+    private final ModuleMenuRegistry moduleMenuRegistry;
 
     /**
      * Obtiene el menú del sistema filtrado por Suscripción (Tenant) y Permisos
@@ -79,7 +80,7 @@ public class MenuService {
             List<MenuItemDTO> menuItems = new ArrayList<>();
 
             for (RbacModule module : allModules) {
-                MenuItemDTO menuItem = convertToMenuItemDTO(module, userRoles, true); // true = ver todos los sub-items
+                MenuItemDTO menuItem = convertToMenuItemDTO(module, Map.of(), true); // true = ver todos los sub-items
                 if (menuItem != null) {
                     menuItems.add(menuItem);
                 }
@@ -138,6 +139,7 @@ public class MenuService {
         }
 
         // 5. PASO 3: Filtrar módulos por suscripción Y por permisos del rol
+        Map<String, Set<String>> grantedActions = grantedActionsByModule(userRoles);
         List<RbacModule> allModules = moduleRepository.findAllByIsActiveTrueOrderByDisplayOrder();
         List<MenuItemDTO> menuItems = new ArrayList<>();
 
@@ -149,8 +151,8 @@ public class MenuService {
             }
 
             // Filtro 2: El rol del usuario DEBE tener permiso ACCESS al módulo
-            boolean hasAccess = userRoles.stream()
-                    .anyMatch(role -> role.hasPermission(module.getCode(), "ACCESS"));
+            Set<String> moduleActions = grantedActions.getOrDefault(module.getCode(), Set.of());
+            boolean hasAccess = moduleActions.contains("ACCESS");
 
             if (!hasAccess) {
                 log.trace("Usuario {} no tiene permiso ACCESS al módulo {}", username, module.getCode());
@@ -158,8 +160,8 @@ public class MenuService {
             }
 
             // Convertir el módulo a MenuItemDTO (con filtrado de sub-items)
-            MenuItemDTO menuItem = convertToMenuItemDTO(module, userRoles, false); // false = filtrar sub-items por
-                                                                                   // permisos
+            MenuItemDTO menuItem = convertToMenuItemDTO(module, grantedActions, false); // false = filtrar sub-items
+                                                                                        // por permisos
 
             if (menuItem != null) {
                 menuItems.add(menuItem);
@@ -171,7 +173,25 @@ public class MenuService {
         return menuItems;
     }
 
-    private MenuItemDTO convertToMenuItemDTO(RbacModule module, List<Role> userRoles, boolean showAllSubItems) {
+    /**
+     * Acciones concedidas por módulo, unión de todos los roles del usuario
+     */
+    private Map<String, Set<String>> grantedActionsByModule(List<Role> userRoles) {
+        Map<String, Set<String>> granted = new HashMap<>();
+        for (Role role : userRoles) {
+            for (RolePermission permission : role.getPermissions()) {
+                if (Boolean.TRUE.equals(permission.getGranted())) {
+                    granted.computeIfAbsent(permission.getModuleAction().getModule().getCode(),
+                            code -> new HashSet<>())
+                            .add(permission.getModuleAction().getCode());
+                }
+            }
+        }
+        return granted;
+    }
+
+    private MenuItemDTO convertToMenuItemDTO(RbacModule module, Map<String, Set<String>> grantedActions,
+            boolean showAllSubItems) {
         try {
             MenuItemDTO menuItem = MenuItemDTO.builder()
                     .label(module.getName())
@@ -179,53 +199,13 @@ public class MenuService {
                     .href(module.getMenuPath())
                     .build();
 
-            // Parse menuItems JSON to children y filtrar
-            if (module.getMenuItems() != null && !module.getMenuItems().isEmpty()) {
-                List<Map<String, Object>> childrenData = objectMapper.readValue(
-                        module.getMenuItems(),
-                        new TypeReference<List<Map<String, Object>>>() {
-                        });
-
-                List<MenuItemDTO> children = new ArrayList<>();
-                for (Map<String, Object> childData : childrenData) {
-                    String label = (String) childData.get("label");
-
-                    // Si showAllSubItems es true (MANAGER), mostrar todos los sub-items sin filtrar
-                    // Si es false, verificar permisos explícitos
-                    boolean hasChildAccess = showAllSubItems;
-
-                    if (!hasChildAccess) {
-                        // Verificar acceso al subitem - usuarios normales necesitan permiso explícito
-                        String actionCode = "ACCESS_" + normalizeLabel(label);
-                        hasChildAccess = userRoles.stream()
-                                .anyMatch(role -> role.hasPermission(module.getCode(), actionCode));
-
-                        if (!hasChildAccess) {
-                            log.trace("Usuario no tiene permiso {} para sub-item '{}' del módulo {}",
-                                    actionCode, label, module.getCode());
-                            continue;
-                        }
-                    }
-
-                    // Usuario tiene acceso al sub-item
-                    MenuItemDTO child = MenuItemDTO.builder()
-                            .label(label)
-                            .href((String) childData.get("href"))
-                            .icon((String) childData.get("icon"))
-                            .build();
-
-                    if (childData.containsKey("suffix")) {
-                        @SuppressWarnings("unchecked")
-                        Map<String, String> suffixData = (Map<String, String>) childData.get("suffix");
-                        MenuSuffixDTO suffix = MenuSuffixDTO.builder()
-                                .label(suffixData.get("label"))
-                                .color(suffixData.get("color"))
-                                .build();
-                        child.setSuffix(suffix);
-                    }
-                    children.add(child);
-                }
-                menuItem.setChildren(children);
+            // Sub-items precompilados; usuarios normales necesitan permiso ACCESS_<LABEL>
+            // explícito, si showAllSubItems es true (MANAGER) se muestran todos
+            CompiledModuleMenu moduleMenu = moduleMenuRegistry.get(module);
+            if (!moduleMenu.isEmpty()) {
+                Set<String> moduleActions = grantedActions.getOrDefault(module.getCode(), Set.of());
+                menuItem.setChildren(moduleMenu.visibleByAccess(
+                        moduleMenu.grantedActions(moduleActions::contains), showAllSubItems));
             }
 
             // Extras (badges, etc)
@@ -239,24 +219,4 @@ public class MenuService {
             return null;
         }
     }
-
-    private String normalizeLabel(String label) {
-        if (label == null)
-            return "";
-        String cleanLabel = label.toUpperCase()
-                .replace("Á", "A")
-                .replace("É", "E")
-                .replace("Í", "I")
-                .replace("Ó", "O")
-                .replace("Ú", "U")
-                .replace("Ñ", "N")
-                .replaceAll("[^A-Z0-9]", "_")
-                .replaceAll("_+", "_");
-
-        if (cleanLabel.endsWith("_"))
-            cleanLabel = cleanLabel.substring(0, cleanLabel.length() - 1);
-        if (cleanLabel.startsWith("_"))
-            cleanLabel = cleanLabel.substring(1);
-        return cleanLabel;
-    }
 }
@@ -5,6 +5,7 @@ import com.app.starter1.persistence.entity.Order;
 import com.app.starter1.persistence.entity.OrderItem;
 import com.app.starter1.persistence.entity.Product;
 import com.app.starter1.persistence.entity.Contact;
+import com.app.starter1.persistence.entity.DocumentSequence;
 import com.app.starter1.persistence.repository.OrderRepository;
 import com.app.starter1.persistence.repository.ProductRepository;
 import com.app.starter1.persistence.repository.ContactRepository;
@@ -15,8 +16,12 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,17 +29,23 @@ public class OrderService {
 
     private final OrderRepository orderRepository;
     private final ProductRepository productRepository;
-    private final ProductService productService;
     private final ContactRepository contactRepository;
+    private final StockLedgerService stockLedgerService;
+    private final DocumentSequenceService documentSequenceService;
+    private final SalesAggregateService salesAggregateService;
 
     public OrderService(OrderRepository orderRepository,
             ProductRepository productRepository,
-            ProductService productService,
-            ContactRepository contactRepository) {
+            ContactRepository contactRepository,
+            StockLedgerService stockLedgerService,
+            DocumentSequenceService documentSequenceService,
+            SalesAggregateService salesAggregateService) {
         this.orderRepository = orderRepository;
         this.productRepository = productRepository;
-        this.productService = productService;
         this.contactRepository = contactRepository;
+        this.stockLedgerService = stockLedgerService;
+        this.documentSequenceService = documentSequenceService;
+        this.salesAggregateService = salesAggregateService;
     }
 
     /* ------------------------------ Crear Orden ------------------------------ */
@@ -69,7 +80,14 @@ public class OrderService {
             throw new IllegalArgumentException("El método de pago es obligatorio");
         }
 
-        // 5. Validar cada item antes de procesar
+        // 5. Validar cada item antes de procesar (productos cargados en una sola consulta)
+        Map<Long, Product> products = productRepository.findAllById(dto.getItems().stream()
+                .map(OrderItemRequestDTO::getProductId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
         for (OrderItemRequestDTO itemDto : dto.getItems()) {
             // Validar cantidad positiva
             if (itemDto.getQuantity() == null || itemDto.getQuantity() <= 0) {
@@ -78,9 +96,10 @@ public class OrderService {
             }
 
             // Validar que el producto existe
-            Product product = productRepository.findById(itemDto.getProductId())
-                    .orElseThrow(() -> new NoSuchElementException(
-                            "Producto no encontrado con id " + itemDto.getProductId()));
+            Product product = products.get(itemDto.getProductId());
+            if (product == null) {
+                throw new NoSuchElementException("Producto no encontrado con id " + itemDto.getProductId());
+            }
 
             // Validar que el producto pertenezca al tenant
             if (!product.getTenantId().equals(dto.getTenantId())) {
@@ -88,9 +107,11 @@ public class OrderService {
                         "El producto " + product.getProductName() + " no pertenece al tenant " + dto.getTenantId());
             }
 
-            // Validar stock disponible
-            if (!productService.validateStock(itemDto.getProductId(), itemDto.getQuantity())) {
-                String stockInfo = product.getManageStock() && product.getInventoryQty() != null
+            // Validar stock disponible (el descuento atómico lo garantiza; esto da el mensaje detallado)
+            boolean manageStock = Boolean.TRUE.equals(product.getManageStock());
+            int available = product.getInventoryQty() != null ? product.getInventoryQty() : 0;
+            if (manageStock && available < itemDto.getQuantity()) {
+                String stockInfo = product.getInventoryQty() != null
                         ? " (disponible: " + product.getInventoryQty() + ")"
                         : "";
                 throw new IllegalStateException(
@@ -133,10 +154,11 @@ public class OrderService {
                 .createdBy(dto.getCreatedBy())
                 .build();
 
-        // 8. Procesar cada item y reducir stock
+        // 8. Procesar cada item
+        List<StockLedgerService.StockLine> stockLines = new ArrayList<>();
         for (OrderItemRequestDTO itemDto : dto.getItems()) {
             // Obtener el producto (ya validado antes)
-            Product product = productRepository.findById(itemDto.getProductId()).get();
+            Product product = products.get(itemDto.getProductId());
 
             // Crear item de orden (snapshot del producto)
             BigDecimal price = product.getSalePrice() != null ? product.getSalePrice() : product.getPrice();
@@ -157,15 +179,17 @@ public class OrderService {
             // Agregar item a la orden
             order.addItem(orderItem);
 
-            // Reducir stock
-            productService.reduceStock(itemDto.getProductId(), itemDto.getQuantity());
+            stockLines.add(new StockLedgerService.StockLine(itemDto.getProductId(), itemDto.getQuantity()));
         }
 
         // 9. Calcular total de la orden
         order.calculateTotal();
 
-        // 10. Guardar
+        // 10. Guardar y descontar el stock de todos los items en un solo UPDATE
         Order savedOrder = orderRepository.save(order);
+        stockLedgerService.decrement(dto.getTenantId(), stockLines, StockLedgerService.REFERENCE_ORDER,
+                savedOrder.getId());
+        salesAggregateService.recordSale(savedOrder);
 
         return toResponseDTO(savedOrder);
     }
@@ -242,13 +266,14 @@ public class OrderService {
         }
 
         // Restaurar stock de todos los items
-        for (OrderItem item : order.getItems()) {
-            productService.restoreStock(item.getProduct().getId(), item.getQuantity());
-        }
+        stockLedgerService.increment(order.getTenantId(), order.getItems().stream()
+                .map(item -> new StockLedgerService.StockLine(item.getProduct().getId(), item.getQuantity()))
+                .collect(Collectors.toList()), StockLedgerService.REFERENCE_ORDER, order.getId());
 
         // Cambiar estado
         order.setStatus("CANCELLED");
         Order savedOrder = orderRepository.save(order);
+        salesAggregateService.recordCancellation(savedOrder);
 
         return toResponseDTO(savedOrder);
     }
@@ -262,25 +287,13 @@ public class OrderService {
         // Formato: INV-{tenantId}-{YYYYMMDD}-{secuencia}
         String dateStr = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
 
-        // Obtener el último ID para este tenant
-        Long maxId = orderRepository.findMaxIdByTenantId(tenantId);
-        long sequence = (maxId != null ? maxId : 0) + 1;
-
-        String invoiceNumber = String.format("INV-%d-%s-%05d", tenantId, dateStr, sequence);
-
-        // Verificar que no exista (por seguridad)
-        int attempts = 0;
-        while (orderRepository.existsByInvoiceNumber(invoiceNumber) && attempts < 100) {
-            sequence++;
-            invoiceNumber = String.format("INV-%d-%s-%05d", tenantId, dateStr, sequence);
-            attempts++;
-        }
-
-        if (attempts >= 100) {
-            throw new IllegalStateException("No se pudo generar un número de factura único");
-        }
+        // La secuencia continúa desde el último ID de orden del tenant (numeración anterior)
+        long sequence = documentSequenceService.next(tenantId, DocumentSequence.DocumentType.ORDER_INVOICE, () -> {
+            Long maxId = orderRepository.findMaxIdByTenantId(tenantId);
+            return maxId != null ? maxId : 0;
+        });
 
-        return invoiceNumber;
+        return String.format("INV-%d-%s-%05d", tenantId, dateStr, sequence);
     }
 
     /* ------------------------------ Mapper ------------------------------ */
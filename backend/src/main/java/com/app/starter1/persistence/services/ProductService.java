@@ -21,13 +21,16 @@ public class ProductService {
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
     private final MediaRepository mediaRepository;
+    private final StockLedgerService stockLedgerService;
 
     public ProductService(ProductRepository productRepository,
             CategoryRepository categoryRepository,
-            MediaRepository mediaRepository) {
+            MediaRepository mediaRepository,
+            StockLedgerService stockLedgerService) {
         this.productRepository = productRepository;
         this.categoryRepository = categoryRepository;
         this.mediaRepository = mediaRepository;
+        this.stockLedgerService = stockLedgerService;
     }
 
     /*
@@ -101,7 +104,16 @@ public class ProductService {
             product.getImages().clear();
         }
 
-        Product saved = productRepository.save(product);
+        Product saved = productRepository.saveAndFlush(product);
+
+        // En productos existentes inventory_qty no se escribe desde la entidad:
+        // solo un cambio explícito (saldo leído por el formulario distinto del
+        // nuevo) pasa por el libro, y falla si una venta movió el saldo entretanto
+        if (dto.getId() != null && dto.getInventoryQty() != null && dto.getExpectedInventoryQty() != null
+                && !dto.getInventoryQty().equals(dto.getExpectedInventoryQty())) {
+            stockLedgerService.adjust(saved.getTenantId(), saved.getId(), dto.getExpectedInventoryQty(),
+                    dto.getInventoryQty());
+        }
 
         return toResponseDTO(saved);
     }
@@ -235,67 +247,4 @@ public class ProductService {
         Integer currentStock = product.getInventoryQty() != null ? product.getInventoryQty() : 0;
         return currentStock >= quantity;
     }
-
-    /*
-     * ------------------------------ POS: Reducir Stock
-     * ------------------------------
-     */
-
-    @Transactional
-    public void reduceStock(Long productId, Integer quantity) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new NoSuchElementException("Producto no encontrado con id " + productId));
-
-        // Si no maneja stock, no hacer nada
-        if (product.getManageStock() == null || !product.getManageStock()) {
-            return;
-        }
-
-        Integer currentStock = product.getInventoryQty() != null ? product.getInventoryQty() : 0;
-
-        if (currentStock < quantity) {
-            throw new IllegalStateException("Stock insuficiente para el producto: " + product.getProductName()
-                    + ". Disponible: " + currentStock + ", Solicitado: " + quantity);
-        }
-
-        // Reducir stock
-        product.setInventoryQty(currentStock - quantity);
-
-        // Actualizar estado si es necesario
-        if (product.getInventoryQty() == 0) {
-            product.setInventoryStatus("OUT_OF_STOCK");
-        } else if (product.getInventoryQty() > 0 && "OUT_OF_STOCK".equals(product.getInventoryStatus())) {
-            product.setInventoryStatus("IN_STOCK");
-        }
-
-        productRepository.save(product);
-    }
-
-    /*
-     * ------------------------------ POS: Restaurar Stock (para cancelaciones)
-     * ------------------------------
-     */
-
-    @Transactional
-    public void restoreStock(Long productId, Integer quantity) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new NoSuchElementException("Producto no encontrado con id " + productId));
-
-        // Si no maneja stock, no hacer nada
-        if (product.getManageStock() == null || !product.getManageStock()) {
-            return;
-        }
-
-        Integer currentStock = product.getInventoryQty() != null ? product.getInventoryQty() : 0;
-
-        // Restaurar stock
-        product.setInventoryQty(currentStock + quantity);
-
-        // Actualizar estado
-        if (product.getInventoryQty() > 0 && "OUT_OF_STOCK".equals(product.getInventoryStatus())) {
-            product.setInventoryStatus("IN_STOCK");
-        }
-
-        productRepository.save(product);
-    }
 }
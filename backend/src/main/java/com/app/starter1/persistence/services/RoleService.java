@@ -5,6 +5,7 @@ import com.app.starter1.dto.rbac.RoleFormDTO;
 import com.app.starter1.dto.rbac.RoleModulePermissionsDTO;
 import com.app.starter1.persistence.entity.rbac.*;
 import com.app.starter1.persistence.repository.rbac.*;
+import com.app.starter1.services.rbac.RbacCache;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
@@ -25,6 +26,7 @@ public class RoleService {
     private final RbacModuleRepository moduleRepository;
     private final ModuleActionRepository actionRepository;
     private final RolePermissionRepository permissionRepository;
+    private final RbacCache rbacCache;
 
     @PersistenceContext
     private EntityManager entityManager;
@@ -133,11 +135,14 @@ public class RoleService {
             }
         }
 
-        return roleRepository.save(savedRole);
+        Role result = roleRepository.save(savedRole);
+        rbacCache.invalidate();
+        return result;
     }
 
     @Transactional
     public void deleteRole(Long id) {
         roleRepository.deleteById(id);
+        rbacCache.invalidate();
     }
 }
@@ -0,0 +1,272 @@
+package com.app.starter1.persistence.services;
+
+import com.app.starter1.persistence.entity.StockMovement;
+import com.app.starter1.persistence.repository.StockMovementRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
+/**
+ * Libro de inventario de productos.
+ *
+ * Las salidas de una orden se aplican en un solo UPDATE condicional
+ * (inventory_qty >= cantidad por producto) sin leer antes los productos: dos
+ * terminales no pueden vender la misma unidad ni pisarse el saldo, y si
+ * alguna línea no alcanza las filas actualizadas no coinciden y la
+ * transacción se revierte. El UPDATE recorre las filas por clave primaria,
+ * así dos órdenes concurrentes las bloquean en el mismo orden y no se
+ * interbloquean. Cada cambio queda en stock_movements con el saldo resultante.
+ *
+ * Los productos sin manejo de stock se ignoran.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockLedgerService {
+
+    public static final String REFERENCE_ORDER = "ORDER";
+    public static final String REFERENCE_PRODUCT = "PRODUCT";
+
+    private static final int MAX_MOVEMENTS_PAGE = 500;
+
+    private static final String MANAGED_PRODUCTS_SQL = "SELECT id, product_name FROM productos " +
+            "WHERE tenant_id = :tenantId AND id IN (:ids) AND manage_stock = TRUE";
+
+    // MySQL evalúa las asignaciones de izquierda a derecha: el CASE de estado ve el saldo nuevo
+    private static final String DECREMENT_SQL = "UPDATE productos " +
+            "SET inventory_qty = inventory_qty - CASE id %1$s END, " +
+            "inventory_status = CASE WHEN inventory_qty = 0 THEN 'OUT_OF_STOCK' " +
+            "    WHEN inventory_status = 'OUT_OF_STOCK' THEN 'IN_STOCK' ELSE inventory_status END " +
+            "WHERE tenant_id = ? AND manage_stock = TRUE AND id IN (%2$s) " +
+            "AND inventory_qty >= CASE id %1$s END";
+
+    private static final String INCREMENT_SQL = "UPDATE productos " +
+            "SET inventory_qty = COALESCE(inventory_qty, 0) + CASE id %1$s END, " +
+            "inventory_status = CASE WHEN inventory_qty > 0 AND inventory_status = 'OUT_OF_STOCK' THEN 'IN_STOCK' " +
+            "    ELSE inventory_status END " +
+            "WHERE tenant_id = ? AND manage_stock = TRUE AND id IN (%2$s)";
+
+    private static final String AVAILABLE_SQL = "SELECT id, COALESCE(inventory_qty, 0) AS qty FROM productos " +
+            "WHERE id IN (:ids)";
+
+    private static final String LOCK_QTY_SQL = "SELECT COALESCE(inventory_qty, 0) FROM productos " +
+            "WHERE id = ? AND tenant_id = ? FOR UPDATE";
+
+    private static final String SET_QTY_SQL = "UPDATE productos " +
+            "SET inventory_qty = ?, " +
+            "inventory_status = CASE WHEN inventory_qty = 0 THEN 'OUT_OF_STOCK' " +
+            "    WHEN inventory_status = 'OUT_OF_STOCK' THEN 'IN_STOCK' ELSE inventory_status END " +
+            "WHERE id = ? AND tenant_id = ?";
+
+    private static final String INSERT_MOVEMENT_SQL = "INSERT INTO stock_movements " +
+            "(tenant_id, product_id, movement_type, quantity, balance_after, reference_type, reference_id, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Productos cuyo saldo no coincide con el del último movimiento (cambios por fuera del libro)
+    private static final String DISCREPANCIES_SQL = "SELECT p.id, p.product_name, " +
+            "COALESCE(p.inventory_qty, 0) AS qty, m.balance_after " +
+            "FROM productos p " +
+            "JOIN stock_movements m ON m.id = (SELECT MAX(l.id) FROM stock_movements l " +
+            "    WHERE l.tenant_id = p.tenant_id AND l.product_id = p.id) " +
+            "WHERE p.tenant_id = ? AND p.manage_stock = TRUE " +
+            "AND m.balance_after <> COALESCE(p.inventory_qty, 0) " +
+            "ORDER BY p.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final StockMovementRepository movementRepository;
+
+    /**
+     * Descuenta el stock de las líneas de una venta. Si algún producto no
+     * alcanza se lanza IllegalStateException y la transacción no aplica nada.
+     */
+    @Transactional
+    public void decrement(Long tenantId, List<StockLine> lines, String referenceType, Long referenceId) {
+        Map<Long, Integer> quantities = merge(lines);
+        Map<Long, String> managed = managedProducts(tenantId, quantities);
+        if (managed.isEmpty()) {
+            return;
+        }
+
+        int updated = jdbcTemplate.update(perProductSql(DECREMENT_SQL, managed.size()),
+                perProductArgs(tenantId, managed.keySet(), quantities, true));
+        if (updated != managed.size()) {
+            // Otra venta tomó las últimas unidades entre la validación y el descuento
+            throw new IllegalStateException("Stock insuficiente para alguno de los productos ("
+                    + String.join(", ", managed.values()) + "). Verifique existencias e intente de nuevo");
+        }
+
+        recordMovements(tenantId, managed.keySet(), quantities, -1, StockMovement.MovementType.SALE,
+                referenceType, referenceId);
+    }
+
+    /**
+     * Devuelve al inventario las líneas de una venta anulada
+     */
+    @Transactional
+    public void increment(Long tenantId, List<StockLine> lines, String referenceType, Long referenceId) {
+        Map<Long, Integer> quantities = merge(lines);
+        Map<Long, String> managed = managedProducts(tenantId, quantities);
+        if (managed.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.update(perProductSql(INCREMENT_SQL, managed.size()),
+                perProductArgs(tenantId, managed.keySet(), quantities, false));
+
+        recordMovements(tenantId, managed.keySet(), quantities, 1, StockMovement.MovementType.SALE_CANCELLATION,
+                referenceType, referenceId);
+    }
+
+    /**
+     * Fija el stock de un producto (edición manual) y registra la diferencia.
+     * expectedQuantity es el saldo sobre el que el usuario hizo el cambio: si
+     * una venta lo movió entretanto se lanza IllegalStateException en vez de
+     * pisarla. Devuelve el saldo anterior, o null si el producto no existe en
+     * el tenant.
+     */
+    @Transactional
+    public Integer adjust(Long tenantId, Long productId, int expectedQuantity, int newQuantity) {
+        List<Integer> current = jdbcTemplate.queryForList(LOCK_QTY_SQL, Integer.class, productId, tenantId);
+        if (current.isEmpty()) {
+            return null;
+        }
+        int previous = current.get(0);
+        if (previous != expectedQuantity) {
+            throw new IllegalStateException("El stock del producto cambió de " + expectedQuantity + " a " + previous
+                    + " mientras se editaba. Recargue el producto e intente de nuevo");
+        }
+        if (previous == newQuantity) {
+            return previous;
+        }
+
+        jdbcTemplate.update(SET_QTY_SQL, newQuantity, productId, tenantId);
+        jdbcTemplate.update(INSERT_MOVEMENT_SQL, tenantId, productId, StockMovement.MovementType.ADJUSTMENT.name(),
+                newQuantity - previous, newQuantity, REFERENCE_PRODUCT, productId,
+                Timestamp.valueOf(LocalDateTime.now()));
+        log.info("Ajuste de stock del producto {}: {} -> {}", productId, previous, newQuantity);
+        return previous;
+    }
+
+    @Transactional(readOnly = true)
+    public List<StockMovement> getMovements(Long tenantId, Long productId, int limit) {
+        return movementRepository.findByTenantIdAndProductIdOrderByIdDesc(tenantId, productId,
+                PageRequest.of(0, Math.max(1, Math.min(limit, MAX_MOVEMENTS_PAGE))));
+    }
+
+    /**
+     * Productos con manejo de stock cuyo saldo difiere del último movimiento
+     */
+    @Transactional(readOnly = true)
+    public List<StockDiscrepancy> findDiscrepancies(Long tenantId) {
+        return jdbcTemplate.query(DISCREPANCIES_SQL, (rs, rowNum) -> new StockDiscrepancy(
+                rs.getLong("id"),
+                rs.getString("product_name"),
+                rs.getInt("qty"),
+                rs.getInt("balance_after")), tenantId);
+    }
+
+    private void recordMovements(Long tenantId, Iterable<Long> productIds, Map<Long, Integer> quantities, int sign,
+            StockMovement.MovementType type, String referenceType, Long referenceId) {
+        List<Long> ids = new ArrayList<>();
+        productIds.forEach(ids::add);
+
+        // Leído dentro de la transacción que tiene bloqueadas las filas: es el saldo propio
+        Map<Long, Integer> balances = currentQuantities(ids);
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>(ids.size());
+        for (Long productId : ids) {
+            args.add(new Object[] { tenantId, productId, type.name(), sign * quantities.get(productId),
+                    balances.getOrDefault(productId, 0), referenceType, referenceId, now });
+        }
+        jdbcTemplate.batchUpdate(INSERT_MOVEMENT_SQL, args);
+    }
+
+    private Map<Long, Integer> currentQuantities(Collection<Long> productIds) {
+        Map<Long, Integer> balances = new HashMap<>();
+        namedJdbcTemplate.query(AVAILABLE_SQL, new MapSqlParameterSource("ids", productIds),
+                rs -> {
+                    balances.put(rs.getLong("id"), rs.getInt("qty"));
+                });
+        return balances;
+    }
+
+    /**
+     * Completa la plantilla con un "WHEN ? THEN ?" y un "?" del IN por producto
+     */
+    private static String perProductSql(String template, int products) {
+        String cases = String.join(" ", Collections.nCopies(products, "WHEN ? THEN ?"));
+        String placeholders = String.join(", ", Collections.nCopies(products, "?"));
+        return String.format(template, cases, placeholders);
+    }
+
+    private static Object[] perProductArgs(Long tenantId, Collection<Long> productIds, Map<Long, Integer> quantities,
+            boolean repeatCases) {
+        List<Object> cases = new ArrayList<>();
+        for (Long productId : productIds) {
+            cases.add(productId);
+            cases.add(quantities.get(productId));
+        }
+        List<Object> args = new ArrayList<>(cases);
+        args.add(tenantId);
+        args.addAll(productIds);
+        if (repeatCases) {
+            args.addAll(cases);
+        }
+        return args.toArray();
+    }
+
+    /**
+     * Productos del tenant con manejo de stock, ordenados por id
+     */
+    private Map<Long, String> managedProducts(Long tenantId, Map<Long, Integer> quantities) {
+        Map<Long, String> managed = new TreeMap<>();
+        if (quantities.isEmpty()) {
+            return managed;
+        }
+        namedJdbcTemplate.query(MANAGED_PRODUCTS_SQL, new MapSqlParameterSource()
+                .addValue("tenantId", tenantId)
+                .addValue("ids", quantities.keySet()),
+                rs -> {
+                    managed.put(rs.getLong("id"), rs.getString("product_name"));
+                });
+        return managed;
+    }
+
+    private static Map<Long, Integer> merge(List<StockLine> lines) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (StockLine line : lines) {
+            if (line.productId() == null) {
+                throw new NoSuchElementException("Producto no especificado");
+            }
+            if (line.quantity() <= 0) {
+                throw new IllegalArgumentException("La cantidad debe ser mayor a 0 para el producto " + line.productId());
+            }
+            quantities.merge(line.productId(), line.quantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    public record StockLine(Long productId, int quantity) {
+    }
+
+    public record StockDiscrepancy(Long productId, String productName, int inventoryQty, int ledgerBalance) {
+    }
+}
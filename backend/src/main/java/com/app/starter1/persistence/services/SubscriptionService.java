@@ -5,6 +5,7 @@ import com.app.starter1.persistence.entity.*;
 import com.app.starter1.persistence.entity.rbac.RbacModule;
 import com.app.starter1.persistence.repository.*;
 import com.app.starter1.persistence.repository.rbac.RbacModuleRepository;
+import com.app.starter1.services.rbac.RbacCache;
 import com.app.starter1.utils.UserMethods;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -23,6 +24,7 @@ public class SubscriptionService {
         private final CustomerRepository customerRepository;
         private final RbacModuleRepository rbacModuleRepository;
         private final UserMethods userMethods;
+        private final RbacCache rbacCache;
 
         /**
          * Crea una suscripción para un tenant basada en un plan
@@ -93,6 +95,7 @@ public class SubscriptionService {
                                 .build();
 
                 Subscription savedSubscription = subscriptionRepository.save(subscription);
+                rbacCache.invalidate();
                 return mapToResponse(savedSubscription);
         }
 
@@ -133,6 +136,7 @@ public class SubscriptionService {
 
                 subscription.setModules(newModules);
                 Subscription updated = subscriptionRepository.save(subscription);
+                rbacCache.invalidate();
                 return mapToResponse(updated);
         }
 
@@ -168,6 +172,7 @@ public class SubscriptionService {
 
                 subscription.getModules().add(module);
                 Subscription updated = subscriptionRepository.save(subscription);
+                rbacCache.invalidate();
                 return mapToResponse(updated);
         }
 
@@ -182,6 +187,7 @@ public class SubscriptionService {
 
                 subscription.getModules().removeIf(m -> m.getId().equals(moduleId));
                 Subscription updated = subscriptionRepository.save(subscription);
+                rbacCache.invalidate();
                 return mapToResponse(updated);
         }
 
@@ -198,6 +204,7 @@ public class SubscriptionService {
                 subscription.setIsAutoRenew(false);
 
                 Subscription updated = subscriptionRepository.save(subscription);
+                rbacCache.invalidate();
                 return mapToResponse(updated);
         }
 
@@ -256,6 +263,7 @@ public class SubscriptionService {
                                 .build();
 
                 Subscription saved = subscriptionRepository.save(newSubscription);
+                rbacCache.invalidate();
                 return mapToResponse(saved);
         }
 
@@ -283,6 +291,7 @@ public class SubscriptionService {
                 subscription.setEndDate(endDate);
 
                 Subscription updated = subscriptionRepository.save(subscription);
+                rbacCache.invalidate();
                 return mapToResponse(updated);
         }
 
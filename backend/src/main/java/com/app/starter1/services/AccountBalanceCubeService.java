@@ -0,0 +1,310 @@
+package com.app.starter1.services;
+
+import com.app.starter1.persistence.entity.AccountBalanceCube;
+import com.app.starter1.persistence.entity.AccountingEntry;
+import com.app.starter1.persistence.entity.AccountingVoucher;
+import com.app.starter1.persistence.entity.ChartOfAccount;
+import com.app.starter1.persistence.repository.AccountBalanceCubeRepository;
+import com.app.starter1.persistence.repository.AccountMovementSummary;
+import com.app.starter1.persistence.repository.AccountingEntryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Mantiene y consulta el cubo de saldos mensuales (account_balance_cube).
+ *
+ * El cubo guarda débitos y créditos por tenant, período AAAAMM, cuenta y
+ * centro de costo. Se actualiza en el mismo batch en que se contabiliza o
+ * anula un comprobante, y los estados financieros lo consultan en lugar de
+ * recorrer los movimientos cuenta por cuenta. Los días sueltos al inicio o
+ * al final de un rango que no completan un mes se leen de los movimientos.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AccountBalanceCubeService {
+
+    private static final String UPSERT_SQL = "INSERT INTO account_balance_cube " +
+            "(tenant_id, period_yyyymm, account_code, cost_center_id, debit_amount, credit_amount, last_updated) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "debit_amount = debit_amount + VALUES(debit_amount), " +
+            "credit_amount = credit_amount + VALUES(credit_amount), " +
+            "last_updated = VALUES(last_updated)";
+
+    private static final String DELETE_RANGE_SQL = "DELETE FROM account_balance_cube " +
+            "WHERE tenant_id = ? AND period_yyyymm BETWEEN ? AND ?";
+
+    private static final String REBUILD_RANGE_SQL = "INSERT INTO account_balance_cube " +
+            "(tenant_id, period_yyyymm, account_code, cost_center_id, debit_amount, credit_amount, last_updated) " +
+            "SELECT e.tenant_id, YEAR(e.voucher_date) * 100 + MONTH(e.voucher_date), e.account_code, " +
+            "COALESCE(e.cost_center_id, 0), COALESCE(SUM(e.debit_amount), 0), COALESCE(SUM(e.credit_amount), 0), ? " +
+            "FROM accounting_entries e " +
+            "WHERE e.tenant_id = ? AND e.voucher_status = 'POSTED' AND e.voucher_date BETWEEN ? AND ? " +
+            "GROUP BY e.tenant_id, YEAR(e.voucher_date) * 100 + MONTH(e.voucher_date), e.account_code, " +
+            "COALESCE(e.cost_center_id, 0)";
+
+    // Tenants con movimientos y sin carga inicial registrada (recorre idx_entry_tenant_date)
+    private static final String PENDING_TENANTS_SQL = "SELECT DISTINCT e.tenant_id FROM accounting_entries e " +
+            "WHERE e.tenant_id IS NOT NULL " +
+            "AND NOT EXISTS (SELECT 1 FROM account_balance_cube_backfill b WHERE b.tenant_id = e.tenant_id)";
+
+    private static final String DELETE_TENANT_SQL = "DELETE FROM account_balance_cube WHERE tenant_id = ?";
+
+    private static final String BACKFILL_TENANT_SQL = "INSERT INTO account_balance_cube " +
+            "(tenant_id, period_yyyymm, account_code, cost_center_id, debit_amount, credit_amount, last_updated) " +
+            "SELECT e.tenant_id, YEAR(e.voucher_date) * 100 + MONTH(e.voucher_date), e.account_code, " +
+            "COALESCE(e.cost_center_id, 0), COALESCE(SUM(e.debit_amount), 0), COALESCE(SUM(e.credit_amount), 0), ? " +
+            "FROM accounting_entries e " +
+            "WHERE e.tenant_id = ? AND e.voucher_status = 'POSTED' AND e.voucher_date IS NOT NULL " +
+            "GROUP BY e.tenant_id, YEAR(e.voucher_date) * 100 + MONTH(e.voucher_date), e.account_code, " +
+            "COALESCE(e.cost_center_id, 0)";
+
+    private static final String MARK_BACKFILLED_SQL = "INSERT INTO account_balance_cube_backfill " +
+            "(tenant_id, completed_at) VALUES (?, ?) AS new " +
+            "ON DUPLICATE KEY UPDATE completed_at = new.completed_at";
+
+    private final AccountBalanceCubeRepository cubeRepository;
+    private final AccountingEntryRepository entryRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * Suma (o resta, si reverse) al cubo los movimientos de los comprobantes indicados
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void apply(Map<Long, AccountingVoucher> vouchersById, List<AccountingEntry> entries, boolean reverse) {
+        Map<CubeKey, Movement> deltas = new LinkedHashMap<>();
+        for (AccountingEntry entry : entries) {
+            AccountingVoucher voucher = vouchersById.get(entry.getVoucher().getId());
+            CubeKey key = new CubeKey(
+                    voucher.getTenantId(),
+                    periodKey(YearMonth.from(voucher.getDate())),
+                    entry.getAccount().getCode(),
+                    entry.getCostCenter() != null ? entry.getCostCenter().getId() : AccountBalanceCube.NO_COST_CENTER);
+
+            Movement movement = new Movement(entry.getDebitAmount(), entry.getCreditAmount());
+            deltas.merge(key, reverse ? movement.negate() : movement, Movement::plus);
+        }
+
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(deltas.size());
+        deltas.forEach((key, movement) -> rows.add(new Object[] {
+                key.tenantId(), key.period(), key.accountCode(), key.costCenterId(),
+                movement.debit(), movement.credit(), now }));
+
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+    }
+
+    /**
+     * Regenera el cubo de un tenant para un rango de períodos a partir de accounting_entries
+     *
+     * @return número de filas generadas
+     */
+    @Transactional
+    public int rebuild(Integer tenantId, YearMonth from, YearMonth to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("El período inicial no puede ser posterior al período final");
+        }
+        log.info("Regenerando cubo de saldos para tenant {} de {} a {}", tenantId, from, to);
+
+        int deleted = jdbcTemplate.update(DELETE_RANGE_SQL, tenantId, periodKey(from), periodKey(to));
+        int inserted = jdbcTemplate.update(REBUILD_RANGE_SQL,
+                Timestamp.valueOf(LocalDateTime.now()),
+                tenantId,
+                Date.valueOf(from.atDay(1)),
+                Date.valueOf(to.atEndOfMonth()));
+
+        log.info("Cubo regenerado para tenant {}: {} filas eliminadas, {} filas generadas", tenantId, deleted,
+                inserted);
+        return inserted;
+    }
+
+    /**
+     * Carga inicial del cubo para los tenants que aún no la tienen registrada
+     * en account_balance_cube_backfill. Cada tenant se regenera completo y se
+     * marca en la misma transacción; los ya marcados no se vuelven a cargar.
+     * Corre al terminar el arranque, después de AccountingEntryBackfillSeeder,
+     * que completa voucher_date y voucher_status en los movimientos antiguos.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillMissingTenants() {
+        List<Integer> pending;
+        try {
+            pending = jdbcTemplate.queryForList(PENDING_TENANTS_SQL, Integer.class);
+        } catch (Exception e) {
+            log.error("No se pudo consultar la carga inicial del cubo de saldos: {}", e.getMessage(), e);
+            return;
+        }
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        for (Integer tenantId : pending) {
+            try {
+                Integer rows = tx.execute(status -> backfillTenant(tenantId));
+                log.info("Cubo de saldos cargado para tenant {}: {} filas", tenantId, rows);
+            } catch (Exception e) {
+                log.error("No se pudo cargar el cubo de saldos del tenant {}: {}", tenantId, e.getMessage(), e);
+            }
+        }
+    }
+
+    private int backfillTenant(Integer tenantId) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update(DELETE_TENANT_SQL, tenantId);
+        int rows = jdbcTemplate.update(BACKFILL_TENANT_SQL, now, tenantId);
+        jdbcTemplate.update(MARK_BACKFILLED_SQL, tenantId, now);
+        return rows;
+    }
+
+    /**
+     * Movimientos por cuenta entre dos fechas (inclusive).
+     * Si fromDate es null se toma desde el inicio de la contabilidad.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Movement> movementsBetween(Integer tenantId, LocalDate fromDate, LocalDate toDate) {
+        Map<String, Movement> result = new HashMap<>();
+
+        YearMonth firstFull = null;
+        if (fromDate != null) {
+            firstFull = fromDate.getDayOfMonth() == 1
+                    ? YearMonth.from(fromDate)
+                    : YearMonth.from(fromDate).plusMonths(1);
+        }
+        YearMonth lastFull = toDate.equals(YearMonth.from(toDate).atEndOfMonth())
+                ? YearMonth.from(toDate)
+                : YearMonth.from(toDate).minusMonths(1);
+
+        boolean hasFullMonths = firstFull == null || !firstFull.isAfter(lastFull);
+        if (!hasFullMonths) {
+            // El rango no contiene meses completos: se suman los movimientos directamente
+            mergeInto(result, entryRepository.sumMovementsByAccountBetweenDates(tenantId, fromDate, toDate,
+                    AccountingVoucher.VoucherStatus.POSTED));
+            return result;
+        }
+
+        mergeInto(result, cubeRepository.sumByAccount(
+                tenantId,
+                firstFull == null ? 0 : periodKey(firstFull),
+                periodKey(lastFull)));
+
+        if (firstFull != null && fromDate.isBefore(firstFull.atDay(1))) {
+            mergeInto(result, entryRepository.sumMovementsByAccountBetweenDates(tenantId, fromDate,
+                    firstFull.atDay(1).minusDays(1), AccountingVoucher.VoucherStatus.POSTED));
+        }
+        if (toDate.isAfter(lastFull.atEndOfMonth())) {
+            mergeInto(result, entryRepository.sumMovementsByAccountBetweenDates(tenantId,
+                    lastFull.atEndOfMonth().plusDays(1), toDate, AccountingVoucher.VoucherStatus.POSTED));
+        }
+        return result;
+    }
+
+    /**
+     * Movimientos por cuenta acumulados hasta una fecha (inclusive)
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Movement> movementsUpTo(Integer tenantId, LocalDate asOfDate) {
+        return movementsBetween(tenantId, null, asOfDate);
+    }
+
+    /**
+     * Movimientos por mes y cuenta para un rango de meses, en una sola consulta
+     */
+    @Transactional(readOnly = true)
+    public Map<YearMonth, Map<String, Movement>> monthlyMovements(Integer tenantId, YearMonth from, YearMonth to) {
+        Map<YearMonth, Map<String, Movement>> result = new TreeMap<>();
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            result.put(month, new HashMap<>());
+        }
+
+        for (Object[] row : cubeRepository.sumByPeriodAndAccount(tenantId, periodKey(from), periodKey(to))) {
+            int period = (Integer) row[0];
+            YearMonth month = YearMonth.of(period / 100, period % 100);
+            result.get(month).put((String) row[1], new Movement((BigDecimal) row[2], (BigDecimal) row[3]));
+        }
+        return result;
+    }
+
+    public static int periodKey(YearMonth month) {
+        return month.getYear() * 100 + month.getMonthValue();
+    }
+
+    private void mergeInto(Map<String, Movement> target, List<AccountMovementSummary> summaries) {
+        for (AccountMovementSummary summary : summaries) {
+            target.merge(summary.getAccountCode(),
+                    new Movement(summary.getDebitTotal(), summary.getCreditTotal()),
+                    Movement::plus);
+        }
+    }
+
+    private record CubeKey(Integer tenantId, int period, String accountCode, Long costCenterId) {
+    }
+
+    /**
+     * Débitos y créditos acumulados de una cuenta
+     */
+    public record Movement(BigDecimal debit, BigDecimal credit) {
+
+        public static final Movement ZERO = new Movement(BigDecimal.ZERO, BigDecimal.ZERO);
+
+        public Movement {
+            debit = debit != null ? debit : BigDecimal.ZERO;
+            credit = credit != null ? credit : BigDecimal.ZERO;
+        }
+
+        public Movement plus(Movement other) {
+            return new Movement(debit.add(other.debit), credit.add(other.credit));
+        }
+
+        public Movement negate() {
+            return new Movement(debit.negate(), credit.negate());
+        }
+
+        /**
+         * Saldo según naturaleza: DEBITO = Débitos - Créditos, CREDITO = Créditos - Débitos
+         */
+        public BigDecimal balance(ChartOfAccount.AccountNature nature) {
+            return nature == ChartOfAccount.AccountNature.DEBITO
+                    ? debit.subtract(credit)
+                    : credit.subtract(debit);
+        }
+
+        /**
+         * Créditos - Débitos (ingresos)
+         */
+        public BigDecimal creditNet() {
+            return credit.subtract(debit);
+        }
+
+        /**
+         * Débitos - Créditos (gastos y costos)
+         */
+        public BigDecimal debitNet() {
+            return debit.subtract(credit);
+        }
+    }
+}
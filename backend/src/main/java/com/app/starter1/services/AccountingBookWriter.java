@@ -0,0 +1,205 @@
+package com.app.starter1.services;
+
+import com.app.starter1.dto.accounting.LibroDiarioRow;
+import com.app.starter1.dto.accounting.LibroMayorRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Escritor incremental de libros contables (Mayor y Diario) en CSV o JSON Lines.
+ * Cada fila se escribe apenas se produce y se vacía el buffer cada cierto
+ * número de filas, de modo que el reporte nunca se acumula en memoria.
+ */
+public class AccountingBookWriter implements AutoCloseable {
+
+    private static final int FLUSH_EVERY_ROWS = 500;
+
+    private static final String[] LIBRO_MAYOR_HEADER = {
+            "fecha", "tipo_comprobante", "numero_comprobante", "comprobante_id", "descripcion",
+            "tercero_id", "tercero", "debito", "credito", "saldo"
+    };
+
+    private static final String[] LIBRO_DIARIO_HEADER = {
+            "fecha", "tipo_comprobante", "numero_comprobante", "comprobante_id", "cuenta", "nombre_cuenta",
+            "tercero_id", "tercero", "descripcion", "debito", "credito"
+    };
+
+    /**
+     * Formatos de exportación soportados
+     */
+    public enum Format {
+        CSV("text/csv", "csv"),
+        JSONL("application/x-ndjson", "jsonl");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format from(String value) {
+            if (value == null || value.isBlank()) {
+                return CSV;
+            }
+            try {
+                return Format.valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Formato de exportación no soportado: " + value);
+            }
+        }
+    }
+
+    private final Format format;
+    private final Writer writer;
+    private final SequenceWriter jsonWriter;
+    private int pendingRows;
+    private long totalRows;
+
+    public AccountingBookWriter(OutputStream out, Format format, ObjectMapper objectMapper) {
+        this.format = format;
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        try {
+            this.jsonWriter = format == Format.JSONL
+                    ? objectMapper.writer().withRootValueSeparator("\n").writeValues(writer)
+                    : null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void writeLibroMayorHeader() {
+        writeCsvHeader(LIBRO_MAYOR_HEADER);
+    }
+
+    public void writeLibroDiarioHeader() {
+        writeCsvHeader(LIBRO_DIARIO_HEADER);
+    }
+
+    public void write(LibroMayorRow row) {
+        if (format == Format.JSONL) {
+            writeJson(row);
+            return;
+        }
+        writeCsvLine(row.getDate(), row.getVoucherType(), row.getVoucherNumber(), row.getVoucherId(),
+                row.getDescription(), row.getThirdPartyId(), row.getThirdPartyName(),
+                row.getDebitAmount(), row.getCreditAmount(), row.getBalance());
+    }
+
+    public void write(LibroDiarioRow row) {
+        if (format == Format.JSONL) {
+            writeJson(row);
+            return;
+        }
+        writeCsvLine(row.getDate(), row.getVoucherType(), row.getVoucherNumber(), row.getVoucherId(),
+                row.getAccountCode(), row.getAccountName(), row.getThirdPartyId(), row.getThirdPartyName(),
+                row.getDescription(), row.getDebitAmount(), row.getCreditAmount());
+    }
+
+    public long getTotalRows() {
+        return totalRows;
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (jsonWriter != null) {
+                jsonWriter.flush();
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeCsvHeader(String[] columns) {
+        if (format != Format.CSV) {
+            return;
+        }
+        try {
+            writer.write(String.join(",", columns));
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeJson(Object row) {
+        try {
+            jsonWriter.write(row);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        rowWritten();
+    }
+
+    private void writeCsvLine(Object... values) {
+        try {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writeCsvValue(values[i]);
+            }
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        rowWritten();
+    }
+
+    private void writeCsvValue(Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        String text = value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString();
+        boolean quote = text.indexOf(',') >= 0 || text.indexOf('"') >= 0
+                || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0;
+        if (!quote) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+
+    private void rowWritten() {
+        totalRows++;
+        if (++pendingRows >= FLUSH_EVERY_ROWS) {
+            pendingRows = 0;
+            try {
+                if (jsonWriter != null) {
+                    jsonWriter.flush();
+                }
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
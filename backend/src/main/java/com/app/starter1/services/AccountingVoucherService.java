@@ -8,11 +8,13 @@ import com.app.starter1.persistence.entity.AccountingVoucher;
 import com.app.starter1.persistence.entity.ChartOfAccount;
 import com.app.starter1.persistence.entity.Contact;
 import com.app.starter1.persistence.entity.CostCenter;
+import com.app.starter1.persistence.entity.DocumentSequence;
 import com.app.starter1.persistence.repository.AccountingEntryRepository;
 import com.app.starter1.persistence.repository.AccountingVoucherRepository;
 import com.app.starter1.persistence.repository.ChartOfAccountRepository;
 import com.app.starter1.persistence.repository.CostCenterRepository;
 import com.app.starter1.persistence.repository.ContactRepository;
+import com.app.starter1.persistence.services.DocumentSequenceService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -22,6 +24,7 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -35,8 +38,8 @@ public class AccountingVoucherService {
     private final ChartOfAccountRepository accountRepository;
     private final CostCenterRepository costCenterRepository;
     private final ContactRepository contactRepository;
-    private final com.app.starter1.persistence.repository.AccountingLedgerRepository ledgerRepository;
-    private final com.app.starter1.persistence.repository.AccountingFiscalPeriodRepository fiscalPeriodRepository;
+    private final LedgerPostingService ledgerPostingService;
+    private final DocumentSequenceService documentSequenceService;
 
     @Transactional(readOnly = true)
     public List<VoucherResponseDTO> getAllVouchers(Integer tenantId) {
@@ -239,11 +242,51 @@ public class AccountingVoucherService {
         voucher.setStatus(AccountingVoucher.VoucherStatus.POSTED);
         voucher.setPostedAt(LocalDateTime.now());
         voucherRepository.save(voucher);
+        entryRepository.syncVoucherColumns(List.of(voucher.getId()));
 
         log.info("Voucher posted: {}", id);
         return getVoucherById(id);
     }
 
+    /**
+     * Contabiliza varios comprobantes en una sola transacción (p. ej. pendientes
+     * de cierre de mes). Los movimientos de todos se acumulan y se aplican al
+     * ledger en un único batch.
+     *
+     * @return IDs de los comprobantes contabilizados
+     */
+    @Transactional
+    public List<Long> postVouchers(List<Long> ids) {
+        log.info("Posting {} vouchers", ids.size());
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        List<AccountingVoucher> vouchers = voucherRepository.findAllById(ids);
+        if (vouchers.size() != new HashSet<>(ids).size()) {
+            throw new IllegalArgumentException("Uno o más comprobantes no existen");
+        }
+        vouchers.forEach(this::validatePostable);
+
+        List<AccountingEntry> entries = entryRepository.findByVoucherIdInOrderByVoucherIdAscLineNumberAsc(
+                vouchers.stream().map(AccountingVoucher::getId).collect(Collectors.toList()));
+
+        // === ACTUALIZAR LIBRO MAYOR (LEDGER) ===
+        ledgerPostingService.post(vouchers, entries);
+
+        LocalDateTime postedAt = LocalDateTime.now();
+        for (AccountingVoucher voucher : vouchers) {
+            voucher.setStatus(AccountingVoucher.VoucherStatus.POSTED);
+            voucher.setPostedAt(postedAt);
+        }
+        voucherRepository.saveAll(vouchers);
+        List<Long> postedIds = vouchers.stream().map(AccountingVoucher::getId).collect(Collectors.toList());
+        entryRepository.syncVoucherColumns(postedIds);
+
+        log.info("Vouchers posted: {} ({} entries)", postedIds.size(), entries.size());
+        return postedIds;
+    }
+
     @Transactional
     public VoucherResponseDTO voidVoucher(Long id) {
         log.info("Voiding voucher: {}", id);
@@ -259,132 +302,45 @@ public class AccountingVoucherService {
 
         voucher.setStatus(AccountingVoucher.VoucherStatus.VOID);
         voucherRepository.save(voucher);
+        entryRepository.syncVoucherColumns(List.of(voucher.getId()));
 
         log.info("Voucher voided: {}", id);
         return getVoucherById(id);
     }
 
     private void reverseLedger(AccountingVoucher voucher) {
-        // 1. Obtener Período Fiscal
-        com.app.starter1.persistence.entity.AccountingFiscalPeriod period = fiscalPeriodRepository
-                .findByTenantIdAndYearAndMonth(voucher.getTenantId(), voucher.getDate().getYear(),
-                        voucher.getDate().getMonthValue())
-                .orElseThrow(() -> new IllegalArgumentException("Periodo fiscal no encontrado para revertir"));
-
-        if (period.getStatus() == com.app.starter1.persistence.entity.AccountingFiscalPeriod.PeriodStatus.LOCKED) {
-            throw new IllegalArgumentException("El período fiscal está cerrado o bloqueado");
-        }
-
-        // 2. Procesar Entradas para revertir
         List<AccountingEntry> entries = entryRepository.findByVoucherIdOrderByLineNumber(voucher.getId());
-
-        for (AccountingEntry entry : entries) {
-            com.app.starter1.persistence.entity.AccountingLedger ledger = ledgerRepository
-                    .findByTenantIdAndFiscalPeriodIdAndAccountCode(voucher.getTenantId(), period.getId(),
-                            entry.getAccount().getCode())
-                    .orElseThrow(() -> new IllegalArgumentException(
-                            "Ledger no encontrado para la cuenta: " + entry.getAccount().getCode()));
-
-            // Revertir saldos del mes (Restar en lugar de sumar)
-            ledger.setDebitAmount(ledger.getDebitAmount().subtract(entry.getDebitAmount()));
-            ledger.setCreditAmount(ledger.getCreditAmount().subtract(entry.getCreditAmount()));
-
-            // === RECALCULO DE SALDO FINAL ===
-            ChartOfAccount.AccountNature nature = entry.getAccount().getNature();
-            BigDecimal netMovement;
-
-            if (nature == ChartOfAccount.AccountNature.DEBITO) {
-                // Activos/Gastos: Saldo = Inicial + Débitos - Créditos
-                netMovement = ledger.getDebitAmount().subtract(ledger.getCreditAmount());
-                ledger.setFinalBalance(ledger.getInitialBalance().add(netMovement));
-            } else {
-                // Pasivos/Ingresos: Saldo = Inicial + Créditos - Débitos
-                netMovement = ledger.getCreditAmount().subtract(ledger.getDebitAmount());
-                ledger.setFinalBalance(ledger.getInitialBalance().add(netMovement));
-            }
-
-            ledgerRepository.save(ledger);
-        }
+        ledgerPostingService.reverse(List.of(voucher), entries);
     }
 
     private void updateLedger(AccountingVoucher voucher) {
-        // 1. Obtener o Crear Período Fiscal
-        com.app.starter1.persistence.entity.AccountingFiscalPeriod period = fiscalPeriodRepository
-                .findByTenantIdAndYearAndMonth(voucher.getTenantId(), voucher.getDate().getYear(),
-                        voucher.getDate().getMonthValue())
-                .orElseGet(() -> {
-                    com.app.starter1.persistence.entity.AccountingFiscalPeriod newPeriod = com.app.starter1.persistence.entity.AccountingFiscalPeriod
-                            .builder()
-                            .tenantId(voucher.getTenantId())
-                            .year(voucher.getDate().getYear())
-                            .month(voucher.getDate().getMonthValue())
-                            .status(com.app.starter1.persistence.entity.AccountingFiscalPeriod.PeriodStatus.OPEN)
-                            .build();
-                    return fiscalPeriodRepository.save(newPeriod);
-                });
-
-        if (period.getStatus() == com.app.starter1.persistence.entity.AccountingFiscalPeriod.PeriodStatus.LOCKED) {
-            throw new IllegalArgumentException("El período fiscal está cerrado o bloqueado");
-        }
-
-        // 2. Procesar Entradas
         List<AccountingEntry> entries = entryRepository.findByVoucherIdOrderByLineNumber(voucher.getId());
+        ledgerPostingService.post(List.of(voucher), entries);
+    }
 
-        for (AccountingEntry entry : entries) {
-            com.app.starter1.persistence.entity.AccountingLedger ledger = ledgerRepository
-                    .findByTenantIdAndFiscalPeriodIdAndAccountCode(voucher.getTenantId(), period.getId(),
-                            entry.getAccount().getCode())
-                    .orElseGet(() -> {
-                        // Buscar saldo anterior (mes pasado)
-                        // Simplificación: Iniciar en 0 si no existe
-                        return com.app.starter1.persistence.entity.AccountingLedger.builder()
-                                .tenantId(voucher.getTenantId())
-                                .fiscalPeriod(period)
-                                .account(entry.getAccount()) // Reusa objeto Account
-                                .costCenter(entry.getCostCenter()) // Opcional
-                                .initialBalance(BigDecimal.ZERO)
-                                .debitAmount(BigDecimal.ZERO)
-                                .creditAmount(BigDecimal.ZERO)
-                                .finalBalance(BigDecimal.ZERO)
-                                .build();
-                    });
-
-            // Actualizar saldos del mes
-            ledger.setDebitAmount(ledger.getDebitAmount().add(entry.getDebitAmount()));
-            ledger.setCreditAmount(ledger.getCreditAmount().add(entry.getCreditAmount()));
-
-            // === CALCULO DE SALDO FINAL SEGUN NATURALEZA ===
-            // Cuentas de naturaleza DEBITO (Activos, Gastos, Costos): aumentan con débitos
-            // Cuentas de naturaleza CREDITO (Pasivos, Patrimonio, Ingresos): aumentan con
-            // créditos
-
-            ChartOfAccount.AccountNature nature = entry.getAccount().getNature();
-            BigDecimal netMovement;
-
-            if (nature == ChartOfAccount.AccountNature.DEBITO) {
-                // Para cuentas DEBITO: Saldo = Inicial + Débitos - Créditos
-                netMovement = ledger.getDebitAmount().subtract(ledger.getCreditAmount());
-                ledger.setFinalBalance(ledger.getInitialBalance().add(netMovement));
-            } else {
-                // Para cuentas CREDITO: Saldo = Inicial + Créditos - Débitos
-                netMovement = ledger.getCreditAmount().subtract(ledger.getDebitAmount());
-                ledger.setFinalBalance(ledger.getInitialBalance().add(netMovement));
-            }
+    private void validatePostable(AccountingVoucher voucher) {
+        if (voucher.getStatus() != AccountingVoucher.VoucherStatus.DRAFT) {
+            throw new IllegalArgumentException("El comprobante ya está contabilizado: " + voucher.getId());
+        }
 
-            ledgerRepository.save(ledger);
+        if (voucher.getTotalDebit().compareTo(voucher.getTotalCredit()) != 0) {
+            throw new IllegalArgumentException("El comprobante no está balanceado: " + voucher.getId());
         }
     }
 
     private String generateVoucherNumber(AccountingVoucher.VoucherType type, Integer tenantId) {
-        String lastNumber = voucherRepository.findLastVoucherNumber(type, tenantId);
-
-        int nextNumber = 1;
-        if (lastNumber != null) {
-            String[] parts = lastNumber.split("-");
-            if (parts.length > 1) {
-                nextNumber = Integer.parseInt(parts[1]) + 1;
-            }
-        }
+        // Una serie por tipo de comprobante; continúa desde el último número guardado
+        long nextNumber = documentSequenceService.next(tenantId.longValue(),
+                DocumentSequence.DocumentType.ACCOUNTING_VOUCHER, type.name(), () -> {
+                    String lastNumber = voucherRepository.findLastVoucherNumber(type, tenantId);
+                    if (lastNumber != null) {
+                        String[] parts = lastNumber.split("-");
+                        if (parts.length > 1) {
+                            return Long.parseLong(parts[1]);
+                        }
+                    }
+                    return 0;
+                });
 
         String prefix = type.name().substring(0, 3); // ING, EGR, NOT
         return String.format("%s-%04d", prefix, nextNumber);
@@ -3,9 +3,7 @@ package com.app.starter1.services;
 import com.app.starter1.dto.accounting.BalanceAccount;
 import com.app.starter1.dto.accounting.BalanceGeneralDTO;
 import com.app.starter1.dto.accounting.BalanceSection;
-import com.app.starter1.persistence.entity.AccountingEntry;
 import com.app.starter1.persistence.entity.ChartOfAccount;
-import com.app.starter1.persistence.repository.AccountingEntryRepository;
 import com.app.starter1.persistence.repository.ChartOfAccountRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -14,6 +12,8 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -29,7 +29,7 @@ import java.util.stream.Collectors;
 public class BalanceGeneralService {
 
         private final ChartOfAccountRepository accountRepository;
-        private final AccountingEntryRepository entryRepository;
+        private final AccountBalanceCubeService balanceCubeService;
 
         /**
          * Genera el Balance General a una fecha específica
@@ -40,9 +40,56 @@ public class BalanceGeneralService {
                 // Obtener todas las cuentas de nivel 4 (movibles)
                 List<ChartOfAccount> accounts = accountRepository.findByLevelAndIsActiveTrueOrderByCodeAsc(4);
 
-                // Calcular saldo de cada cuenta hasta la fecha
-                Map<String, BigDecimal> balances = calculateBalances(accounts, asOfDate);
+                // Calcular saldo de cada cuenta hasta la fecha desde el cubo de saldos
+                Map<String, BigDecimal> balances = calculateBalances(accounts,
+                                balanceCubeService.movementsUpTo(tenantId, asOfDate));
 
+                return buildBalance(asOfDate, accounts, balances);
+        }
+
+        /**
+         * Genera el Balance General comparativo al cierre de cada uno de los meses indicados.
+         * Se lee el acumulado al primer cierre y luego los movimientos mensuales hasta el último,
+         * por lo que el costo no depende de cuántos cortes se comparen.
+         */
+        public List<BalanceGeneralDTO> getBalanceGeneralComparativo(List<YearMonth> months, Integer tenantId) {
+                log.info("Generando Balance General comparativo {} para tenant {}", months, tenantId);
+
+                if (months.isEmpty()) {
+                        return List.of();
+                }
+
+                List<YearMonth> cutoffs = months.stream().distinct().sorted().collect(Collectors.toList());
+                YearMonth first = cutoffs.get(0);
+                YearMonth last = cutoffs.get(cutoffs.size() - 1);
+
+                List<ChartOfAccount> accounts = accountRepository.findByLevelAndIsActiveTrueOrderByCodeAsc(4);
+
+                Map<String, AccountBalanceCubeService.Movement> accumulated = new HashMap<>(
+                                balanceCubeService.movementsUpTo(tenantId, first.atEndOfMonth()));
+                Map<YearMonth, Map<String, AccountBalanceCubeService.Movement>> monthly = first.equals(last)
+                                ? Map.of()
+                                : balanceCubeService.monthlyMovements(tenantId, first.plusMonths(1), last);
+
+                List<BalanceGeneralDTO> result = new ArrayList<>();
+                YearMonth current = first;
+                for (YearMonth cutoff : cutoffs) {
+                        while (current.isBefore(cutoff)) {
+                                current = current.plusMonths(1);
+                                monthly.getOrDefault(current, Map.of()).forEach(
+                                                (code, movement) -> accumulated.merge(code, movement,
+                                                                AccountBalanceCubeService.Movement::plus));
+                        }
+                        result.add(buildBalance(cutoff.atEndOfMonth(), accounts,
+                                        calculateBalances(accounts, accumulated)));
+                }
+                return result;
+        }
+
+        private BalanceGeneralDTO buildBalance(
+                        LocalDate asOfDate,
+                        List<ChartOfAccount> accounts,
+                        Map<String, BigDecimal> balances) {
                 // Clasificar cuentas por tipo
                 BalanceSection activosCorrientes = buildSection("ACTIVOS CORRIENTES", accounts, balances,
                                 "ACTIVO", "11", "139999");
@@ -80,49 +127,30 @@ public class BalanceGeneralService {
                                 .totalPatrimonio(totalPatrimonio)
                                 .build();
 
-                log.info("Balance generado: {} cuentas, Activos: {}, Pasivos: {}, Patrimonio: {}, Balanceado: {}",
-                                accounts.size(), totalActivos, totalPasivos, totalPatrimonio, balance.isBalanced());
+                log.info("Balance generado al {}: {} cuentas, Activos: {}, Pasivos: {}, Patrimonio: {}, Balanceado: {}",
+                                asOfDate, accounts.size(), totalActivos, totalPasivos, totalPatrimonio,
+                                balance.isBalanced());
 
                 return balance;
         }
 
         /**
-         * Calcula saldo de todas las cuentas hasta una fecha
+         * Calcula el saldo de cada cuenta según su naturaleza a partir de sus movimientos acumulados
          */
-        private Map<String, BigDecimal> calculateBalances(List<ChartOfAccount> accounts, LocalDate asOfDate) {
+        private Map<String, BigDecimal> calculateBalances(
+                        List<ChartOfAccount> accounts,
+                        Map<String, AccountBalanceCubeService.Movement> movements) {
                 Map<String, BigDecimal> balances = new HashMap<>();
 
                 for (ChartOfAccount account : accounts) {
-                        BigDecimal balance = calculateAccountBalance(account, asOfDate);
-                        balances.put(account.getCode(), balance);
+                        AccountBalanceCubeService.Movement movement = movements.getOrDefault(account.getCode(),
+                                        AccountBalanceCubeService.Movement.ZERO);
+                        balances.put(account.getCode(), movement.balance(account.getNature()));
                 }
 
                 return balances;
         }
 
-        /**
-         * Calcula el saldo de una cuenta específica
-         */
-        private BigDecimal calculateAccountBalance(ChartOfAccount account, LocalDate asOfDate) {
-                List<AccountingEntry> entries = entryRepository
-                                .findByAccountCodeAndVoucherDateBeforeAndVoucherStatusOrderByVoucherDateAsc(
-                                                account.getCode(),
-                                                asOfDate.plusDays(1), // Incluir movimientos del día
-                                                com.app.starter1.persistence.entity.AccountingVoucher.VoucherStatus.POSTED);
-
-                BigDecimal balance = BigDecimal.ZERO;
-
-                for (AccountingEntry entry : entries) {
-                        if ("DEBITO".equals(account.getNature())) {
-                                balance = balance.add(entry.getDebitAmount()).subtract(entry.getCreditAmount());
-                        } else {
-                                balance = balance.subtract(entry.getDebitAmount()).add(entry.getCreditAmount());
-                        }
-                }
-
-                return balance;
-        }
-
         /**
          * Construye una sección del balance
          */
@@ -2,8 +2,9 @@ package com.app.starter1.services;
 
 import com.app.starter1.dto.accounting.BalancePruebaDTO;
 import com.app.starter1.dto.accounting.BalancePruebaRow;
-import com.app.starter1.persistence.entity.AccountingEntry;
+import com.app.starter1.persistence.entity.AccountingVoucher;
 import com.app.starter1.persistence.entity.ChartOfAccount;
+import com.app.starter1.persistence.repository.AccountMovementSummary;
 import com.app.starter1.persistence.repository.AccountingEntryRepository;
 import com.app.starter1.persistence.repository.ChartOfAccountRepository;
 import lombok.RequiredArgsConstructor;
@@ -36,6 +37,15 @@ public class BalancePruebaService {
     public BalancePruebaDTO getBalancePrueba(LocalDate asOfDate, Integer tenantId) {
         log.info("Generando Balance de Prueba al {} para tenant {}", asOfDate, tenantId);
 
+        // Sumar débitos y créditos por cuenta en una sola consulta agregada
+        Map<String, AccountMovementSummary> movementsByAccount = new HashMap<>();
+        for (AccountMovementSummary summary : entryRepository.sumMovementsByAccountUpToDate(
+                tenantId,
+                asOfDate,
+                AccountingVoucher.VoucherStatus.POSTED)) {
+            movementsByAccount.put(summary.getAccountCode(), summary);
+        }
+
         // Obtener todas las cuentas activas
         List<ChartOfAccount> accounts = accountRepository.findByIsActiveTrueOrderByCodeAsc();
 
@@ -47,26 +57,21 @@ public class BalancePruebaService {
         BigDecimal totalCreditBalance = BigDecimal.ZERO;
 
         for (ChartOfAccount account : accounts) {
-            // Obtener movimientos de la cuenta hasta la fecha
-            List<AccountingEntry> entries = entryRepository
-                    .findByAccountCodeAndVoucherDateBeforeAndVoucherStatusOrderByVoucherDateAsc(
-                            account.getCode(),
-                            asOfDate.plusDays(1), // Incluir movimientos del día
-                            com.app.starter1.persistence.entity.AccountingVoucher.VoucherStatus.POSTED);
-
-            BigDecimal debitMovement = BigDecimal.ZERO;
-            BigDecimal creditMovement = BigDecimal.ZERO;
-
-            for (AccountingEntry entry : entries) {
-                debitMovement = debitMovement.add(entry.getDebitAmount());
-                creditMovement = creditMovement.add(entry.getCreditAmount());
+            AccountMovementSummary summary = movementsByAccount.get(account.getCode());
+            if (summary == null) {
+                continue;
             }
 
+            BigDecimal debitMovement = summary.getDebitTotal();
+            BigDecimal creditMovement = summary.getCreditTotal();
+
             // Solo incluir cuentas con movimientos
             if (debitMovement.compareTo(BigDecimal.ZERO) > 0 || creditMovement.compareTo(BigDecimal.ZERO) > 0) {
+                boolean debitNature = account.getNature() == ChartOfAccount.AccountNature.DEBITO;
+
                 // Calcular saldo según naturaleza
                 BigDecimal balance;
-                if ("DEBITO".equals(account.getNature())) {
+                if (debitNature) {
                     balance = debitMovement.subtract(creditMovement);
                 } else {
                     balance = creditMovement.subtract(debitMovement);
@@ -76,13 +81,13 @@ public class BalancePruebaService {
                 BigDecimal creditBalance = BigDecimal.ZERO;
 
                 if (balance.compareTo(BigDecimal.ZERO) > 0) {
-                    if ("DEBITO".equals(account.getNature())) {
+                    if (debitNature) {
                         debitBalance = balance;
                     } else {
                         creditBalance = balance;
                     }
                 } else if (balance.compareTo(BigDecimal.ZERO) < 0) {
-                    if ("DEBITO".equals(account.getNature())) {
+                    if (debitNature) {
                         creditBalance = balance.abs();
                     } else {
                         debitBalance = balance.abs();
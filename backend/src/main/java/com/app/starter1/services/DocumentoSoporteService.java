@@ -1,14 +1,17 @@
 package com.app.starter1.services;
 
+import co.cloudfly.erp.dian.domain.enums.DianDocumentType;
 import com.app.starter1.dto.DocumentoSoporteRequest;
 import com.app.starter1.dto.DocumentoSoporteResponse;
 import com.app.starter1.dto.DocumentoSoporteItemDTO;
 import com.app.starter1.events.ElectronicDocumentEvent;
+import com.app.starter1.persistence.entity.DocumentSequence;
 import com.app.starter1.persistence.entity.DocumentoSoporte;
 import com.app.starter1.persistence.entity.DocumentoSoporteItem;
 import com.app.starter1.persistence.entity.Proveedor;
 import com.app.starter1.persistence.repository.DocumentoSoporteRepository;
 import com.app.starter1.persistence.repository.ProveedorRepository;
+import com.app.starter1.persistence.services.DocumentSequenceService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.core.KafkaTemplate;
@@ -32,6 +35,7 @@ public class DocumentoSoporteService {
     private final KafkaTemplate<String, String> kafkaTemplate;
     private final com.fasterxml.jackson.databind.ObjectMapper objectMapper;
     private final AccountingIntegrationService accountingIntegrationService;
+    private final DocumentSequenceService documentSequenceService;
 
     private static final String TOPIC_DIAN_DOCUMENTS = "dian-documents"; // Verify topic name
 
@@ -58,8 +62,7 @@ public class DocumentoSoporteService {
         doc.setAmbienteDian("2"); // Default Test
         doc.setCreatedBy(username);
 
-        // Generate temporary number
-        doc.setNumeroDocumento("TMP-" + System.currentTimeMillis());
+        asignarNumero(doc, tenantId);
 
         // Items
         List<DocumentoSoporteItem> items = request.getItems().stream().map(itemReq -> {
@@ -93,10 +96,6 @@ public class DocumentoSoporteService {
 
         DocumentoSoporte saved = repository.save(doc);
 
-        // Update number with ID if needed or keep TMP until approval
-        saved.setNumeroDocumento("DS-" + saved.getId());
-        saved = repository.save(saved);
-
         return mapToResponse(saved);
     }
 
@@ -126,6 +125,7 @@ public class DocumentoSoporteService {
         // Validations
         // ...
 
+        asignarNumeroDian(doc);
         doc.setEstado("APROBADO"); // Step 1: internal approval
         // doc.setApprovedBy(username); // Removed as per instruction
         // doc.setApprovedAt(java.time.LocalDateTime.now()); // Removed as per
@@ -217,4 +217,26 @@ public class DocumentoSoporteService {
 
         return res;
     }
+
+    /**
+     * Número del borrador, de la serie interna: un borrador no consume
+     * consecutivos DIAN
+     */
+    private void asignarNumero(DocumentoSoporte doc, Long tenantId) {
+        long numero = documentSequenceService.next(tenantId, DocumentSequence.DocumentType.SUPPORT_DOCUMENT, () -> 0);
+        doc.setNumeroDocumento(String.format("DS-%d-%06d", tenantId, numero));
+    }
+
+    /**
+     * Al aprobar, reemplaza el número del borrador por el consecutivo de la
+     * resolución DIAN vigente (sin saltos); sin resolución conserva el interno
+     */
+    private void asignarNumeroDian(DocumentoSoporte doc) {
+        documentSequenceService.nextRegulated(doc.getTenantId(), DianDocumentType.SUPPORT_DOCUMENT)
+                .ifPresent(regulated -> {
+                    doc.setPrefijoDian(regulated.prefix());
+                    doc.setConsecutivoDian(regulated.number());
+                    doc.setNumeroDocumento(regulated.formatted());
+                });
+    }
 }
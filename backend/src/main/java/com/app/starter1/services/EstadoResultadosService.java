@@ -1,9 +1,7 @@
 package com.app.starter1.services;
 
 import com.app.starter1.dto.accounting.EstadoResultadosDTO;
-import com.app.starter1.persistence.entity.AccountingEntry;
 import com.app.starter1.persistence.entity.ChartOfAccount;
-import com.app.starter1.persistence.repository.AccountingEntryRepository;
 import com.app.starter1.persistence.repository.ChartOfAccountRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -12,7 +10,10 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Servicio para generar Estado de Resultados (P&L)
@@ -24,7 +25,7 @@ import java.util.List;
 public class EstadoResultadosService {
 
     private final ChartOfAccountRepository accountRepository;
-    private final AccountingEntryRepository entryRepository;
+    private final AccountBalanceCubeService balanceCubeService;
 
     /**
      * Genera el Estado de Resultados para un período
@@ -32,26 +33,64 @@ public class EstadoResultadosService {
     public EstadoResultadosDTO getEstadoResultados(LocalDate fromDate, LocalDate toDate, Integer tenantId) {
         log.info("Generando Estado de Resultados desde {} hasta {}", fromDate, toDate);
 
+        List<ChartOfAccount> accounts = accountRepository.findByLevelAndIsActiveTrueOrderByCodeAsc(4);
+        Map<String, AccountBalanceCubeService.Movement> movements = balanceCubeService
+                .movementsBetween(tenantId, fromDate, toDate);
+
+        EstadoResultadosDTO estado = buildEstado(fromDate, toDate, accounts, movements);
+
+        log.info("Estado de Resultados: Ingresos: {}, Gastos: {}, Utilidad: {}",
+                estado.getTotalIngresos(), estado.getTotalGastos(), estado.getUtilidadNeta());
+
+        return estado;
+    }
+
+    /**
+     * Genera el Estado de Resultados comparativo mes a mes para un rango de meses.
+     * Todos los meses se resuelven con una sola consulta al cubo de saldos.
+     */
+    public List<EstadoResultadosDTO> getEstadoResultadosMensual(YearMonth from, YearMonth to, Integer tenantId) {
+        log.info("Generando Estado de Resultados comparativo de {} a {} para tenant {}", from, to, tenantId);
+
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("El período inicial no puede ser posterior al período final");
+        }
+
+        List<ChartOfAccount> accounts = accountRepository.findByLevelAndIsActiveTrueOrderByCodeAsc(4);
+        Map<YearMonth, Map<String, AccountBalanceCubeService.Movement>> monthly = balanceCubeService
+                .monthlyMovements(tenantId, from, to);
+
+        List<EstadoResultadosDTO> result = new ArrayList<>();
+        monthly.forEach((month, movements) -> result.add(
+                buildEstado(month.atDay(1), month.atEndOfMonth(), accounts, movements)));
+        return result;
+    }
+
+    private EstadoResultadosDTO buildEstado(
+            LocalDate fromDate,
+            LocalDate toDate,
+            List<ChartOfAccount> accounts,
+            Map<String, AccountBalanceCubeService.Movement> movements) {
         // INGRESOS (cuentas 4xxx)
-        BigDecimal ingresosOp = sumAccountsByRange("41", "47", fromDate, toDate, true);
-        BigDecimal ingresosNoOp = sumAccountsByRange("48", "49", fromDate, toDate, true);
+        BigDecimal ingresosOp = sumAccountsByRange(accounts, movements, "41", "47", true);
+        BigDecimal ingresosNoOp = sumAccountsByRange(accounts, movements, "48", "49", true);
         BigDecimal totalIngresos = ingresosOp.add(ingresosNoOp);
 
         // COSTOS (cuentas 6xxx)
-        BigDecimal costoVentas = sumAccountsByRange("61", "69", fromDate, toDate, false);
+        BigDecimal costoVentas = sumAccountsByRange(accounts, movements, "61", "69", false);
 
         // UTILIDAD BRUTA
         BigDecimal utilidadBruta = totalIngresos.subtract(costoVentas);
 
         // GASTOS (cuentas 5xxx)
-        BigDecimal gastosOp = sumAccountsByRange("51", "54", fromDate, toDate, false);
-        BigDecimal gastosNoOp = sumAccountsByRange("55", "59", fromDate, toDate, false);
+        BigDecimal gastosOp = sumAccountsByRange(accounts, movements, "51", "54", false);
+        BigDecimal gastosNoOp = sumAccountsByRange(accounts, movements, "55", "59", false);
         BigDecimal totalGastos = gastosOp.add(gastosNoOp);
 
         // UTILIDAD NETA
         BigDecimal utilidadNeta = utilidadBruta.subtract(totalGastos);
 
-        EstadoResultadosDTO estado = EstadoResultadosDTO.builder()
+        return EstadoResultadosDTO.builder()
                 .fromDate(fromDate)
                 .toDate(toDate)
                 .ingresosOperacionales(ingresosOp)
@@ -64,46 +103,34 @@ public class EstadoResultadosService {
                 .totalGastos(totalGastos)
                 .utilidadNeta(utilidadNeta)
                 .build();
-
-        log.info("Estado de Resultados: Ingresos: {}, Gastos: {}, Utilidad: {}",
-                totalIngresos, totalGastos, utilidadNeta);
-
-        return estado;
     }
 
     /**
      * Suma movimientos de cuentas en un rango
      */
     private BigDecimal sumAccountsByRange(
+            List<ChartOfAccount> accounts,
+            Map<String, AccountBalanceCubeService.Movement> movements,
             String codeStart,
             String codeEnd,
-            LocalDate fromDate,
-            LocalDate toDate,
             boolean isCredit) {
-        List<ChartOfAccount> accounts = accountRepository.findByIsActiveTrueOrderByCodeAsc();
-
         BigDecimal total = BigDecimal.ZERO;
 
         for (ChartOfAccount account : accounts) {
             if (account.getCode().compareTo(codeStart) >= 0 &&
-                    account.getCode().compareTo(codeEnd) <= 0 &&
-                    account.getLevel() == 4) {
-
-                List<AccountingEntry> entries = entryRepository
-                        .findByAccountCodeAndVoucherDateBetweenAndVoucherStatusOrderByVoucherDateAscVoucherIdAsc(
-                                account.getCode(),
-                                fromDate,
-                                toDate,
-                                com.app.starter1.persistence.entity.AccountingVoucher.VoucherStatus.POSTED);
-
-                for (AccountingEntry entry : entries) {
-                    if (isCredit) {
-                        // Para ingresos: crédito - débito
-                        total = total.add(entry.getCreditAmount()).subtract(entry.getDebitAmount());
-                    } else {
-                        // Para gastos/costos: débito - crédito
-                        total = total.add(entry.getDebitAmount()).subtract(entry.getCreditAmount());
-                    }
+                    account.getCode().compareTo(codeEnd) <= 0) {
+
+                AccountBalanceCubeService.Movement movement = movements.get(account.getCode());
+                if (movement == null) {
+                    continue;
+                }
+
+                if (isCredit) {
+                    // Para ingresos: crédito - débito
+                    total = total.add(movement.creditNet());
+                } else {
+                    // Para gastos/costos: débito - crédito
+                    total = total.add(movement.debitNet());
                 }
             }
         }
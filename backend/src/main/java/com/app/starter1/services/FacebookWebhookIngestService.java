@@ -0,0 +1,372 @@
+package com.app.starter1.services;
+
+import com.app.starter1.dto.MessageCreateRequest;
+import com.app.starter1.persistence.entity.Channel;
+import com.app.starter1.persistence.entity.WebhookEvent;
+import com.app.starter1.persistence.repository.ChannelRepository;
+import com.app.starter1.persistence.repository.WebhookEventRepository;
+import com.app.starter1.persistence.services.ChatService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Ingesta por lotes de los webhooks de Facebook.
+ *
+ * El webhook guarda el evento en webhook_events y responde; un worker por
+ * nodo reclama los pendientes en orden de llegada en lotes de hasta 100
+ * (PROCESSING con su owner hasta CLAIM_TTL_MS), así con varias réplicas cada
+ * evento lo procesa un solo nodo. Cada lote se guarda y se marca procesado en
+ * la misma transacción, y solo si el reclamo sigue vigente; si venció y otro
+ * nodo lo tomó, la transacción se revierte. Si un lote falla se reintenta
+ * evento por evento para aislar el que causa el error; un evento que falla
+ * vuelve a pendiente con backoff exponencial, y solo queda FAILED tras
+ * MAX_ATTEMPTS intentos. Un drenado periódico retoma los reintentos vencidos,
+ * los reclamos vencidos y los pendientes al iniciar la aplicación, y otra
+ * tarea borra los eventos terminados tras RETENTION_DAYS.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FacebookWebhookIngestService {
+
+    private static final String SOURCE = "FACEBOOK";
+    private static final int BATCH_SIZE = 100;
+    private static final long BATCH_DELAY_MS = 200;
+    private static final long CHANNEL_TTL_MS = TimeUnit.MINUTES.toMillis(1);
+    private static final long SENDER_NAME_TTL_MS = TimeUnit.HOURS.toMillis(24);
+    private static final int MAX_SENDER_NAMES = 10_000;
+    private static final int MAX_ERROR_LENGTH = 1000;
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long RETRY_BASE_MS = TimeUnit.SECONDS.toMillis(30);
+    private static final long RETRY_MAX_MS = TimeUnit.MINUTES.toMillis(30);
+    private static final long DRAIN_INTERVAL_MS = TimeUnit.SECONDS.toMillis(30);
+    private static final long CLAIM_TTL_MS = TimeUnit.MINUTES.toMillis(5);
+    private static final int RETENTION_DAYS = 7;
+    private static final int PURGE_BATCH_SIZE = 1000;
+    private static final long PURGE_INTERVAL_MS = TimeUnit.HOURS.toMillis(1);
+
+    private final WebhookEventRepository eventRepository;
+    private final ChannelRepository channelRepository;
+    private final ChatService chatService;
+    private final PlatformTransactionManager transactionManager;
+
+    private final String owner = UUID.randomUUID().toString();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final RestTemplate restTemplate = new RestTemplate();
+
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "fb-webhook-ingest");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    private final Map<String, Cached<PageChannel>> channels = new ConcurrentHashMap<>();
+    private final Map<String, Cached<String>> senderNames = Collections.synchronizedMap(
+            new LinkedHashMap<>(1024, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Cached<String>> eldest) {
+                    return size() > MAX_SENDER_NAMES;
+                }
+            });
+
+    /**
+     * Registra el evento recibido y programa el procesamiento del lote
+     */
+    public void accept(String payload) {
+        eventRepository.save(WebhookEvent.builder()
+                .source(SOURCE)
+                .payload(payload)
+                .build());
+        schedule();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePendingEvents() {
+        // Retoma los pendientes y los reintentos vencidos aunque no lleguen webhooks nuevos
+        worker.scheduleWithFixedDelay(this::schedule, 0, DRAIN_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        worker.scheduleWithFixedDelay(this::purge, PURGE_INTERVAL_MS, PURGE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    private void schedule() {
+        // Los eventos que llegan durante la espera entran en el mismo lote
+        if (scheduled.compareAndSet(false, true)) {
+            worker.schedule(this::drain, BATCH_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void drain() {
+        scheduled.set(false);
+        int claimed;
+        do {
+            try {
+                claimed = claim();
+                List<WebhookEvent> batch = eventRepository.findClaimed(SOURCE, owner, PageRequest.of(0, BATCH_SIZE));
+                if (!batch.isEmpty()) {
+                    processBatch(batch);
+                }
+            } catch (Exception e) {
+                // El drenado periódico vuelve a intentarlo
+                log.error("❌ [FB-WEBHOOK] Error draining webhook events: {}", e.getMessage(), e);
+                return;
+            }
+        } while (claimed == BATCH_SIZE);
+    }
+
+    private int claim() {
+        LocalDateTime now = LocalDateTime.now();
+        Integer claimed = new TransactionTemplate(transactionManager).execute(status -> eventRepository
+                .claim(SOURCE, owner, now, now.plus(CLAIM_TTL_MS, ChronoUnit.MILLIS), BATCH_SIZE));
+        return claimed != null ? claimed : 0;
+    }
+
+    /**
+     * Borra por tandas los eventos PROCESSED y FAILED de más de RETENTION_DAYS
+     */
+    void purge() {
+        LocalDateTime before = LocalDateTime.now().minusDays(RETENTION_DAYS);
+        try {
+            int deleted;
+            int total = 0;
+            do {
+                Integer batch = new TransactionTemplate(transactionManager).execute(status -> eventRepository
+                        .purgeFinished(before, PURGE_BATCH_SIZE));
+                deleted = batch != null ? batch : 0;
+                total += deleted;
+            } while (deleted == PURGE_BATCH_SIZE);
+            if (total > 0) {
+                log.info("🧹 [FB-WEBHOOK] Purged {} finished webhook events older than {}", total, before);
+            }
+        } catch (Exception e) {
+            log.error("❌ [FB-WEBHOOK] Error purging webhook events: {}", e.getMessage());
+        }
+    }
+
+    private void processBatch(List<WebhookEvent> batch) {
+        Map<Long, WebhookEvent> events = new LinkedHashMap<>();
+        Map<Long, List<MessageCreateRequest>> requestsByEvent = new LinkedHashMap<>();
+        for (WebhookEvent event : batch) {
+            events.put(event.getId(), event);
+            try {
+                requestsByEvent.put(event.getId(), toRequests(event.getPayload()));
+            } catch (Exception e) {
+                recordFailure(event, e);
+            }
+        }
+        if (requestsByEvent.isEmpty()) {
+            return;
+        }
+
+        List<MessageCreateRequest> requests = new ArrayList<>();
+        requestsByEvent.values().forEach(requests::addAll);
+        try {
+            save(requestsByEvent.keySet(), requests);
+            log.info("✅ [FB-WEBHOOK] Processed {} events ({} messages)", requestsByEvent.size(), requests.size());
+        } catch (Exception e) {
+            log.warn("⚠️ [FB-WEBHOOK] Batch of {} events failed ({}), retrying one by one",
+                    requestsByEvent.size(), e.getMessage());
+            requestsByEvent.forEach((eventId, eventRequests) -> {
+                try {
+                    save(List.of(eventId), eventRequests);
+                } catch (Exception ex) {
+                    recordFailure(events.get(eventId), ex);
+                }
+            });
+        }
+    }
+
+    private void save(Collection<Long> eventIds, List<MessageCreateRequest> requests) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            chatService.saveMessages(requests);
+            int marked = eventRepository.markProcessed(eventIds, owner, LocalDateTime.now());
+            if (marked != eventIds.size()) {
+                // Otro nodo tomó algún evento tras vencer el reclamo: no guardar dos veces
+                throw new IllegalStateException("Claim expired for " + (eventIds.size() - marked)
+                        + " webhook events");
+            }
+        });
+    }
+
+    /**
+     * Deja el evento pendiente con backoff, o FAILED si agotó los intentos.
+     * Un error al registrarlo no detiene el lote: el evento sigue listo y se
+     * reintenta en el siguiente drenado.
+     */
+    private void recordFailure(WebhookEvent event, Exception e) {
+        int attempts = (event.getAttempts() != null ? event.getAttempts() : 0) + 1;
+        String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        String error = message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+        try {
+            if (attempts >= MAX_ATTEMPTS) {
+                log.error("❌ [FB-WEBHOOK] Webhook event {} failed after {} attempts: {}", event.getId(), attempts,
+                        message, e);
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> eventRepository
+                        .updateStatus(event.getId(), WebhookEvent.EventStatus.FAILED, error, LocalDateTime.now()));
+            } else {
+                LocalDateTime nextAttemptAt = LocalDateTime.now().plus(retryDelayMs(attempts), ChronoUnit.MILLIS);
+                log.warn("⚠️ [FB-WEBHOOK] Webhook event {} failed (attempt {}/{}), retrying at {}: {}",
+                        event.getId(), attempts, MAX_ATTEMPTS, nextAttemptAt, message);
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> eventRepository
+                        .scheduleRetry(event.getId(), attempts, nextAttemptAt, error));
+            }
+        } catch (Exception ex) {
+            log.error("❌ [FB-WEBHOOK] Could not record failure of webhook event {}: {}", event.getId(),
+                    ex.getMessage());
+        }
+    }
+
+    static long retryDelayMs(int attempts) {
+        return Math.min(RETRY_MAX_MS, RETRY_BASE_MS << Math.min(attempts - 1, 20));
+    }
+
+    /**
+     * Mensajes de un payload "page" de Facebook listos para ChatService
+     */
+    private List<MessageCreateRequest> toRequests(String payload) throws Exception {
+        JsonNode root = objectMapper.readTree(payload);
+        List<MessageCreateRequest> requests = new ArrayList<>();
+        if (!"page".equals(root.path("object").asText())) {
+            return requests;
+        }
+
+        for (JsonNode entry : root.path("entry")) {
+            String pageId = entry.path("id").asText();
+            for (JsonNode event : entry.path("messaging")) {
+                if (event.has("message")) {
+                    MessageCreateRequest request = toRequest(pageId, event);
+                    if (request != null) {
+                        requests.add(request);
+                    }
+                }
+            }
+        }
+        return requests;
+    }
+
+    private MessageCreateRequest toRequest(String pageId, JsonNode event) {
+        // Ignorar eventos de entrega/lectura (no son mensajes)
+        if (event.has("delivery") || event.has("read")) {
+            return null;
+        }
+
+        Optional<PageChannel> channel = resolveChannel(pageId);
+        if (channel.isEmpty()) {
+            log.warn("⚠️ [FB-WEBHOOK] No active channel found for Page ID: {}", pageId);
+            return null;
+        }
+
+        String senderId = event.path("sender").path("id").asText();
+        JsonNode messageNode = event.path("message");
+        String text = messageNode.path("text").asText();
+        String mediaUrl = null;
+
+        // Manejo de adjuntos (imágenes)
+        JsonNode attachments = messageNode.path("attachments");
+        if (attachments.isArray() && attachments.size() > 0) {
+            JsonNode firstAttachment = attachments.get(0);
+            if ("image".equals(firstAttachment.path("type").asText())) {
+                mediaUrl = firstAttachment.path("payload").path("url").asText();
+            }
+        }
+
+        // Si no hay texto ni media, ignorar
+        if ((text == null || text.isEmpty()) && mediaUrl == null) {
+            return null;
+        }
+
+        MessageCreateRequest request = new MessageCreateRequest();
+        request.setTenantId(channel.get().tenantId());
+        request.setConversationId("fb_" + senderId);
+        request.setDirection("INBOUND");
+        request.setMessageType(mediaUrl != null ? "IMAGE" : "TEXT");
+        request.setBody(text != null ? text : "");
+        request.setMediaUrl(mediaUrl);
+        request.setPlatform("FACEBOOK");
+        request.setTitle(getSenderName(senderId, channel.get().accessToken()));
+        return request;
+    }
+
+    private Optional<PageChannel> resolveChannel(String pageId) {
+        Cached<PageChannel> cached = channels.get(pageId);
+        if (cached != null && cached.isFresh()) {
+            return Optional.of(cached.value());
+        }
+        Optional<PageChannel> channel = channelRepository.findByPageIdAndIsActiveTrue(pageId)
+                .map(this::toPageChannel);
+        // Sin caché de ausencias: un canal recién creado recibe sus mensajes de inmediato
+        channel.ifPresentOrElse(
+                found -> channels.put(pageId, new Cached<>(found, System.currentTimeMillis() + CHANNEL_TTL_MS)),
+                () -> channels.remove(pageId));
+        return channel;
+    }
+
+    private PageChannel toPageChannel(Channel channel) {
+        return new PageChannel(channel.getCustomer().getId(), channel.getAccessToken());
+    }
+
+    /**
+     * Nombre del remitente usando Graph API, con caché por PSID
+     */
+    private String getSenderName(String senderId, String pageAccessToken) {
+        Cached<String> cached = senderNames.get(senderId);
+        if (cached != null && cached.isFresh()) {
+            return cached.value();
+        }
+
+        try {
+            String url = "https://graph.facebook.com/v18.0/" + senderId +
+                    "?fields=name&access_token=" + pageAccessToken;
+            String response = restTemplate.getForObject(url, String.class);
+            String name = objectMapper.readTree(response).path("name").asText();
+
+            if (name != null && !name.isEmpty()) {
+                senderNames.put(senderId, new Cached<>(name, System.currentTimeMillis() + SENDER_NAME_TTL_MS));
+                return name;
+            }
+        } catch (Exception e) {
+            log.warn("Could not retrieve sender name: {}", e.getMessage());
+        }
+
+        return "Facebook User"; // fallback
+    }
+
+    private record PageChannel(Long tenantId, String accessToken) {
+    }
+
+    private record Cached<T>(T value, long expiresAt) {
+        boolean isFresh() {
+            return expiresAt > System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.app.starter1.services;
+
+import com.app.starter1.persistence.entity.AccountingEntry;
+import com.app.starter1.persistence.entity.AccountingFiscalPeriod;
+import com.app.starter1.persistence.entity.AccountingVoucher;
+import com.app.starter1.persistence.entity.ChartOfAccount;
+import com.app.starter1.persistence.entity.CostCenter;
+import com.app.starter1.persistence.repository.AccountingFiscalPeriodRepository;
+import com.app.starter1.persistence.repository.AccountingLedgerRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Aplica los movimientos de comprobantes contabilizados sobre el Libro Mayor
+ * (accounting_ledger).
+ *
+ * Los movimientos se acumulan en memoria por (período, cuenta), las filas
+ * afectadas del ledger se resuelven con una sola consulta y los cambios se
+ * escriben en un batch JDBC de incrementos atómicos, en lugar de una lectura
+ * y un save por cada línea del comprobante. El cubo de saldos mensuales se
+ * actualiza junto con el ledger.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LedgerPostingService {
+
+    private static final String UPDATE_LEDGER_SQL = "UPDATE accounting_ledger SET " +
+            "debit_amount = debit_amount + ?, " +
+            "credit_amount = credit_amount + ?, " +
+            "final_balance = final_balance + ?, " +
+            "last_updated = ? " +
+            "WHERE id = ?";
+
+    private static final String INSERT_LEDGER_SQL = "INSERT INTO accounting_ledger " +
+            "(tenant_id, fiscal_period_id, account_code, cost_center_id, initial_balance, " +
+            "debit_amount, credit_amount, final_balance, last_updated) " +
+            "VALUES (?, ?, ?, ?, 0, ?, ?, ?, ?)";
+
+    private final AccountingLedgerRepository ledgerRepository;
+    private final AccountingFiscalPeriodRepository fiscalPeriodRepository;
+    private final AccountBalanceCubeService balanceCubeService;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Suma al ledger los movimientos de los comprobantes indicados
+     *
+     * @param vouchers comprobantes que se contabilizan
+     * @param entries  movimientos de esos comprobantes
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void post(List<AccountingVoucher> vouchers, List<AccountingEntry> entries) {
+        apply(vouchers, entries, false);
+    }
+
+    /**
+     * Resta del ledger los movimientos de los comprobantes indicados (anulación)
+     *
+     * @param vouchers comprobantes que se anulan
+     * @param entries  movimientos de esos comprobantes
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reverse(List<AccountingVoucher> vouchers, List<AccountingEntry> entries) {
+        apply(vouchers, entries, true);
+    }
+
+    private void apply(List<AccountingVoucher> vouchers, List<AccountingEntry> entries, boolean reverse) {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        Map<Long, AccountingVoucher> vouchersById = vouchers.stream()
+                .collect(Collectors.toMap(AccountingVoucher::getId, Function.identity()));
+
+        // 1. Resolver períodos fiscales (uno por tenant/año/mes)
+        Map<PeriodKey, AccountingFiscalPeriod> periods = new HashMap<>();
+        for (AccountingVoucher voucher : vouchers) {
+            PeriodKey periodKey = PeriodKey.of(voucher);
+            if (!periods.containsKey(periodKey)) {
+                periods.put(periodKey, resolvePeriod(periodKey, reverse));
+            }
+        }
+
+        // 2. Acumular deltas en memoria por (período, cuenta)
+        Map<LedgerKey, LedgerDelta> deltas = new LinkedHashMap<>();
+        for (AccountingEntry entry : entries) {
+            AccountingVoucher voucher = vouchersById.get(entry.getVoucher().getId());
+            AccountingFiscalPeriod period = periods.get(PeriodKey.of(voucher));
+            LedgerKey key = new LedgerKey(voucher.getTenantId(), period.getId(), entry.getAccount().getCode());
+
+            LedgerDelta delta = deltas.computeIfAbsent(key,
+                    k -> new LedgerDelta(entry.getAccount(), entry.getCostCenter()));
+            delta.add(entry.getDebitAmount(), entry.getCreditAmount(), reverse);
+        }
+
+        // 3. Cargar en una sola consulta los ledgers existentes
+        Set<Long> periodIds = new HashSet<>();
+        Set<String> accountCodes = new HashSet<>();
+        for (LedgerKey key : deltas.keySet()) {
+            periodIds.add(key.fiscalPeriodId());
+            accountCodes.add(key.accountCode());
+        }
+
+        Map<LedgerKey, Long> existingIds = new HashMap<>();
+        for (Object[] row : ledgerRepository.findLedgerIds(periodIds, accountCodes)) {
+            LedgerKey key = new LedgerKey((Integer) row[0], (Long) row[1], (String) row[2]);
+            existingIds.putIfAbsent(key, (Long) row[3]);
+        }
+
+        // 4. Escribir los cambios en batch
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> inserts = new ArrayList<>();
+
+        for (Map.Entry<LedgerKey, LedgerDelta> item : deltas.entrySet()) {
+            LedgerKey key = item.getKey();
+            LedgerDelta delta = item.getValue();
+            Long ledgerId = existingIds.get(key);
+
+            if (ledgerId != null) {
+                updates.add(new Object[] { delta.debit, delta.credit, delta.balanceChange(), now, ledgerId });
+            } else if (reverse) {
+                throw new IllegalArgumentException("Ledger no encontrado para la cuenta: " + key.accountCode());
+            } else {
+                inserts.add(new Object[] {
+                        key.tenantId(),
+                        key.fiscalPeriodId(),
+                        key.accountCode(),
+                        delta.costCenter != null ? delta.costCenter.getId() : null,
+                        delta.debit,
+                        delta.credit,
+                        delta.balanceChange(),
+                        now });
+            }
+        }
+
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_LEDGER_SQL, updates);
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_LEDGER_SQL, inserts);
+        }
+
+        // 5. Mantener el cubo de saldos mensuales en la misma transacción
+        balanceCubeService.apply(vouchersById, entries, reverse);
+
+        log.debug("Ledger {}: {} movimientos -> {} filas actualizadas, {} creadas",
+                reverse ? "revertido" : "actualizado", entries.size(), updates.size(), inserts.size());
+    }
+
+    private AccountingFiscalPeriod resolvePeriod(PeriodKey key, boolean reverse) {
+        AccountingFiscalPeriod period = fiscalPeriodRepository
+                .findByTenantIdAndYearAndMonth(key.tenantId(), key.year(), key.month())
+                .orElseGet(() -> {
+                    if (reverse) {
+                        throw new IllegalArgumentException("Periodo fiscal no encontrado para revertir");
+                    }
+                    AccountingFiscalPeriod newPeriod = AccountingFiscalPeriod.builder()
+                            .tenantId(key.tenantId())
+                            .year(key.year())
+                            .month(key.month())
+                            .status(AccountingFiscalPeriod.PeriodStatus.OPEN)
+                            .build();
+                    return fiscalPeriodRepository.save(newPeriod);
+                });
+
+        if (period.getStatus() == AccountingFiscalPeriod.PeriodStatus.LOCKED) {
+            throw new IllegalArgumentException("El período fiscal está cerrado o bloqueado");
+        }
+        return period;
+    }
+
+    private record PeriodKey(Integer tenantId, int year, int month) {
+        static PeriodKey of(AccountingVoucher voucher) {
+            return new PeriodKey(voucher.getTenantId(), voucher.getDate().getYear(),
+                    voucher.getDate().getMonthValue());
+        }
+    }
+
+    private record LedgerKey(Integer tenantId, Long fiscalPeriodId, String accountCode) {
+    }
+
+    /**
+     * Movimiento neto acumulado de una cuenta dentro de un período
+     */
+    private static final class LedgerDelta {
+        private final ChartOfAccount account;
+        private final CostCenter costCenter;
+        private BigDecimal debit = BigDecimal.ZERO;
+        private BigDecimal credit = BigDecimal.ZERO;
+
+        private LedgerDelta(ChartOfAccount account, CostCenter costCenter) {
+            this.account = account;
+            this.costCenter = costCenter;
+        }
+
+        private void add(BigDecimal debitAmount, BigDecimal creditAmount, boolean reverse) {
+            BigDecimal d = debitAmount != null ? debitAmount : BigDecimal.ZERO;
+            BigDecimal c = creditAmount != null ? creditAmount : BigDecimal.ZERO;
+            if (reverse) {
+                debit = debit.subtract(d);
+                credit = credit.subtract(c);
+            } else {
+                debit = debit.add(d);
+                credit = credit.add(c);
+            }
+        }
+
+        /**
+         * Variación del saldo final según naturaleza:
+         * DEBITO = Débitos - Créditos, CREDITO = Créditos - Débitos
+         */
+        private BigDecimal balanceChange() {
+            if (account.getNature() == ChartOfAccount.AccountNature.DEBITO) {
+                return debit.subtract(credit);
+            }
+            return credit.subtract(debit);
+        }
+    }
+}
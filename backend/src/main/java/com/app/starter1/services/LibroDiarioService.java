@@ -4,17 +4,23 @@ import com.app.starter1.dto.accounting.LibroDiarioDTO;
 import com.app.starter1.dto.accounting.LibroDiarioRow;
 import com.app.starter1.persistence.entity.AccountingEntry;
 import com.app.starter1.persistence.entity.AccountingVoucher;
+import com.app.starter1.persistence.repository.AccountingEntryLine;
+import com.app.starter1.persistence.repository.AccountingEntryRepository;
 import com.app.starter1.persistence.repository.AccountingVoucherRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Servicio para generar el Libro Diario contable
@@ -26,6 +32,8 @@ import java.util.stream.Collectors;
 public class LibroDiarioService {
 
     private final AccountingVoucherRepository voucherRepository;
+    private final AccountingEntryRepository entryRepository;
+    private final ObjectMapper objectMapper;
 
     /**
      * Genera el Libro Diario para un rango de fechas
@@ -80,6 +88,46 @@ public class LibroDiarioService {
                 .build();
     }
 
+    /**
+     * Exporta el Libro Diario directamente a un stream de salida.
+     * Los movimientos se leen con un cursor en orden de comprobante y se escriben
+     * a medida que llegan, sin cargar comprobantes ni terceros en memoria.
+     *
+     * @return número de movimientos escritos
+     */
+    public long exportLibroDiario(
+            LocalDate fromDate,
+            LocalDate toDate,
+            AccountingVoucher.VoucherType voucherType,
+            Integer tenantId,
+            AccountingBookWriter.Format format,
+            OutputStream out) {
+        log.info("Exportando Libro Diario ({}) desde {} hasta {} para tenant {}",
+                format, fromDate, toDate, tenantId);
+
+        if (fromDate.isAfter(toDate)) {
+            throw new IllegalArgumentException("La fecha inicial no puede ser posterior a la fecha final");
+        }
+
+        try (AccountingBookWriter writer = new AccountingBookWriter(out, format, objectMapper);
+                Stream<AccountingEntryLine> lines = entryRepository.streamJournalLines(
+                        tenantId,
+                        fromDate,
+                        toDate,
+                        voucherType,
+                        AccountingVoucher.VoucherStatus.POSTED)) {
+            writer.writeLibroDiarioHeader();
+
+            Iterator<AccountingEntryLine> iterator = lines.iterator();
+            while (iterator.hasNext()) {
+                writer.write(mapToLibroDiarioRow(iterator.next()));
+            }
+
+            log.info("Libro Diario exportado: {} movimientos", writer.getTotalRows());
+            return writer.getTotalRows();
+        }
+    }
+
     /**
      * Obtiene los comprobantes filtrados
      */
@@ -123,6 +171,25 @@ public class LibroDiarioService {
                 .build();
     }
 
+    /**
+     * Mapea una línea proyectada del libro a LibroDiarioRow
+     */
+    private LibroDiarioRow mapToLibroDiarioRow(AccountingEntryLine line) {
+        return LibroDiarioRow.builder()
+                .date(line.getDate())
+                .voucherType(line.getVoucherType())
+                .voucherNumber(line.getVoucherNumber())
+                .voucherId(line.getVoucherId())
+                .accountCode(line.getAccountCode())
+                .accountName(line.getAccountName())
+                .thirdPartyId(line.getThirdPartyId())
+                .thirdPartyName(line.getThirdPartyName())
+                .description(line.getDescription())
+                .debitAmount(line.getDebitAmount())
+                .creditAmount(line.getCreditAmount())
+                .build();
+    }
+
     /**
      * Genera el Libro Diario sin filtro de tipo de comprobante
      */
@@ -3,18 +3,31 @@ package com.app.starter1.services;
 import com.app.starter1.dto.accounting.LibroMayorDTO;
 import com.app.starter1.dto.accounting.LibroMayorRow;
 import com.app.starter1.persistence.entity.AccountingEntry;
+import com.app.starter1.persistence.entity.AccountingFiscalPeriod;
 import com.app.starter1.persistence.entity.ChartOfAccount;
+import com.app.starter1.persistence.repository.AccountMovementSummary;
+import com.app.starter1.persistence.repository.AccountingEntryLine;
 import com.app.starter1.persistence.repository.AccountingEntryRepository;
+import com.app.starter1.persistence.repository.AccountingFiscalPeriodRepository;
+import com.app.starter1.persistence.repository.AccountingLedgerRepository;
 import com.app.starter1.persistence.repository.ChartOfAccountRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Servicio para generar el Libro Mayor contable
@@ -27,6 +40,9 @@ public class LibroMayorService {
 
         private final AccountingEntryRepository entryRepository;
         private final ChartOfAccountRepository accountRepository;
+        private final AccountingLedgerRepository ledgerRepository;
+        private final AccountingFiscalPeriodRepository fiscalPeriodRepository;
+        private final ObjectMapper objectMapper;
 
         /**
          * Genera el Libro Mayor para una cuenta específica
@@ -62,7 +78,8 @@ public class LibroMayorService {
 
                 // Obtener movimientos del período
                 List<AccountingEntry> entries = entryRepository
-                                .findByAccountCodeAndVoucherDateBetweenAndVoucherStatusOrderByVoucherDateAscVoucherIdAsc(
+                                .findByTenantIdAndAccountCodeAndVoucherDateBetweenAndVoucherStatus(
+                                                tenantId,
                                                 accountCode,
                                                 fromDate,
                                                 toDate,
@@ -108,27 +125,121 @@ public class LibroMayorService {
         }
 
         /**
-         * Calcula el saldo inicial de una cuenta (movimientos anteriores a fromDate)
+         * Exporta el Libro Mayor de una cuenta directamente a un stream de salida.
+         * Los movimientos se recorren con un cursor y el saldo acumulado se calcula
+         * fila a fila, por lo que la memoria no depende del tamaño del período.
+         *
+         * @return número de movimientos escritos
          */
-        private BigDecimal calculateInitialBalance(
+        public long exportLibroMayor(
                         String accountCode,
                         LocalDate fromDate,
-                        String nature,
-                        Integer tenantId) {
-                List<AccountingEntry> previousEntries = entryRepository
-                                .findByAccountCodeAndVoucherDateBeforeAndVoucherStatusOrderByVoucherDateAsc(
+                        LocalDate toDate,
+                        Integer tenantId,
+                        AccountingBookWriter.Format format,
+                        OutputStream out) {
+                log.info("Exportando Libro Mayor ({}) para cuenta {} desde {} hasta {}",
+                                format, accountCode, fromDate, toDate);
+
+                if (fromDate.isAfter(toDate)) {
+                        throw new IllegalArgumentException("La fecha inicial no puede ser posterior a la fecha final");
+                }
+
+                ChartOfAccount account = accountRepository.findByCode(accountCode)
+                                .orElseThrow(() -> new IllegalArgumentException(
+                                                "Cuenta no encontrada: " + accountCode));
+                String nature = account.getNature() != null ? account.getNature().name() : "DEBITO";
+
+                BigDecimal runningBalance = calculateInitialBalance(accountCode, fromDate, nature, tenantId);
+
+                try (AccountingBookWriter writer = new AccountingBookWriter(out, format, objectMapper);
+                                Stream<AccountingEntryLine> lines = entryRepository.streamLedgerLines(
                                                 accountCode,
+                                                tenantId,
                                                 fromDate,
-                                                com.app.starter1.persistence.entity.AccountingVoucher.VoucherStatus.POSTED);
+                                                toDate,
+                                                com.app.starter1.persistence.entity.AccountingVoucher.VoucherStatus.POSTED)) {
+                        writer.writeLibroMayorHeader();
 
+                        Iterator<AccountingEntryLine> iterator = lines.iterator();
+                        while (iterator.hasNext()) {
+                                AccountingEntryLine line = iterator.next();
+                                runningBalance = calculateRunningBalance(
+                                                runningBalance,
+                                                line.getDebitAmount(),
+                                                line.getCreditAmount(),
+                                                nature);
+                                writer.write(mapToLibroMayorRow(line, runningBalance));
+                        }
+
+                        log.info("Libro Mayor exportado: {} movimientos, Saldo final: {}",
+                                        writer.getTotalRows(), runningBalance);
+                        return writer.getTotalRows();
+                }
+        }
+
+        /**
+         * Calcula el saldo inicial de una cuenta (movimientos anteriores a fromDate).
+         *
+         * Toma como punto de partida el ledger acumulado hasta el último período
+         * cerrado antes de fromDate y solo suma los movimientos posteriores a ese
+         * período, de modo que el costo queda acotado a la actividad de los
+         * períodos abiertos y no a toda la historia de la cuenta.
+         */
+        private BigDecimal calculateInitialBalance(
+                        String accountCode,
+                        LocalDate fromDate,
+                        String nature,
+                        Integer tenantId) {
                 BigDecimal balance = BigDecimal.ZERO;
+                LocalDate entriesFrom = LocalDate.of(1900, 1, 1);
 
-                for (AccountingEntry entry : previousEntries) {
-                        balance = calculateRunningBalance(
-                                        balance,
-                                        entry.getDebitAmount(),
-                                        entry.getCreditAmount(),
-                                        nature);
+                List<AccountingFiscalPeriod> closedPeriods = fiscalPeriodRepository.findPreviousByStatus(
+                                tenantId,
+                                fromDate.getYear(),
+                                fromDate.getMonthValue(),
+                                EnumSet.of(AccountingFiscalPeriod.PeriodStatus.CLOSED,
+                                                AccountingFiscalPeriod.PeriodStatus.LOCKED),
+                                PageRequest.of(0, 1));
+
+                if (!closedPeriods.isEmpty()) {
+                        AccountingFiscalPeriod snapshot = closedPeriods.get(0);
+                        Optional<AccountMovementSummary> ledgerTotals = ledgerRepository
+                                        .sumMovementsByAccountUpToPeriod(
+                                                        tenantId,
+                                                        accountCode,
+                                                        snapshot.getYear(),
+                                                        snapshot.getMonth());
+
+                        if (ledgerTotals.isPresent()) {
+                                balance = calculateRunningBalance(
+                                                balance,
+                                                ledgerTotals.get().getDebitTotal(),
+                                                ledgerTotals.get().getCreditTotal(),
+                                                nature);
+                        }
+
+                        entriesFrom = YearMonth.of(snapshot.getYear(), snapshot.getMonth()).atEndOfMonth().plusDays(1);
+                        log.debug("Saldo inicial de {} desde snapshot {}-{}: {}",
+                                        accountCode, snapshot.getYear(), snapshot.getMonth(), balance);
+                }
+
+                // Movimientos posteriores al snapshot y anteriores a fromDate
+                if (entriesFrom.isBefore(fromDate)) {
+                        Optional<AccountMovementSummary> pending = entryRepository.sumMovementsByAccountBetween(
+                                        accountCode,
+                                        tenantId,
+                                        entriesFrom,
+                                        fromDate.minusDays(1),
+                                        com.app.starter1.persistence.entity.AccountingVoucher.VoucherStatus.POSTED);
+
+                        if (pending.isPresent()) {
+                                balance = calculateRunningBalance(
+                                                balance,
+                                                pending.get().getDebitTotal(),
+                                                pending.get().getCreditTotal(),
+                                                nature);
+                        }
                 }
 
                 return balance;
@@ -151,6 +262,24 @@ public class LibroMayorService {
                 }
         }
 
+        /**
+         * Mapea una línea proyectada del libro a LibroMayorRow
+         */
+        private LibroMayorRow mapToLibroMayorRow(AccountingEntryLine line, BigDecimal balance) {
+                return LibroMayorRow.builder()
+                                .date(line.getDate())
+                                .voucherType(line.getVoucherType())
+                                .voucherNumber(line.getVoucherNumber())
+                                .voucherId(line.getVoucherId())
+                                .description(line.getDescription())
+                                .thirdPartyId(line.getThirdPartyId())
+                                .thirdPartyName(line.getThirdPartyName())
+                                .debitAmount(line.getDebitAmount())
+                                .creditAmount(line.getCreditAmount())
+                                .balance(balance)
+                                .build();
+        }
+
         /**
          * Mapea un AccountingEntry a LibroMayorRow
          */
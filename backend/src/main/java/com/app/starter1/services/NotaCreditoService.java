@@ -1,9 +1,12 @@
 package com.app.starter1.services;
 
+import co.cloudfly.erp.dian.domain.enums.DianDocumentType;
 import com.app.starter1.dto.*;
 import com.app.starter1.mapper.NotaCreditoMapper;
+import com.app.starter1.persistence.entity.DocumentSequence;
 import com.app.starter1.persistence.entity.NotaCredito;
 import com.app.starter1.persistence.repository.NotaCreditoRepository;
+import com.app.starter1.persistence.services.DocumentSequenceService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -20,6 +23,7 @@ public class NotaCreditoService {
 
     private final NotaCreditoRepository repository;
     private final NotaCreditoMapper mapper;
+    private final DocumentSequenceService documentSequenceService;
     private final com.app.starter1.services.AccountingIntegrationService accountingIntegrationService;
 
     /**
@@ -29,11 +33,8 @@ public class NotaCreditoService {
     public NotaCreditoResponse crear(NotaCreditoRequest request, Long tenantId, String username) {
         log.info("Creando nota de crédito para invoice: {}", request.getInvoiceIdReferencia());
 
-        // Generar número de nota
-        String numeroNota = generarNumeroNotaCredito(tenantId);
-
         NotaCredito nota = mapper.toEntity(request, tenantId);
-        nota.setNumeroNotaCredito(numeroNota);
+        asignarNumero(nota, tenantId);
         nota.setCreatedBy(username);
 
         nota = repository.save(nota);
@@ -56,6 +57,8 @@ public class NotaCreditoService {
             throw new RuntimeException("Solo se pueden aprobar notas en estado BORRADOR");
         }
 
+        asignarNumeroDian(nota);
+
         // Cambiar estado
         nota.setEstado(NotaCredito.EstadoNotaCredito.APROBADA);
         nota.setApprovedBy(username);
@@ -146,12 +149,26 @@ public class NotaCreditoService {
     }
 
     /**
-     * Genera número único para la nota de crédito
+     * Número del borrador, de la serie interna: un borrador no consume
+     * consecutivos DIAN
+     */
+    private void asignarNumero(NotaCredito nota, Long tenantId) {
+        String prefix = String.format("NC-%d-", tenantId);
+        long numero = documentSequenceService.next(tenantId, DocumentSequence.DocumentType.CREDIT_NOTE,
+                () -> DocumentSequenceService.trailingNumber(repository.findLastNumero(tenantId, prefix)));
+        nota.setNumeroNotaCredito(String.format("%s%06d", prefix, numero));
+    }
+
+    /**
+     * Al aprobar, reemplaza el número del borrador por el consecutivo de la
+     * resolución DIAN vigente (sin saltos); sin resolución conserva el interno
      */
-    private String generarNumeroNotaCredito(Long tenantId) {
-        long count = repository.countByTenantIdAndEstado(
-                tenantId,
-                NotaCredito.EstadoNotaCredito.BORRADOR);
-        return String.format("NC-%d-%06d", tenantId, count + 1);
+    private void asignarNumeroDian(NotaCredito nota) {
+        documentSequenceService.nextRegulated(nota.getTenantId(), DianDocumentType.CREDIT_NOTE)
+                .ifPresent(regulated -> {
+                    nota.setPrefijoDian(regulated.prefix());
+                    nota.setConsecutivoDian(regulated.number());
+                    nota.setNumeroNotaCredito(regulated.formatted());
+                });
     }
 }
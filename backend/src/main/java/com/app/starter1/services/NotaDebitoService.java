@@ -1,9 +1,12 @@
 package com.app.starter1.services;
 
+import co.cloudfly.erp.dian.domain.enums.DianDocumentType;
 import com.app.starter1.dto.*;
 import com.app.starter1.mapper.NotaDebitoMapper;
+import com.app.starter1.persistence.entity.DocumentSequence;
 import com.app.starter1.persistence.entity.NotaDebito;
 import com.app.starter1.persistence.repository.NotaDebitoRepository;
+import com.app.starter1.persistence.services.DocumentSequenceService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -20,6 +23,7 @@ public class NotaDebitoService {
 
     private final NotaDebitoRepository repository;
     private final NotaDebitoMapper mapper;
+    private final DocumentSequenceService documentSequenceService;
     // TODO: Inyectar servicio contable cuando esté disponible
     // private final AccountingService accountingService;
 
@@ -30,11 +34,8 @@ public class NotaDebitoService {
     public NotaDebitoResponse crear(NotaDebitoRequest request, Long tenantId, String username) {
         log.info("Creando nota de débito para invoice: {}", request.getInvoiceIdReferencia());
 
-        // Generar número de nota
-        String numeroNota = generarNumeroNotaDebito(tenantId);
-
         NotaDebito nota = mapper.toEntity(request, tenantId);
-        nota.setNumeroNotaDebito(numeroNota);
+        asignarNumero(nota, tenantId);
         nota.setCreatedBy(username);
 
         nota = repository.save(nota);
@@ -57,6 +58,8 @@ public class NotaDebitoService {
             throw new RuntimeException("Solo se pueden aprobar notas en estado BORRADOR");
         }
 
+        asignarNumeroDian(nota);
+
         // Cambiar estado
         nota.setEstado(NotaDebito.EstadoNotaDebito.APROBADA);
         nota.setApprovedBy(username);
@@ -178,12 +181,26 @@ public class NotaDebitoService {
     }
 
     /**
-     * Genera número único para la nota de débito
+     * Número del borrador, de la serie interna: un borrador no consume
+     * consecutivos DIAN
+     */
+    private void asignarNumero(NotaDebito nota, Long tenantId) {
+        String prefix = String.format("ND-%d-", tenantId);
+        long numero = documentSequenceService.next(tenantId, DocumentSequence.DocumentType.DEBIT_NOTE,
+                () -> DocumentSequenceService.trailingNumber(repository.findLastNumero(tenantId, prefix)));
+        nota.setNumeroNotaDebito(String.format("%s%06d", prefix, numero));
+    }
+
+    /**
+     * Al aprobar, reemplaza el número del borrador por el consecutivo de la
+     * resolución DIAN vigente (sin saltos); sin resolución conserva el interno
      */
-    private String generarNumeroNotaDebito(Long tenantId) {
-        long count = repository.countByTenantIdAndEstado(
-                tenantId,
-                NotaDebito.EstadoNotaDebito.BORRADOR);
-        return String.format("ND-%d-%06d", tenantId, count + 1);
+    private void asignarNumeroDian(NotaDebito nota) {
+        documentSequenceService.nextRegulated(nota.getTenantId(), DianDocumentType.DEBIT_NOTE)
+                .ifPresent(regulated -> {
+                    nota.setPrefijoDian(regulated.prefix());
+                    nota.setConsecutivoDian(regulated.number());
+                    nota.setNumeroNotaDebito(regulated.formatted());
+                });
     }
 }
@@ -26,6 +26,7 @@ public class PayrollAccountingService {
     private final ChartOfAccountRepository accountRepository;
     private final PayrollConfigurationRepository payrollConfigRepository;
     private final CustomerRepository customerRepository;
+    private final AccountingEntryRepository entryRepository;
 
     @PersistenceContext
     private EntityManager entityManager;
@@ -65,6 +66,8 @@ public class PayrollAccountingService {
 
             if (voucherId != null && voucherId > 0) {
                 log.info("Comprobante contable generado exitosamente via SP. ID: {}", voucherId);
+                // El SP inserta los movimientos sin tenant_id, voucher_date ni voucher_status
+                entryRepository.syncVoucherColumns(List.of(voucherId));
                 return voucherRepository.findById(voucherId).orElse(null);
             } else {
                 log.warn(
@@ -12,6 +12,8 @@ import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * Servicio para el cálculo de nómina (Lógica Colombia)
@@ -21,7 +23,7 @@ import java.util.List;
 @Slf4j
 public class PayrollCalculationService {
 
-        private final PayrollConfigurationRepository configRepository;
+        private final PayrollRulesCache rulesCache;
         private final EmployeePayrollConceptRepository employeeConceptRepository;
         private final PayrollIncidenceRepository incidenceRepository;
 
@@ -30,12 +32,47 @@ public class PayrollCalculationService {
          */
         @Transactional
         public PayrollCalculationResult calculatePayroll(Employee employee, PayrollPeriod period) {
-                log.info("Calculando nómina para empleado: {} en periodo: {}",
+                PayrollInputs inputs = new PayrollInputs(rulesCache.getRules(employee.getCustomer()),
+                                Map.of(employee.getId(),
+                                                incidenceRepository.findByPayrollPeriodAndEmployee(period, employee)),
+                                Map.of(employee.getId(),
+                                                employeeConceptRepository.findByEmployeeAndIsActiveTrue(employee)));
+
+                return calculatePayroll(employee, period, inputs);
+        }
+
+        /**
+         * Carga en bloque las reglas, las incidencias del periodo y los conceptos
+         * activos de todos los empleados del cliente. Las reglas quedan fijas para
+         * toda la ejecución aunque la configuración cambie mientras tanto.
+         */
+        @Transactional(readOnly = true)
+        public PayrollInputs loadInputs(Customer customer, PayrollPeriod period) {
+                PayrollRules rules = rulesCache.getRules(customer);
+
+                Map<Long, List<PayrollIncidence>> incidences = incidenceRepository.findByPayrollPeriod(period)
+                                .stream()
+                                .collect(Collectors.groupingBy(incidence -> incidence.getEmployee().getId()));
+
+                Map<Long, List<EmployeePayrollConcept>> concepts = employeeConceptRepository
+                                .findActiveByCustomerWithConcept(customer)
+                                .stream()
+                                .collect(Collectors.groupingBy(concept -> concept.getEmployee().getId()));
+
+                return new PayrollInputs(rules, incidences, concepts);
+        }
+
+        /**
+         * Calcula la nómina de un empleado con datos precargados.
+         * No accede a la base de datos, por lo que puede ejecutarse en paralelo.
+         */
+        public PayrollCalculationResult calculatePayroll(Employee employee, PayrollPeriod period,
+                        PayrollInputs inputs) {
+                log.debug("Calculando nómina para empleado: {} en periodo: {}",
                                 employee.getEmployeeNumber(), period.getPeriodName());
 
-                // 1. Obtener configuración (valores por defecto 2025 si no existen)
-                PayrollConfiguration config = configRepository.findByCustomer(employee.getCustomer())
-                                .orElse(PayrollConfiguration.getDefault(employee.getCustomer()));
+                // 1. Reglas precalculadas (valores por defecto 2025 si no existen)
+                PayrollRules rules = inputs.getRules();
 
                 // 2. Determinar días trabajados
                 int periodDays = period.getWorkingDays();
@@ -53,16 +90,17 @@ public class PayrollCalculationService {
                 result.setBaseSalary(baseSalary);
 
                 // 4. Calcular Devengos
-                calculateDevengos(result, employee, period, config, baseSalary);
+                calculateDevengos(result, employee, period, rules, baseSalary,
+                                inputs.incidencesFor(employee), inputs.conceptsFor(employee));
 
                 // 5. Calcular Deducciones (Salud, Pensión)
-                calculateDeductions(result, config);
+                calculateDeductions(result, rules);
 
                 // 6. Calcular Costos Empleador
-                calculateEmployerCosts(result, employee, config, periodDays);
+                calculateEmployerCosts(result, rules);
 
                 // 7. Calcular Provisiones
-                calculateProvisions(result, employee, config, periodDays);
+                calculateProvisions(result, rules);
 
                 // 8. Calcular Netos finales
                 result.calculateTotals();
@@ -71,7 +109,8 @@ public class PayrollCalculationService {
         }
 
         private void calculateDevengos(PayrollCalculationResult result, Employee employee,
-                        PayrollPeriod period, PayrollConfiguration config, BigDecimal baseSalary) {
+                        PayrollPeriod period, PayrollRules rules, BigDecimal baseSalary,
+                        List<PayrollIncidence> incidences, List<EmployeePayrollConcept> employeeConcepts) {
 
                 List<Perception> perceptions = new ArrayList<>();
                 BigDecimal totalEarningsWithoutTransport = BigDecimal.ZERO;
@@ -89,8 +128,6 @@ public class PayrollCalculationService {
                 result.setSalaryAmount(baseSalary);
 
                 // B. Incidencias (Horas Extras, Comisiones, Bonos)
-                List<PayrollIncidence> incidences = incidenceRepository.findByPayrollPeriodAndEmployee(period,
-                                employee);
                 BigDecimal overtimeTotal = BigDecimal.ZERO;
                 BigDecimal commissionsTotal = BigDecimal.ZERO;
                 BigDecimal bonusesTotal = BigDecimal.ZERO;
@@ -109,7 +146,7 @@ public class PayrollCalculationService {
                                         if (amount.compareTo(BigDecimal.ZERO) == 0 && incidence.getDays() != null) {
                                                 amount = calculateOvertimeAmount(result.getDailySalary(),
                                                                 incidence.getIncidenceType(),
-                                                                incidence.getDays(), config);
+                                                                incidence.getDays(), rules);
                                         }
                                         // Mapear Tipo a Código DIAN
                                         dianCode = mapIncidenceToDianCode(incidence.getIncidenceType());
@@ -147,9 +184,6 @@ public class PayrollCalculationService {
                                 .add(bonusesTotal);
 
                 // C. Conceptos Recurrentes (Adicionales)
-                List<EmployeePayrollConcept> employeeConcepts = employeeConceptRepository
-                                .findByEmployeeAndIsActiveTrue(employee);
-
                 BigDecimal otherEarnings = BigDecimal.ZERO;
 
                 for (EmployeePayrollConcept empConcept : employeeConcepts) {
@@ -177,16 +211,14 @@ public class PayrollCalculationService {
                 // Se paga si devenga hasta 2 SMMLV (Salario Base + HE habituales)
                 BigDecimal auxTransporte = BigDecimal.ZERO;
 
-                if (config.getMinimumWage() != null && config.getTransportAllowance() != null) {
-                        BigDecimal umbralAuxilio = config.getMinimumWage().multiply(BigDecimal.valueOf(2));
+                if (rules.isTransportAllowanceConfigured()) {
                         BigDecimal baseParaAuxilio = baseSalary; // Simplificación: Usar sueldo básico mensual pactado
 
                         if (Boolean.TRUE.equals(employee.getHasTransportAllowance())
-                                        && baseParaAuxilio.compareTo(umbralAuxilio) <= 0) {
+                                        && baseParaAuxilio.compareTo(rules.getTransportAllowanceThreshold()) <= 0) {
                                 // Auxilio proporcional a días trabajados
-                                BigDecimal auxDiario = config.getTransportAllowance().divide(BigDecimal.valueOf(30), 2,
-                                                RoundingMode.HALF_UP);
-                                auxTransporte = auxDiario.multiply(BigDecimal.valueOf(period.getWorkingDays()));
+                                auxTransporte = rules.getTransportAllowanceDaily()
+                                                .multiply(BigDecimal.valueOf(period.getWorkingDays()));
 
                                 perceptions.add(Perception.builder()
                                                 .code("AUX_TRANS")
@@ -210,63 +242,46 @@ public class PayrollCalculationService {
                 result.setBasePrestaciones(totalEarningsWithoutTransport.add(auxTransporte));
         }
 
-        private void calculateDeductions(PayrollCalculationResult result, PayrollConfiguration config) {
+        private void calculateDeductions(PayrollCalculationResult result, PayrollRules rules) {
                 List<Deduction> deductions = new ArrayList<>();
                 BigDecimal ibc = result.getBaseSecuritySocial(); // Ingreso Base de Cotización
 
-                // Valores por defecto si no están configurados
-                BigDecimal healthPct = config.getHealthPercentageEmployee() != null
-                                ? config.getHealthPercentageEmployee()
-                                : new BigDecimal("4.00");
-                BigDecimal pensionPct = config.getPensionPercentageEmployee() != null
-                                ? config.getPensionPercentageEmployee()
-                                : new BigDecimal("4.00");
-                BigDecimal solidarityPct = config.getSolidarityFundPercentage() != null
-                                ? config.getSolidarityFundPercentage()
-                                : new BigDecimal("1.00");
-
                 // 1. Salud (4%) (SALUD DIAN)
-                BigDecimal healthVal = ibc.multiply(healthPct)
-                                .divide(BigDecimal.valueOf(100), 0, RoundingMode.HALF_UP); // Redondeo al peso
+                BigDecimal healthVal = PayrollRules.applyRate(ibc, rules.getHealthRate()); // Redondeo al peso
 
                 deductions.add(Deduction.builder()
                                 .code("SALUD_EMP")
                                 .dianCode(PayrollConcept.DIANCodes.SALUD)
-                                .name("Aporte Salud (" + healthPct + "%)")
+                                .name(rules.getHealthLabel())
                                 .amount(healthVal)
-                                .percentage(healthPct)
+                                .percentage(rules.getHealthPercentage())
                                 .build());
                 result.setHealthDeduction(healthVal);
 
                 // 2. Pensión (4%) (PENSION DIAN)
-                BigDecimal pensionVal = ibc.multiply(pensionPct)
-                                .divide(BigDecimal.valueOf(100), 0, RoundingMode.HALF_UP);
+                BigDecimal pensionVal = PayrollRules.applyRate(ibc, rules.getPensionRate());
 
                 deductions.add(Deduction.builder()
                                 .code("PENSION_EMP")
                                 .dianCode(PayrollConcept.DIANCodes.PENSION)
-                                .name("Aporte Pensión (" + pensionPct + "%)")
+                                .name(rules.getPensionLabel())
                                 .amount(pensionVal)
-                                .percentage(pensionPct)
+                                .percentage(rules.getPensionPercentage())
                                 .build());
                 result.setPensionDeduction(pensionVal);
 
                 // 3. Fondo Solidaridad Pensional (> 4 SMMLV) (FONDO_SP DIAN)
-                if (config.getMinimumWage() != null) {
-                        BigDecimal smmlv4 = config.getMinimumWage().multiply(BigDecimal.valueOf(4));
-                        if (ibc.compareTo(smmlv4) >= 0) {
-                                BigDecimal fspVal = ibc.multiply(solidarityPct)
-                                                .divide(BigDecimal.valueOf(100), 0, RoundingMode.HALF_UP);
-
-                                deductions.add(Deduction.builder()
-                                                .code("FSP")
-                                                .dianCode(PayrollConcept.DIANCodes.FONDO_SP)
-                                                .name("Fondo Solidaridad Pensional")
-                                                .amount(fspVal)
-                                                .percentage(solidarityPct)
-                                                .build());
-                                result.setOtherDeductions(result.getOtherDeductions().add(fspVal));
-                        }
+                if (rules.getSolidarityThreshold() != null && ibc.compareTo(rules.getSolidarityThreshold()) >= 0) {
+                        BigDecimal fspVal = PayrollRules.applyRate(ibc, rules.getSolidarityRate());
+
+                        deductions.add(Deduction.builder()
+                                        .code("FSP")
+                                        .dianCode(PayrollConcept.DIANCodes.FONDO_SP)
+                                        .name("Fondo Solidaridad Pensional")
+                                        .amount(fspVal)
+                                        .percentage(rules.getSolidarityPercentage())
+                                        .build());
+                        result.setOtherDeductions(result.getOtherDeductions().add(fspVal));
                 }
 
                 // 4. Otras Deducciones (Préstamos, Libranzas)
@@ -276,87 +291,43 @@ public class PayrollCalculationService {
                 result.setDeductions(deductions);
         }
 
-        private void calculateEmployerCosts(PayrollCalculationResult result, Employee employee,
-                        PayrollConfiguration config, int days) {
+        private void calculateEmployerCosts(PayrollCalculationResult result, PayrollRules rules) {
                 BigDecimal ibc = result.getBaseSecuritySocial();
 
-                // Valores por defecto si no están configurados
-                BigDecimal healthEmployerPct = config.getHealthPercentageEmployer() != null
-                                ? config.getHealthPercentageEmployer()
-                                : new BigDecimal("8.50");
-                BigDecimal pensionEmployerPct = config.getPensionPercentageEmployer() != null
-                                ? config.getPensionPercentageEmployer()
-                                : new BigDecimal("12.00");
-                BigDecimal arlPct = config.getArlPercentage() != null ? config.getArlPercentage()
-                                : new BigDecimal("0.522");
-                BigDecimal cajaPct = config.getParafiscalCajaPercentage() != null ? config.getParafiscalCajaPercentage()
-                                : new BigDecimal("4.00");
-                BigDecimal senaPct = config.getParafiscalSenaPercentage() != null ? config.getParafiscalSenaPercentage()
-                                : new BigDecimal("2.00");
-                BigDecimal icbfPct = config.getParafiscalIcbfPercentage() != null ? config.getParafiscalIcbfPercentage()
-                                : new BigDecimal("3.00");
-
                 // Salud Empleador (8.5%) - Exonerado si < 10 SMMLV (Ley 1607) - Asumimos no
                 // exonerado por ahora
-                BigDecimal healthEmployer = ibc.multiply(healthEmployerPct)
-                                .divide(BigDecimal.valueOf(100), 0, RoundingMode.HALF_UP);
+                result.setEmployerHealthContribution(PayrollRules.applyRate(ibc, rules.getHealthEmployerRate()));
 
                 // Pensión Empleador (12%)
-                BigDecimal pensionEmployer = ibc.multiply(pensionEmployerPct)
-                                .divide(BigDecimal.valueOf(100), 0, RoundingMode.HALF_UP);
+                result.setEmployerPensionContribution(PayrollRules.applyRate(ibc, rules.getPensionEmployerRate()));
 
                 // ARL (Según riesgo) - Riesgo I por defecto
-                BigDecimal arlVal = ibc.multiply(arlPct)
-                                .divide(BigDecimal.valueOf(100), 0, RoundingMode.HALF_UP);
+                result.setArlContribution(PayrollRules.applyRate(ibc, rules.getArlRate()));
 
                 // Parafiscales (SENA, ICBF, Caja)
-                BigDecimal cajaVal = ibc.multiply(cajaPct)
-                                .divide(BigDecimal.valueOf(100), 0, RoundingMode.HALF_UP);
-
-                BigDecimal senaVal = ibc.multiply(senaPct)
-                                .divide(BigDecimal.valueOf(100), 0, RoundingMode.HALF_UP);
-
-                BigDecimal icbfVal = ibc.multiply(icbfPct)
-                                .divide(BigDecimal.valueOf(100), 0, RoundingMode.HALF_UP);
-
-                result.setEmployerHealthContribution(healthEmployer);
-                result.setEmployerPensionContribution(pensionEmployer);
-                result.setArlContribution(arlVal);
-                result.setCajaCompensacionContribution(cajaVal);
-                result.setSenaContribution(senaVal);
-                result.setIcbfContribution(icbfVal);
+                result.setCajaCompensacionContribution(PayrollRules.applyRate(ibc, rules.getCajaRate()));
+                result.setSenaContribution(PayrollRules.applyRate(ibc, rules.getSenaRate()));
+                result.setIcbfContribution(PayrollRules.applyRate(ibc, rules.getIcbfRate()));
         }
 
-        private void calculateProvisions(PayrollCalculationResult result, Employee employee,
-                        PayrollConfiguration config, int days) {
+        private void calculateProvisions(PayrollCalculationResult result, PayrollRules rules) {
                 // Base para prestaciones incluye auxilio de transporte
                 BigDecimal basePrestaciones = result.getBasePrestaciones();
 
-                // Valores por defecto si no están configurados
-                BigDecimal primaPct = config.getPrimaPercentage() != null ? config.getPrimaPercentage()
-                                : new BigDecimal("8.33");
-                BigDecimal cesantiasPct = config.getCesantiasPercentage() != null ? config.getCesantiasPercentage()
-                                : new BigDecimal("8.33");
-                BigDecimal vacacionesPct = config.getVacacionesPercentage() != null ? config.getVacacionesPercentage()
-                                : new BigDecimal("4.17");
-
                 // Prima de Servicios (8.33%)
-                BigDecimal prima = basePrestaciones.multiply(primaPct)
-                                .divide(BigDecimal.valueOf(100), 0, RoundingMode.HALF_UP);
+                BigDecimal prima = PayrollRules.applyRate(basePrestaciones, rules.getPrimaRate());
 
                 // Cesantías (8.33%)
-                BigDecimal cesantias = basePrestaciones.multiply(cesantiasPct)
-                                .divide(BigDecimal.valueOf(100), 0, RoundingMode.HALF_UP);
+                BigDecimal cesantias = PayrollRules.applyRate(basePrestaciones, rules.getCesantiasRate());
 
                 // Intereses sobre Cesantías (1% mensual sobre cesantías acumuladas -> 12%
                 // anual)
                 // Simplificación contable: 1% de la base prestacional mensual
-                BigDecimal intCesantias = cesantias.multiply(BigDecimal.valueOf(0.12)); // 1% mensual
+                BigDecimal intCesantias = cesantias.multiply(rules.getInteresesCesantiasRate()); // 1% mensual
 
                 // Vacaciones (4.17%) - NO incluye auxilio de transporte
-                BigDecimal baseVacaciones = result.getBaseSecuritySocial();
-                BigDecimal vacaciones = baseVacaciones.multiply(vacacionesPct)
-                                .divide(BigDecimal.valueOf(100), 0, RoundingMode.HALF_UP);
+                BigDecimal vacaciones = PayrollRules.applyRate(result.getBaseSecuritySocial(),
+                                rules.getVacacionesRate());
 
                 result.setPrimaServiciosProvision(prima);
                 result.setCesantiasProvision(cesantias);
@@ -378,24 +349,9 @@ public class PayrollCalculationService {
         }
 
         private BigDecimal calculateOvertimeAmount(BigDecimal dailySalary, PayrollIncidence.IncidenceType type,
-                        BigDecimal hours, PayrollConfiguration config) {
+                        BigDecimal hours, PayrollRules rules) {
                 BigDecimal hourlyRate = dailySalary.divide(BigDecimal.valueOf(8), 2, RoundingMode.HALF_UP);
-                BigDecimal factor = BigDecimal.ONE;
-
-                if (type == PayrollIncidence.IncidenceType.HORAS_EXTRA) {
-                        factor = config.getOvertimeDayFactor() != null ? config.getOvertimeDayFactor()
-                                        : new BigDecimal("1.2500");
-                } else if (type == PayrollIncidence.IncidenceType.HORAS_EXTRA_NOCTURNA) {
-                        factor = config.getOvertimeNightFactor() != null ? config.getOvertimeNightFactor()
-                                        : new BigDecimal("1.7500");
-                } else if (type == PayrollIncidence.IncidenceType.RECARGO_NOCTURNO) {
-                        factor = config.getNightSurchargeFactor() != null ? config.getNightSurchargeFactor()
-                                        : new BigDecimal("0.3500");
-                } else if (type == PayrollIncidence.IncidenceType.DOMINICAL_FESTIVO) {
-                        factor = config.getSundayHolidayFactor() != null ? config.getSundayHolidayFactor()
-                                        : new BigDecimal("1.7500");
-                }
-                return hourlyRate.multiply(hours).multiply(factor);
+                return hourlyRate.multiply(hours).multiply(rules.overtimeFactor(type));
         }
 
         private BigDecimal calculateConceptAmount(EmployeePayrollConcept empConcept, BigDecimal basePay) {
@@ -420,6 +376,25 @@ public class PayrollCalculationService {
                 return true;
         }
 
+        /**
+         * Datos de entrada de la nómina de un periodo, precargados para todos los empleados
+         */
+        @lombok.Getter
+        @lombok.RequiredArgsConstructor
+        public static class PayrollInputs {
+                private final PayrollRules rules;
+                private final Map<Long, List<PayrollIncidence>> incidencesByEmployee;
+                private final Map<Long, List<EmployeePayrollConcept>> conceptsByEmployee;
+
+                public List<PayrollIncidence> incidencesFor(Employee employee) {
+                        return incidencesByEmployee.getOrDefault(employee.getId(), List.of());
+                }
+
+                public List<EmployeePayrollConcept> conceptsFor(Employee employee) {
+                        return conceptsByEmployee.getOrDefault(employee.getId(), List.of());
+                }
+        }
+
         @lombok.Data
         public static class PayrollCalculationResult {
                 private Employee employee;
@@ -22,6 +22,7 @@ public class PayrollConfigurationService {
 
     private final PayrollConfigurationRepository configRepository;
     private final CustomerRepository customerRepository;
+    private final PayrollRulesCache rulesCache;
 
     /**
      * Obtiene la configuración de nómina del tenant
@@ -57,6 +58,7 @@ public class PayrollConfigurationService {
         updateEntityFromDTO(config, dto);
 
         PayrollConfiguration saved = configRepository.save(config);
+        rulesCache.evict(customerId);
         log.info("Payroll configuration updated for customer {}", customerId);
 
         return convertToDTO(saved);
@@ -74,6 +76,7 @@ public class PayrollConfigurationService {
 
         PayrollConfiguration defaultConfig = PayrollConfiguration.getDefault(customer);
         PayrollConfiguration saved = configRepository.save(defaultConfig);
+        rulesCache.evict(customerId);
 
         log.info("Payroll configuration reset to defaults for customer {}", customerId);
         return convertToDTO(saved);
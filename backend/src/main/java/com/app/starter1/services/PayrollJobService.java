@@ -0,0 +1,283 @@
+package com.app.starter1.services;
+
+import com.app.starter1.persistence.entity.Customer;
+import com.app.starter1.persistence.entity.PayrollJob;
+import com.app.starter1.persistence.entity.PayrollJobError;
+import com.app.starter1.persistence.repository.CustomerRepository;
+import com.app.starter1.persistence.repository.PayrollJobErrorRepository;
+import com.app.starter1.persistence.repository.PayrollJobRepository;
+import com.app.starter1.persistence.repository.PayrollPeriodRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Ejecuta en segundo plano los procesos masivos de nómina.
+ *
+ * Cada solicitud crea un registro en payroll_jobs y se encola en un pool de
+ * workers; el avance y los errores por empleado se guardan a medida que se
+ * confirman. Si la aplicación se detiene, los jobs pendientes o en ejecución
+ * se reanudan al iniciar desde el último empleado confirmado.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PayrollJobService {
+
+    private static final int WORKER_THREADS = 2;
+    private static final long SSE_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(30);
+    private static final long SSE_POLL_SECONDS = 1;
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private static final Set<PayrollJob.JobStatus> ACTIVE_STATUSES = EnumSet.of(
+            PayrollJob.JobStatus.QUEUED, PayrollJob.JobStatus.RUNNING);
+
+    private final PayrollJobRepository jobRepository;
+    private final PayrollJobErrorRepository jobErrorRepository;
+    private final CustomerRepository customerRepository;
+    private final PayrollPeriodRepository periodRepository;
+    private final PayrollProcessingService processingService;
+    private final PayrollLiquidationService liquidationService;
+    private final PayrollNotificationService notificationService;
+    private final PlatformTransactionManager transactionManager;
+
+    private final ExecutorService workers = new ThreadPoolExecutor(
+            WORKER_THREADS, WORKER_THREADS, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "payroll-job");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private final ScheduledExecutorService sseScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "payroll-job-sse");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Registra y encola un proceso masivo. Si ya hay uno igual pendiente o en
+     * ejecución para el período, se devuelve ese en lugar de duplicar el trabajo.
+     */
+    public synchronized PayrollJob submit(PayrollJob.JobType jobType, Long periodId, Long customerId) {
+        Customer customer = customerRepository.findById(customerId)
+                .orElseThrow(() -> new RuntimeException("Cliente no encontrado"));
+        periodRepository.findByIdAndCustomer(periodId, customer)
+                .orElseThrow(() -> new RuntimeException("Período no encontrado"));
+
+        Optional<PayrollJob> active = jobRepository.findFirstByPeriodIdAndJobTypeAndStatusInOrderByIdDesc(
+                periodId, jobType, ACTIVE_STATUSES);
+        if (active.isPresent()) {
+            log.info("Job {} de tipo {} ya activo para el período {}", active.get().getId(), jobType, periodId);
+            return active.get();
+        }
+
+        PayrollJob job = jobRepository.save(PayrollJob.builder()
+                .customerId(customerId)
+                .periodId(periodId)
+                .jobType(jobType)
+                .build());
+
+        log.info("Job de nómina {} registrado: {} para período {}", job.getId(), jobType, periodId);
+        enqueue(job.getId());
+        return job;
+    }
+
+    public PayrollJob getJob(Long jobId, Long customerId) {
+        return jobRepository.findByIdAndCustomerId(jobId, customerId)
+                .orElseThrow(() -> new RuntimeException("Job no encontrado"));
+    }
+
+    public List<PayrollJobError> getErrors(Long jobId, Long customerId) {
+        getJob(jobId, customerId);
+        return jobErrorRepository.findByJobIdOrderByIdAsc(jobId);
+    }
+
+    public List<PayrollJob> getJobsForPeriod(Long periodId, Long customerId) {
+        return jobRepository.findByCustomerIdAndPeriodIdOrderByIdDesc(customerId, periodId);
+    }
+
+    /**
+     * Publica por SSE el estado del job cada segundo hasta que termine
+     */
+    public SseEmitter stream(Long jobId, Long customerId) {
+        getJob(jobId, customerId);
+
+        SseEmitter emitter = new SseEmitter(SSE_TIMEOUT_MS);
+        AtomicBoolean done = new AtomicBoolean(false);
+        AtomicReference<ScheduledFuture<?>> task = new AtomicReference<>();
+
+        Runnable stop = () -> {
+            done.set(true);
+            ScheduledFuture<?> future = task.get();
+            if (future != null) {
+                future.cancel(false);
+            }
+        };
+
+        task.set(sseScheduler.scheduleAtFixedRate(() -> {
+            if (done.get()) {
+                stop.run();
+                return;
+            }
+            try {
+                PayrollJob job = jobRepository.findById(jobId)
+                        .orElseThrow(() -> new RuntimeException("Job no encontrado"));
+                emitter.send(SseEmitter.event().name("progress").data(job));
+                if (job.isFinished()) {
+                    stop.run();
+                    emitter.complete();
+                }
+            } catch (Exception e) {
+                stop.run();
+                emitter.completeWithError(e);
+            }
+        }, 0, SSE_POLL_SECONDS, TimeUnit.SECONDS));
+
+        emitter.onCompletion(stop);
+        emitter.onTimeout(stop);
+        emitter.onError(error -> stop.run());
+        return emitter;
+    }
+
+    /**
+     * Reanuda los jobs que quedaron pendientes o en ejecución en el último apagado
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedJobs() {
+        List<PayrollJob> jobs = jobRepository.findByStatusInOrderByIdAsc(ACTIVE_STATUSES);
+        for (PayrollJob job : jobs) {
+            log.info("Reanudando job de nómina {} ({}) desde el empleado {}",
+                    job.getId(), job.getJobType(), job.getLastEmployeeId());
+            enqueue(job.getId());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sseScheduler.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    private void enqueue(Long jobId) {
+        workers.submit(() -> run(jobId));
+    }
+
+    private void run(Long jobId) {
+        PayrollJob job = jobRepository.findById(jobId).orElse(null);
+        if (job == null || job.isFinished()) {
+            return;
+        }
+
+        job.setStatus(PayrollJob.JobStatus.RUNNING);
+        job.setAttempts(job.getAttempts() + 1);
+        if (job.getStartedAt() == null) {
+            job.setStartedAt(LocalDateTime.now());
+        }
+        job = jobRepository.save(job);
+
+        Long resumeAfter = job.getLastEmployeeId();
+        PayrollProgressListener listener = new JobProgressListener(jobId);
+
+        try {
+            String message = switch (job.getJobType()) {
+                case PROCESS -> {
+                    PayrollProcessingService.ProcessingResult result = processingService.processPayroll(
+                            job.getPeriodId(), job.getCustomerId(), resumeAfter, listener);
+                    yield result.getProcessedCount() + " recibos generados";
+                }
+                case LIQUIDATE -> {
+                    PayrollLiquidationService.LiquidationResult result = liquidationService.liquidatePeriod(
+                            job.getPeriodId(), job.getCustomerId(), resumeAfter, listener);
+                    yield result.getReceiptsGenerated() + " recibos liquidados";
+                }
+                case SEND_RECEIPTS -> {
+                    int sent = notificationService.sendReceiptsForPeriod(
+                            job.getPeriodId(), job.getCustomerId(), resumeAfter, listener);
+                    yield sent + " colillas enviadas";
+                }
+            };
+            finish(jobId, PayrollJob.JobStatus.COMPLETED, message);
+        } catch (Exception e) {
+            log.error("Error ejecutando job de nómina {}", jobId, e);
+            finish(jobId, PayrollJob.JobStatus.FAILED, e.getMessage());
+        }
+    }
+
+    private void finish(Long jobId, PayrollJob.JobStatus status, String message) {
+        jobRepository.findById(jobId).ifPresent(job -> {
+            job.setStatus(status);
+            job.setMessage(message);
+            job.setFinishedAt(LocalDateTime.now());
+            jobRepository.save(job);
+            log.info("Job de nómina {} finalizado: {} - {}", jobId, status, message);
+        });
+    }
+
+    private static String truncate(String message) {
+        if (message == null || message.length() <= MAX_ERROR_LENGTH) {
+            return message;
+        }
+        return message.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    /**
+     * Guarda el avance y los errores de cada bloque confirmado en una sola transacción
+     */
+    private class JobProgressListener implements PayrollProgressListener {
+
+        private final Long jobId;
+        private final TransactionTemplate transaction;
+
+        private JobProgressListener(Long jobId) {
+            this.jobId = jobId;
+            this.transaction = new TransactionTemplate(transactionManager);
+        }
+
+        @Override
+        public void onStart(int totalEmployees) {
+            transaction.executeWithoutResult(
+                    status -> jobRepository.updateTotalItems(jobId, totalEmployees, LocalDateTime.now()));
+        }
+
+        @Override
+        public void onProgress(Long lastEmployeeId, int processedCount,
+                List<PayrollProcessingService.ProcessingError> errors) {
+            transaction.executeWithoutResult(status -> {
+                jobRepository.recordProgress(jobId, lastEmployeeId, processedCount, errors.size(),
+                        LocalDateTime.now());
+                if (!errors.isEmpty()) {
+                    jobErrorRepository.saveAll(errors.stream()
+                            .map(error -> PayrollJobError.builder()
+                                    .jobId(jobId)
+                                    .employeeId(error.getEmployeeId())
+                                    .message(truncate(error.getMessage()))
+                                    .build())
+                            .toList());
+                }
+            });
+        }
+    }
+}
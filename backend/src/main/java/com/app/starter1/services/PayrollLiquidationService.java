@@ -6,11 +6,14 @@ import com.app.starter1.services.PayrollCalculationService.PayrollCalculationRes
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -30,12 +33,26 @@ public class PayrollLiquidationService {
     private final PayrollCalculationService calculationService;
     private final PayrollAccountingService accountingService;
     private final PayrollPdfService pdfService;
+    private final EmployeeRepository employeeRepository;
+    private final PlatformTransactionManager transactionManager;
 
     /**
      * Liquida un período completo, generando recibos para todos los empleados
      */
-    @Transactional
     public LiquidationResult liquidatePeriod(Long periodId, Long customerId) {
+        return liquidatePeriod(periodId, customerId, null, null);
+    }
+
+    /**
+     * Liquida un período empleado por empleado. Cada recibo se confirma en su
+     * propia transacción, de modo que un proceso interrumpido puede reanudarse
+     * desde el último empleado confirmado.
+     *
+     * @param resumeAfterEmployeeId si no es null, solo se liquidan los empleados con id mayor
+     * @param listener              recibe el avance después de cada empleado (puede ser null)
+     */
+    public LiquidationResult liquidatePeriod(Long periodId, Long customerId, Long resumeAfterEmployeeId,
+            PayrollProgressListener listener) {
         log.info("Iniciando liquidación del período {} para cliente {}", periodId, customerId);
 
         Customer customer = customerRepository.findById(customerId)
@@ -48,47 +65,83 @@ public class PayrollLiquidationService {
             throw new RuntimeException("Solo se pueden liquidar períodos en estado OPEN");
         }
 
-        List<PayrollReceipt> receipts = new ArrayList<>();
-        int employeesProcessed = 0;
-        BigDecimal totalNetPay = BigDecimal.ZERO;
+        List<Employee> employees = period.getAssignedEmployees().stream()
+                .filter(employee -> resumeAfterEmployeeId == null || employee.getId() > resumeAfterEmployeeId)
+                .sorted(Comparator.comparing(Employee::getId))
+                .toList();
+        PayrollCalculationService.PayrollInputs inputs = calculationService.loadInputs(customer, period);
 
-        // Obtener novedades pendientes
-        List<PayrollNovelty> novelties = noveltyRepository.findByPeriod(customerId, periodId);
+        if (listener != null) {
+            listener.onStart(period.getAssignedEmployees().size());
+        }
 
-        for (Employee employee : period.getAssignedEmployees()) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        for (Employee employee : employees) {
+            int processed = 0;
+            List<PayrollProcessingService.ProcessingError> errors = List.of();
             try {
-                // 1. Calcular
-                PayrollCalculationResult calcResult = calculationService.calculatePayroll(employee, period);
+                transaction.executeWithoutResult(status -> liquidateEmployee(period, employee, inputs));
+                processed = 1;
+            } catch (Exception e) {
+                log.error("Error procesando empleado {} ({}): {}", employee.getId(), employee.getFullName(),
+                        e.getMessage(), e);
+                errors = List.of(new PayrollProcessingService.ProcessingError(employee.getId(), e.getMessage()));
+            }
+            if (listener != null) {
+                listener.onProgress(employee.getId(), processed, errors);
+            }
+        }
 
-                // 2. Crear Recibo (Entidad)
-                PayrollReceipt receipt = createReceiptFromCalculation(period, employee, calcResult);
+        return transaction.execute(status -> completeLiquidation(periodId, customerId));
+    }
 
-                // 3. Generar PDF (Simulado para path, el real se genera al enviar)
-                String pdfUrl = generateReceiptPDF(receipt);
-                receipt.setPdfPath(pdfUrl);
+    /**
+     * Calcula, guarda y notifica el recibo de un empleado
+     */
+    private void liquidateEmployee(PayrollPeriod period, Employee employee,
+            PayrollCalculationService.PayrollInputs inputs) {
+        // 1. Calcular
+        PayrollCalculationResult calcResult = calculationService.calculatePayroll(employee, period, inputs);
 
-                // Guardar para tener ID y persistencia
-                receipt = receiptRepository.save(receipt);
-                receipts.add(receipt);
+        // 2. Crear Recibo (Entidad) sobre referencias de la transacción actual
+        PayrollReceipt receipt = createReceiptFromCalculation(
+                periodRepository.getReferenceById(period.getId()),
+                employeeRepository.getReferenceById(employee.getId()),
+                calcResult);
 
-                totalNetPay = totalNetPay.add(receipt.getNetPay());
-                employeesProcessed++;
+        // 3. Generar PDF (Simulado para path, el real se genera al enviar)
+        String pdfUrl = generateReceiptPDF(receipt);
+        receipt.setPdfPath(pdfUrl);
 
-                // 4. Enviar Notificación (Kafka -> Evolution API)
-                try {
-                    notificationService.sendReceiptByEmail(receipt);
-                } catch (Exception e) {
-                    log.warn("No se pudo enviar la notificación inmediata para recibo {}: {}",
-                            receipt.getReceiptNumber(), e.getMessage());
-                }
+        // Guardar para tener ID y persistencia
+        receipt = receiptRepository.save(receipt);
 
-            } catch (Exception e) {
-                log.error("Error procesando empleado {} ({}): {}", employee.getId(), employee.getFullName(),
-                        e.getMessage(), e);
-            }
+        // 4. Enviar Notificación (Kafka -> Evolution API)
+        try {
+            notificationService.sendReceiptByEmail(receipt);
+        } catch (Exception e) {
+            log.warn("No se pudo enviar la notificación inmediata para recibo {}: {}",
+                    receipt.getReceiptNumber(), e.getMessage());
         }
+    }
+
+    /**
+     * Cierra la liquidación con todos los recibos del período, incluidos los
+     * confirmados en ejecuciones anteriores
+     */
+    private LiquidationResult completeLiquidation(Long periodId, Long customerId) {
+        PayrollPeriod period = periodRepository.findById(periodId)
+                .orElseThrow(() -> new RuntimeException("Período no encontrado"));
+
+        List<PayrollReceipt> receipts = receiptRepository.findByPayrollPeriod(period);
+        BigDecimal totalNetPay = receipts.stream()
+                .map(PayrollReceipt::getNetPay)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
 
         // Marcar novedades como procesadas
+        List<PayrollNovelty> novelties = noveltyRepository.findByPeriod(customerId, periodId);
         novelties.forEach(n -> n.setStatus(PayrollNovelty.NoveltyStatus.PROCESSED));
         noveltyRepository.saveAll(novelties);
 
@@ -105,12 +158,12 @@ public class PayrollLiquidationService {
             log.error("Error generando contabilidad: {}", e.getMessage());
         }
 
-        log.info("Liquidación completada. Empleados: {}, Total: {}", employeesProcessed, totalNetPay);
+        log.info("Liquidación completada. Empleados: {}, Total: {}", receipts.size(), totalNetPay);
 
         return LiquidationResult.builder()
                 .periodId(period.getId())
                 .status("LIQUIDATED")
-                .receiptsGenerated(employeesProcessed)
+                .receiptsGenerated(receipts.size())
                 .totalNetPay(totalNetPay)
                 .build();
     }
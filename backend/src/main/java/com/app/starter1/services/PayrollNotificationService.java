@@ -11,6 +11,8 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.Base64;
 import java.util.HashMap;
@@ -31,6 +33,7 @@ public class PayrollNotificationService {
     private final PayrollConfigurationRepository configRepository;
     private final KafkaTemplate<String, String> kafkaTemplate;
     private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
 
     private static final String NOTIFICATION_TOPIC = "notification-topic";
 
@@ -116,26 +119,63 @@ public class PayrollNotificationService {
      * @return número de colillas enviadas
      */
     public int sendReceiptsForPeriod(Long periodId, Long customerId) {
+        return sendReceiptsForPeriod(periodId, customerId, null, null);
+    }
+
+    /**
+     * Envía las colillas de un período en orden de empleado, cada una en su
+     * propia transacción de lectura
+     *
+     * @param resumeAfterEmployeeId si no es null, solo se envían las colillas de empleados con id mayor
+     * @param listener              recibe el avance después de cada colilla (puede ser null)
+     * @return número de colillas enviadas
+     */
+    public int sendReceiptsForPeriod(Long periodId, Long customerId, Long resumeAfterEmployeeId,
+            PayrollProgressListener listener) {
         PayrollPeriod period = periodRepository.findById(periodId)
                 .orElseThrow(() -> new RuntimeException("Período no encontrado"));
 
-        List<PayrollReceipt> receipts = receiptRepository.findByPayrollPeriod(period);
+        List<Object[]> receiptIds = receiptRepository.findReceiptIdsByPeriod(periodId);
+        if (listener != null) {
+            listener.onStart(receiptIds.size());
+        }
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
 
         int sent = 0;
         int errors = 0;
 
-        for (PayrollReceipt receipt : receipts) {
+        for (Object[] row : receiptIds) {
+            Long employeeId = (Long) row[0];
+            Long receiptId = (Long) row[1];
+            if (resumeAfterEmployeeId != null && employeeId <= resumeAfterEmployeeId) {
+                continue;
+            }
+
+            List<PayrollProcessingService.ProcessingError> receiptErrors = List.of();
             try {
-                if (receipt.getEmployee().getEmail() != null && !receipt.getEmployee().getEmail().isBlank()) {
-                    sendReceiptByEmail(receipt);
-                    sent++;
-                } else {
+                Boolean delivered = transaction.execute(status -> {
+                    PayrollReceipt receipt = receiptRepository.findById(receiptId)
+                            .orElseThrow(() -> new RuntimeException("Recibo no encontrado"));
+                    if (receipt.getEmployee().getEmail() != null && !receipt.getEmployee().getEmail().isBlank()) {
+                        sendReceiptByEmail(receipt);
+                        return true;
+                    }
                     log.warn("Empleado {} sin email, omitiendo...", receipt.getEmployee().getFullName());
+                    return false;
+                });
+                if (Boolean.TRUE.equals(delivered)) {
+                    sent++;
                 }
             } catch (Exception e) {
                 errors++;
-                log.error("Error enviando colilla a {}: {}",
-                        receipt.getEmployee().getFullName(), e.getMessage());
+                log.error("Error enviando colilla del recibo {}: {}", receiptId, e.getMessage());
+                receiptErrors = List.of(new PayrollProcessingService.ProcessingError(employeeId, e.getMessage()));
+            }
+
+            if (listener != null) {
+                listener.onProgress(employeeId, receiptErrors.isEmpty() ? 1 : 0, receiptErrors);
             }
         }
 
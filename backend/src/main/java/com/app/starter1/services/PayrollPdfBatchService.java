@@ -0,0 +1,233 @@
+package com.app.starter1.services;
+
+import com.app.starter1.persistence.entity.Customer;
+import com.app.starter1.persistence.entity.PayrollReceipt;
+import com.app.starter1.persistence.repository.CustomerRepository;
+import com.app.starter1.persistence.repository.PayrollPeriodRepository;
+import com.app.starter1.persistence.repository.PayrollReceiptRepository;
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.pdf.PdfCopy;
+import com.lowagie.text.pdf.PdfReader;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Genera en bloque los comprobantes de nómina de un período.
+ *
+ * Los recibos se cargan y se dibujan por ventanas: cada ventana se renderiza
+ * en paralelo y se escribe en orden al ZIP o al PDF combinado, de modo que en
+ * memoria solo están a la vez los documentos de una ventana. Fuentes y logo
+ * decodificado se comparten entre documentos en PayrollPdfService.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PayrollPdfBatchService {
+
+    private static final int RENDER_THREADS = Math.max(2,
+            Math.min(8, Runtime.getRuntime().availableProcessors()));
+    private static final int WINDOW_SIZE = RENDER_THREADS * 4;
+
+    /**
+     * Formatos de salida del lote
+     */
+    public enum Format {
+        ZIP("application/zip", "zip"),
+        PDF("application/pdf", "pdf");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format from(String value) {
+            if (value == null || value.isBlank()) {
+                return ZIP;
+            }
+            try {
+                return Format.valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Formato de descarga no soportado: " + value);
+            }
+        }
+    }
+
+    private final CustomerRepository customerRepository;
+    private final PayrollPeriodRepository periodRepository;
+    private final PayrollReceiptRepository receiptRepository;
+    private final PayrollPdfService pdfService;
+    private final PlatformTransactionManager transactionManager;
+
+    private final ExecutorService renderExecutor = new ThreadPoolExecutor(
+            RENDER_THREADS, RENDER_THREADS, 60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(WINDOW_SIZE),
+            runnable -> {
+                Thread thread = new Thread(runnable, "payroll-pdf");
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.CallerRunsPolicy());
+
+    @PreDestroy
+    public void shutdownExecutor() {
+        renderExecutor.shutdown();
+    }
+
+    /**
+     * Escribe en el stream todos los comprobantes del período, en orden de empleado
+     */
+    public void exportPeriod(Long periodId, Long customerId, Format format, OutputStream out) {
+        Customer customer = customerRepository.findById(customerId)
+                .orElseThrow(() -> new RuntimeException("Cliente no encontrado"));
+        periodRepository.findByIdAndCustomer(periodId, customer)
+                .orElseThrow(() -> new RuntimeException("Período no encontrado"));
+
+        List<Long> receiptIds = receiptRepository.findReceiptIdsByPeriod(periodId).stream()
+                .map(row -> (Long) row[1])
+                .toList();
+        if (receiptIds.isEmpty()) {
+            throw new IllegalArgumentException("El período no tiene recibos generados");
+        }
+
+        log.info("Generando {} comprobantes del período {} como {}", receiptIds.size(), periodId, format);
+        long start = System.currentTimeMillis();
+
+        TransactionTemplate readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setReadOnly(true);
+
+        try (ReceiptSink sink = format == Format.ZIP ? new ZipSink(out) : new MergedPdfSink(out)) {
+            for (int from = 0; from < receiptIds.size(); from += WINDOW_SIZE) {
+                List<Long> windowIds = receiptIds.subList(from, Math.min(from + WINDOW_SIZE, receiptIds.size()));
+                List<PayrollReceipt> receipts = readTransaction
+                        .execute(status -> receiptRepository.findForRenderingByIdIn(windowIds));
+
+                List<CompletableFuture<byte[]>> rendered = new ArrayList<>(receipts.size());
+                for (PayrollReceipt receipt : receipts) {
+                    rendered.add(CompletableFuture.supplyAsync(() -> render(receipt, customer), renderExecutor));
+                }
+                for (int i = 0; i < receipts.size(); i++) {
+                    sink.add(receipts.get(i), rendered.get(i).join());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        log.info("Comprobantes del período {} generados en {} ms", periodId, System.currentTimeMillis() - start);
+    }
+
+    private byte[] render(PayrollReceipt receipt, Customer customer) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(16 * 1024);
+        pdfService.writeReceiptPdf(receipt, customer, buffer);
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Destino de los PDF ya renderizados
+     */
+    private interface ReceiptSink extends AutoCloseable {
+        void add(PayrollReceipt receipt, byte[] pdf) throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    /**
+     * Un archivo por comprobante dentro de un ZIP
+     */
+    private static final class ZipSink implements ReceiptSink {
+        private final ZipOutputStream zip;
+
+        private ZipSink(OutputStream out) {
+            this.zip = new ZipOutputStream(out);
+            // Los PDF ya vienen comprimidos
+            this.zip.setLevel(Deflater.BEST_SPEED);
+        }
+
+        @Override
+        public void add(PayrollReceipt receipt, byte[] pdf) throws IOException {
+            zip.putNextEntry(new ZipEntry("nomina_" + receipt.getReceiptNumber() + ".pdf"));
+            zip.write(pdf);
+            zip.closeEntry();
+        }
+
+        @Override
+        public void close() throws IOException {
+            zip.finish();
+            zip.flush();
+        }
+    }
+
+    /**
+     * Todos los comprobantes como páginas de un solo PDF
+     */
+    private static final class MergedPdfSink implements ReceiptSink {
+        private final OutputStream out;
+        private final Document document;
+        private final PdfCopy copy;
+
+        private MergedPdfSink(OutputStream out) {
+            this.out = out;
+            this.document = new Document();
+            try {
+                this.copy = new PdfCopy(document, out);
+            } catch (DocumentException e) {
+                throw new IllegalStateException("No se pudo iniciar el PDF combinado", e);
+            }
+            this.copy.setCloseStream(false);
+            this.document.open();
+        }
+
+        @Override
+        public void add(PayrollReceipt receipt, byte[] pdf) throws IOException {
+            PdfReader reader = new PdfReader(pdf);
+            try {
+                for (int page = 1; page <= reader.getNumberOfPages(); page++) {
+                    copy.addPage(copy.getImportedPage(reader, page));
+                }
+                copy.freeReader(reader);
+            } catch (DocumentException e) {
+                throw new IOException("Error agregando el recibo " + receipt.getReceiptNumber(), e);
+            } finally {
+                reader.close();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            document.close();
+            out.flush();
+        }
+    }
+}
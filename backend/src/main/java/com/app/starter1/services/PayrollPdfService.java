@@ -10,10 +10,15 @@ import org.springframework.stereotype.Service;
 import java.awt.Color;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.text.NumberFormat;
 import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @Slf4j
@@ -28,7 +33,27 @@ public class PayrollPdfService {
     private static final Font FONT_SMALL = FontFactory.getFont(FontFactory.HELVETICA, 8);
     private static final Font FONT_NET_PAY = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12);
 
-    private static final NumberFormat CURRENCY_FORMAT = NumberFormat.getCurrencyInstance(new Locale("es", "CO"));
+    private static final DateTimeFormatter PERIOD_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    // NumberFormat no es thread-safe; una instancia por hilo de render
+    private static final ThreadLocal<NumberFormat> CURRENCY_FORMAT = ThreadLocal
+            .withInitial(() -> NumberFormat.getCurrencyInstance(new Locale("es", "CO")));
+
+    private static final int MAX_LOGOS = 100;
+    private static final long LOGO_TTL_MS = TimeUnit.HOURS.toMillis(1);
+
+    /**
+     * Logos decodificados por URL (LRU con vencimiento, para tomar un logo
+     * reemplazado en la misma URL). Los fallos no se guardan: el siguiente
+     * comprobante vuelve a intentar la descarga.
+     */
+    private final Map<String, CachedLogo> logoCache = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedLogo> eldest) {
+                    return size() > MAX_LOGOS;
+                }
+            });
 
     public String generateReceiptPdf(PayrollReceipt receipt, Customer customer) {
         String fileName = "nomina_" + receipt.getReceiptNumber() + ".pdf";
@@ -47,8 +72,22 @@ public class PayrollPdfService {
         }
 
         try (FileOutputStream fos = new FileOutputStream(filePath)) {
+            writeReceiptPdf(receipt, customer, fos);
+            return filePath; // Retornar ruta relativa o absoluta
+        } catch (IOException e) {
+            log.error("Error generando PDF", e);
+            throw new RuntimeException("Error generando PDF de nómina", e);
+        }
+    }
+
+    /**
+     * Escribe el comprobante de nómina en el stream indicado sin cerrarlo
+     */
+    public void writeReceiptPdf(PayrollReceipt receipt, Customer customer, OutputStream out) {
+        try {
             Document document = new Document(PageSize.LETTER.rotate()); // Horizontal
-            PdfWriter.getInstance(document, fos);
+            PdfWriter writer = PdfWriter.getInstance(document, out);
+            writer.setCloseStream(false);
 
             document.open();
 
@@ -69,12 +108,10 @@ public class PayrollPdfService {
 
             // Logo
             if (customer.getLogoUrl() != null && !customer.getLogoUrl().isEmpty()) {
-                try {
-                    Image logo = Image.getInstance(customer.getLogoUrl());
-                    logo.scaleToFit(100, 50);
+                Image logo = loadLogo(customer.getLogoUrl());
+                if (logo != null) {
                     leftCell.addElement(logo);
-                } catch (Exception e) {
-                    log.warn("No se pudo cargar el logo: {}", e.getMessage());
+                } else {
                     leftCell.addElement(new Paragraph(customer.getName(), FONT_HEADER)); // Fallback nombre
                 }
             } else {
@@ -94,9 +131,8 @@ public class PayrollPdfService {
             rightCell.setBorder(Rectangle.NO_BORDER);
             rightCell.setHorizontalAlignment(Element.ALIGN_RIGHT);
 
-            DateTimeFormatter dtf = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-            String periodStr = receipt.getPayrollPeriod().getStartDate().format(dtf) + " - "
-                    + receipt.getPayrollPeriod().getEndDate().format(dtf);
+            String periodStr = receipt.getPayrollPeriod().getStartDate().format(PERIOD_DATE_FORMAT) + " - "
+                    + receipt.getPayrollPeriod().getEndDate().format(PERIOD_DATE_FORMAT);
 
             Paragraph pPeriod = new Paragraph("Periodo de Pago: " + periodStr, FONT_BODY);
             pPeriod.setAlignment(Element.ALIGN_RIGHT);
@@ -284,14 +320,36 @@ public class PayrollPdfService {
             document.add(footer);
 
             document.close();
-
-            return filePath; // Retornar ruta relativa o absoluta
         } catch (Exception e) {
             log.error("Error generando PDF", e);
             throw new RuntimeException("Error generando PDF de nómina", e);
         }
     }
 
+    /**
+     * Copia del logo ya decodificado; cada documento recibe su propia instancia
+     */
+    private Image loadLogo(String logoUrl) {
+        long now = System.currentTimeMillis();
+        CachedLogo cached = logoCache.get(logoUrl);
+        Image decoded;
+        if (cached != null && cached.expiresAt() > now) {
+            decoded = cached.image();
+        } else {
+            try {
+                decoded = Image.getInstance(logoUrl);
+            } catch (Exception e) {
+                log.warn("No se pudo cargar el logo: {}", e.getMessage());
+                logoCache.remove(logoUrl);
+                return null;
+            }
+            logoCache.put(logoUrl, new CachedLogo(decoded, now + LOGO_TTL_MS));
+        }
+        Image logo = Image.getInstance(decoded);
+        logo.scaleToFit(100, 50);
+        return logo;
+    }
+
     private void addHeaderCell(PdfPTable table, String text) {
         PdfPCell cell = new PdfPCell(new Phrase(text, FONT_BODY_BOLD));
         cell.setHorizontalAlignment(Element.ALIGN_CENTER);
@@ -321,7 +379,7 @@ public class PayrollPdfService {
     private String formatMoney(BigDecimal amount) {
         if (amount == null)
             return "$0.00";
-        return CURRENCY_FORMAT.format(amount);
+        return CURRENCY_FORMAT.get().format(amount);
     }
 
     private String formatDecimal(BigDecimal amount) {
@@ -342,4 +400,7 @@ public class PayrollPdfService {
             this.val = val;
         }
     }
+
+    private record CachedLogo(Image image, long expiresAt) {
+    }
 }
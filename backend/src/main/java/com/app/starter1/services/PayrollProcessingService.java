@@ -2,15 +2,30 @@ package com.app.starter1.services;
 
 import com.app.starter1.persistence.entity.*;
 import com.app.starter1.persistence.repository.*;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Servicio para procesamiento de nómina
@@ -20,6 +35,26 @@ import java.util.List;
 @Slf4j
 public class PayrollProcessingService {
 
+    private static final int CHUNK_SIZE = 200;
+    private static final int CALCULATION_THREADS = Math.max(2,
+            Math.min(8, Runtime.getRuntime().availableProcessors()));
+
+    private static final String INSERT_RECEIPT_SQL = "INSERT INTO payroll_receipts " +
+            "(employee_id, payroll_period_id, receipt_number, calculation_date, regular_days, absence_days, " +
+            "overtime_hours, base_salary, daily_salary, salary_amount, overtime_amount, commissions_amount, " +
+            "transport_allowance_amount, bonuses_amount, other_earnings, health_deduction, pension_deduction, " +
+            "other_deductions, employer_health_contribution, employer_pension_contribution, arl_contribution, " +
+            "sena_contribution, icbf_contribution, caja_compensacion_contribution, prima_servicios_provision, " +
+            "cesantias_provision, intereses_cesantias_provision, vacaciones_provision, total_perceptions, " +
+            "total_deductions, net_pay, total_employer_costs, total_provisions, status, payroll_type, " +
+            "payment_method, dian_status, contabilidad_generada, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, " +
+            "?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_DETAIL_SQL = "INSERT INTO payroll_receipt_details " +
+            "(payroll_receipt_id, concept_type, concept_name, concept_code, amount, is_taxable, sort_order) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
     private final PayrollCalculationService calculationService;
     private final EmployeeRepository employeeRepository;
     private final PayrollPeriodRepository periodRepository;
@@ -27,12 +62,49 @@ public class PayrollProcessingService {
     private final PayrollReceiptDetailRepository receiptDetailRepository;
     private final CustomerRepository customerRepository;
     private final AccountingIntegrationService accountingIntegrationService;
+    private final PlatformTransactionManager transactionManager;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Pool acotado para los cálculos; la cola admite un bloque completo y, si se
+     * llena, el hilo que procesa la nómina ejecuta el cálculo directamente
+     */
+    private final ExecutorService calculationExecutor = new ThreadPoolExecutor(
+            CALCULATION_THREADS, CALCULATION_THREADS, 60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(CHUNK_SIZE),
+            runnable -> {
+                Thread thread = new Thread(runnable, "payroll-calc");
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.CallerRunsPolicy());
+
+    @PreDestroy
+    public void shutdownExecutor() {
+        calculationExecutor.shutdown();
+    }
 
     /**
      * Procesa la nómina completa de un periodo
      */
-    @Transactional
     public ProcessingResult processPayroll(Long periodId, Long customerId) {
+        return processPayroll(periodId, customerId, null, null);
+    }
+
+    /**
+     * Procesa la nómina completa de un periodo por bloques de empleados.
+     *
+     * Los datos de entrada se precargan una sola vez, los cálculos de cada bloque
+     * se ejecutan en paralelo y los recibos del bloque se guardan en batch en su
+     * propia transacción. Un error en un empleado o en un bloque no revierte los
+     * bloques ya confirmados.
+     *
+     * @param resumeAfterEmployeeId si no es null, solo se procesan los empleados con id mayor
+     *                              (reanudación de un proceso interrumpido)
+     * @param listener              recibe el avance después de cada bloque (puede ser null)
+     */
+    public ProcessingResult processPayroll(Long periodId, Long customerId, Long resumeAfterEmployeeId,
+            PayrollProgressListener listener) {
         log.info("Processing payroll for period: {}", periodId);
 
         Customer customer = customerRepository.findById(customerId)
@@ -48,21 +120,32 @@ public class PayrollProcessingService {
         ProcessingResult result = new ProcessingResult();
         result.setPeriod(period);
 
-        // Obtener empleados activos
-        List<Employee> employees = employeeRepository.findByCustomerAndIsActiveTrueAndDeletedAtIsNull(customer);
+        // Obtener empleados activos y datos de entrada del periodo
+        List<Employee> allEmployees = employeeRepository.findByCustomerAndIsActiveTrueAndDeletedAtIsNull(customer);
+        List<Employee> employees = allEmployees.stream()
+                .filter(employee -> resumeAfterEmployeeId == null || employee.getId() > resumeAfterEmployeeId)
+                .sorted(Comparator.comparing(Employee::getId))
+                .toList();
+        PayrollCalculationService.PayrollInputs inputs = calculationService.loadInputs(customer, period);
+
+        log.info("Processing payroll for {} employees in chunks of {}", employees.size(), CHUNK_SIZE);
+        if (listener != null) {
+            listener.onStart(allEmployees.size());
+        }
 
-        log.info("Processing payroll for {} employees", employees.size());
+        TransactionTemplate chunkTransaction = new TransactionTemplate(transactionManager);
+        chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
 
-        List<PayrollReceipt> receipts = new ArrayList<>();
+        for (int from = 0; from < employees.size(); from += CHUNK_SIZE) {
+            List<Employee> chunk = employees.subList(from, Math.min(from + CHUNK_SIZE, employees.size()));
+            int processedBefore = result.getProcessedCount();
+            List<ProcessingError> chunkErrors = processChunk(chunk, period, inputs, chunkTransaction, result);
 
-        for (Employee employee : employees) {
-            try {
-                PayrollReceipt receipt = processEmployeePayroll(employee, period);
-                receipts.add(receipt);
-                result.incrementProcessed();
-            } catch (Exception e) {
-                log.error("Error processing payroll for employee: {}", employee.getId(), e);
-                result.addError(employee.getId(), e.getMessage());
+            log.info("Payroll period {}: {}/{} employees processed, {} errors",
+                    periodId, result.getProcessedCount(), employees.size(), result.getErrors().size());
+            if (listener != null) {
+                listener.onProgress(chunk.get(chunk.size() - 1).getId(),
+                        result.getProcessedCount() - processedBefore, chunkErrors);
             }
         }
 
@@ -70,13 +153,118 @@ public class PayrollProcessingService {
         period.setStatus(PayrollPeriod.PeriodStatus.LIQUIDATED);
         periodRepository.save(period);
 
-        result.setReceipts(receipts);
         log.info("Payroll processing completed: {} processed, {} errors",
                 result.getProcessedCount(), result.getErrors().size());
 
         return result;
     }
 
+    /**
+     * Calcula en paralelo un bloque de empleados y guarda sus recibos en una sola transacción
+     */
+    private List<ProcessingError> processChunk(List<Employee> chunk, PayrollPeriod period,
+            PayrollCalculationService.PayrollInputs inputs, TransactionTemplate chunkTransaction,
+            ProcessingResult result) {
+
+        List<ProcessingError> chunkErrors = new ArrayList<>();
+
+        List<CompletableFuture<PayrollCalculationService.PayrollCalculationResult>> futures = new ArrayList<>();
+        for (Employee employee : chunk) {
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> calculationService.calculatePayroll(employee, period, inputs), calculationExecutor));
+        }
+
+        List<PayrollCalculationService.PayrollCalculationResult> calculations = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            Employee employee = chunk.get(i);
+            try {
+                calculations.add(futures.get(i).join());
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                log.error("Error calculating payroll for employee: {}", employee.getId(), cause);
+                chunkErrors.add(new ProcessingError(employee.getId(), cause.getMessage()));
+            }
+        }
+
+        if (!calculations.isEmpty()) {
+            saveChunk(period, calculations, chunkTransaction, result, chunkErrors);
+        }
+
+        result.getErrors().addAll(chunkErrors);
+        return chunkErrors;
+    }
+
+    private void saveChunk(PayrollPeriod period,
+            List<PayrollCalculationService.PayrollCalculationResult> calculations,
+            TransactionTemplate chunkTransaction, ProcessingResult result, List<ProcessingError> chunkErrors) {
+        try {
+            List<PayrollReceipt> receipts = chunkTransaction.execute(status -> saveReceipts(period, calculations));
+            result.getReceipts().addAll(receipts);
+            result.addProcessed(receipts.size());
+        } catch (Exception e) {
+            log.error("Error saving payroll chunk for period: {}", period.getId(), e);
+            for (PayrollCalculationService.PayrollCalculationResult calculation : calculations) {
+                chunkErrors.add(new ProcessingError(calculation.getEmployee().getId(), e.getMessage()));
+            }
+        }
+    }
+
+    /**
+     * Reemplaza los recibos del bloque: borra los existentes e inserta recibos
+     * y detalles en batch JDBC
+     */
+    private List<PayrollReceipt> saveReceipts(PayrollPeriod period,
+            List<PayrollCalculationService.PayrollCalculationResult> calculations) {
+
+        List<Long> employeeIds = calculations.stream()
+                .map(calculation -> calculation.getEmployee().getId())
+                .toList();
+
+        List<PayrollReceipt> existing = receiptRepository.findByPayrollPeriodAndEmployeeIdIn(period, employeeIds);
+        if (!existing.isEmpty()) {
+            log.warn("{} receipts already exist for period {}, deleting old ones", existing.size(), period.getId());
+            receiptDetailRepository.deleteByPayrollReceiptIn(existing);
+            receiptRepository.deleteAll(existing);
+            receiptRepository.flush();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<PayrollReceipt> receipts = new ArrayList<>(calculations.size());
+        List<Object[]> receiptRows = new ArrayList<>(calculations.size());
+        for (PayrollCalculationService.PayrollCalculationResult calculation : calculations) {
+            PayrollReceipt receipt = buildReceipt(calculation.getEmployee(), period, calculation, now);
+            receipts.add(receipt);
+            receiptRows.add(toReceiptRow(receipt, now));
+        }
+        jdbcTemplate.batchUpdate(INSERT_RECEIPT_SQL, receiptRows);
+
+        Map<Long, Long> receiptIds = new HashMap<>();
+        for (Object[] row : receiptRepository.findReceiptIds(period.getId(), employeeIds)) {
+            receiptIds.put((Long) row[0], (Long) row[1]);
+        }
+
+        List<Object[]> detailRows = new ArrayList<>();
+        for (int i = 0; i < receipts.size(); i++) {
+            PayrollReceipt receipt = receipts.get(i);
+            receipt.setId(receiptIds.get(receipt.getEmployee().getId()));
+            for (PayrollReceiptDetail detail : buildDetails(receipt, calculations.get(i))) {
+                detailRows.add(new Object[] {
+                        receipt.getId(),
+                        detail.getConceptType().name(),
+                        detail.getConceptName(),
+                        detail.getConceptCode(),
+                        detail.getAmount(),
+                        detail.getIsTaxable(),
+                        detail.getSortOrder() });
+            }
+        }
+        if (!detailRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_DETAIL_SQL, detailRows);
+        }
+
+        return receipts;
+    }
+
     /**
      * Procesa la nómina de un empleado individual
      */
@@ -97,12 +285,23 @@ public class PayrollProcessingService {
         PayrollCalculationService.PayrollCalculationResult calculation = calculationService.calculatePayroll(employee,
                 period);
 
+        PayrollReceipt receipt = receiptRepository.save(buildReceipt(employee, period, calculation,
+                LocalDateTime.now()));
+        receiptDetailRepository.saveAll(buildDetails(receipt, calculation));
+
+        log.info("Receipt created: {} - Net pay: {}", receipt.getReceiptNumber(), receipt.getNetPay());
+
+        return receipt;
+    }
+
+    private PayrollReceipt buildReceipt(Employee employee, PayrollPeriod period,
+            PayrollCalculationService.PayrollCalculationResult calculation, LocalDateTime calculationDate) {
         // Crear recibo
         PayrollReceipt receipt = new PayrollReceipt();
         receipt.setEmployee(employee);
         receipt.setPayrollPeriod(period);
         receipt.setReceiptNumber(generateReceiptNumber(period, employee));
-        receipt.setCalculationDate(LocalDateTime.now());
+        receipt.setCalculationDate(calculationDate);
 
         receipt.setRegularDays(BigDecimal.valueOf(calculation.getWorkingDays()));
         receipt.setAbsenceDays(BigDecimal.ZERO); // TODO: calcular desde incidencias
@@ -147,8 +346,12 @@ public class PayrollProcessingService {
         }
 
         receipt.setStatus(PayrollReceipt.ReceiptStatus.PENDING);
+        return receipt;
+    }
 
-        receipt = receiptRepository.save(receipt);
+    private List<PayrollReceiptDetail> buildDetails(PayrollReceipt receipt,
+            PayrollCalculationService.PayrollCalculationResult calculation) {
+        List<PayrollReceiptDetail> details = new ArrayList<>();
 
         // Crear detalles de percepciones (Persistencia legacy para compatibilidad)
         int sortOrder = 1;
@@ -161,7 +364,7 @@ public class PayrollProcessingService {
             detail.setAmount(perception.getAmount());
             detail.setIsTaxable(true);
             detail.setSortOrder(sortOrder++);
-            receiptDetailRepository.save(detail);
+            details.add(detail);
         }
 
         // Crear detalles de deducciones
@@ -174,12 +377,54 @@ public class PayrollProcessingService {
             detail.setAmount(deduction.getAmount());
             detail.setIsTaxable(false);
             detail.setSortOrder(sortOrder++);
-            receiptDetailRepository.save(detail);
+            details.add(detail);
         }
+        return details;
+    }
 
-        log.info("Receipt created: {} - Net pay: {}", receipt.getReceiptNumber(), receipt.getNetPay());
-
-        return receipt;
+    private Object[] toReceiptRow(PayrollReceipt receipt, LocalDateTime now) {
+        Timestamp timestamp = Timestamp.valueOf(now);
+        return new Object[] {
+                receipt.getEmployee().getId(),
+                receipt.getPayrollPeriod().getId(),
+                receipt.getReceiptNumber(),
+                Timestamp.valueOf(receipt.getCalculationDate()),
+                receipt.getRegularDays(),
+                receipt.getAbsenceDays(),
+                receipt.getOvertimeHours(),
+                receipt.getBaseSalary(),
+                receipt.getDailySalary(),
+                receipt.getSalaryAmount(),
+                receipt.getOvertimeAmount(),
+                receipt.getCommissionsAmount(),
+                receipt.getTransportAllowanceAmount(),
+                receipt.getBonusesAmount(),
+                receipt.getOtherEarnings(),
+                receipt.getHealthDeduction(),
+                receipt.getPensionDeduction(),
+                receipt.getOtherDeductions(),
+                receipt.getEmployerHealthContribution(),
+                receipt.getEmployerPensionContribution(),
+                receipt.getArlContribution(),
+                receipt.getSenaContribution(),
+                receipt.getIcbfContribution(),
+                receipt.getCajaCompensacionContribution(),
+                receipt.getPrimaServiciosProvision(),
+                receipt.getCesantiasProvision(),
+                receipt.getInteresesCesantiasProvision(),
+                receipt.getVacacionesProvision(),
+                receipt.getTotalPerceptions(),
+                receipt.getTotalDeductions(),
+                receipt.getNetPay(),
+                receipt.getTotalEmployerCosts(),
+                receipt.getTotalProvisions(),
+                receipt.getStatus().name(),
+                receipt.getPayrollType() != null ? receipt.getPayrollType() : "102",
+                receipt.getPaymentMethod() != null ? receipt.getPaymentMethod() : "1",
+                PayrollReceipt.DianStatus.PENDING.name(),
+                false,
+                timestamp,
+                timestamp };
     }
 
     /**
@@ -263,6 +508,10 @@ public class PayrollProcessingService {
             processedCount++;
         }
 
+        public void addProcessed(int count) {
+            processedCount += count;
+        }
+
         public void addError(Long employeeId, String message) {
             errors.add(new ProcessingError(employeeId, message));
         }
@@ -0,0 +1,26 @@
+package com.app.starter1.services;
+
+import java.util.List;
+
+/**
+ * Recibe el avance de los procesos masivos de nómina (procesamiento,
+ * liquidación y envío de colillas). Los empleados se recorren en orden de id,
+ * por lo que el último id confirmado sirve como punto de reanudación.
+ */
+public interface PayrollProgressListener {
+
+    /**
+     * Total de empleados del proceso, incluidos los ya confirmados en una ejecución anterior
+     */
+    default void onStart(int totalEmployees) {
+    }
+
+    /**
+     * Se invoca después de confirmar un empleado o un bloque de empleados
+     *
+     * @param lastEmployeeId último empleado confirmado
+     * @param processedCount empleados procesados con éxito desde la notificación anterior
+     * @param errors         errores ocurridos desde la notificación anterior
+     */
+    void onProgress(Long lastEmployeeId, int processedCount, List<PayrollProcessingService.ProcessingError> errors);
+}
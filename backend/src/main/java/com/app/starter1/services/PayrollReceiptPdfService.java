@@ -12,6 +12,7 @@ import org.springframework.stereotype.Service;
 
 import java.awt.Color;
 import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.format.DateTimeFormatter;
 
@@ -28,13 +29,38 @@ public class PayrollReceiptPdfService {
     private static final Color HEADER_BG = new Color(240, 248, 255);
     private static final Color LIGHT_GRAY = new Color(245, 245, 245);
 
+    // Fuentes compartidas entre documentos (solo lectura durante el render)
+    private static final Font FONT_TITLE = new Font(Font.HELVETICA, 18, Font.BOLD, PRIMARY_COLOR);
+    private static final Font FONT_COMPANY = new Font(Font.HELVETICA, 12, Font.BOLD);
+    private static final Font FONT_LABEL = new Font(Font.HELVETICA, 9, Font.BOLD);
+    private static final Font FONT_VALUE = new Font(Font.HELVETICA, 9, Font.NORMAL);
+    private static final Font FONT_SUMMARY_HEADER = new Font(Font.HELVETICA, 10, Font.BOLD, Color.WHITE);
+    private static final Font FONT_SUMMARY_VALUE = new Font(Font.HELVETICA, 11, Font.BOLD);
+    private static final Font FONT_SECTION_PERCEPTIONS = new Font(Font.HELVETICA, 11, Font.BOLD,
+            new Color(60, 179, 113));
+    private static final Font FONT_SECTION_DEDUCTIONS = new Font(Font.HELVETICA, 11, Font.BOLD,
+            new Color(220, 53, 69));
+    private static final Font FONT_FOOTER = new Font(Font.HELVETICA, 8, Font.ITALIC, Color.GRAY);
+    private static final Font FONT_TABLE_HEADER = new Font(Font.HELVETICA, 9, Font.BOLD, Color.WHITE);
+    private static final Font FONT_TABLE_ROW = new Font(Font.HELVETICA, 9, Font.NORMAL);
+
     /**
      * Genera el PDF de una colilla de pago
      */
     public byte[] generateReceiptPdf(PayrollReceipt receipt) {
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        writeReceiptPdf(receipt, baos);
+        return baos.toByteArray();
+    }
+
+    /**
+     * Escribe la colilla de pago en el stream indicado sin cerrarlo
+     */
+    public void writeReceiptPdf(PayrollReceipt receipt, OutputStream out) {
+        try {
             Document document = new Document(PageSize.LETTER);
-            PdfWriter.getInstance(document, baos);
+            PdfWriter writer = PdfWriter.getInstance(document, out);
+            writer.setCloseStream(false);
             document.open();
 
             // Agregar contenido
@@ -47,8 +73,7 @@ public class PayrollReceiptPdfService {
             addFooter(document, receipt);
 
             document.close();
-            log.info("PDF generado exitosamente para recibo {}", receipt.getReceiptNumber());
-            return baos.toByteArray();
+            log.debug("PDF generado exitosamente para recibo {}", receipt.getReceiptNumber());
 
         } catch (Exception e) {
             log.error("Error generando PDF para recibo {}: {}", receipt.getReceiptNumber(), e.getMessage());
@@ -58,16 +83,14 @@ public class PayrollReceiptPdfService {
 
     private void addHeader(Document document, PayrollReceipt receipt) throws DocumentException {
         // Título principal
-        Font titleFont = new Font(Font.HELVETICA, 18, Font.BOLD, PRIMARY_COLOR);
-        Paragraph title = new Paragraph("COLILLA DE PAGO", titleFont);
+        Paragraph title = new Paragraph("COLILLA DE PAGO", FONT_TITLE);
         title.setAlignment(Element.ALIGN_CENTER);
         title.setSpacingAfter(10);
         document.add(title);
 
         // Información de la empresa
         String companyName = receipt.getEmployee().getCustomer().getName();
-        Font companyFont = new Font(Font.HELVETICA, 12, Font.BOLD);
-        Paragraph company = new Paragraph(companyName != null ? companyName : "Empresa", companyFont);
+        Paragraph company = new Paragraph(companyName != null ? companyName : "Empresa", FONT_COMPANY);
         company.setAlignment(Element.ALIGN_CENTER);
         document.add(company);
 
@@ -85,16 +108,13 @@ public class PayrollReceiptPdfService {
         table.setWidthPercentage(100);
         table.setWidths(new float[] { 1.5f, 2.5f, 1.5f, 2.5f });
 
-        Font labelFont = new Font(Font.HELVETICA, 9, Font.BOLD);
-        Font valueFont = new Font(Font.HELVETICA, 9, Font.NORMAL);
-
-        addLabelValueCell(table, "Empleado:", employee.getFullName(), labelFont, valueFont);
+        addLabelValueCell(table, "Empleado:", employee.getFullName(), FONT_LABEL, FONT_VALUE);
         addLabelValueCell(table, "Identificación:",
                 employee.getNationalId() != null ? employee.getNationalId()
                         : (employee.getRfc() != null ? employee.getRfc() : "N/A"),
-                labelFont, valueFont);
-        addLabelValueCell(table, "Cargo:", employee.getJobTitle(), labelFont, valueFont);
-        addLabelValueCell(table, "Departamento:", employee.getDepartment(), labelFont, valueFont);
+                FONT_LABEL, FONT_VALUE);
+        addLabelValueCell(table, "Cargo:", employee.getJobTitle(), FONT_LABEL, FONT_VALUE);
+        addLabelValueCell(table, "Departamento:", employee.getDepartment(), FONT_LABEL, FONT_VALUE);
 
         document.add(table);
         document.add(Chunk.NEWLINE);
@@ -107,22 +127,19 @@ public class PayrollReceiptPdfService {
         table.setWidthPercentage(100);
         table.setWidths(new float[] { 1.5f, 2.5f, 1.5f, 2.5f });
 
-        Font labelFont = new Font(Font.HELVETICA, 9, Font.BOLD);
-        Font valueFont = new Font(Font.HELVETICA, 9, Font.NORMAL);
-
-        addLabelValueCell(table, "Período:", period != null ? period.getPeriodName() : "N/A", labelFont, valueFont);
+        addLabelValueCell(table, "Período:", period != null ? period.getPeriodName() : "N/A", FONT_LABEL, FONT_VALUE);
         addLabelValueCell(table, "Fecha Inicio:", period != null ? period.getStartDate().format(DATE_FORMAT) : "-",
-                labelFont, valueFont);
+                FONT_LABEL, FONT_VALUE);
         addLabelValueCell(table, "Fecha Fin:", period != null ? period.getEndDate().format(DATE_FORMAT) : "-",
-                labelFont, valueFont);
+                FONT_LABEL, FONT_VALUE);
         addLabelValueCell(table, "Días Liquidados:",
                 receipt.getRegularDays() != null ? receipt.getRegularDays().toString() : "0",
-                labelFont, valueFont);
+                FONT_LABEL, FONT_VALUE);
         addLabelValueCell(table, "Método Pago:",
                 receipt.getEmployee().getPaymentMethod() != null ? receipt.getEmployee().getPaymentMethod().name()
                         : "BANK_TRANSFER",
-                labelFont, valueFont);
-        addLabelValueCell(table, "Recibo #:", receipt.getReceiptNumber(), labelFont, valueFont);
+                FONT_LABEL, FONT_VALUE);
+        addLabelValueCell(table, "Recibo #:", receipt.getReceiptNumber(), FONT_LABEL, FONT_VALUE);
 
         document.add(table);
         document.add(Chunk.NEWLINE);
@@ -132,8 +149,6 @@ public class PayrollReceiptPdfService {
         PdfPTable table = new PdfPTable(4);
         table.setWidthPercentage(100);
 
-        Font headerFont = new Font(Font.HELVETICA, 10, Font.BOLD, Color.WHITE);
-        Font valueFont = new Font(Font.HELVETICA, 11, Font.BOLD);
 
         // Headers
         String[] headers = { "Salario Base", "Total Devengado", "Total Deducciones", "NETO A PAGAR" };
@@ -141,7 +156,7 @@ public class PayrollReceiptPdfService {
                 new Color(220, 53, 69), PRIMARY_COLOR };
 
         for (int i = 0; i < headers.length; i++) {
-            PdfPCell cell = new PdfPCell(new Phrase(headers[i], headerFont));
+            PdfPCell cell = new PdfPCell(new Phrase(headers[i], FONT_SUMMARY_HEADER));
             cell.setBackgroundColor(colors[i]);
             cell.setHorizontalAlignment(Element.ALIGN_CENTER);
             cell.setPadding(8);
@@ -157,7 +172,7 @@ public class PayrollReceiptPdfService {
         };
 
         for (int i = 0; i < values.length; i++) {
-            PdfPCell cell = new PdfPCell(new Phrase(values[i], valueFont));
+            PdfPCell cell = new PdfPCell(new Phrase(values[i], FONT_SUMMARY_VALUE));
             cell.setHorizontalAlignment(Element.ALIGN_CENTER);
             cell.setPadding(10);
             cell.setBackgroundColor(LIGHT_GRAY);
@@ -169,8 +184,7 @@ public class PayrollReceiptPdfService {
     }
 
     private void addPerceptionsTable(Document document, PayrollReceipt receipt) throws DocumentException {
-        Font sectionFont = new Font(Font.HELVETICA, 11, Font.BOLD, new Color(60, 179, 113));
-        Paragraph section = new Paragraph("DEVENGOS", sectionFont);
+        Paragraph section = new Paragraph("DEVENGOS", FONT_SECTION_PERCEPTIONS);
         section.setSpacingAfter(5);
         document.add(section);
 
@@ -206,8 +220,7 @@ public class PayrollReceiptPdfService {
     }
 
     private void addDeductionsTable(Document document, PayrollReceipt receipt) throws DocumentException {
-        Font sectionFont = new Font(Font.HELVETICA, 11, Font.BOLD, new Color(220, 53, 69));
-        Paragraph section = new Paragraph("DEDUCCIONES", sectionFont);
+        Paragraph section = new Paragraph("DEDUCCIONES", FONT_SECTION_DEDUCTIONS);
         section.setSpacingAfter(5);
         document.add(section);
 
@@ -237,12 +250,11 @@ public class PayrollReceiptPdfService {
         line.setLineColor(Color.LIGHT_GRAY);
         document.add(new Chunk(line));
 
-        Font footerFont = new Font(Font.HELVETICA, 8, Font.ITALIC, Color.GRAY);
         Paragraph footer = new Paragraph(
                 "Este documento es una representación de su colilla de pago. " +
                         "Generado automáticamente el " + java.time.LocalDate.now().format(DATE_FORMAT) +
                         " - CloudFly",
-                footerFont);
+                FONT_FOOTER);
         footer.setAlignment(Element.ALIGN_CENTER);
         footer.setSpacingBefore(10);
         document.add(footer);
@@ -263,9 +275,8 @@ public class PayrollReceiptPdfService {
     }
 
     private void addTableHeader(PdfPTable table, String[] headers) {
-        Font headerFont = new Font(Font.HELVETICA, 9, Font.BOLD, Color.WHITE);
         for (String header : headers) {
-            PdfPCell cell = new PdfPCell(new Phrase(header, headerFont));
+            PdfPCell cell = new PdfPCell(new Phrase(header, FONT_TABLE_HEADER));
             cell.setBackgroundColor(new Color(70, 70, 70));
             cell.setHorizontalAlignment(Element.ALIGN_CENTER);
             cell.setPadding(6);
@@ -274,18 +285,16 @@ public class PayrollReceiptPdfService {
     }
 
     private void addTableRow(PdfPTable table, String concept, String quantity, String value) {
-        Font font = new Font(Font.HELVETICA, 9, Font.NORMAL);
-
-        PdfPCell conceptCell = new PdfPCell(new Phrase(concept, font));
+        PdfPCell conceptCell = new PdfPCell(new Phrase(concept, FONT_TABLE_ROW));
         conceptCell.setPadding(5);
         table.addCell(conceptCell);
 
-        PdfPCell quantityCell = new PdfPCell(new Phrase(quantity, font));
+        PdfPCell quantityCell = new PdfPCell(new Phrase(quantity, FONT_TABLE_ROW));
         quantityCell.setHorizontalAlignment(Element.ALIGN_CENTER);
         quantityCell.setPadding(5);
         table.addCell(quantityCell);
 
-        PdfPCell valueCell = new PdfPCell(new Phrase(value, font));
+        PdfPCell valueCell = new PdfPCell(new Phrase(value, FONT_TABLE_ROW));
         valueCell.setHorizontalAlignment(Element.ALIGN_RIGHT);
         valueCell.setPadding(5);
         table.addCell(valueCell);
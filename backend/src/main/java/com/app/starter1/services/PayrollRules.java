@@ -0,0 +1,134 @@
+package com.app.starter1.services;
+
+import com.app.starter1.persistence.entity.PayrollConfiguration;
+import com.app.starter1.persistence.entity.PayrollIncidence;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Reglas de nómina de un cliente precalculadas a partir de PayrollConfiguration.
+ *
+ * Es inmutable y se comparte entre los hilos de cálculo: porcentajes ya
+ * convertidos a tasa, umbrales en múltiplos del SMMLV, auxilio de transporte
+ * diario y factores de horas extra. Los valores por defecto son los mismos
+ * que aplicaba el cálculo cuando un campo de la configuración es null.
+ */
+@Getter
+public final class PayrollRules {
+
+    private static final BigDecimal INTERESES_CESANTIAS_RATE = BigDecimal.valueOf(0.12);
+
+    private final BigDecimal minimumWage;
+
+    // Auxilio de transporte: se paga hasta 2 SMMLV
+    private final boolean transportAllowanceConfigured;
+    private final BigDecimal transportAllowanceThreshold;
+    private final BigDecimal transportAllowanceDaily;
+
+    // Fondo de Solidaridad Pensional: desde 4 SMMLV
+    private final BigDecimal solidarityThreshold;
+
+    // Deducciones empleado (porcentaje original para el detalle y tasa para el cálculo)
+    private final BigDecimal healthPercentage;
+    private final BigDecimal healthRate;
+    private final String healthLabel;
+    private final BigDecimal pensionPercentage;
+    private final BigDecimal pensionRate;
+    private final String pensionLabel;
+    private final BigDecimal solidarityPercentage;
+    private final BigDecimal solidarityRate;
+
+    // Costos empleador
+    private final BigDecimal healthEmployerRate;
+    private final BigDecimal pensionEmployerRate;
+    private final BigDecimal arlRate;
+    private final BigDecimal cajaRate;
+    private final BigDecimal senaRate;
+    private final BigDecimal icbfRate;
+
+    // Provisiones
+    private final BigDecimal primaRate;
+    private final BigDecimal cesantiasRate;
+    private final BigDecimal interesesCesantiasRate = INTERESES_CESANTIAS_RATE;
+    private final BigDecimal vacacionesRate;
+
+    private final Map<PayrollIncidence.IncidenceType, BigDecimal> overtimeFactors;
+
+    private PayrollRules(PayrollConfiguration config) {
+        this.minimumWage = config.getMinimumWage();
+
+        this.transportAllowanceConfigured = config.getMinimumWage() != null && config.getTransportAllowance() != null;
+        this.transportAllowanceThreshold = transportAllowanceConfigured
+                ? config.getMinimumWage().multiply(BigDecimal.valueOf(2))
+                : null;
+        this.transportAllowanceDaily = transportAllowanceConfigured
+                ? config.getTransportAllowance().divide(BigDecimal.valueOf(30), 2, RoundingMode.HALF_UP)
+                : null;
+
+        this.solidarityThreshold = config.getMinimumWage() != null
+                ? config.getMinimumWage().multiply(BigDecimal.valueOf(4))
+                : null;
+
+        this.healthPercentage = orDefault(config.getHealthPercentageEmployee(), "4.00");
+        this.healthRate = toRate(healthPercentage);
+        this.healthLabel = "Aporte Salud (" + healthPercentage + "%)";
+        this.pensionPercentage = orDefault(config.getPensionPercentageEmployee(), "4.00");
+        this.pensionRate = toRate(pensionPercentage);
+        this.pensionLabel = "Aporte Pensión (" + pensionPercentage + "%)";
+        this.solidarityPercentage = orDefault(config.getSolidarityFundPercentage(), "1.00");
+        this.solidarityRate = toRate(solidarityPercentage);
+
+        this.healthEmployerRate = toRate(orDefault(config.getHealthPercentageEmployer(), "8.50"));
+        this.pensionEmployerRate = toRate(orDefault(config.getPensionPercentageEmployer(), "12.00"));
+        this.arlRate = toRate(orDefault(config.getArlPercentage(), "0.522"));
+        this.cajaRate = toRate(orDefault(config.getParafiscalCajaPercentage(), "4.00"));
+        this.senaRate = toRate(orDefault(config.getParafiscalSenaPercentage(), "2.00"));
+        this.icbfRate = toRate(orDefault(config.getParafiscalIcbfPercentage(), "3.00"));
+
+        this.primaRate = toRate(orDefault(config.getPrimaPercentage(), "8.33"));
+        this.cesantiasRate = toRate(orDefault(config.getCesantiasPercentage(), "8.33"));
+        this.vacacionesRate = toRate(orDefault(config.getVacacionesPercentage(), "4.17"));
+
+        Map<PayrollIncidence.IncidenceType, BigDecimal> factors = new EnumMap<>(PayrollIncidence.IncidenceType.class);
+        factors.put(PayrollIncidence.IncidenceType.HORAS_EXTRA,
+                orDefault(config.getOvertimeDayFactor(), "1.2500"));
+        factors.put(PayrollIncidence.IncidenceType.HORAS_EXTRA_NOCTURNA,
+                orDefault(config.getOvertimeNightFactor(), "1.7500"));
+        factors.put(PayrollIncidence.IncidenceType.RECARGO_NOCTURNO,
+                orDefault(config.getNightSurchargeFactor(), "0.3500"));
+        factors.put(PayrollIncidence.IncidenceType.DOMINICAL_FESTIVO,
+                orDefault(config.getSundayHolidayFactor(), "1.7500"));
+        this.overtimeFactors = Collections.unmodifiableMap(factors);
+    }
+
+    public static PayrollRules from(PayrollConfiguration config) {
+        return new PayrollRules(config);
+    }
+
+    /**
+     * Factor de recargo de un tipo de hora extra (1 si no aplica)
+     */
+    public BigDecimal overtimeFactor(PayrollIncidence.IncidenceType type) {
+        return overtimeFactors.getOrDefault(type, BigDecimal.ONE);
+    }
+
+    /**
+     * base x tasa redondeado al peso, equivalente a base x % / 100
+     */
+    public static BigDecimal applyRate(BigDecimal base, BigDecimal rate) {
+        return base.multiply(rate).setScale(0, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal orDefault(BigDecimal value, String defaultValue) {
+        return value != null ? value : new BigDecimal(defaultValue);
+    }
+
+    private static BigDecimal toRate(BigDecimal percentage) {
+        return percentage.movePointLeft(2);
+    }
+}
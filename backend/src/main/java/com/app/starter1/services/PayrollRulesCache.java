@@ -0,0 +1,70 @@
+package com.app.starter1.services;
+
+import com.app.starter1.persistence.entity.Customer;
+import com.app.starter1.persistence.entity.PayrollConfiguration;
+import com.app.starter1.persistence.repository.PayrollConfigurationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caché de reglas de nómina por cliente.
+ *
+ * Las reglas se construyen una vez desde PayrollConfiguration y se invalidan
+ * cuando la configuración cambia. El TTL acota cuánto puede tardar otra
+ * instancia de la aplicación en ver un cambio hecho en esta.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PayrollRulesCache {
+
+    private static final Duration TTL = Duration.ofMinutes(10);
+
+    private final PayrollConfigurationRepository configRepository;
+
+    private final Map<Long, CachedRules> rulesByCustomer = new ConcurrentHashMap<>();
+
+    /**
+     * Reglas vigentes del cliente (valores por defecto si no tiene configuración)
+     */
+    public PayrollRules getRules(Customer customer) {
+        long now = System.currentTimeMillis();
+        CachedRules cached = rulesByCustomer.get(customer.getId());
+        if (cached != null && cached.expiresAt() > now) {
+            return cached.rules();
+        }
+
+        PayrollConfiguration config = configRepository.findByCustomer(customer)
+                .orElse(PayrollConfiguration.getDefault(customer));
+        PayrollRules rules = PayrollRules.from(config);
+        rulesByCustomer.put(customer.getId(), new CachedRules(rules, now + TTL.toMillis()));
+        log.debug("Reglas de nómina cargadas para cliente {}", customer.getId());
+        return rules;
+    }
+
+    /**
+     * Invalida las reglas del cliente; si hay una transacción activa se vuelve
+     * a invalidar al confirmarla para no conservar una lectura previa al cambio
+     */
+    public void evict(Long customerId) {
+        rulesByCustomer.remove(customerId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    rulesByCustomer.remove(customerId);
+                }
+            });
+        }
+    }
+
+    private record CachedRules(PayrollRules rules, long expiresAt) {
+    }
+}
@@ -0,0 +1,180 @@
+package com.app.starter1.services.rbac;
+
+import com.app.starter1.dto.menu.MenuSuffixDTO;
+import com.app.starter1.dto.rbac.MenuItemDTO;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Immutable, pre-parsed menu_items of an RbacModule.
+ *
+ * Every action code referenced by the items gets a bit index, so filtering a
+ * request only builds one BitSet from the user's grants and tests bits. The
+ * DTOs returned by the entries are built once and shared between requests:
+ * they must be serialized, never modified.
+ */
+@Getter
+public final class CompiledModuleMenu {
+
+    private final Long moduleId;
+    private final String moduleCode;
+    private final String source;
+    private final List<Entry> entries;
+    private final List<String> actionCodes;
+
+    private CompiledModuleMenu(Long moduleId, String moduleCode, String source, List<Entry> entries,
+            List<String> actionCodes) {
+        this.moduleId = moduleId;
+        this.moduleCode = moduleCode;
+        this.source = source;
+        this.entries = entries;
+        this.actionCodes = actionCodes;
+    }
+
+    /**
+     * Compiles the parsed menu_items array (null or non-array means no items)
+     */
+    static CompiledModuleMenu compile(Long moduleId, String moduleCode, String source, JsonNode items) {
+        Map<String, Integer> actionIndex = new LinkedHashMap<>();
+        List<Entry> entries = new ArrayList<>();
+
+        if (items != null && items.isArray()) {
+            for (JsonNode item : items) {
+                String label = text(item, "label");
+                String action = text(item, "action");
+                String requiredAction = action == null || action.isEmpty() ? null : action.toUpperCase();
+                String accessAction = "ACCESS_" + normalizeLabel(label);
+
+                int actionBit = requiredAction == null ? -1
+                        : actionIndex.computeIfAbsent(requiredAction, code -> actionIndex.size());
+                int accessBit = actionIndex.computeIfAbsent(accessAction, code -> actionIndex.size());
+
+                JsonNode suffix = item.get("suffix");
+                entries.add(new Entry(label, text(item, "href"), text(item, "icon"), requiredAction, accessAction,
+                        suffix != null && suffix.isObject() ? text(suffix, "label") : null,
+                        suffix != null && suffix.isObject() ? text(suffix, "color") : null,
+                        actionBit, accessBit));
+            }
+        }
+
+        return new CompiledModuleMenu(moduleId, moduleCode, source, List.copyOf(entries),
+                List.copyOf(actionIndex.keySet()));
+    }
+
+    /**
+     * Bits of the action codes of this module granted to the user
+     */
+    public BitSet grantedActions(Predicate<String> isGranted) {
+        BitSet granted = new BitSet(actionCodes.size());
+        for (int i = 0; i < actionCodes.size(); i++) {
+            if (isGranted.test(actionCodes.get(i))) {
+                granted.set(i);
+            }
+        }
+        return granted;
+    }
+
+    /**
+     * Items whose "action" (if any) is granted
+     */
+    public List<MenuItemDTO> visibleByAction(BitSet granted, boolean showAll) {
+        if (showAll) {
+            return entries.stream().map(Entry::getRbacItem).toList();
+        }
+        return entries.stream()
+                .filter(entry -> entry.actionBit < 0 || granted.get(entry.actionBit))
+                .map(Entry::getRbacItem)
+                .toList();
+    }
+
+    /**
+     * Items whose ACCESS_&lt;LABEL&gt; permission is granted
+     */
+    public List<com.app.starter1.dto.menu.MenuItemDTO> visibleByAccess(BitSet granted, boolean showAll) {
+        return entries.stream()
+                .filter(entry -> showAll || granted.get(entry.accessBit))
+                .map(Entry::getMenuItem)
+                .toList();
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * ACCESS_ code derived from an item label: upper case, no accents, words
+     * joined by "_"
+     */
+    public static String normalizeLabel(String label) {
+        if (label == null)
+            return "";
+        String cleanLabel = label.toUpperCase()
+                .replace("Á", "A")
+                .replace("É", "E")
+                .replace("Í", "I")
+                .replace("Ó", "O")
+                .replace("Ú", "U")
+                .replace("Ñ", "N")
+                .replaceAll("[^A-Z0-9]", "_")
+                .replaceAll("_+", "_");
+
+        if (cleanLabel.endsWith("_"))
+            cleanLabel = cleanLabel.substring(0, cleanLabel.length() - 1);
+        if (cleanLabel.startsWith("_"))
+            cleanLabel = cleanLabel.substring(1);
+        return cleanLabel;
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    /**
+     * A single compiled menu item
+     */
+    @Getter
+    public static final class Entry {
+
+        private final String label;
+        private final String href;
+        private final String icon;
+        private final String requiredAction;
+        private final String accessAction;
+        private final int actionBit;
+        private final int accessBit;
+        private final MenuItemDTO rbacItem;
+        private final com.app.starter1.dto.menu.MenuItemDTO menuItem;
+
+        private Entry(String label, String href, String icon, String requiredAction, String accessAction,
+                String suffixLabel, String suffixColor, int actionBit, int accessBit) {
+            this.label = label;
+            this.href = href;
+            this.icon = icon;
+            this.requiredAction = requiredAction;
+            this.accessAction = accessAction;
+            this.actionBit = actionBit;
+            this.accessBit = accessBit;
+            this.rbacItem = MenuItemDTO.builder()
+                    .label(label)
+                    .href(href)
+                    .icon(icon)
+                    .build();
+            this.menuItem = com.app.starter1.dto.menu.MenuItemDTO.builder()
+                    .label(label)
+                    .href(href)
+                    .icon(icon)
+                    .suffix(suffixLabel != null || suffixColor != null
+                            ? MenuSuffixDTO.builder().label(suffixLabel).color(suffixColor).build()
+                            : null)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.app.starter1.services.rbac;
+
+import com.app.starter1.persistence.entity.rbac.RbacModule;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiled menu_items per module.
+ *
+ * A module is compiled the first time it is seen and again only when its
+ * menu_items text changes, so updates made anywhere (service, seeder or
+ * another instance) are picked up without explicit invalidation.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ModuleMenuRegistry {
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<Long, CompiledModuleMenu> menus = new ConcurrentHashMap<>();
+
+    /**
+     * Compiled menu of the module, compiling it if missing or outdated
+     */
+    public CompiledModuleMenu get(RbacModule module) {
+        CompiledModuleMenu compiled = menus.get(module.getId());
+        if (compiled != null && Objects.equals(compiled.getSource(), module.getMenuItems())) {
+            return compiled;
+        }
+
+        compiled = compile(module);
+        if (module.getId() != null) {
+            menus.put(module.getId(), compiled);
+        }
+        return compiled;
+    }
+
+    public void evict(Long moduleId) {
+        menus.remove(moduleId);
+    }
+
+    private CompiledModuleMenu compile(RbacModule module) {
+        String json = module.getMenuItems();
+        JsonNode items = null;
+        if (json != null && !json.trim().isEmpty()) {
+            try {
+                items = objectMapper.readTree(json);
+            } catch (Exception e) {
+                log.error("Failed to parse menu_items JSON of module {}: {}", module.getCode(), json, e);
+            }
+        }
+        return CompiledModuleMenu.compile(module.getId(), module.getCode(), json, items);
+    }
+}
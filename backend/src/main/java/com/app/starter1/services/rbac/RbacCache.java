@@ -0,0 +1,115 @@
+package com.app.starter1.services.rbac;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Versioned in-process cache for compiled menus, permission sets and tenant
+ * subscription modules.
+ *
+ * Every entry is stamped with the version it was built under. Any change to
+ * roles, modules or subscriptions bumps the version, so entries computed
+ * before the change are never served again, even if they are stored after
+ * the invalidation. Entries also expire after a TTL so subscriptions that
+ * lapse by date, or changes made by another instance, are eventually seen.
+ */
+@Component
+@Slf4j
+public class RbacCache {
+
+    public static final String MENUS = "menus";
+    public static final String PERMISSIONS = "permissions";
+    public static final String MODULES = "modules";
+    public static final String SUBSCRIPTIONS = "subscriptions";
+
+    private static final Duration TTL = Duration.ofMinutes(5);
+
+    private final AtomicLong version = new AtomicLong();
+    private final Map<String, Region> regions = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the cached value for the key, loading it on a miss
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V get(String regionName, Object key, Supplier<V> loader) {
+        Region region = regions.computeIfAbsent(regionName, name -> new Region());
+        long currentVersion = version.get();
+        long now = System.currentTimeMillis();
+
+        Entry entry = region.entries.get(key);
+        if (entry != null && entry.version() == currentVersion && entry.expiresAt() > now) {
+            region.hits.incrementAndGet();
+            return (V) entry.value();
+        }
+
+        region.misses.incrementAndGet();
+        V value = loader.get();
+        region.entries.put(key, new Entry(value, currentVersion, now + TTL.toMillis()));
+        return value;
+    }
+
+    /**
+     * Invalidates every region. When called inside a transaction it is
+     * repeated after commit, so readers that ran during the transaction
+     * cannot keep pre-commit data cached.
+     */
+    public void invalidate() {
+        invalidateNow();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidateNow();
+                }
+            });
+        }
+    }
+
+    /**
+     * Hit/miss counters and current size per region
+     */
+    public Map<String, CacheStats> getStats() {
+        Map<String, CacheStats> stats = new LinkedHashMap<>();
+        regions.forEach((name, region) -> stats.put(name, new CacheStats(
+                region.hits.get(),
+                region.misses.get(),
+                region.entries.size(),
+                version.get())));
+        return stats;
+    }
+
+    private void invalidateNow() {
+        long newVersion = version.incrementAndGet();
+        regions.values().forEach(region -> region.entries.clear());
+        log.debug("RBAC cache invalidated (version {})", newVersion);
+    }
+
+    /**
+     * Canonical cache key for a role set: order and duplicates do not matter
+     */
+    public static List<String> roleKey(List<String> roleCodes) {
+        return roleCodes.stream().distinct().sorted().toList();
+    }
+
+    public record CacheStats(long hits, long misses, int size, long version) {
+    }
+
+    private record Entry(Object value, long version, long expiresAt) {
+    }
+
+    private static class Region {
+        private final Map<Object, Entry> entries = new ConcurrentHashMap<>();
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+    }
+}
@@ -24,6 +24,8 @@ public class RbacService {
     private final RbacRoleRepository roleRepository;
     private final RolePermissionRepository rolePermissionRepository;
     private final com.app.starter1.persistence.services.SubscriptionService subscriptionService;
+    private final RbacCache rbacCache;
+    private final ModuleMenuRegistry moduleMenuRegistry;
 
     // ========================
     // PERMISSION CHECKING
@@ -40,34 +42,44 @@ public class RbacService {
     }
 
     /**
-     * Get all permissions for given roles
+     * Get all permissions for given roles (cached per role set)
      */
     public Set<String> getPermissions(List<String> roleCodes) {
+        return rbacCache.get(RbacCache.PERMISSIONS, RbacCache.roleKey(roleCodes),
+                () -> loadPermissions(roleCodes));
+    }
+
+    private Set<String> loadPermissions(List<String> roleCodes) {
         if (roleCodes.contains("SUPERADMIN")) {
             // SUPERADMIN gets all permissions
             return moduleActionRepository.findAll().stream()
                     .map(ma -> ma.getModule().getCode() + "." + ma.getCode())
-                    .collect(Collectors.toSet());
+                    .collect(Collectors.toUnmodifiableSet());
         }
 
         return rolePermissionRepository.findGrantedPermissionsByRoleCodes(roleCodes).stream()
                 .map(rp -> rp.getModuleAction().getPermissionKey())
-                .collect(Collectors.toSet());
+                .collect(Collectors.toUnmodifiableSet());
     }
 
     /**
-     * Get modules that user has access to
+     * Get modules that user has access to (cached per role set)
      */
     public List<String> getAccessibleModules(List<String> roleCodes) {
+        return rbacCache.get(RbacCache.MODULES, RbacCache.roleKey(roleCodes),
+                () -> loadAccessibleModules(roleCodes));
+    }
+
+    private List<String> loadAccessibleModules(List<String> roleCodes) {
         if (roleCodes.contains("SUPERADMIN")) {
             return moduleRepository.findByIsActiveTrueOrderByDisplayOrderAsc().stream()
                     .map(RbacModule::getCode)
-                    .collect(Collectors.toList());
+                    .toList();
         }
 
         return moduleRepository.findModulesByRoleCodes(roleCodes).stream()
                 .map(RbacModule::getCode)
-                .collect(Collectors.toList());
+                .toList();
     }
 
     // ========================
@@ -76,14 +88,24 @@ public class RbacService {
 
     /**
      * Generate menu structure based on user roles
-     * Now builds menu dynamically from database menu_items
+     * Now builds menu dynamically from database menu_items.
+     * The compiled menu is cached per role set until roles or modules change.
      */
     public List<MenuItemDTO> generateMenu(List<String> roleCodes) {
+        return rbacCache.get(RbacCache.MENUS, new MenuKey(RbacCache.roleKey(roleCodes), null),
+                () -> buildMenu(roleCodes, null));
+    }
+
+    /**
+     * Build the menu from the database. If subscriptionModuleCodes is not null
+     * only modules included in the subscription are shown.
+     */
+    private List<MenuItemDTO> buildMenu(List<String> roleCodes, Set<String> subscriptionModuleCodes) {
         boolean isSuperAdmin = roleCodes.contains("SUPERADMIN");
         List<MenuItemDTO> menu = new ArrayList<>();
 
         // Dashboard - everyone with any permission gets this
-        if (isSuperAdmin || !roleCodes.isEmpty()) {
+        if (isSuperAdmin || !roleCodes.isEmpty() || subscriptionModuleCodes != null) {
             menu.add(MenuItemDTO.builder()
                     .label("Dashboard")
                     .href("/home")
@@ -101,12 +123,25 @@ public class RbacService {
             accessibleModules = moduleRepository.findModulesByRoleCodes(roleCodes);
         }
 
+        if (subscriptionModuleCodes != null) {
+            accessibleModules = accessibleModules.stream()
+                    .filter(module -> subscriptionModuleCodes.contains(module.getCode().toUpperCase()))
+                    .collect(Collectors.toList());
+        }
+
+        // Granted actions per module, loaded once for the whole menu
+        Map<String, Set<String>> permissionsByModule = getUserPermissionsByModule(roleCodes);
+
         // Build menu from modules
         for (RbacModule module : accessibleModules) {
             // Get user's granted permissions for this specific module
-            Set<String> userModulePermissions = getUserPermissionsForModule(roleCodes, module.getCode());
+            Set<String> userModulePermissions = permissionsByModule.getOrDefault(
+                    module.getCode().toUpperCase(), Set.of());
 
-            List<MenuItemDTO> children = parseMenuItems(module.getMenuItems(), userModulePermissions, isSuperAdmin);
+            // Items without "action" are always shown; SUPERADMIN sees everything
+            CompiledModuleMenu moduleMenu = moduleMenuRegistry.get(module);
+            List<MenuItemDTO> children = moduleMenu.visibleByAction(
+                    moduleMenu.grantedActions(userModulePermissions::contains), isSuperAdmin);
 
             // Only add parent if it has children (after permission filtering)
             if (!children.isEmpty()) {
@@ -120,74 +155,29 @@ public class RbacService {
             }
         }
 
-        return menu;
+        return List.copyOf(menu);
     }
 
     /**
-     * Get user's specific action permissions for a module
+     * Get user's granted action codes grouped by module code (both upper case)
      */
-    private Set<String> getUserPermissionsForModule(List<String> roleCodes, String moduleCode) {
+    private Map<String, Set<String>> getUserPermissionsByModule(List<String> roleCodes) {
         if (roleCodes.contains("SUPERADMIN")) {
-            // SUPERADMIN has all permissions
-            return Set.of("*"); // Wildcard for all permissions
+            return Map.of();
         }
 
         return rolePermissionRepository.findGrantedPermissionsByRoleCodes(roleCodes).stream()
-                .filter(rp -> rp.getModuleAction().getModule().getCode().equalsIgnoreCase(moduleCode))
-                .map(rp -> rp.getModuleAction().getCode().toUpperCase())
-                .collect(Collectors.toSet());
-    }
-
-    /**
-     * Parse menu_items JSON string to MenuItemDTO list, filtering by user
-     * permissions
-     * Example JSON:
-     * [{"label":"Cotizaciones","href":"/ventas/cotizaciones","icon":"tabler-file","action":"VIEW"}]
-     * If "action" is not specified or user is SUPERADMIN, the item is included
-     */
-    private List<MenuItemDTO> parseMenuItems(String menuItemsJson, Set<String> userPermissions, boolean isSuperAdmin) {
-        if (menuItemsJson == null || menuItemsJson.trim().isEmpty()) {
-            return List.of();
-        }
-
-        try {
-            com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-            com.fasterxml.jackson.core.type.TypeReference<List<java.util.Map<String, Object>>> typeRef = new com.fasterxml.jackson.core.type.TypeReference<List<java.util.Map<String, Object>>>() {
-            };
-
-            List<java.util.Map<String, Object>> items = mapper.readValue(menuItemsJson, typeRef);
-
-            return items.stream()
-                    .filter(item -> {
-                        // If no action specified, show the item
-                        String requiredAction = (String) item.get("action");
-                        if (requiredAction == null || requiredAction.isEmpty()) {
-                            return true;
-                        }
-
-                        // SUPERADMIN sees everything
-                        if (isSuperAdmin || userPermissions.contains("*")) {
-                            return true;
-                        }
-
-                        // Check if user has the required permission
-                        return userPermissions.contains(requiredAction.toUpperCase());
-                    })
-                    .map(item -> MenuItemDTO.builder()
-                            .label((String) item.get("label"))
-                            .href((String) item.get("href"))
-                            .icon((String) item.getOrDefault("icon", null))
-                            .build())
-                    .collect(Collectors.toList());
-        } catch (Exception e) {
-            log.error("Failed to parse menu_items JSON: {}", menuItemsJson, e);
-            return List.of();
-        }
+                .collect(Collectors.groupingBy(
+                        rp -> rp.getModuleAction().getModule().getCode().toUpperCase(),
+                        Collectors.mapping(rp -> rp.getModuleAction().getCode().toUpperCase(),
+                                Collectors.toSet())));
     }
 
     /**
      * Generate menu structure based on user roles AND tenant subscription
-     * This filters the menu by both permissions and active subscription modules
+     * This filters the menu by both permissions and active subscription modules.
+     * Both the tenant's subscription modules and the resulting menu are cached,
+     * the menu keyed by (role set, subscription modules).
      */
     public List<MenuItemDTO> generateMenu(List<String> roleCodes, Long tenantId) {
         boolean isSuperAdmin = roleCodes.contains("SUPERADMIN");
@@ -198,55 +188,50 @@ public class RbacService {
         }
 
         // Get tenant's active subscription modules
-        try {
-            var subscription = subscriptionService.getActiveTenantSubscription(tenantId);
-            Set<String> subscriptionModuleCodes = subscription.moduleNames().stream()
-                    .map(String::toUpperCase)
-                    .collect(Collectors.toSet());
-
-            log.info("Filtering menu for tenant {} with subscription modules: {}", tenantId, subscriptionModuleCodes);
-
-            // Get modules that user has permission for AND are in the subscription
-            List<RbacModule> accessibleModules = moduleRepository.findModulesByRoleCodes(roleCodes).stream()
-                    .filter(module -> subscriptionModuleCodes.contains(module.getCode().toUpperCase()))
-                    .collect(Collectors.toList());
-
-            // Build menu
-            List<MenuItemDTO> menu = new ArrayList<>();
-
-            // Dashboard - everyone gets this
-            menu.add(MenuItemDTO.builder()
-                    .label("Dashboard")
-                    .href("/home")
-                    .icon("tabler-smart-home")
-                    .build());
-
-            // Add module menus
-            for (RbacModule module : accessibleModules) {
-                // Get user's granted permissions for this specific module
-                Set<String> userModulePermissions = getUserPermissionsForModule(roleCodes, module.getCode());
-
-                List<MenuItemDTO> children = parseMenuItems(module.getMenuItems(), userModulePermissions, false);
-
-                if (!children.isEmpty()) {
-                    menu.add(MenuItemDTO.builder()
-                            .label(module.getName())
-                            .icon(module.getIcon())
-                            .href(module.getMenuPath())
-                            .moduleCode(module.getCode()) // Código del módulo para frontend
-                            .children(children)
-                            .build());
-                }
-            }
+        Optional<Set<String>> subscriptionModuleCodes = getSubscriptionModuleCodes(tenantId);
+        if (subscriptionModuleCodes.isEmpty()) {
+            log.debug("No active subscription found for tenant {}. Returning empty menu.", tenantId);
+            // No subscription = no access
+            return List.of();
+        }
 
-            return menu;
+        try {
+            Set<String> moduleCodes = subscriptionModuleCodes.get();
+            return rbacCache.get(RbacCache.MENUS, new MenuKey(RbacCache.roleKey(roleCodes), moduleCodes),
+                    () -> buildMenu(roleCodes, moduleCodes));
         } catch (Exception e) {
-            log.warn("No active subscription found for tenant {}. Returning empty menu.", tenantId);
-            // No subscription = no access
+            log.warn("Failed to build menu for tenant {}. Returning empty menu.", tenantId, e);
             return List.of();
         }
     }
 
+    /**
+     * Upper-cased module codes of the tenant's active subscription, empty if
+     * the tenant has none
+     */
+    private Optional<Set<String>> getSubscriptionModuleCodes(Long tenantId) {
+        return rbacCache.get(RbacCache.SUBSCRIPTIONS, tenantId, () -> {
+            try {
+                var subscription = subscriptionService.getActiveTenantSubscription(tenantId);
+                Set<String> moduleCodes = subscription.moduleNames().stream()
+                        .map(String::toUpperCase)
+                        .collect(Collectors.toUnmodifiableSet());
+                log.info("Loaded subscription modules for tenant {}: {}", tenantId, moduleCodes);
+                return Optional.of(moduleCodes);
+            } catch (Exception e) {
+                log.warn("No active subscription found for tenant {}.", tenantId);
+                return Optional.empty();
+            }
+        });
+    }
+
+    /**
+     * Returns hit/miss counters of the RBAC cache
+     */
+    public Map<String, RbacCache.CacheStats> getCacheStats() {
+        return rbacCache.getStats();
+    }
+
     /**
      * Filters menu items by allowed module codes
      */
@@ -389,6 +374,7 @@ public class RbacService {
             assignPermissions(role, request.getPermissions());
         }
 
+        rbacCache.invalidate();
         return toRoleDTO(role);
     }
 
@@ -414,6 +400,7 @@ public class RbacService {
         }
 
         role = roleRepository.save(role);
+        rbacCache.invalidate();
         return toRoleDTO(role);
     }
 
@@ -430,6 +417,7 @@ public class RbacService {
         }
 
         roleRepository.delete(role);
+        rbacCache.invalidate();
     }
 
     /**
@@ -562,7 +550,10 @@ public class RbacService {
                 .isActive(true)
                 .build();
 
-        return mapToModuleDTO(moduleRepository.save(module));
+        RbacModule saved = moduleRepository.save(module);
+        moduleMenuRegistry.get(saved);
+        rbacCache.invalidate();
+        return mapToModuleDTO(saved);
     }
 
     @Transactional
@@ -579,7 +570,10 @@ public class RbacService {
             module.setDisplayOrder(request.displayOrder());
         }
 
-        return mapToModuleDTO(moduleRepository.save(module));
+        RbacModule saved = moduleRepository.save(module);
+        moduleMenuRegistry.get(saved);
+        rbacCache.invalidate();
+        return mapToModuleDTO(saved);
     }
 
     @Transactional
@@ -588,6 +582,11 @@ public class RbacService {
             throw new RuntimeException("Module not found: " + id);
         }
         moduleRepository.deleteById(id);
+        moduleMenuRegistry.evict(id);
+        rbacCache.invalidate();
+    }
+
+    private record MenuKey(List<String> roleCodes, Set<String> subscriptionModuleCodes) {
     }
 
     private ModuleDTO mapToModuleDTO(RbacModule module) {
@@ -25,6 +25,8 @@ public class JwtUtils {
     @Value("${jwt.user.generator}")
     private String userGenerator;
 
+    private volatile JWTVerifier verifier;
+
     public String CreateToken(Authentication authentication){
 
         Algorithm algorithm = Algorithm.HMAC256(this.privateKey);
@@ -48,16 +50,9 @@ public class JwtUtils {
     }
 
     public DecodedJWT validateToken(String token){
-        Algorithm algorithm = Algorithm.HMAC256(this.privateKey);
-
         try {
 
-
-            JWTVerifier verifier = JWT.require(algorithm)
-                .withIssuer(this.userGenerator)
-                .build();
-
-        DecodedJWT decodedJWT = verifier.verify(token);
+        DecodedJWT decodedJWT = verifier().verify(token);
         return decodedJWT;
 
 
@@ -66,6 +61,18 @@ public class JwtUtils {
         }
     }
 
+    // El verificador es inmutable y seguro entre hilos: se construye una sola vez
+    private JWTVerifier verifier(){
+        JWTVerifier current = this.verifier;
+        if (current == null) {
+            current = JWT.require(Algorithm.HMAC256(this.privateKey))
+                    .withIssuer(this.userGenerator)
+                    .build();
+            this.verifier = current;
+        }
+        return current;
+    }
+
     public String extractUsernameToken(DecodedJWT decodedJWT){
         return decodedJWT.getSubject();
     }
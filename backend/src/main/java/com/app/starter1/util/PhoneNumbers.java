@@ -0,0 +1,59 @@
+package com.app.starter1.util;
+
+/**
+ * Normalización de teléfonos para la resolución de contactos.
+ *
+ * La forma canónica es E.164 ("+573001234567"); los números nacionales de
+ * 10 dígitos se asumen de Colombia. El sufijo (últimos 10 dígitos) es la
+ * clave indexada: coincide aunque un lado traiga el indicativo y el otro no.
+ */
+public final class PhoneNumbers {
+
+    public static final int SUFFIX_LENGTH = 10;
+
+    private static final int MAX_E164_DIGITS = 15;
+    private static final String DEFAULT_COUNTRY_CODE = "57";
+
+    private PhoneNumbers() {
+    }
+
+    /**
+     * Teléfono en formato E.164, o null si no tiene dígitos o no es un número válido
+     */
+    public static String toE164(String phone) {
+        String digits = digits(phone);
+        if (digits.isEmpty() || digits.length() > MAX_E164_DIGITS) {
+            return null;
+        }
+        if (digits.length() == SUFFIX_LENGTH && !phone.trim().startsWith("+")) {
+            return "+" + DEFAULT_COUNTRY_CODE + digits;
+        }
+        return "+" + digits;
+    }
+
+    /**
+     * Últimos 10 dígitos del teléfono (o todos si tiene menos), "" si no tiene dígitos
+     */
+    public static String suffix(String phone) {
+        String digits = digits(phone);
+        return digits.length() > SUFFIX_LENGTH ? digits.substring(digits.length() - SUFFIX_LENGTH) : digits;
+    }
+
+    private static String digits(String phone) {
+        if (phone == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(phone.length());
+        for (int i = 0; i < phone.length(); i++) {
+            char c = phone.charAt(i);
+            if (c >= '0' && c <= '9') {
+                sb.append(c);
+            }
+        }
+        // Prefijo internacional "00" equivalente a "+"
+        if (sb.length() > SUFFIX_LENGTH + 1 && sb.charAt(0) == '0' && sb.charAt(1) == '0') {
+            sb.delete(0, 2);
+        }
+        return sb.toString();
+    }
+}
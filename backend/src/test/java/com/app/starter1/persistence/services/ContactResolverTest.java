@@ -0,0 +1,83 @@
+package com.app.starter1.persistence.services;
+
+import com.app.starter1.persistence.entity.Contact;
+import com.app.starter1.persistence.repository.ContactRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ContactResolverTest {
+
+    private static final Integer TENANT = 1;
+    private static final String SUFFIX = "3001234567";
+
+    @Mock
+    private ContactRepository contactRepository;
+
+    private ContactResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        resolver = new ContactResolver(contactRepository);
+    }
+
+    @Test
+    void numbersSharingASuffixAreCachedSeparately() {
+        // Mismo sufijo, distinto indicativo: cada número resuelve a su contacto exacto
+        when(contactRepository.findByTenantIdAndPhoneSuffixOrderByIdAsc(TENANT, SUFFIX))
+                .thenReturn(List.of(contact(10L, "+573001234567"), contact(20L, "+13001234567")));
+
+        assertThat(resolver.resolve(TENANT, "+13001234567")).isEqualTo(20L);
+        assertThat(resolver.resolve(TENANT, "3001234567")).isEqualTo(10L);
+        assertThat(resolver.resolve(TENANT, "+1 300 123 4567")).isEqualTo(20L);
+
+        verify(contactRepository, times(2)).findByTenantIdAndPhoneSuffixOrderByIdAsc(TENANT, SUFFIX);
+    }
+
+    @Test
+    void evictDropsEveryNumberWithTheSameSuffix() {
+        when(contactRepository.findByTenantIdAndPhoneSuffixOrderByIdAsc(TENANT, SUFFIX))
+                .thenReturn(List.of(contact(10L, "+573001234567")))
+                .thenReturn(List.of(contact(10L, "+573001234567")))
+                .thenReturn(List.of(contact(20L, "+13001234567")));
+
+        // +1... no tiene coincidencia exacta y cae en el contacto 10 por sufijo
+        assertThat(resolver.resolve(TENANT, "+13001234567")).isEqualTo(10L);
+        assertThat(resolver.resolve(TENANT, "3001234567")).isEqualTo(10L);
+
+        // El contacto 10 se borra: también se descarta la resolución por sufijo
+        resolver.evict(TENANT, "+573001234567");
+
+        assertThat(resolver.resolve(TENANT, "+13001234567")).isEqualTo(20L);
+    }
+
+    @Test
+    void unknownPhonesAreNotCached() {
+        when(contactRepository.findByTenantIdAndPhoneSuffixOrderByIdAsc(TENANT, SUFFIX))
+                .thenReturn(List.of())
+                .thenReturn(List.of(contact(10L, "+573001234567")));
+
+        assertThat(resolver.resolve(TENANT, "3001234567")).isNull();
+        assertThat(resolver.resolve(TENANT, "3001234567")).isEqualTo(10L);
+    }
+
+    private static Contact contact(Long id, String phoneNormalized) {
+        return Contact.builder()
+                .id(id)
+                .tenantId(TENANT)
+                .phone(phoneNormalized)
+                .phoneNormalized(phoneNormalized)
+                .phoneSuffix(SUFFIX)
+                .build();
+    }
+}
@@ -0,0 +1,113 @@
+package com.app.starter1.persistence.services;
+
+import com.app.starter1.persistence.entity.MessagePlatform;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ConversationSummaryServiceTest {
+
+    private static final Long TENANT = 1L;
+    private static final String SUMMARY_UPSERT = "INSERT INTO conversation_summary (";
+    private static final String CURSOR_UPSERT = "INSERT INTO conversation_summary_cursor";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    private ConversationSummaryService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ConversationSummaryService(jdbcTemplate, namedJdbcTemplate);
+    }
+
+    @Test
+    void firstCatchUpScansFromTheStartAndAdvancesTheCursor() {
+        cursor();
+        window(3, 42);
+
+        service.catchUp(TENANT, MessagePlatform.WHATSAPP);
+
+        verify(jdbcTemplate).update(startsWith(SUMMARY_UPSERT), eq(TENANT), eq("WHATSAPP"), eq(0L), eq(42L));
+        verify(jdbcTemplate).update(startsWith(CURSOR_UPSERT), eq(TENANT), eq("WHATSAPP"), eq(42L));
+    }
+
+    @Test
+    void catchUpRescansAWindowBelowTheCursor() {
+        cursor(5000L);
+        window(10, 5003);
+
+        service.catchUp(TENANT, MessagePlatform.WHATSAPP);
+
+        long from = 5000L - ConversationSummaryService.SAFETY_WINDOW;
+        verify(jdbcTemplate).update(startsWith(SUMMARY_UPSERT), eq(TENANT), eq("WHATSAPP"), eq(from), eq(5003L));
+    }
+
+    @Test
+    void unchangedWindowIsOnlyRead() {
+        cursor(100L);
+        window(5, 100);
+
+        service.catchUp(TENANT, MessagePlatform.WHATSAPP);
+        service.catchUp(TENANT, MessagePlatform.WHATSAPP);
+
+        verify(jdbcTemplate, times(1)).update(startsWith(SUMMARY_UPSERT), any(Object[].class));
+    }
+
+    @Test
+    void lateCommitBelowTheCursorIsPickedUp() {
+        cursor(100L);
+        // Mismo último id, pero confirmó un mensaje con id menor
+        window(5, 100);
+        service.catchUp(TENANT, MessagePlatform.WHATSAPP);
+        window(6, 100);
+        service.catchUp(TENANT, MessagePlatform.WHATSAPP);
+
+        verify(jdbcTemplate, times(2)).update(startsWith(SUMMARY_UPSERT), any(Object[].class));
+    }
+
+    @Test
+    void noMessagesNoWrites() {
+        cursor();
+        window(0, 0);
+
+        service.catchUp(TENANT, MessagePlatform.WHATSAPP);
+
+        verify(jdbcTemplate, never()).update(startsWith("INSERT"), any(Object[].class));
+    }
+
+    private void cursor(Long... value) {
+        when(jdbcTemplate.queryForList(startsWith("SELECT last_message_id"), eq(Long.class), any(Object[].class)))
+                .thenReturn(List.of(value));
+    }
+
+    private void window(long total, long maxId) {
+        when(jdbcTemplate.queryForObject(startsWith("SELECT COUNT(*)"), any(RowMapper.class), any(Object[].class)))
+                .thenAnswer(invocation -> {
+                    ResultSet rs = mock(ResultSet.class);
+                    when(rs.getLong("total")).thenReturn(total);
+                    when(rs.getLong("max_id")).thenReturn(maxId);
+                    return invocation.<RowMapper<?>>getArgument(1).mapRow(rs, 0);
+                });
+    }
+}
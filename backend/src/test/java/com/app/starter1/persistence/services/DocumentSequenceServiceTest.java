@@ -0,0 +1,206 @@
+package com.app.starter1.persistence.services;
+
+import co.cloudfly.erp.dian.domain.entity.DianResolution;
+import co.cloudfly.erp.dian.domain.enums.DianDocumentType;
+import co.cloudfly.erp.dian.domain.repository.DianResolutionRepository;
+import com.app.starter1.persistence.entity.DocumentSequence;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DocumentSequenceServiceTest {
+
+    private static final Long TENANT = 1L;
+
+    @Mock
+    private DianResolutionRepository dianResolutionRepository;
+
+    private FakeSequences database;
+
+    @BeforeEach
+    void setUp() {
+        database = new FakeSequences();
+    }
+
+    @Test
+    void concurrentCallersOnSeveralNodesNeverGetTheSameNumber() throws Exception {
+        // Dos nodos con su propia caché de bloques sobre la misma tabla
+        List<DocumentSequenceService> nodes = List.of(node(), node());
+        int threads = 8;
+        int perThread = 250;
+        Set<Long> numbers = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            Future<?>[] futures = new Future<?>[threads];
+            for (int t = 0; t < threads; t++) {
+                DocumentSequenceService service = nodes.get(t % nodes.size());
+                futures[t] = pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        long number = service.next(TENANT, DocumentSequence.DocumentType.ORDER_INVOICE, () -> 100);
+                        if (!numbers.add(number)) {
+                            duplicates.incrementAndGet();
+                        }
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(duplicates).hasValue(0);
+        assertThat(numbers).hasSize(threads * perThread);
+        // La serie continúa después del último número existente
+        assertThat(numbers.stream().mapToLong(Long::longValue).min().orElseThrow()).isEqualTo(101);
+    }
+
+    @Test
+    void seriesAreIndependent() {
+        DocumentSequenceService service = node();
+
+        long voucherA = service.next(TENANT, DocumentSequence.DocumentType.ACCOUNTING_VOUCHER, "A", () -> 0);
+        long voucherB = service.next(TENANT, DocumentSequence.DocumentType.ACCOUNTING_VOUCHER, "B", () -> 0);
+
+        assertThat(voucherA).isEqualTo(1);
+        assertThat(voucherB).isEqualTo(1);
+        assertThat(service.next(TENANT, DocumentSequence.DocumentType.ACCOUNTING_VOUCHER, "A", () -> 0)).isEqualTo(2);
+    }
+
+    @Test
+    void regulatedNumbersAreConsecutiveAndStayInRange() {
+        DianResolution resolution = DianResolution.builder()
+                .id(7L)
+                .prefix("FE")
+                .numberRangeFrom(1L)
+                .numberRangeTo(2L)
+                .currentNumber(1L)
+                .build();
+        when(dianResolutionRepository.findValidForUpdate(eq(TENANT), isNull(), eq(DianDocumentType.INVOICE), any()))
+                .thenReturn(List.of(resolution));
+        DocumentSequenceService service = node();
+
+        assertThat(service.nextRegulated(TENANT, DianDocumentType.INVOICE).orElseThrow().formatted())
+                .isEqualTo("FE1");
+        assertThat(service.nextRegulated(TENANT, DianDocumentType.INVOICE).orElseThrow().formatted())
+                .isEqualTo("FE2");
+        assertThatThrownBy(() -> service.nextRegulated(TENANT, DianDocumentType.INVOICE))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void regulatedNumberIsScopedToTheCompany() {
+        DianResolution resolution = resolution(7L, 20L, "FB");
+        when(dianResolutionRepository.findValidForUpdate(eq(TENANT), eq(20L), eq(DianDocumentType.INVOICE), any()))
+                .thenReturn(List.of(resolution));
+
+        assertThat(node().nextRegulated(TENANT, 20L, DianDocumentType.INVOICE).orElseThrow().formatted())
+                .isEqualTo("FB1");
+    }
+
+    @Test
+    void regulatedNumberWithoutCompanyFailsWhenSeveralCompaniesHaveResolutions() {
+        // Dos compañías del tenant con resolución vigente: no se toma la de otra
+        when(dianResolutionRepository.findValidForUpdate(eq(TENANT), isNull(), eq(DianDocumentType.INVOICE), any()))
+                .thenReturn(List.of(resolution(7L, 10L, "FA"), resolution(8L, 20L, "FB")));
+        DocumentSequenceService service = node();
+
+        assertThatThrownBy(() -> service.nextRegulated(TENANT, DianDocumentType.INVOICE))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("varias compañías");
+    }
+
+    @Test
+    void trailingNumberReadsTheConsecutive() {
+        assertThat(DocumentSequenceService.trailingNumber("NC-3-000042")).isEqualTo(42);
+        assertThat(DocumentSequenceService.trailingNumber("SIN-NUMERO")).isZero();
+        assertThat(DocumentSequenceService.trailingNumber(null)).isZero();
+    }
+
+    private static DianResolution resolution(Long id, Long companyId, String prefix) {
+        return DianResolution.builder()
+                .id(id)
+                .companyId(companyId)
+                .prefix(prefix)
+                .numberRangeFrom(1L)
+                .numberRangeTo(100L)
+                .currentNumber(1L)
+                .build();
+    }
+
+    private DocumentSequenceService node() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        lenient().when(jdbcTemplate.update(anyString(), any(Object[].class))).thenAnswer(database::update);
+        lenient().when(jdbcTemplate.queryForObject(startsWith("SELECT LAST_INSERT_ID"), eq(Long.class)))
+                .thenAnswer(invocation -> database.lastInsertId.get());
+        return new DocumentSequenceService(jdbcTemplate, mock(PlatformTransactionManager.class),
+                dianResolutionRepository);
+    }
+
+    /**
+     * document_sequences en memoria: el UPDATE es atómico por fila y
+     * LAST_INSERT_ID es por conexión (aquí, por hilo)
+     */
+    private static final class FakeSequences {
+        private final ConcurrentHashMap<String, Long> rows = new ConcurrentHashMap<>();
+        private final ThreadLocal<Long> lastInsertId = new ThreadLocal<>();
+
+        int update(InvocationOnMock invocation) {
+            Object[] raw = invocation.getArguments();
+            String sql = (String) raw[0];
+            Object[] args = raw.length == 2 && raw[1] instanceof Object[] nested
+                    ? nested
+                    : Arrays.copyOfRange(raw, 1, raw.length);
+            if (sql.startsWith("UPDATE document_sequences")) {
+                String key = args[2] + ":" + args[3] + ":" + args[4];
+                long increment = ((Number) args[0]).longValue();
+                Long updated = rows.computeIfPresent(key, (k, value) -> value + increment);
+                if (updated == null) {
+                    return 0;
+                }
+                lastInsertId.set(updated);
+                return 1;
+            }
+            if (sql.startsWith("INSERT IGNORE INTO document_sequences")) {
+                String key = args[0] + ":" + args[1] + ":" + args[2];
+                return rows.putIfAbsent(key, ((Number) args[3]).longValue()) == null ? 1 : 0;
+            }
+            throw new IllegalArgumentException("SQL no esperado: " + sql);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.app.starter1.persistence.services;
+
+import com.app.starter1.persistence.repository.StockMovementRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class StockLedgerServiceTest {
+
+    private static final Long TENANT = 1L;
+    private static final Long PRODUCT = 5L;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+    @Mock
+    private StockMovementRepository movementRepository;
+
+    private StockLedgerService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new StockLedgerService(jdbcTemplate, namedJdbcTemplate, movementRepository);
+    }
+
+    @Test
+    void adjustRecordsTheDifferenceOverTheExpectedBalance() {
+        when(jdbcTemplate.queryForList(anyString(), eq(Integer.class), eq(PRODUCT), eq(TENANT)))
+                .thenReturn(List.of(10));
+
+        Integer previous = service.adjust(TENANT, PRODUCT, 10, 25);
+
+        assertThat(previous).isEqualTo(10);
+        verify(jdbcTemplate).update(startsWith("UPDATE productos"), eq(25), eq(PRODUCT), eq(TENANT));
+        verify(jdbcTemplate).update(startsWith("INSERT INTO stock_movements"), eq(TENANT), eq(PRODUCT),
+                eq("ADJUSTMENT"), eq(15), eq(25), eq(StockLedgerService.REFERENCE_PRODUCT), eq(PRODUCT), any());
+    }
+
+    @Test
+    void adjustFailsWhenASaleMovedTheBalance() {
+        // El formulario leyó 10 pero una venta dejó 9
+        when(jdbcTemplate.queryForList(anyString(), eq(Integer.class), eq(PRODUCT), eq(TENANT)))
+                .thenReturn(List.of(9));
+
+        assertThatThrownBy(() -> service.adjust(TENANT, PRODUCT, 10, 25))
+                .isInstanceOf(IllegalStateException.class);
+        verify(jdbcTemplate, never()).update(startsWith("UPDATE productos"), any(Object[].class));
+    }
+
+    @Test
+    void adjustOfUnknownProductReturnsNull() {
+        when(jdbcTemplate.queryForList(anyString(), eq(Integer.class), eq(PRODUCT), eq(TENANT)))
+                .thenReturn(List.of());
+
+        assertThat(service.adjust(TENANT, PRODUCT, 10, 25)).isNull();
+    }
+
+    @Test
+    void decrementFailsWhenStockIsNotEnough() {
+        managedProduct(PRODUCT, "Café");
+        // El UPDATE condicional no alcanzó ninguna fila
+        when(jdbcTemplate.update(startsWith("UPDATE productos"), any(Object[].class))).thenReturn(0);
+
+        assertThatThrownBy(() -> service.decrement(TENANT,
+                List.of(new StockLedgerService.StockLine(PRODUCT, 3)), StockLedgerService.REFERENCE_ORDER, 99L))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Café");
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void decrementMergesLinesAndRecordsTheSale() {
+        managedProduct(PRODUCT, "Café");
+        when(jdbcTemplate.update(startsWith("UPDATE productos"), any(Object[].class))).thenReturn(1);
+
+        service.decrement(TENANT, List.of(new StockLedgerService.StockLine(PRODUCT, 2),
+                new StockLedgerService.StockLine(PRODUCT, 3)), StockLedgerService.REFERENCE_ORDER, 99L);
+
+        // Una línea por producto: WHEN 5 THEN 5, tenant, IN (5), y el CASE repetido para la condición
+        verify(jdbcTemplate).update(startsWith("UPDATE productos"), eq(PRODUCT), eq(5), eq(TENANT), eq(PRODUCT),
+                eq(PRODUCT), eq(5));
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO stock_movements"), anyList());
+    }
+
+    @Test
+    void decrementRejectsNonPositiveQuantities() {
+        assertThatThrownBy(() -> service.decrement(TENANT,
+                List.of(new StockLedgerService.StockLine(PRODUCT, 0)), StockLedgerService.REFERENCE_ORDER, 99L))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void managedProduct(Long id, String name) {
+        // lenient: la consulta de saldos (AVAILABLE_SQL) usa el mismo método con otro SQL
+        lenient().doAnswer(invocation -> {
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getLong("id")).thenReturn(id);
+            when(rs.getString("product_name")).thenReturn(name);
+            invocation.<RowCallbackHandler>getArgument(2).processRow(rs);
+            return null;
+        }).when(namedJdbcTemplate).query(startsWith("SELECT id, product_name"), any(SqlParameterSource.class),
+                any(RowCallbackHandler.class));
+    }
+}
@@ -0,0 +1,155 @@
+package com.app.starter1.services;
+
+import com.app.starter1.persistence.entity.WebhookEvent;
+import com.app.starter1.persistence.repository.ChannelRepository;
+import com.app.starter1.persistence.repository.WebhookEventRepository;
+import com.app.starter1.persistence.services.ChatService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FacebookWebhookIngestServiceTest {
+
+    private static final String PAYLOAD = "{\"object\":\"page\",\"entry\":[]}";
+
+    @Mock
+    private WebhookEventRepository eventRepository;
+    @Mock
+    private ChannelRepository channelRepository;
+    @Mock
+    private ChatService chatService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private FacebookWebhookIngestService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new FacebookWebhookIngestService(eventRepository, channelRepository, chatService, transactionManager);
+    }
+
+    @Test
+    void failedEventStaysPendingWithBackoff() {
+        claimed(event(1L, 0));
+        when(chatService.saveMessages(anyList())).thenThrow(new RuntimeException("db down"));
+
+        service.drain();
+
+        verify(eventRepository).scheduleRetry(eq(1L), eq(1), any(LocalDateTime.class), eq("db down"));
+        verify(eventRepository, never()).updateStatus(eq(1L), eq(WebhookEvent.EventStatus.FAILED), anyString(), any());
+    }
+
+    @Test
+    void eventIsMarkedFailedAfterLastAttempt() {
+        claimed(event(1L, 4));
+        when(chatService.saveMessages(anyList())).thenThrow(new RuntimeException("db down"));
+
+        service.drain();
+
+        verify(eventRepository).updateStatus(eq(1L), eq(WebhookEvent.EventStatus.FAILED), eq("db down"), any());
+        verify(eventRepository, never()).scheduleRetry(any(), any(Integer.class), any(), any());
+    }
+
+    @Test
+    void failingEventDoesNotStopTheRestOfTheBatch() {
+        claimed(event(1L, 0), event(2L, 0));
+        // Lote completo y evento 1 fallan; el evento 2 se guarda solo
+        when(chatService.saveMessages(anyList()))
+                .thenThrow(new RuntimeException("batch"))
+                .thenThrow(new RuntimeException("event 1"))
+                .thenReturn(List.of());
+        doThrow(new RuntimeException("retry not recorded")).when(eventRepository)
+                .scheduleRetry(eq(1L), any(Integer.class), any(), any());
+        when(eventRepository.markProcessed(eq(List.of(2L)), anyString(), any())).thenReturn(1);
+
+        service.drain();
+
+        verify(eventRepository).markProcessed(eq(List.of(2L)), anyString(), any());
+    }
+
+    @Test
+    void batchIsSavedOnlyWhileTheClaimIsHeld() {
+        claimed(event(1L, 0));
+        when(chatService.saveMessages(anyList())).thenReturn(List.of());
+        when(eventRepository.markProcessed(any(), anyString(), any())).thenReturn(1);
+
+        service.drain();
+
+        verify(eventRepository).claim(eq("FACEBOOK"), anyString(), any(), any(), eq(100));
+        verify(eventRepository).markProcessed(eq(List.of(1L)), anyString(), any());
+        verify(eventRepository, never()).scheduleRetry(any(), any(Integer.class), any(), any());
+    }
+
+    @Test
+    void expiredClaimRollsTheBatchBack() {
+        claimed(event(1L, 0));
+        when(chatService.saveMessages(anyList())).thenReturn(List.of());
+        // Otro nodo tomó el evento después de vencer el reclamo
+        when(eventRepository.markProcessed(any(), anyString(), any())).thenReturn(0);
+
+        service.drain();
+
+        verify(eventRepository).scheduleRetry(eq(1L), eq(1), any(LocalDateTime.class), anyString());
+    }
+
+    @Test
+    void purgeDeletesFinishedEventsInBatches() {
+        when(eventRepository.purgeFinished(any(), eq(1000))).thenReturn(1000, 3);
+
+        service.purge();
+
+        verify(eventRepository, times(2)).purgeFinished(any(), eq(1000));
+    }
+
+    @Test
+    void drainSurvivesRepositoryErrors() {
+        when(eventRepository.claim(any(), any(), any(), any(), anyInt())).thenThrow(new RuntimeException("timeout"));
+
+        service.drain();
+        service.drain();
+
+        verify(chatService, never()).saveMessages(anyList());
+    }
+
+    @Test
+    void retryDelayGrowsUntilTheCap() {
+        assertThat(FacebookWebhookIngestService.retryDelayMs(1)).isEqualTo(30_000L);
+        assertThat(FacebookWebhookIngestService.retryDelayMs(2)).isEqualTo(60_000L);
+        assertThat(FacebookWebhookIngestService.retryDelayMs(10)).isEqualTo(30 * 60_000L);
+        assertThat(FacebookWebhookIngestService.retryDelayMs(100)).isEqualTo(30 * 60_000L);
+    }
+
+    private void claimed(WebhookEvent... events) {
+        when(eventRepository.claim(eq("FACEBOOK"), anyString(), any(), any(), anyInt())).thenReturn(events.length);
+        when(eventRepository.findClaimed(eq("FACEBOOK"), anyString(), any())).thenReturn(List.of(events));
+    }
+
+    private static WebhookEvent event(Long id, int attempts) {
+        return WebhookEvent.builder()
+                .id(id)
+                .source("FACEBOOK")
+                .payload(PAYLOAD)
+                .status(WebhookEvent.EventStatus.PROCESSING)
+                .attempts(attempts)
+                .build();
+    }
+}
@@ -17,8 +17,14 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 public class AppConfig {
 
     @Bean
-    public com.app.config.JwtAuthenticationFilter jwtAuthenticationFilter(com.app.util.JwtProvider jwtProvider) {
-        return new com.app.config.JwtAuthenticationFilter(jwtProvider);
+    public com.app.config.VerifiedTokenCache verifiedTokenCache(io.micrometer.core.instrument.MeterRegistry meterRegistry) {
+        return new com.app.config.VerifiedTokenCache(meterRegistry);
+    }
+
+    @Bean
+    public com.app.config.JwtAuthenticationFilter jwtAuthenticationFilter(com.app.util.JwtProvider jwtProvider,
+            com.app.config.VerifiedTokenCache verifiedTokenCache) {
+        return new com.app.config.JwtAuthenticationFilter(jwtProvider, verifiedTokenCache);
     }
 
     @Bean
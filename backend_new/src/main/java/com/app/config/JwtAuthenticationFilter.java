@@ -6,6 +6,7 @@ import com.app.dto.UserDto;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.ReactiveSecurityContextHolder;
@@ -15,31 +16,27 @@ import org.springframework.web.server.WebFilter;
 import org.springframework.web.server.WebFilterChain;
 import reactor.core.publisher.Mono;
 
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public class JwtAuthenticationFilter implements WebFilter {
 
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(JwtAuthenticationFilter.class);
     private final JwtProvider jwtProvider;
+    private final VerifiedTokenCache tokenCache;
 
-    public JwtAuthenticationFilter(JwtProvider jwtProvider) {
+    public JwtAuthenticationFilter(JwtProvider jwtProvider, VerifiedTokenCache tokenCache) {
         log.info("🛡️ [JWT-FILTER] Initializing JwtAuthenticationFilter...");
         this.jwtProvider = jwtProvider;
+        this.tokenCache = tokenCache;
     }
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
         String path = exchange.getRequest().getURI().getPath();
-        log.info("🚀 [JWT-FILTER] Hitting path: {}", path);
+        log.debug("🚀 [JWT-FILTER] Hitting path: {}", path);
         String authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
 
-
-        exchange.getRequest().getHeaders().forEach((name, values) -> {
-            log.info("🔍 [HEADER] {}: {}", name, values);
-        });
-
         // --- AI Internal Auth Bypass ---
         String aiSecret = exchange.getRequest().getHeaders().getFirst("X-AI-Secret");
         String authHeaderValue = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
@@ -93,40 +90,58 @@ public class JwtAuthenticationFilter implements WebFilter {
 
         String token = authHeader.substring(7);
 
+        long start = System.nanoTime();
         try {
-            DecodedJWT decodedJWT = jwtProvider.validateToken(token);
-            String username = jwtProvider.extractUsername(decodedJWT);
-            
-            com.auth0.jwt.interfaces.Claim authoritiesClaim = decodedJWT.getClaim("authorities");
-            String authoritiesStr = !authoritiesClaim.isMissing() ? authoritiesClaim.asString() : "";
-
-            List<SimpleGrantedAuthority> authorities = Arrays.stream(authoritiesStr.split(","))
-                    .filter(s -> !s.isEmpty())
-                    .map(SimpleGrantedAuthority::new)
-                    .collect(Collectors.toList());
-
-            Long customerId = decodedJWT.getClaim("customer_id").asLong();
-            Long companyId = decodedJWT.getClaim("company_id").asLong();
-
-            log.info("🛡️ [JWT-FILTER] Valid token for user: {}. Roles: {}. Path: {}. CustomerID: {}", 
-                     username, authoritiesStr, path, customerId);
-
-            UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(username, null,
-                    authorities);
-            
-            // Adjuntar los IDs en los detalles para uso posterior
-            java.util.Map<String, Object> details = new java.util.HashMap<>();
-            details.put("customer_id", customerId);
-            details.put("company_id", companyId);
-            auth.setDetails(details);
+            Authentication auth = authenticate(token, path);
+            tokenCache.recordFilterTime(System.nanoTime() - start, false);
 
             return chain.filter(exchange)
                     .contextWrite(ReactiveSecurityContextHolder.withAuthentication(auth));
 
         } catch (Exception e) {
+            tokenCache.recordFilterTime(System.nanoTime() - start, true);
             log.error("🛡️ [JWT-FILTER] Token validation failed for path {}: {}", path, e.getMessage());
             // Token inválido, simplemente continuamos sin autenticación
             return chain.filter(exchange);
         }
     }
+
+    /**
+     * Authentication del token: desde la caché si ya fue verificado, si no
+     * verifica la firma y la guarda hasta que el token expire
+     */
+    private Authentication authenticate(String token, String path) {
+        ByteBuffer key = tokenCache.keyOf(token);
+        Authentication cached = tokenCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        DecodedJWT decodedJWT = jwtProvider.validateToken(token);
+        String username = jwtProvider.extractUsername(decodedJWT);
+
+        com.auth0.jwt.interfaces.Claim authoritiesClaim = decodedJWT.getClaim("authorities");
+        String authoritiesStr = !authoritiesClaim.isMissing() ? authoritiesClaim.asString() : "";
+        List<GrantedAuthority> authorities = tokenCache.authorities(authoritiesStr);
+
+        Long customerId = decodedJWT.getClaim("customer_id").asLong();
+        Long companyId = decodedJWT.getClaim("company_id").asLong();
+
+        log.info("🛡️ [JWT-FILTER] Valid token for user: {}. Roles: {}. Path: {}. CustomerID: {}",
+                 username, authoritiesStr, path, customerId);
+
+        UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(username, null,
+                authorities);
+
+        // Adjuntar los IDs en los detalles para uso posterior (compartidos entre peticiones: solo lectura)
+        java.util.Map<String, Object> details = new java.util.HashMap<>();
+        details.put("customer_id", customerId);
+        details.put("company_id", companyId);
+        auth.setDetails(java.util.Collections.unmodifiableMap(details));
+
+        if (decodedJWT.getExpiresAt() != null) {
+            tokenCache.put(key, auth, decodedJWT.getExpiresAt().getTime());
+        }
+        return auth;
+    }
 }
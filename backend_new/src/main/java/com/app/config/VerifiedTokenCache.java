@@ -0,0 +1,147 @@
+package com.app.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caché de tokens JWT ya verificados del JwtAuthenticationFilter.
+ *
+ * La clave es el SHA-256 del token (el token no se guarda) y el valor la
+ * Authentication ya construida con sus detalles (customer_id, company_id),
+ * válida hasta la expiración del token. Las listas de authorities se
+ * comparten entre tokens con el mismo claim.
+ *
+ * Publica en Micrometer (/actuator/prometheus) el timer jwt.filter.verification
+ * (tag outcome=ok|rejected), los counters jwt.token.cache (tag result=hit|miss)
+ * y el gauge jwt.token.cache.size.
+ *
+ * Existe una copia en backend (com.app.starter1.config.filter.VerifiedTokenCache)
+ * que solo difiere en cómo publica las métricas (log cada minuto, allí no hay
+ * Micrometer): cualquier cambio de la caché debe aplicarse en ambas.
+ */
+public class VerifiedTokenCache {
+
+    private static final int MAX_TOKENS = 10_000;
+    private static final int MAX_AUTHORITY_SETS = 1_000;
+
+    private final Map<ByteBuffer, CachedToken> tokens = new ConcurrentHashMap<>();
+    private final Map<String, List<GrantedAuthority>> authoritySets = new ConcurrentHashMap<>();
+
+    private final ThreadLocal<MessageDigest> sha256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    });
+
+    private final Timer verified;
+    private final Timer rejected;
+    private final Counter hits;
+    private final Counter misses;
+
+    public VerifiedTokenCache(MeterRegistry registry) {
+        this.verified = Timer.builder("jwt.filter.verification")
+                .description("Duración de la autenticación JWT en el filtro")
+                .tag("outcome", "ok")
+                .register(registry);
+        this.rejected = Timer.builder("jwt.filter.verification")
+                .description("Duración de la autenticación JWT en el filtro")
+                .tag("outcome", "rejected")
+                .register(registry);
+        this.hits = Counter.builder("jwt.token.cache")
+                .description("Búsquedas en la caché de tokens verificados")
+                .tag("result", "hit")
+                .register(registry);
+        this.misses = Counter.builder("jwt.token.cache")
+                .description("Búsquedas en la caché de tokens verificados")
+                .tag("result", "miss")
+                .register(registry);
+        Gauge.builder("jwt.token.cache.size", tokens, Map::size)
+                .description("Tokens verificados en caché")
+                .register(registry);
+    }
+
+    /**
+     * Clave de caché del token
+     */
+    public ByteBuffer keyOf(String token) {
+        MessageDigest digest = sha256.get();
+        digest.reset();
+        return ByteBuffer.wrap(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    /**
+     * Authentication del token si ya fue verificado y no ha expirado
+     */
+    public Authentication get(ByteBuffer key) {
+        CachedToken cached = tokens.get(key);
+        if (cached == null) {
+            misses.increment();
+            return null;
+        }
+        if (cached.expiresAt() <= System.currentTimeMillis()) {
+            tokens.remove(key, cached);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return cached.authentication();
+    }
+
+    public void put(ByteBuffer key, Authentication authentication, long expiresAt) {
+        if (tokens.size() >= MAX_TOKENS) {
+            evictExpired();
+            if (tokens.size() >= MAX_TOKENS) {
+                // Sin espacio: se descarta todo y se vuelve a poblar con los tokens en uso
+                tokens.clear();
+            }
+        }
+        tokens.put(key, new CachedToken(authentication, expiresAt));
+    }
+
+    /**
+     * Lista de authorities compartida para el claim "authorities"
+     */
+    public List<GrantedAuthority> authorities(String claim) {
+        String value = claim != null ? claim : "";
+        List<GrantedAuthority> cached = authoritySets.get(value);
+        if (cached != null) {
+            return cached;
+        }
+        List<GrantedAuthority> parsed = List.copyOf(AuthorityUtils.commaSeparatedStringToAuthorityList(value));
+        if (authoritySets.size() < MAX_AUTHORITY_SETS) {
+            authoritySets.putIfAbsent(value, parsed);
+        }
+        return parsed;
+    }
+
+    /**
+     * Registra la duración de una pasada por el filtro
+     */
+    public void recordFilterTime(long nanos, boolean failed) {
+        (failed ? rejected : verified).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void evictExpired() {
+        long now = System.currentTimeMillis();
+        tokens.entrySet().removeIf(entry -> entry.getValue().expiresAt() <= now);
+    }
+
+    private record CachedToken(Authentication authentication, long expiresAt) {
+    }
+}
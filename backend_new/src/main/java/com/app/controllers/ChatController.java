@@ -29,17 +29,44 @@ public class ChatController {
     private final com.app.persistence.repository.ChannelRepository channelRepository;
     private final com.app.persistence.repository.ContactRepository contactRepository;
 
+    private static final int DEFAULT_HISTORY_SIZE = 50;
+    private static final int MAX_HISTORY_SIZE = 200;
+
     /**
-     * Get historical messages for a specific conversation
+     * Get historical messages for a specific conversation.
+     * Without paging params returns the full history (legacy). With limit,
+     * before or after it pages by message id: latest messages, older than
+     * "before" or newer than "after", always in chronological order.
      */
     @GetMapping("/messages/{contactId}")
-    public Flux<OmniChannelMessageEntity> getMessages(@PathVariable Long contactId) {
+    public Flux<OmniChannelMessageEntity> getMessages(
+            @PathVariable Long contactId,
+            @RequestParam(required = false) Long before,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit) {
         return userService.getCurrentUser()
                 .flatMapMany(user -> {
                     Long tenantId = user.getCustomerId();
                     Long companyId = user.getCompanyId();
                     log.info("📂 [CHAT-CONTROLLER] Fetching messages for contact: {} (Tenant: {}, Company: {})", contactId, tenantId, companyId);
-                    return messageRepository.findByTenantIdAndCompanyIdAndContactId(tenantId, companyId, contactId);
+
+                    if (before == null && after == null && limit == null) {
+                        return messageRepository.findByTenantIdAndCompanyIdAndContactId(tenantId, companyId, contactId);
+                    }
+
+                    int pageSize = Math.max(1, Math.min(limit != null ? limit : DEFAULT_HISTORY_SIZE, MAX_HISTORY_SIZE));
+                    if (after != null) {
+                        return messageRepository.findByContactAfter(tenantId, companyId, contactId, after, pageSize);
+                    }
+
+                    Flux<OmniChannelMessageEntity> newestFirst = before != null
+                            ? messageRepository.findByContactBefore(tenantId, companyId, contactId, before, pageSize)
+                            : messageRepository.findLatestByContact(tenantId, companyId, contactId, pageSize);
+                    return newestFirst.collectList()
+                            .flatMapMany(messages -> {
+                                java.util.Collections.reverse(messages);
+                                return Flux.fromIterable(messages);
+                            });
                 });
     }
 
@@ -0,0 +1,41 @@
+package com.app.persistence.entity;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Ventas acumuladas por tenant, compañía y día (company_id 0 = sin compañía)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("daily_sales")
+public class DailySalesEntity {
+    @Id
+    private Long id;
+
+    @Column("tenant_id")
+    private Long tenantId;
+
+    @Column("company_id")
+    private Long companyId;
+
+    @Column("sales_date")
+    private LocalDate salesDate;
+
+    @Column("order_count")
+    private Integer orderCount;
+
+    @Column("revenue")
+    private BigDecimal revenue;
+
+    @Column("updated_at")
+    private LocalDateTime updatedAt;
+}
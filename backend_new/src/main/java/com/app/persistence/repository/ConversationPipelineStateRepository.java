@@ -4,7 +4,10 @@ import com.app.persistence.entity.ConversationPipelineStateEntity;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+
 public interface ConversationPipelineStateRepository extends ReactiveCrudRepository<ConversationPipelineStateEntity, Long> {
     Mono<ConversationPipelineStateEntity> findByTenantIdAndConversationId(Long tenantId, String conversationId);
     reactor.core.publisher.Flux<ConversationPipelineStateEntity> findByTenantIdAndPipelineIdAndIsActiveTrue(Long tenantId, Long pipelineId);
+    reactor.core.publisher.Flux<ConversationPipelineStateEntity> findByTenantIdAndConversationIdIn(Long tenantId, Collection<String> conversationIds);
 }
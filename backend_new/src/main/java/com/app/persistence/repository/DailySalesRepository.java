@@ -0,0 +1,25 @@
+package com.app.persistence.repository;
+
+import com.app.persistence.entity.DailySalesEntity;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface DailySalesRepository extends ReactiveCrudRepository<DailySalesEntity, Long> {
+
+    @Modifying
+    @Query("INSERT INTO daily_sales (tenant_id, company_id, sales_date, order_count, revenue, updated_at) " +
+            "VALUES (:tenantId, :companyId, :salesDate, :orderCount, :revenue, NOW()) " +
+            "ON DUPLICATE KEY UPDATE order_count = order_count + VALUES(order_count), " +
+            "revenue = revenue + VALUES(revenue), updated_at = VALUES(updated_at)")
+    Mono<Integer> add(Long tenantId, Long companyId, LocalDate salesDate, Integer orderCount, BigDecimal revenue);
+
+    @Query("SELECT sales_date AS date, SUM(revenue) AS total, SUM(order_count) AS count FROM daily_sales " +
+            "WHERE tenant_id = :tenantId AND (:companyId IS NULL OR company_id = :companyId) AND sales_date >= :since " +
+            "GROUP BY sales_date ORDER BY sales_date ASC")
+    Flux<com.app.dto.SalesHistoryDTO> getSalesHistory(Long tenantId, Long companyId, LocalDate since);
+}
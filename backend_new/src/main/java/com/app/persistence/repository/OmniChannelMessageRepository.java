@@ -11,6 +11,16 @@ public interface OmniChannelMessageRepository extends ReactiveCrudRepository<Omn
     @Query("SELECT * FROM omni_channel_messages WHERE tenant_id = :tenantId AND company_id = :companyId AND contact_id = :contactId ORDER BY created_at ASC")
     Flux<OmniChannelMessageEntity> findByTenantIdAndCompanyIdAndContactId(Long tenantId, Long companyId, Long contactId);
 
+    // Historial paginado por id (keyset): los más recientes, anteriores a un id o posteriores a un id
+    @Query("SELECT * FROM omni_channel_messages WHERE tenant_id = :tenantId AND company_id = :companyId AND contact_id = :contactId ORDER BY id DESC LIMIT :limit")
+    Flux<OmniChannelMessageEntity> findLatestByContact(Long tenantId, Long companyId, Long contactId, int limit);
+
+    @Query("SELECT * FROM omni_channel_messages WHERE tenant_id = :tenantId AND company_id = :companyId AND contact_id = :contactId AND id < :beforeId ORDER BY id DESC LIMIT :limit")
+    Flux<OmniChannelMessageEntity> findByContactBefore(Long tenantId, Long companyId, Long contactId, Long beforeId, int limit);
+
+    @Query("SELECT * FROM omni_channel_messages WHERE tenant_id = :tenantId AND company_id = :companyId AND contact_id = :contactId AND id > :afterId ORDER BY id ASC LIMIT :limit")
+    Flux<OmniChannelMessageEntity> findByContactAfter(Long tenantId, Long companyId, Long contactId, Long afterId, int limit);
+
     @Query("SELECT * FROM omni_channel_messages WHERE tenant_id = :tenantId AND company_id = :companyId AND contact_id = :contactId AND direction = 'INBOUND' AND (status IS NULL OR status != 'READ') ORDER BY created_at DESC")
     Flux<OmniChannelMessageEntity> findUnreadByTenantIdAndCompanyIdAndContactId(Long tenantId, Long companyId, Long contactId);
 
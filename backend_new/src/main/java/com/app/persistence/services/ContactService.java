@@ -173,7 +173,7 @@ public class ContactService {
 
     public Mono<ContactEntity> getOrCreateContact(Long tenantId, Long companyId, String phone, String name) {
         String cleanPhone = phone.replaceAll("[^0-9]", "");
-        log.info("🔍 Looking for contact with phone: {} in tenant: {} and company: {}", cleanPhone, tenantId,
+        log.debug("🔍 Looking for contact with phone: {} in tenant: {} and company: {}", cleanPhone, tenantId,
                 companyId);
 
         return contactRepository.findByTenantIdAndCompanyIdAndPhone(tenantId, companyId, cleanPhone)
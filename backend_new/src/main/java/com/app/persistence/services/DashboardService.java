@@ -13,6 +13,7 @@ import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -31,6 +32,7 @@ public class DashboardService {
     private final MarketingCampaignRepository campaignRepository;
     private final QuoteRepository quoteRepository;
     private final AppointmentRepository appointmentRepository;
+    private final SalesAggregateService salesAggregateService;
 
     public Mono<DashboardStatsDTO> getStats(Long tenantId, Long companyId) {
         log.info("📊 Fetching comprehensive dashboard stats for tenant: {} and company: {}", tenantId, companyId);
@@ -117,9 +119,10 @@ public class DashboardService {
 
     public Mono<SalesChartDataDTO> getSalesChart(Long tenantId, Long companyId, String period) {
         int days = period.equals("30d") ? 30 : 7;
-        LocalDateTime since = LocalDateTime.now().minusDays(days);
-        
-        return orderRepository.getSalesHistory(tenantId, companyId, since)
+        LocalDate since = LocalDate.now().minusDays(days);
+
+        // Acumulado diario: una fila por día y compañía en lugar de agrupar los pedidos
+        return salesAggregateService.getSalesHistory(tenantId, companyId, since)
                 .collectList()
                 .map(rows -> {
                     List<String> categories = rows.stream()
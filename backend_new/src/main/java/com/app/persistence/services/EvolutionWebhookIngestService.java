@@ -0,0 +1,434 @@
+package com.app.persistence.services;
+
+import com.app.persistence.entity.ChannelEntity;
+import com.app.persistence.entity.ContactEntity;
+import com.app.persistence.entity.ConversationPipelineStateEntity;
+import com.app.persistence.entity.OmniChannelMessageEntity;
+import com.app.persistence.repository.ChannelRepository;
+import com.app.persistence.repository.ConversationPipelineStateRepository;
+import com.app.persistence.repository.PipelineRepository;
+import com.app.persistence.repository.PipelineStageRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.r2dbc.spi.Statement;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.core.reactive.ReactiveKafkaProducerTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverOptions;
+import reactor.kafka.receiver.ReceiverRecord;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Ingesta por lotes de los mensajes entrantes de Evolution API.
+ *
+ * El webhook solo publica el evento en el tópico evolution.webhook.events con
+ * la instancia como clave: los eventos de una instancia van a la misma
+ * partición y se consumen en orden. El consumidor toma micro-lotes, los agrupa
+ * por instancia (cada grupo en orden, grupos en paralelo), resuelve canal y
+ * pipeline por defecto desde caché, inserta los mensajes del grupo en un solo
+ * lote y crea los estados de pipeline faltantes con una consulta por grupo.
+ *
+ * Un grupo que falla se reintenta con backoff; si sigue fallando sus eventos
+ * se publican en evolution.webhook.events.dlq. Los offsets del lote se
+ * confirman solo cuando cada grupo quedó guardado o en el DLQ; si el DLQ
+ * tampoco responde el consumidor se reconecta y relee desde el último offset
+ * confirmado. El insert es idempotente por (channel_id, external_msg_id), así
+ * los grupos que ya se guardaron no se duplican al releerlos.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EvolutionWebhookIngestService {
+
+    public static final String TOPIC = "evolution.webhook.events";
+    public static final String DLQ_TOPIC = TOPIC + ".dlq";
+
+    private static final String GROUP_ID = "backend-new-evolution-webhooks";
+    private static final int BATCH_SIZE = 200;
+    private static final Duration BATCH_WINDOW = Duration.ofMillis(200);
+    private static final int INSTANCE_CONCURRENCY = 8;
+    private static final int GROUP_RETRIES = 3;
+    private static final Duration GROUP_RETRY_BACKOFF = Duration.ofMillis(500);
+    private static final long CHANNEL_TTL_MS = TimeUnit.MINUTES.toMillis(1);
+    private static final long PIPELINE_TTL_MS = TimeUnit.MINUTES.toMillis(5);
+
+    private static final String INSERT_MESSAGE_SQL = "INSERT INTO omni_channel_messages " +
+            "(tenant_id, company_id, channel_id, contact_id, direction, content, external_msg_id, status, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            // Mensaje ya guardado (reentrega de Kafka): devuelve el id existente
+            "ON DUPLICATE KEY UPDATE id = LAST_INSERT_ID(id)";
+
+    private final ReactiveKafkaProducerTemplate<String, Object> kafkaTemplate;
+    private final KafkaProperties kafkaProperties;
+    private final ObjectMapper objectMapper;
+    private final DatabaseClient databaseClient;
+    private final ChannelRepository channelRepository;
+    private final ContactService contactService;
+    private final SocketNotificationService socketNotificationService;
+    private final ConversationPipelineStateRepository conversationPipelineStateRepository;
+    private final PipelineRepository pipelineRepository;
+    private final PipelineStageRepository pipelineStageRepository;
+
+    private final Map<String, Cached<ChannelEntity>> channels = new ConcurrentHashMap<>();
+    private final Map<String, Cached<Optional<DefaultStage>>> defaultStages = new ConcurrentHashMap<>();
+
+    private Disposable consumer;
+
+    /**
+     * Publica un evento MESSAGES_UPSERT para procesarlo por lotes. Si Kafka no
+     * responde el evento se procesa en línea para no perderlo.
+     */
+    public Mono<Void> enqueue(Map<String, Object> payload) {
+        String instance = (String) payload.get("instance");
+        return kafkaTemplate.send(TOPIC, instance, payload)
+                .then()
+                .onErrorResume(e -> {
+                    log.warn("⚠️ [EVOLUTION-INGEST] Kafka unavailable ({}), processing inline", e.getMessage());
+                    return processInstance(instance, List.of(payload));
+                });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Map<String, Object> props = kafkaProperties.buildConsumerProperties(null);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, GROUP_ID);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, BATCH_SIZE);
+
+        ReceiverOptions<String, String> options = ReceiverOptions.<String, String>create(props)
+                .subscription(List.of(TOPIC));
+
+        consumer = KafkaReceiver.create(options)
+                .receive()
+                .bufferTimeout(BATCH_SIZE, BATCH_WINDOW)
+                .concatMap(this::processBatch)
+                .doOnError(e -> log.error("❌ [EVOLUTION-INGEST] Consumer error, reconnecting: {}", e.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe();
+        log.info("🚀 [EVOLUTION-INGEST] Consuming {} in batches of up to {}", TOPIC, BATCH_SIZE);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (consumer != null) {
+            consumer.dispose();
+        }
+    }
+
+    /**
+     * Procesa un lote y confirma sus offsets cuando todos sus eventos quedaron
+     * guardados o en el DLQ. Un error aquí deja el lote sin confirmar.
+     */
+    Mono<Void> processBatch(List<ReceiverRecord<String, String>> records) {
+        Map<String, List<Map<String, Object>>> byInstance = new LinkedHashMap<>();
+        List<Object> invalid = new ArrayList<>();
+        for (ReceiverRecord<String, String> record : records) {
+            Map<String, Object> payload = parse(record.value());
+            String instance = payload != null ? (String) payload.get("instance") : null;
+            if (instance == null) {
+                log.warn("⚠️ [EVOLUTION-INGEST] Event without instance at offset {}, sending to DLQ", record.offset());
+                invalid.add(payload != null ? payload : record.value());
+                continue;
+            }
+            byInstance.computeIfAbsent(instance, key -> new ArrayList<>()).add(payload);
+        }
+
+        return Flux.fromIterable(byInstance.entrySet())
+                .flatMap(entry -> processInstance(entry.getKey(), entry.getValue())
+                        .retryWhen(Retry.backoff(GROUP_RETRIES, GROUP_RETRY_BACKOFF))
+                        .onErrorResume(e -> {
+                            log.error("❌ [EVOLUTION-INGEST] Error processing {} events of instance {}, sending to DLQ: {}",
+                                    entry.getValue().size(), entry.getKey(), e.getMessage(), e);
+                            return deadLetter(entry.getKey(), entry.getValue());
+                        }), INSTANCE_CONCURRENCY)
+                .then(deadLetter(null, invalid))
+                .then(Mono.fromRunnable(() -> records.forEach(record -> record.receiverOffset().acknowledge())));
+    }
+
+    /**
+     * Publica los eventos en el DLQ. Si falla el error sube y el lote no se confirma.
+     */
+    private Mono<Void> deadLetter(String instance, List<?> events) {
+        return Flux.fromIterable(events)
+                .concatMap(event -> kafkaTemplate.send(DLQ_TOPIC, instance, event))
+                .then();
+    }
+
+    private Mono<Void> processInstance(String instance, List<Map<String, Object>> payloads) {
+        if (instance == null) {
+            return Mono.empty();
+        }
+        List<InboundMessage> inbound = payloads.stream()
+                .map(this::toInboundMessage)
+                .filter(Objects::nonNull)
+                .toList();
+        if (inbound.isEmpty()) {
+            return Mono.empty();
+        }
+
+        return resolveChannel(instance)
+                .flatMap(channel -> Flux.fromIterable(inbound)
+                        .concatMap(message -> contactService.getOrCreateContact(channel.getTenantId(),
+                                channel.getCompanyId(), message.remoteJid(), message.pushName())
+                                .map(contact -> new ResolvedMessage(message, contact)))
+                        .collectList()
+                        .flatMap(resolved -> saveMessages(channel, resolved)
+                                .then(ensurePipelineStates(channel, resolved))));
+    }
+
+    private InboundMessage toInboundMessage(Map<String, Object> payload) {
+        if (!(payload.get("data") instanceof Map<?, ?> data)) {
+            return null;
+        }
+
+        String remoteJid = null;
+        String externalId = null;
+        Object key = data.get("key");
+        if (key instanceof Map<?, ?> keyMap) {
+            remoteJid = (String) keyMap.get("remoteJid");
+            externalId = (String) keyMap.get("id");
+        } else if (key instanceof String keyValue) {
+            remoteJid = keyValue;
+        }
+        if (remoteJid == null) {
+            return null;
+        }
+
+        String body = null;
+        if (data.get("message") instanceof Map<?, ?> message) {
+            if (message.containsKey("conversation")) {
+                body = (String) message.get("conversation");
+            } else if (message.get("extendedTextMessage") instanceof Map<?, ?> etm) {
+                body = (String) etm.get("text");
+            }
+        }
+
+        return new InboundMessage(remoteJid, (String) data.get("pushName"), body != null ? body : "", externalId);
+    }
+
+    private Mono<Void> saveMessages(ChannelEntity channel, List<ResolvedMessage> resolved) {
+        if (resolved.isEmpty()) {
+            return Mono.empty();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<OmniChannelMessageEntity> entities = resolved.stream()
+                .map(r -> OmniChannelMessageEntity.builder()
+                        .tenantId(channel.getTenantId())
+                        .companyId(channel.getCompanyId())
+                        .channelId(channel.getId())
+                        .contactId(r.contact().getId())
+                        .direction("INBOUND")
+                        .body(r.message().body())
+                        .externalMessageId(r.message().externalId())
+                        .status("RECEIVED")
+                        .createdAt(now)
+                        .build())
+                .toList();
+
+        return insertMessages(entities)
+                .doOnNext(ids -> {
+                    for (int i = 0; i < entities.size() && i < ids.size(); i++) {
+                        entities.get(i).setId(ids.get(i));
+                        notifySocket(channel, resolved.get(i), entities.get(i));
+                    }
+                    log.info("✉️ [EVOLUTION-INGEST] Saved {} messages for channel {}", entities.size(), channel.getId());
+                })
+                .then();
+    }
+
+    /**
+     * Inserta los mensajes en un solo lote y devuelve sus ids en el mismo orden
+     */
+    private Mono<List<Long>> insertMessages(List<OmniChannelMessageEntity> messages) {
+        return databaseClient.inConnectionMany(connection -> {
+            Statement statement = connection.createStatement(INSERT_MESSAGE_SQL);
+            for (int i = 0; i < messages.size(); i++) {
+                if (i > 0) {
+                    statement.add();
+                }
+                OmniChannelMessageEntity message = messages.get(i);
+                statement.bind(0, message.getTenantId())
+                        .bind(1, message.getCompanyId())
+                        .bind(2, message.getChannelId())
+                        .bind(3, message.getContactId())
+                        .bind(4, message.getDirection())
+                        .bind(5, message.getBody())
+                        .bind(7, message.getStatus())
+                        .bind(8, message.getCreatedAt());
+                if (message.getExternalMessageId() != null) {
+                    statement.bind(6, message.getExternalMessageId());
+                } else {
+                    statement.bindNull(6, String.class);
+                }
+            }
+            return Flux.from(statement.returnGeneratedValues("id").execute())
+                    .concatMap(result -> result.map((row, metadata) -> row.get(0, Long.class)));
+        }).collectList();
+    }
+
+    private void notifySocket(ChannelEntity channel, ResolvedMessage resolved, OmniChannelMessageEntity saved) {
+        Map<String, Object> socketPayload = new HashMap<>();
+        socketPayload.put("messageId", saved.getId());
+        socketPayload.put("conversationId", resolved.message().remoteJid());
+        socketPayload.put("tenantId", channel.getTenantId());
+        socketPayload.put("companyId", channel.getCompanyId());
+        socketPayload.put("platform", "WHATSAPP");
+        socketPayload.put("direction", "INBOUND");
+        socketPayload.put("body", saved.getBody());
+        socketPayload.put("displayName", resolved.message().pushName());
+        socketPayload.put("contactId", resolved.contact().getId());
+        socketPayload.put("messageType", "TEXT");
+        socketNotificationService.notifyNewMessage(socketPayload).subscribe();
+    }
+
+    /**
+     * Crea el estado de pipeline de las conversaciones del grupo que aún no lo tienen
+     */
+    private Mono<Void> ensurePipelineStates(ChannelEntity channel, List<ResolvedMessage> resolved) {
+        Map<String, Long> contactByConversation = new LinkedHashMap<>();
+        resolved.forEach(r -> contactByConversation.putIfAbsent(r.message().remoteJid(), r.contact().getId()));
+        if (contactByConversation.isEmpty()) {
+            return Mono.empty();
+        }
+
+        return conversationPipelineStateRepository
+                .findByTenantIdAndConversationIdIn(channel.getTenantId(), contactByConversation.keySet())
+                .map(ConversationPipelineStateEntity::getConversationId)
+                .collect(Collectors.toSet())
+                .flatMap(existing -> {
+                    Set<String> missing = contactByConversation.keySet().stream()
+                            .filter(conversationId -> !existing.contains(conversationId))
+                            .collect(Collectors.toCollection(LinkedHashSet::new));
+                    if (missing.isEmpty()) {
+                        return Mono.empty();
+                    }
+                    return resolveDefaultStage(channel)
+                            .flatMap(stage -> {
+                                LocalDateTime now = LocalDateTime.now();
+                                List<ConversationPipelineStateEntity> states = missing.stream()
+                                        .map(conversationId -> ConversationPipelineStateEntity.builder()
+                                                .tenantId(channel.getTenantId())
+                                                .companyId(channel.getCompanyId())
+                                                .conversationId(conversationId)
+                                                .contactId(contactByConversation.get(conversationId))
+                                                .pipelineId(stage.pipelineId())
+                                                .currentStageId(stage.stageId())
+                                                .priority("MEDIUM")
+                                                .source("WHATSAPP")
+                                                .enteredStageAt(now)
+                                                .isActive(true)
+                                                .createdAt(now)
+                                                .build())
+                                        .toList();
+                                return conversationPipelineStateRepository.saveAll(states).then();
+                            });
+                });
+    }
+
+    /**
+     * Canal de la instancia; si no hay coincidencia exacta se infiere la
+     * compañía a partir de los dígitos del nombre de la instancia. Solo se
+     * cachean los canales encontrados: un canal recién creado recibe sus
+     * mensajes de inmediato.
+     */
+    private Mono<ChannelEntity> resolveChannel(String instance) {
+        Cached<ChannelEntity> cached = channels.get(instance);
+        if (cached != null && cached.isFresh()) {
+            return Mono.just(cached.value());
+        }
+
+        return channelRepository.findByInstanceName(instance)
+                .switchIfEmpty(Mono.defer(() -> {
+                    log.warn("⚠️ [EVOLUTION-INGEST] No exact channel match for instance: {}. Attempting fallback...", instance);
+                    String numericPart = instance.replaceAll("[^0-9]", "");
+                    if (numericPart.isEmpty()) {
+                        return Mono.empty();
+                    }
+                    try {
+                        return channelRepository.findByCompanyId(Long.parseLong(numericPart)).next();
+                    } catch (NumberFormatException e) {
+                        log.error("❌ [EVOLUTION-INGEST] Error parsing fallback ID: {}", e.getMessage());
+                        return Mono.empty();
+                    }
+                }))
+                .doOnNext(channel -> channels.put(instance,
+                        new Cached<>(channel, System.currentTimeMillis() + CHANNEL_TTL_MS)));
+    }
+
+    /**
+     * Primera etapa del pipeline por defecto de la compañía
+     */
+    private Mono<DefaultStage> resolveDefaultStage(ChannelEntity channel) {
+        String key = channel.getTenantId() + ":" + channel.getCompanyId();
+        Cached<Optional<DefaultStage>> cached = defaultStages.get(key);
+        if (cached != null && cached.isFresh()) {
+            return Mono.justOrEmpty(cached.value());
+        }
+
+        return pipelineRepository.findByTenantIdAndCompanyIdAndIsDefaultTrue(channel.getTenantId(), channel.getCompanyId())
+                .next()
+                .flatMap(pipeline -> pipelineStageRepository.findByPipelineIdOrderByPositionAsc(pipeline.getId())
+                        .next()
+                        .map(stage -> new DefaultStage(pipeline.getId(), stage.getId())))
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .doOnNext(stage -> defaultStages.put(key,
+                        new Cached<>(stage, System.currentTimeMillis() + PIPELINE_TTL_MS)))
+                .flatMap(Mono::justOrEmpty);
+    }
+
+    private Map<String, Object> parse(String value) {
+        try {
+            return objectMapper.readValue(value, new TypeReference<Map<String, Object>>() {
+            });
+        } catch (Exception e) {
+            log.error("❌ [EVOLUTION-INGEST] Invalid event payload: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private record InboundMessage(String remoteJid, String pushName, String body, String externalId) {
+    }
+
+    private record ResolvedMessage(InboundMessage message, ContactEntity contact) {
+    }
+
+    private record DefaultStage(Long pipelineId, Long stageId) {
+    }
+
+    private record Cached<T>(T value, long expiresAt) {
+        boolean isFresh() {
+            return expiresAt > System.currentTimeMillis();
+        }
+    }
+}
@@ -35,6 +35,7 @@ public class OrderService {
     private final ContactRepository contactRepository;
     private final KafkaTemplate<String, String> kafkaTemplate;
     private final ObjectMapper objectMapper;
+    private final SalesAggregateService salesAggregateService;
 
     public Flux<OrderResponseDTO> listByTenant(Long tenantId, Long companyId) {
         Flux<OrderEntity> orders;
@@ -82,7 +83,8 @@ public class OrderService {
                     .updatedAt(LocalDateTime.now())
                     .build();
 
-            return orderRepository.save(order);
+            return orderRepository.save(order)
+                    .flatMap(savedOrder -> salesAggregateService.recordSale(savedOrder).thenReturn(savedOrder));
         })
                 .flatMap(savedOrder -> {
                     if (request.getItems() == null || request.getItems().isEmpty()) {
@@ -126,6 +128,14 @@ public class OrderService {
     public Mono<OrderResponseDTO> updateOrder(Long id, OrderRequestDTO request) {
         return orderRepository.findById(id)
                 .flatMap(existingOrder -> {
+                    // Versión anterior para descontarla del acumulado diario
+                    OrderEntity previous = OrderEntity.builder()
+                            .tenantId(existingOrder.getTenantId())
+                            .companyId(existingOrder.getCompanyId())
+                            .createdAt(existingOrder.getCreatedAt())
+                            .total(existingOrder.getTotal())
+                            .build();
+
                     existingOrder.setCustomerId(request.getCustomerId());
                     existingOrder.setCustomerName(request.getCustomerName());
                     existingOrder.setNotes(request.getNotes());
@@ -159,6 +169,9 @@ public class OrderService {
                             .collectList()
                             .flatMap(newItems -> orderItemRepository.saveAll(newItems).collectList())
                             .then(orderRepository.save(existingOrder))
+                            .flatMap(savedOrder -> salesAggregateService.recordRemoval(previous)
+                                    .then(salesAggregateService.recordSale(savedOrder))
+                                    .thenReturn(savedOrder))
                             .flatMap(this::enrichWithItemsAndCustomer)
                             .doOnSuccess(dto -> sendWebNotification(
                                 dto.getTenantId(), dto.getCompanyId(), null,
@@ -169,7 +182,9 @@ public class OrderService {
 
     @Transactional
     public Mono<Void> deleteOrder(Long id) {
-        return orderItemRepository.deleteByOrderId(id)
+        return orderRepository.findById(id)
+                .flatMap(salesAggregateService::recordRemoval)
+                .then(orderItemRepository.deleteByOrderId(id))
                 .then(orderRepository.deleteById(id));
     }
 
@@ -38,6 +38,7 @@ public class QuoteService {
     private final ContactRepository contactRepository;
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
+    private final SalesAggregateService salesAggregateService;
 
     public Flux<QuoteResponseDTO> listByTenant(Long tenantId, Long companyId) {
         Flux<QuoteEntity> quotes;
@@ -181,6 +182,7 @@ public class QuoteService {
                             .build();
 
                     return orderRepository.save(order)
+                            .flatMap(savedOrder -> salesAggregateService.recordSale(savedOrder).thenReturn(savedOrder))
                             .flatMap(savedOrder -> quoteItemRepository.findByQuoteId(quoteId)
                                     .map(quoteItem -> OrderItemEntity.builder()
                                             .orderId(savedOrder.getId())
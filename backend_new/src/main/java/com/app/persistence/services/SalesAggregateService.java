@@ -0,0 +1,49 @@
+package com.app.persistence.services;
+
+import com.app.dto.SalesHistoryDTO;
+import com.app.persistence.entity.OrderEntity;
+import com.app.persistence.repository.DailySalesRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Acumulado diario de ventas (daily_sales), compartido con el dashboard de
+ * backend. Cada pedido suma en el día en que se creó; al modificarlo se
+ * resta su versión anterior y se suma la nueva, y al eliminarlo se resta.
+ */
+@Service
+@RequiredArgsConstructor
+public class SalesAggregateService {
+
+    private final DailySalesRepository dailySalesRepository;
+
+    public Mono<Void> recordSale(OrderEntity order) {
+        return apply(order, 1);
+    }
+
+    public Mono<Void> recordRemoval(OrderEntity order) {
+        return apply(order, -1);
+    }
+
+    public Flux<SalesHistoryDTO> getSalesHistory(Long tenantId, Long companyId, LocalDate since) {
+        return dailySalesRepository.getSalesHistory(tenantId, companyId, since);
+    }
+
+    private Mono<Void> apply(OrderEntity order, int sign) {
+        LocalDateTime createdAt = order.getCreatedAt() != null ? order.getCreatedAt() : LocalDateTime.now();
+        BigDecimal total = order.getTotal() != null ? order.getTotal() : BigDecimal.ZERO;
+        return dailySalesRepository.add(
+                order.getTenantId(),
+                order.getCompanyId() != null ? order.getCompanyId() : 0L,
+                createdAt.toLocalDate(),
+                sign,
+                sign > 0 ? total : total.negate())
+                .then();
+    }
+}
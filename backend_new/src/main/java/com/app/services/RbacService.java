@@ -17,6 +17,8 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,6 +32,9 @@ public class RbacService {
     private final UserRepository userRepository;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    // menu_items compilados por módulo; se recompilan solo si cambia el JSON
+    private final Map<Long, CompiledMenu> compiledMenus = new ConcurrentHashMap<>();
+
     public Mono<List<MenuItemDTO>> generateMenuForRoles(List<String> roles, Long customerId, String username) {
         boolean isManager = roles != null && roles.contains("MANAGER");
 
@@ -67,7 +72,7 @@ public class RbacService {
             })
                 .sort(Comparator.comparingInt(m -> m.getDisplayOrder() != null ? m.getDisplayOrder() : 0))
                 .map(module -> {
-                    List<MenuItemDTO> children = parseMenuItems(module.getMenuItems());
+                    List<MenuItemDTO> children = compiledChildren(module);
                     return MenuItemDTO.builder()
                             .label(module.getName())
                             .icon(module.getIcon())
@@ -92,6 +97,24 @@ public class RbacService {
                 });
     }
 
+    /**
+     * Hijos del módulo ya parseados. Las instancias se comparten entre
+     * peticiones, por lo que solo deben serializarse.
+     */
+    private List<MenuItemDTO> compiledChildren(com.app.persistence.entity.ModuleEntity module) {
+        String source = module.getMenuItems();
+        CompiledMenu compiled = module.getId() != null ? compiledMenus.get(module.getId()) : null;
+        if (compiled != null && Objects.equals(compiled.source(), source)) {
+            return compiled.children();
+        }
+
+        compiled = new CompiledMenu(source, parseMenuItems(source));
+        if (module.getId() != null) {
+            compiledMenus.put(module.getId(), compiled);
+        }
+        return compiled.children();
+    }
+
     private List<MenuItemDTO> parseMenuItems(String menuItemsJson) {
         if (menuItemsJson == null || menuItemsJson.trim().isEmpty()) {
             return List.of();
@@ -104,12 +127,16 @@ public class RbacService {
                             .href((String) item.get("href"))
                             .icon((String) item.getOrDefault("icon", null))
                             .build())
-                    .collect(Collectors.toList());
+                    .toList();
         } catch (Exception e) {
             log.error("Failed to parse menu items JSON: {}", menuItemsJson, e);
             return List.of();
         }
     }
+
+    private record CompiledMenu(String source, List<MenuItemDTO> children) {
+    }
+
     public Flux<com.app.persistence.entity.ModuleEntity> getModulesList() {
         return moduleRepository.findAll()
                 .sort(Comparator.comparingInt(m -> m.getDisplayOrder() != null ? m.getDisplayOrder() : 0));
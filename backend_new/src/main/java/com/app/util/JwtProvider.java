@@ -28,6 +28,8 @@ public class JwtProvider {
     @Value("${jwt.expiration:86400000}")
     private long expiration;
 
+    private volatile JWTVerifier verifier;
+
     public String createToken(Authentication authentication, Long customerId, Long companyId) {
         log.info("🔑 Creating token for user: {}, customerId: {}, companyId: {}", authentication.getName(), customerId, companyId);
         String username = authentication.getName();
@@ -54,11 +56,19 @@ public class JwtProvider {
     }
 
     public DecodedJWT validateToken(String token) {
-        Algorithm algorithm = Algorithm.HMAC256(secretKey);
-        JWTVerifier verifier = JWT.require(algorithm)
-                .withIssuer(issuer)
-                .build();
-        return verifier.verify(token);
+        return verifier().verify(token);
+    }
+
+    // El verificador es inmutable y seguro entre hilos: se construye una sola vez
+    private JWTVerifier verifier() {
+        JWTVerifier current = this.verifier;
+        if (current == null) {
+            current = JWT.require(Algorithm.HMAC256(secretKey))
+                    .withIssuer(issuer)
+                    .build();
+            this.verifier = current;
+        }
+        return current;
     }
 
     public String extractUsername(DecodedJWT decodedJWT) {
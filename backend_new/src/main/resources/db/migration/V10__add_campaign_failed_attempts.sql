@@ -0,0 +1,6 @@
+-- Reintentos de ejecución de campañas (marketing-worker)
+-- failed_attempts: ejecuciones seguidas que terminaron con error; al llegar al máximo la campaña pasa a FAILED
+-- next_attempt_at: antes de esta hora el escaneo de recuperación no la reanuda (backoff)
+ALTER TABLE campaigns
+    ADD COLUMN IF NOT EXISTS failed_attempts INT NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS next_attempt_at DATETIME NULL;
@@ -0,0 +1,22 @@
+-- Ventas acumuladas por tenant, compañía y día para el dashboard
+-- Se actualiza al crear, modificar o eliminar pedidos; company_id 0 = sin compañía (POS)
+CREATE TABLE IF NOT EXISTS daily_sales (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    tenant_id BIGINT NOT NULL,
+    company_id BIGINT NOT NULL DEFAULT 0,
+    sales_date DATE NOT NULL,
+    order_count INT NOT NULL,
+    revenue DECIMAL(19, 2) NOT NULL,
+    updated_at DATETIME NULL,
+    UNIQUE KEY uk_daily_sales (tenant_id, company_id, sales_date),
+    INDEX idx_daily_sales_date (sales_date)
+);
+
+-- Carga inicial desde los pedidos existentes: única carga de la tabla (backend y
+-- backend_new solo la actualizan por pedido, ambos con COALESCE(company_id, 0))
+INSERT INTO daily_sales (tenant_id, company_id, sales_date, order_count, revenue, updated_at)
+SELECT tenant_id, COALESCE(company_id, 0), DATE(created_at), COUNT(*), COALESCE(SUM(total), 0), NOW()
+FROM orders
+WHERE created_at IS NOT NULL AND (status IS NULL OR status <> 'CANCELLED')
+GROUP BY tenant_id, COALESCE(company_id, 0), DATE(created_at)
+ON DUPLICATE KEY UPDATE order_count = VALUES(order_count), revenue = VALUES(revenue), updated_at = VALUES(updated_at);
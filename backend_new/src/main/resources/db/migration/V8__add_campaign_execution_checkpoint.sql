@@ -0,0 +1,7 @@
+-- Checkpoint y lease de ejecución de campañas (marketing-worker)
+-- last_contact_id: todos los contactos con id <= last_contact_id ya se procesaron
+-- worker_id / lease_expires_at: réplica que ejecuta la campaña y hasta cuándo la retiene
+ALTER TABLE campaigns
+    ADD COLUMN IF NOT EXISTS last_contact_id BIGINT NULL,
+    ADD COLUMN IF NOT EXISTS worker_id VARCHAR(100) NULL,
+    ADD COLUMN IF NOT EXISTS lease_expires_at DATETIME NULL;
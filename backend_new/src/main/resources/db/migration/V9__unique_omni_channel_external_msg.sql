@@ -0,0 +1,13 @@
+-- Idempotencia de la ingesta de Evolution: una reentrega de Kafka no duplica mensajes
+-- external_msg_id NULL no participa en la restricción
+
+-- Duplicados existentes: se conserva el primer mensaje guardado
+DELETE m FROM omni_channel_messages m
+JOIN omni_channel_messages keep
+    ON keep.channel_id = m.channel_id
+    AND keep.external_msg_id = m.external_msg_id
+    AND keep.id < m.id
+WHERE m.external_msg_id IS NOT NULL;
+
+ALTER TABLE omni_channel_messages
+    ADD UNIQUE KEY uk_omni_channel_external_msg (channel_id, external_msg_id);
@@ -0,0 +1,147 @@
+package com.app.persistence.services;
+
+import com.app.persistence.repository.ChannelRepository;
+import com.app.persistence.repository.ConversationPipelineStateRepository;
+import com.app.persistence.repository.PipelineRepository;
+import com.app.persistence.repository.PipelineStageRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.kafka.core.reactive.ReactiveKafkaProducerTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.receiver.ReceiverOffset;
+import reactor.kafka.receiver.ReceiverRecord;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EvolutionWebhookIngestServiceTest {
+
+    private static final String EVENT = "{\"instance\":\"cloudfly_7\",\"data\":{\"key\":" +
+            "{\"remoteJid\":\"573001112233@s.whatsapp.net\",\"id\":\"ABC\"},\"message\":{\"conversation\":\"hola\"}}}";
+
+    @Mock
+    private ReactiveKafkaProducerTemplate<String, Object> kafkaTemplate;
+    @Mock
+    private KafkaProperties kafkaProperties;
+    @Mock
+    private DatabaseClient databaseClient;
+    @Mock
+    private ChannelRepository channelRepository;
+    @Mock
+    private ContactService contactService;
+    @Mock
+    private SocketNotificationService socketNotificationService;
+    @Mock
+    private ConversationPipelineStateRepository conversationPipelineStateRepository;
+    @Mock
+    private PipelineRepository pipelineRepository;
+    @Mock
+    private PipelineStageRepository pipelineStageRepository;
+
+    private EvolutionWebhookIngestService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new EvolutionWebhookIngestService(kafkaTemplate, kafkaProperties, new ObjectMapper(),
+                databaseClient, channelRepository, contactService, socketNotificationService,
+                conversationPipelineStateRepository, pipelineRepository, pipelineStageRepository);
+    }
+
+    @Test
+    void acknowledgesBatchOncePersisted() {
+        // Sin canal para la instancia: el grupo termina sin nada que guardar
+        when(channelRepository.findByInstanceName("cloudfly_7")).thenReturn(Mono.empty());
+        when(channelRepository.findByCompanyId(7L)).thenReturn(Flux.empty());
+        ReceiverOffset offset = mock(ReceiverOffset.class);
+
+        StepVerifier.create(service.processBatch(List.of(record(EVENT, offset))))
+                .verifyComplete();
+
+        verify(offset).acknowledge();
+        verify(kafkaTemplate, never()).send(eq(EvolutionWebhookIngestService.DLQ_TOPIC), any(), any());
+    }
+
+    @Test
+    void missingChannelIsLookedUpAgainOnTheNextBatch() {
+        when(channelRepository.findByInstanceName("cloudfly_7")).thenReturn(Mono.empty());
+        when(channelRepository.findByCompanyId(7L)).thenReturn(Flux.empty());
+
+        StepVerifier.create(service.processBatch(List.of(record(EVENT, mock(ReceiverOffset.class)))))
+                .verifyComplete();
+        StepVerifier.create(service.processBatch(List.of(record(EVENT, mock(ReceiverOffset.class)))))
+                .verifyComplete();
+
+        // Sin caché de ausencias: un canal creado entre ambos lotes se encuentra
+        verify(channelRepository, times(2)).findByInstanceName("cloudfly_7");
+    }
+
+    @Test
+    void failedGroupIsRetriedThenDeadLetteredBeforeAck() {
+        when(channelRepository.findByInstanceName("cloudfly_7"))
+                .thenReturn(Mono.error(new RuntimeException("db down")));
+        when(kafkaTemplate.send(eq(EvolutionWebhookIngestService.DLQ_TOPIC), eq("cloudfly_7"), any()))
+                .thenReturn(Mono.empty());
+        ReceiverOffset offset = mock(ReceiverOffset.class);
+
+        StepVerifier.withVirtualTime(() -> service.processBatch(List.of(record(EVENT, offset))))
+                .thenAwait(Duration.ofMinutes(1))
+                .verifyComplete();
+
+        verify(kafkaTemplate).send(eq(EvolutionWebhookIngestService.DLQ_TOPIC), eq("cloudfly_7"), any());
+        verify(offset).acknowledge();
+    }
+
+    @Test
+    void batchIsNotAcknowledgedWhenDeadLetterFails() {
+        when(channelRepository.findByInstanceName("cloudfly_7"))
+                .thenReturn(Mono.error(new RuntimeException("db down")));
+        when(kafkaTemplate.send(eq(EvolutionWebhookIngestService.DLQ_TOPIC), eq("cloudfly_7"), any()))
+                .thenReturn(Mono.error(new RuntimeException("kafka down")));
+        ReceiverOffset offset = mock(ReceiverOffset.class);
+
+        StepVerifier.withVirtualTime(() -> service.processBatch(List.of(record(EVENT, offset))))
+                .thenAwait(Duration.ofMinutes(1))
+                .verifyErrorMessage("kafka down");
+
+        verify(offset, never()).acknowledge();
+    }
+
+    @Test
+    void invalidEventGoesToDeadLetter() {
+        when(kafkaTemplate.send(eq(EvolutionWebhookIngestService.DLQ_TOPIC), any(), eq("not json")))
+                .thenReturn(Mono.empty());
+        ReceiverOffset offset = mock(ReceiverOffset.class);
+
+        StepVerifier.create(service.processBatch(List.of(record("not json", offset))))
+                .verifyComplete();
+
+        verify(kafkaTemplate).send(eq(EvolutionWebhookIngestService.DLQ_TOPIC), any(), eq("not json"));
+        verify(offset).acknowledge();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ReceiverRecord<String, String> record(String value, ReceiverOffset offset) {
+        ReceiverRecord<String, String> record = mock(ReceiverRecord.class);
+        when(record.value()).thenReturn(value);
+        lenient().when(record.receiverOffset()).thenReturn(offset);
+        return record;
+    }
+}
@@ -362,7 +362,9 @@ const ProductViewLayout = () => {
       // mezclamos con el estado inicial para asegurar que existan las props
       const merged = {
         ...initialProduct,
-        ...productData
+        ...productData,
+        // Stock sobre el que se edita: el backend rechaza el cambio si una venta lo movió
+        expectedInventoryQty: productData.inventoryQty ?? 0
       }
       setProduct(merged)
     }
@@ -5,6 +5,21 @@ import { axiosInstance } from '@/utils/axiosInstance'
 import { useSocket } from '@/contexts/SocketContext'
 import type { ContactGroup, ContactCard, MessagePlatform } from '@/types/apps/chatTypes'
 
+const PAGE_SIZE = 100
+
+// Agrega una página a los grupos cargados; una conversación que cambió de página no se duplica
+const mergeGroups = (prev: ContactGroup, page: ContactGroup): ContactGroup => {
+    const groups = { ...prev.groups }
+
+    for (const stage of Object.keys(groups) as Array<keyof typeof groups>) {
+        const seen = new Set(groups[stage].map(c => c.conversationId))
+
+        groups[stage] = [...groups[stage], ...(page.groups[stage] || []).filter(c => !seen.has(c.conversationId))]
+    }
+
+    return { groups }
+}
+
 export const useContactList = (platform: MessagePlatform) => {
     const { subscribePlatform } = useSocket()
     const [contacts, setContacts] = useState<ContactGroup>({
@@ -15,15 +30,28 @@ export const useContactList = (platform: MessagePlatform) => {
         }
     })
     const [loading, setLoading] = useState(false)
+    const [loadingMore, setLoadingMore] = useState(false)
+    const [nextCursor, setNextCursor] = useState<string | null>(null)
     const [error, setError] = useState<string | null>(null)
 
+    const fetchPage = useCallback(async (cursor?: string | null): Promise<ContactGroup> => {
+        const response = await axiosInstance.get(`/api/chat/contacts/${platform}`, {
+            params: cursor ? { cursor, limit: PAGE_SIZE } : { limit: PAGE_SIZE }
+        })
+
+        return response.data
+    }, [platform])
+
+    // Primera página (recarga completa)
     const loadContacts = useCallback(async () => {
         try {
             setLoading(true)
             setError(null)
 
-            const response = await axiosInstance.get(`/api/chat/contacts/${platform}`)
-            setContacts(response.data)
+            const page = await fetchPage()
+
+            setContacts({ groups: page.groups })
+            setNextCursor(page.nextCursor ?? null)
 
         } catch (err: any) {
             console.error('Error loading contacts:', err)
@@ -31,7 +59,27 @@ export const useContactList = (platform: MessagePlatform) => {
         } finally {
             setLoading(false)
         }
-    }, [platform])
+    }, [fetchPage])
+
+    // Siguiente página: se agrega a los grupos ya cargados
+    const loadMore = useCallback(async () => {
+        if (!nextCursor || loadingMore) return
+
+        try {
+            setLoadingMore(true)
+
+            const page = await fetchPage(nextCursor)
+
+            setContacts(prev => mergeGroups(prev, page))
+            setNextCursor(page.nextCursor ?? null)
+
+        } catch (err: any) {
+            console.error('Error loading more contacts:', err)
+            setError(err.message || 'Error al cargar contactos')
+        } finally {
+            setLoadingMore(false)
+        }
+    }, [fetchPage, nextCursor, loadingMore])
 
     // Suscribirse a actualizaciones de la plataforma
     useEffect(() => {
@@ -79,6 +127,9 @@ export const useContactList = (platform: MessagePlatform) => {
     return {
         contacts,
         loading,
+        loadingMore,
+        hasMore: nextCursor !== null,
+        loadMore,
         error,
         refreshContacts: loadContacts,
         updateContactStage
@@ -1,7 +1,7 @@
 'use client'
 
 import { useState } from 'react'
-import { Box, Grid, Typography, CircularProgress, Alert, Paper } from '@mui/material'
+import { Box, Grid, Typography, CircularProgress, Alert, Paper, Button } from '@mui/material'
 import { useContactList } from '@/hooks/useContactList'
 import ContactCard from './ContactCard'
 import ChatWindow from './ChatWindow'
@@ -12,7 +12,7 @@ interface Props {
 }
 
 export default function KanbanBoard({ platform }: Props) {
-    const { contacts, loading, error, updateContactStage } = useContactList(platform)
+    const { contacts, loading, loadingMore, hasMore, loadMore, error, updateContactStage } = useContactList(platform)
     const [selectedContact, setSelectedContact] = useState<ContactCardType | null>(null)
 
     if (loading) {
@@ -130,6 +130,15 @@ export default function KanbanBoard({ platform }: Props) {
                 ))}
             </Grid>
 
+            {/* Siguiente página del inbox */}
+            {hasMore && (
+                <Box sx={{ display: 'flex', justifyContent: 'center', mt: 3 }}>
+                    <Button variant="outlined" onClick={loadMore} disabled={loadingMore}>
+                        {loadingMore ? <CircularProgress size={20} /> : 'Cargar más conversaciones'}
+                    </Button>
+                </Box>
+            )}
+
             {/* Chat Window */}
             {selectedContact && (
                 <ChatWindow
@@ -45,6 +45,7 @@ export default function EditProductPage() {
     sku: '',
     barcode: '',
     inventoryQty: 0,
+    expectedInventoryQty: 0,
     manageStock: true,
     status: 'PUBLISHED',
     productType: 'PRODUCT',
@@ -80,6 +81,8 @@ export default function EditProductPage() {
           sku: product.sku || '',
           barcode: product.barcode || '',
           inventoryQty: product.inventoryQty || 0,
+          // Stock sobre el que se edita: el backend rechaza el cambio si una venta lo movió
+          expectedInventoryQty: product.inventoryQty || 0,
           manageStock: product.manageStock ?? true,
           status: product.status || 'PUBLISHED',
           productType: product.productType || 'PRODUCT',
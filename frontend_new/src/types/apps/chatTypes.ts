@@ -56,6 +56,9 @@ export interface ContactGroup {
     POTENTIAL: ContactCard[]
     CLIENT: ContactCard[]
   }
+
+  // Cursor de la siguiente página del inbox (null si no hay más)
+  nextCursor?: string | null
 }
 
 export interface SendMessageRequest {
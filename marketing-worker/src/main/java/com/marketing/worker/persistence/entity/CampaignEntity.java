@@ -61,4 +61,22 @@ public class CampaignEntity {
 
     @Column("total_failed")
     private Integer totalFailed;
+
+    // Execution checkpoint: every contact with id <= last_contact_id has been processed
+    @Column("last_contact_id")
+    private Long lastContactId;
+
+    // Worker currently running the campaign and until when it holds it
+    @Column("worker_id")
+    private String workerId;
+
+    @Column("lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    // Consecutive runs that ended with an error, and when recovery may resume it again
+    @Column("failed_attempts")
+    private Integer failedAttempts;
+
+    @Column("next_attempt_at")
+    private LocalDateTime nextAttemptAt;
 }
@@ -18,6 +18,10 @@ public class ContactEntity {
     private String name;
     private String email;
     private String phone;
+    private String address;
+
+    @Column("document_number")
+    private String documentNumber;
 
     @Column("tenant_id")
     private Long tenantId;
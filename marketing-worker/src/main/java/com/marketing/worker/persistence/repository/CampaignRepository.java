@@ -1,9 +1,67 @@
 package com.marketing.worker.persistence.repository;
 
 import com.marketing.worker.persistence.entity.CampaignEntity;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 
 @Repository
 public interface CampaignRepository extends ReactiveCrudRepository<CampaignEntity, Long> {
+
+    // Takes the campaign unless another worker holds a live lease on it; runs of this
+    // worker are tracked in CampaignCheckpointService, which rejects a second claim
+    @Modifying
+    @Query("UPDATE campaigns SET status = 'RUNNING', worker_id = :workerId, lease_expires_at = :leaseUntil " +
+           "WHERE id = :id AND (worker_id IS NULL OR worker_id = :workerId " +
+           "OR lease_expires_at IS NULL OR lease_expires_at < :now)")
+    Mono<Integer> claim(Long id, String workerId, LocalDateTime leaseUntil, LocalDateTime now);
+
+    // A new trigger starts over: cursor and failure count are cleared
+    @Modifying
+    @Query("UPDATE campaigns SET last_contact_id = NULL, failed_attempts = 0, next_attempt_at = NULL " +
+           "WHERE id = :id AND worker_id = :workerId")
+    Mono<Integer> resetCursor(Long id, String workerId);
+
+    @Modifying
+    @Query("UPDATE campaigns SET last_contact_id = GREATEST(COALESCE(last_contact_id, 0), :cursor), " +
+           "total_sent = :sent, total_failed = :failed, lease_expires_at = :leaseUntil " +
+           "WHERE id = :id AND worker_id = :workerId")
+    Mono<Integer> checkpoint(Long id, String workerId, Long cursor, Integer sent, Integer failed,
+                             LocalDateTime leaseUntil);
+
+    @Modifying
+    @Query("UPDATE campaigns SET status = 'COMPLETED', total_sent = :sent, total_failed = :failed, " +
+           "worker_id = NULL, lease_expires_at = NULL, failed_attempts = 0, next_attempt_at = NULL " +
+           "WHERE id = :id AND worker_id = :workerId")
+    Mono<Integer> complete(Long id, String workerId, Integer sent, Integer failed);
+
+    @Modifying
+    @Query("UPDATE campaigns SET lease_expires_at = :leaseUntil " +
+           "WHERE id IN (:ids) AND worker_id = :workerId AND status = 'RUNNING'")
+    Mono<Integer> renewLeases(Collection<Long> ids, String workerId, LocalDateTime leaseUntil);
+
+    // Releases a failed run: counts the failure and keeps the recovery scan away for
+    // :backoffMinutes doubled per previous failure; the run that reaches :maxAttempts marks
+    // the campaign FAILED. MySQL applies SET left to right, so status and next_attempt_at
+    // see the count before the increment
+    @Modifying
+    @Query("UPDATE campaigns SET " +
+           "status = CASE WHEN failed_attempts + 1 >= :maxAttempts THEN 'FAILED' ELSE status END, " +
+           "next_attempt_at = TIMESTAMPADD(MINUTE, :backoffMinutes << failed_attempts, :now), " +
+           "failed_attempts = failed_attempts + 1, worker_id = NULL, lease_expires_at = NULL " +
+           "WHERE id = :id AND worker_id = :workerId AND status = 'RUNNING'")
+    Mono<Integer> fail(Long id, String workerId, LocalDateTime now, Integer backoffMinutes, Integer maxAttempts);
+
+    // RUNNING campaigns whose worker stopped renewing its lease (restart, crash or deploy),
+    // once the backoff of their last failed run has passed
+    @Query("SELECT * FROM campaigns WHERE status = 'RUNNING' " +
+           "AND (worker_id IS NULL OR lease_expires_at IS NULL OR lease_expires_at < :now) " +
+           "AND (next_attempt_at IS NULL OR next_attempt_at <= :now) ORDER BY id")
+    Flux<CampaignEntity> findAbandoned(LocalDateTime now);
 }
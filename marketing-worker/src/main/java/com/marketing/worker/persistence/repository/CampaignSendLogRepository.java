@@ -1,7 +1,12 @@
 package com.marketing.worker.persistence.repository;
 
 import com.marketing.worker.persistence.entity.CampaignSendLogEntity;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Mono;
 
 public interface CampaignSendLogRepository extends ReactiveCrudRepository<CampaignSendLogEntity, Long> {
+
+    @Query("SELECT COUNT(*) FROM campaign_send_logs WHERE campaign_id = :campaignId AND status = :status")
+    Mono<Long> countByCampaignIdAndStatus(Long campaignId, String status);
 }
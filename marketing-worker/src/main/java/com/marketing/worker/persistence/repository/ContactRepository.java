@@ -9,12 +9,22 @@ import reactor.core.publisher.Flux;
 @Repository
 public interface ContactRepository extends ReactiveCrudRepository<ContactEntity, Long> {
 
+    // Keyset pages ordered by id: the next page starts after the last id of the previous one,
+    // which is also how a campaign resumes after its last checkpoint. Contacts that already
+    // have a log for the campaign (uq_campaign_contact) are left out by the query itself
     @Query("SELECT c.* FROM contacts c " +
            "JOIN sending_list_contacts slc ON c.id = slc.contact_id " +
-           "WHERE slc.sending_list_id = :listId AND c.is_active = 1")
-    Flux<ContactEntity> findBySendingListId(Long listId);
+           "WHERE slc.sending_list_id = :listId AND slc.contact_id > :afterId AND c.is_active = 1 " +
+           "AND NOT EXISTS (SELECT 1 FROM campaign_send_logs l " +
+           "    WHERE l.campaign_id = :campaignId AND l.contact_id = c.id) " +
+           "ORDER BY slc.contact_id LIMIT :limit")
+    Flux<ContactEntity> findBySendingListId(Long listId, Long campaignId, Long afterId, int limit);
 
-    @Query("SELECT * FROM contacts " +
-           "WHERE pipeline_id = :pipelineId AND stage = :stage AND is_active = 1")
-    Flux<ContactEntity> findByPipelineAndStage(Long pipelineId, String stage);
+    @Query("SELECT c.* FROM contacts c " +
+           "WHERE c.pipeline_id = :pipelineId AND c.stage = :stage AND c.is_active = 1 AND c.id > :afterId " +
+           "AND NOT EXISTS (SELECT 1 FROM campaign_send_logs l " +
+           "    WHERE l.campaign_id = :campaignId AND l.contact_id = c.id) " +
+           "ORDER BY c.id LIMIT :limit")
+    Flux<ContactEntity> findByPipelineAndStage(Long pipelineId, String stage, Long campaignId, Long afterId,
+                                               int limit);
 }
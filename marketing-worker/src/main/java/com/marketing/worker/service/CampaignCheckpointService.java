@@ -0,0 +1,163 @@
+package com.marketing.worker.service;
+
+import com.marketing.worker.persistence.entity.CampaignEntity;
+import com.marketing.worker.persistence.repository.CampaignRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Durable ownership and progress of running campaigns.
+ *
+ * A worker claims a campaign with a lease (worker_id + lease_expires_at) and
+ * keeps it alive through checkpoints and a periodic renewal. When a worker
+ * dies its leases expire and another replica can resume the campaign from
+ * last_contact_id. A checkpoint that no longer matches the worker fails, so
+ * a worker that lost its lease stops sending.
+ *
+ * Campaigns running in this process are tracked in memory: a second claim of
+ * a running campaign (duplicate Kafka trigger) is rejected, and only live
+ * runs have their lease renewed. A run that ends with an error releases its
+ * lease and the recovery scan resumes it after a backoff that doubles with
+ * each consecutive failure; after MAX_ATTEMPTS failures the campaign is
+ * marked FAILED. A new trigger or a completed run resets the count.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CampaignCheckpointService {
+
+    static final Duration LEASE = Duration.ofMinutes(5);
+    static final int RETRY_BACKOFF_MINUTES = 1;
+    static final int MAX_ATTEMPTS = 5;
+
+    private final CampaignRepository campaignRepository;
+
+    private final String workerId = resolveWorkerId();
+
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Takes the campaign for this worker. A restart (new trigger) also
+     * clears the cursor; contacts already SENT are still skipped.
+     */
+    public Mono<Boolean> claim(Long campaignId, boolean restart) {
+        return Mono.defer(() -> {
+            if (!running.add(campaignId)) {
+                log.info("⏭️ Campaign {} is already running on this worker", campaignId);
+                return Mono.just(false);
+            }
+            LocalDateTime now = LocalDateTime.now();
+            return campaignRepository.claim(campaignId, workerId, now.plus(LEASE), now)
+                    .flatMap(updated -> {
+                        if (updated == 0) {
+                            return Mono.just(false);
+                        }
+                        return restart
+                                ? campaignRepository.resetCursor(campaignId, workerId).thenReturn(true)
+                                : Mono.just(true);
+                    })
+                    .defaultIfEmpty(false)
+                    .doOnNext(claimed -> {
+                        if (!claimed) {
+                            running.remove(campaignId);
+                        }
+                    })
+                    .doOnError(e -> running.remove(campaignId));
+        });
+    }
+
+    /**
+     * Ends a claimed run. A failed run releases its lease and counts the
+     * failure, so the recovery scan resumes it from the last checkpoint once
+     * its backoff has passed, or the campaign ends up FAILED.
+     */
+    public void end(Long campaignId, boolean failed) {
+        running.remove(campaignId);
+        if (!failed) {
+            return;
+        }
+        campaignRepository.fail(campaignId, workerId, LocalDateTime.now(), RETRY_BACKOFF_MINUTES, MAX_ATTEMPTS)
+                .subscribe(
+                        released -> {
+                            if (released > 0) {
+                                log.info("🔓 Released lease of failed campaign {}", campaignId);
+                            }
+                        },
+                        error -> log.warn("Could not release lease of campaign {}: {}", campaignId,
+                                error.getMessage()));
+    }
+
+    public Mono<Void> checkpoint(Long campaignId, long cursor, int sent, int failed) {
+        return campaignRepository.checkpoint(campaignId, workerId, cursor, sent, failed,
+                        LocalDateTime.now().plus(LEASE))
+                .flatMap(updated -> updated == 0
+                        ? Mono.error(new IllegalStateException("Lease lost for campaign " + campaignId))
+                        : Mono.<Void>empty());
+    }
+
+    public Mono<Void> complete(Long campaignId, int sent, int failed) {
+        return campaignRepository.complete(campaignId, workerId, sent, failed)
+                .doOnNext(updated -> {
+                    if (updated == 0) {
+                        log.warn("⚠️ Campaign {} finished after its lease was taken by another worker", campaignId);
+                    }
+                })
+                .then();
+    }
+
+    public Mono<Integer> renewLeases() {
+        return Mono.defer(() -> {
+            List<Long> ids = List.copyOf(running);
+            return ids.isEmpty()
+                    ? Mono.just(0)
+                    : campaignRepository.renewLeases(ids, workerId, LocalDateTime.now().plus(LEASE));
+        });
+    }
+
+    public Flux<CampaignEntity> findAbandoned() {
+        return campaignRepository.findAbandoned(LocalDateTime.now());
+    }
+
+    /**
+     * Expires this worker's leases on shutdown so another replica resumes
+     * its campaigns on its next scan instead of waiting for the lease
+     */
+    @PreDestroy
+    public void releaseLeases() {
+        List<Long> ids = List.copyOf(running);
+        if (ids.isEmpty()) {
+            return;
+        }
+        try {
+            Integer released = campaignRepository.renewLeases(ids, workerId, LocalDateTime.now())
+                    .block(Duration.ofSeconds(5));
+            if (released != null && released > 0) {
+                log.info("🔓 Released {} running campaigns on shutdown", released);
+            }
+        } catch (Exception e) {
+            log.warn("Could not release campaign leases: {}", e.getMessage());
+        }
+    }
+
+    private static String resolveWorkerId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "worker";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -10,9 +10,12 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
 
-import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 @RequiredArgsConstructor
@@ -24,45 +27,84 @@ public class CampaignExecutionService {
     private final EvolutionService evolutionService;
     private final MessageFormatterService messageFormatterService;
     private final com.marketing.worker.persistence.repository.CampaignSendLogRepository campaignSendLogRepository;
+    private final SendDispatcher sendDispatcher;
+    private final CampaignCheckpointService checkpointService;
+    private final SendLogWriter sendLogWriter;
 
-    // Anti-spam: batch size before taking a long pause
-    private static final int BATCH_SIZE = 20;
-    private static final long BATCH_PAUSE_MS = 30_000; // 30 seconds pause every 20 messages
+    // Sends a campaign may have queued in the dispatcher; bounds how far ahead contacts are read
+    private static final int MAX_QUEUED_PER_CAMPAIGN = 16;
 
+    // A checkpoint is persisted every CHECKPOINT_EVERY processed contacts, or on the first
+    // completion after CHECKPOINT_INTERVAL_MS, so totals stay live on slow instances
+    private static final int CHECKPOINT_EVERY = 20;
+    private static final long CHECKPOINT_INTERVAL_MS = 10_000;
+
+    // Contacts per audience query; the next page is fetched while the current one is being sent
+    private static final int CONTACT_PAGE_SIZE = 500;
+
+    /**
+     * New trigger from Kafka: runs the campaign from the first contact,
+     * skipping contacts that already have a send log
+     */
     public Mono<Void> executeCampaign(CampaignPayload payload) {
-        return campaignRepository.findById(payload.getCampaignId())
-                .flatMap(campaign -> {
-                    log.info("📢 Starting campaign: {} (id={})", campaign.getName(), campaign.getId());
-                    
-                    campaign.setStatus("RUNNING");
-                    AtomicInteger counter = new AtomicInteger(0);
-                    AtomicInteger sent = new AtomicInteger(0);
-                    AtomicInteger failed = new AtomicInteger(0);
-
-                    return campaignRepository.save(campaign)
-                            .thenMany(fetchContacts(campaign))
-                            .concatMap(contact -> {
+        return start(payload.getCampaignId(), true);
+    }
+
+    /**
+     * Continues a RUNNING campaign from its last checkpoint (see CampaignRecoveryService)
+     */
+    public Mono<Void> resumeCampaign(Long campaignId) {
+        return start(campaignId, false);
+    }
+
+    private Mono<Void> start(Long campaignId, boolean restart) {
+        return checkpointService.claim(campaignId, restart)
+                .flatMap(claimed -> {
+                    if (!claimed) {
+                        log.info("⏭️ Campaign {} is already running", campaignId);
+                        return Mono.empty();
+                    }
+                    return campaignRepository.findById(campaignId)
+                            .flatMap(campaign -> run(campaign, restart))
+                            .doFinally(signal -> checkpointService.end(campaignId,
+                                    signal != SignalType.ON_COMPLETE));
+                });
+    }
+
+    private Mono<Void> run(CampaignEntity campaign, boolean restart) {
+        long startAfter = campaign.getLastContactId() != null ? campaign.getLastContactId() : 0L;
+        log.info("📢 {} campaign: {} (id={}) after contact {}", restart ? "Starting" : "Resuming",
+                campaign.getName(), campaign.getId(), startAfter);
+
+        Mono<Long> sentSoFar = campaignSendLogRepository.countByCampaignIdAndStatus(campaign.getId(), "SENT")
+                .defaultIfEmpty(0L);
+        Mono<Long> failedSoFar = campaignSendLogRepository.countByCampaignIdAndStatus(campaign.getId(), "FAILED")
+                .defaultIfEmpty(0L);
+
+        return Mono.zip(sentSoFar, failedSoFar, messageFormatterService.prepare(campaign)).flatMap(state -> {
+            Progress progress = new Progress(startAfter, state.getT1().intValue(), state.getT2().intValue());
+            MessageFormatterService.MessageTemplate template = state.getT3();
+            AtomicInteger counter = new AtomicInteger(0);
+
+            return evolutionService.findChannel(campaign)
+                    .switchIfEmpty(Mono.fromRunnable(() ->
+                            log.warn("⚠️ Campaign {} has no channel configured (channelId={})",
+                                    campaign.getId(), campaign.getChannelId())))
+                    .flatMapMany(channel -> fetchContacts(campaign, startAfter)
+                            .doOnNext(contact -> progress.begin(contact.getId()))
+                            .flatMap(contact -> {
                                 int idx = counter.incrementAndGet();
+                                log.info("📤 [{}/...] Queueing {} on instance {}", idx, contact.getPhone(),
+                                        channel.getInstanceName());
 
-                                // Anti-spam: Random delay between 3-12 seconds per message
-                                long delay = 3000 + (long)(Math.random() * 9000);
-
-                                // Anti-spam: Longer pause every BATCH_SIZE messages
-                                if (idx > 1 && (idx - 1) % BATCH_SIZE == 0) {
-                                    long batchDelay = BATCH_PAUSE_MS + (long)(Math.random() * 15_000);
-                                    log.info("⏸️ Anti-spam batch pause: {}s after {} messages", batchDelay / 1000, idx - 1);
-                                    delay += batchDelay;
-                                }
-
-                                long finalDelay = delay;
-                                log.info("📤 [{}/...] Sending to {} (delay: {}ms)", idx, contact.getPhone(), finalDelay);
-
-                                return Mono.delay(Duration.ofMillis(finalDelay))
-                                        .then(messageFormatterService.formatMessage(campaign, contact))
-                                        .flatMap(message -> evolutionService.sendMessage(campaign, contact, message))
-                                        .flatMap(providerId -> {
-                                            sent.incrementAndGet();
-                                            return campaignSendLogRepository.save(com.marketing.worker.persistence.entity.CampaignSendLogEntity.builder()
+                                // Pacing is per instance and shared with other campaigns (SendDispatcher)
+                                Mono<String> send = Mono.fromCallable(() -> messageFormatterService.format(template, contact))
+                                        .flatMap(message -> evolutionService.sendMessage(channel, campaign, contact, message));
+
+                                return sendDispatcher.submit(campaign.getTenantId(), channel.getInstanceName(), campaign.getId(), send)
+                                        .doOnNext(providerId -> {
+                                            progress.sent.incrementAndGet();
+                                            sendLogWriter.add(com.marketing.worker.persistence.entity.CampaignSendLogEntity.builder()
                                                     .campaignId(campaign.getId())
                                                     .contactId(contact.getId())
                                                     .destination(contact.getPhone())
@@ -72,10 +114,11 @@ public class CampaignExecutionService {
                                                     .createdAt(java.time.LocalDateTime.now())
                                                     .build());
                                         })
+                                        .then()
                                         .onErrorResume(e -> {
-                                            failed.incrementAndGet();
+                                            progress.failed.incrementAndGet();
                                             log.error("⚠️ Failed to send to contact {}: {}", contact.getId(), e.getMessage());
-                                            return campaignSendLogRepository.save(com.marketing.worker.persistence.entity.CampaignSendLogEntity.builder()
+                                            sendLogWriter.add(com.marketing.worker.persistence.entity.CampaignSendLogEntity.builder()
                                                     .campaignId(campaign.getId())
                                                     .contactId(contact.getId())
                                                     .destination(contact.getPhone())
@@ -83,25 +126,100 @@ public class CampaignExecutionService {
                                                     .errorMessage(e.getMessage())
                                                     .createdAt(java.time.LocalDateTime.now())
                                                     .build());
-                                        });
-                            })
-                            .then(Mono.defer(() -> {
-                                campaign.setStatus("COMPLETED");
-                                campaign.setTotalSent(sent.get());
-                                campaign.setTotalFailed(failed.get());
-                                log.info("✅ Campaign {} completed. Sent: {}, Failed: {}", 
-                                        campaign.getName(), sent.get(), failed.get());
-                                return campaignRepository.save(campaign).then();
-                            }));
-                });
+                                            return Mono.empty();
+                                        })
+                                        .then(Mono.defer(() -> progress.checkpointDue(progress.finish(contact.getId()))
+                                                ? checkpoint(campaign, progress)
+                                                : Mono.<Void>empty()));
+                            }, MAX_QUEUED_PER_CAMPAIGN))
+                    .then(Mono.defer(() -> {
+                        log.info("✅ Campaign {} completed. Sent: {}, Failed: {}",
+                                campaign.getName(), progress.sent.get(), progress.failed.get());
+                        return sendLogWriter.flush()
+                                .then(checkpointService.complete(campaign.getId(), progress.sent.get(), progress.failed.get()));
+                    }));
+        });
     }
 
-    private Flux<ContactEntity> fetchContacts(CampaignEntity campaign) {
+    /**
+     * Stores the logs of every contact up to the cursor before moving it.
+     * Fails with "lease lost" when another worker took the campaign, which stops this run
+     */
+    private Mono<Void> checkpoint(CampaignEntity campaign, Progress progress) {
+        long cursor = progress.cursor();
+        int sent = progress.sent.get();
+        int failed = progress.failed.get();
+        return sendLogWriter.flush()
+                .then(checkpointService.checkpoint(campaign.getId(), cursor, sent, failed));
+    }
+
+    /**
+     * Audience as keyset pages fetched on demand: the page being sent plus one
+     * prefetched page are in memory, regardless of the list size. Contacts
+     * already logged for the campaign are skipped by the query, since
+     * uq_campaign_contact allows one log per contact
+     */
+    private Flux<ContactEntity> fetchContacts(CampaignEntity campaign, long afterId) {
+        return fetchContactPage(campaign, afterId)
+                .expand(page -> page.size() < CONTACT_PAGE_SIZE
+                        ? Mono.empty()
+                        : fetchContactPage(campaign, page.get(page.size() - 1).getId()))
+                .concatMapIterable(page -> page, 2);
+    }
+
+    private Mono<List<ContactEntity>> fetchContactPage(CampaignEntity campaign, long afterId) {
         if (campaign.getSendingListId() != null) {
-            return contactRepository.findBySendingListId(campaign.getSendingListId());
+            return contactRepository.findBySendingListId(campaign.getSendingListId(), campaign.getId(), afterId,
+                    CONTACT_PAGE_SIZE).collectList();
         } else if (campaign.getPipelineId() != null && campaign.getPipelineStage() != null) {
-            return contactRepository.findByPipelineAndStage(campaign.getPipelineId(), campaign.getPipelineStage());
+            return contactRepository.findByPipelineAndStage(campaign.getPipelineId(), campaign.getPipelineStage(),
+                    campaign.getId(), afterId, CONTACT_PAGE_SIZE).collectList();
+        }
+        return Mono.just(List.of());
+    }
+
+    /**
+     * Contacts arrive ordered by id but sends finish out of order, so the
+     * safe cursor is just below the lowest contact still in flight
+     */
+    private static final class Progress {
+        private final ConcurrentSkipListSet<Long> pending = new ConcurrentSkipListSet<>();
+        private final AtomicLong lastStarted;
+        private final AtomicInteger processed = new AtomicInteger();
+        private final AtomicLong lastCheckpointAt = new AtomicLong(System.currentTimeMillis());
+        final AtomicInteger sent;
+        final AtomicInteger failed;
+
+        Progress(long startAfter, int sent, int failed) {
+            this.lastStarted = new AtomicLong(startAfter);
+            this.sent = new AtomicInteger(sent);
+            this.failed = new AtomicInteger(failed);
+        }
+
+        void begin(Long contactId) {
+            pending.add(contactId);
+            lastStarted.set(contactId);
+        }
+
+        int finish(Long contactId) {
+            pending.remove(contactId);
+            return processed.incrementAndGet();
+        }
+
+        boolean checkpointDue(int processedCount) {
+            long now = System.currentTimeMillis();
+            long last = lastCheckpointAt.get();
+            if (processedCount % CHECKPOINT_EVERY != 0 && now - last < CHECKPOINT_INTERVAL_MS) {
+                return false;
+            }
+            return lastCheckpointAt.compareAndSet(last, now);
+        }
+
+        long cursor() {
+            // Read lastStarted first: a contact started afterwards is always above it
+            long started = lastStarted.get();
+            Long lowest = pending.ceiling(Long.MIN_VALUE);
+            return lowest != null ? Math.min(lowest - 1, started) : started;
         }
-        return Flux.empty();
     }
 }
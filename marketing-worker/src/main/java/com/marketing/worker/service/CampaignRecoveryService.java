@@ -0,0 +1,66 @@
+package com.marketing.worker.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Keeps this worker's campaign leases alive and picks up RUNNING campaigns
+ * left behind by a worker that stopped (restart, crash or deploy). The first
+ * scan runs on startup, so a restarted worker resumes its own campaigns from
+ * their last checkpoint.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CampaignRecoveryService {
+
+    // Well under CampaignCheckpointService.LEASE so live campaigns never look abandoned
+    private static final Duration SCAN_INTERVAL = Duration.ofMinutes(1);
+
+    private final CampaignCheckpointService checkpointService;
+    private final CampaignExecutionService campaignExecutionService;
+
+    private Disposable loop;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        loop = Flux.interval(Duration.ZERO, SCAN_INTERVAL)
+                .concatMap(tick -> scan()
+                        .onErrorResume(e -> {
+                            log.error("❌ Campaign recovery scan failed: {}", e.getMessage());
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (loop != null) {
+            loop.dispose();
+        }
+    }
+
+    private Mono<Void> scan() {
+        return checkpointService.renewLeases()
+                .thenMany(checkpointService.findAbandoned())
+                .doOnNext(campaign -> {
+                    log.info("♻️ Resuming campaign {} (id={}) after contact {}", campaign.getName(),
+                            campaign.getId(), campaign.getLastContactId());
+                    campaignExecutionService.resumeCampaign(campaign.getId())
+                            .subscribe(
+                                    success -> log.info("✅ Campaign {} execution finished", campaign.getId()),
+                                    error -> log.error("❌ Error resuming campaign {}: {}", campaign.getId(), error.getMessage())
+                            );
+                })
+                .then();
+    }
+}
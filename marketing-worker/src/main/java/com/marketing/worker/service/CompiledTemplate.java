@@ -0,0 +1,273 @@
+package com.marketing.worker.service;
+
+import com.marketing.worker.persistence.entity.ContactEntity;
+import com.marketing.worker.persistence.entity.Product;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Campaign message parsed once per run into segments that render straight
+ * into the caller's buffer.
+ *
+ * Syntax:
+ *   {{nombre}}                      contact or product field, empty when missing
+ *   {{precio|currency}}             $1.234.567 (es-CO grouping, decimals only when needed)
+ *   {{precio|number}}               1.234.567
+ *   {{#if email}}...{{else}}...{{/if}}  rendered when the field is not blank
+ *
+ * Product fields are fixed for the campaign, so they are resolved while
+ * compiling. Unknown fields and unbalanced tags are kept as literal text,
+ * as the old String.replace formatter did; {{#if}} on an unknown field is
+ * false.
+ */
+final class CompiledTemplate {
+
+    private static final Map<String, Function<ContactEntity, String>> CONTACT_FIELDS = Map.ofEntries(
+            Map.entry("nombre", ContactEntity::getName),
+            Map.entry("name", ContactEntity::getName),
+            Map.entry("email", ContactEntity::getEmail),
+            Map.entry("phone", ContactEntity::getPhone),
+            Map.entry("telefono", ContactEntity::getPhone),
+            Map.entry("direccion", ContactEntity::getAddress),
+            Map.entry("address", ContactEntity::getAddress),
+            Map.entry("documento", ContactEntity::getDocumentNumber),
+            Map.entry("document", ContactEntity::getDocumentNumber)
+    );
+
+    private final List<Segment> segments;
+
+    private CompiledTemplate(List<Segment> segments) {
+        this.segments = segments;
+    }
+
+    static CompiledTemplate compile(String source, Product product) {
+        Map<String, String> productFields = productFields(product);
+        Block root = new Block(null, null, null);
+        Block current = root;
+
+        int pos = 0;
+        while (pos < source.length()) {
+            int open = source.indexOf("{{", pos);
+            int close = open < 0 ? -1 : source.indexOf("}}", open + 2);
+            if (close < 0) {
+                current.literal(source.substring(pos));
+                break;
+            }
+            // Innermost opening, so a stray "{{" in the text stays literal
+            open = source.lastIndexOf("{{", close - 1);
+            current.literal(source.substring(pos, open));
+            String raw = source.substring(open, close + 2);
+            String tag = source.substring(open + 2, close).trim();
+            pos = close + 2;
+
+            if (tag.startsWith("#if ")) {
+                current = new Block(raw, field(tag.substring(4).trim(), productFields), current);
+            } else if (tag.equals("else") && current.parent != null && !current.inElse) {
+                current.inElse = true;
+            } else if (tag.equals("/if") && current.parent != null) {
+                Block done = current;
+                current = done.parent;
+                current.target().addAll(done.resolve());
+            } else {
+                int pipe = tag.indexOf('|');
+                String name = (pipe < 0 ? tag : tag.substring(0, pipe)).trim();
+                Format format = pipe < 0 ? Format.TEXT : Format.of(tag.substring(pipe + 1).trim());
+                Field field = field(name, productFields);
+                if (field == null || format == null) {
+                    current.literal(raw);
+                } else if (field.constant != null) {
+                    StringBuilder out = new StringBuilder();
+                    format.append(field.constant, out);
+                    current.literal(out.toString());
+                } else {
+                    current.add(new Value(field.getter, format));
+                }
+            }
+        }
+        // Unclosed #if: keep its tag and content as written
+        while (current.parent != null) {
+            Block unclosed = current;
+            current = unclosed.parent;
+            current.literal(unclosed.openTag);
+            current.target().addAll(unclosed.then);
+            if (unclosed.inElse) {
+                current.literal("{{else}}");
+                current.target().addAll(unclosed.otherwise);
+            }
+        }
+        return new CompiledTemplate(List.copyOf(root.then));
+    }
+
+    void render(ContactEntity contact, StringBuilder out) {
+        for (Segment segment : segments) {
+            segment.render(contact, out);
+        }
+    }
+
+    private static Map<String, String> productFields(Product product) {
+        if (product == null) {
+            return Map.of();
+        }
+        BigDecimal price = product.getSalePrice() != null ? product.getSalePrice() : product.getPrice();
+        return Map.of(
+                "producto", product.getProductName() != null ? product.getProductName() : "",
+                "descripcion", product.getDescription() != null ? product.getDescription() : "",
+                "precio", price != null ? price.toPlainString() : "",
+                "sku", product.getSku() != null ? product.getSku() : "");
+    }
+
+    private static Field field(String name, Map<String, String> productFields) {
+        Function<ContactEntity, String> getter = CONTACT_FIELDS.get(name);
+        if (getter != null) {
+            return new Field(getter, null);
+        }
+        String constant = productFields.get(name);
+        return constant != null ? new Field(null, constant) : null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private interface Segment {
+        void render(ContactEntity contact, StringBuilder out);
+    }
+
+    private record Literal(String text) implements Segment {
+        public void render(ContactEntity contact, StringBuilder out) {
+            out.append(text);
+        }
+    }
+
+    private record Value(Function<ContactEntity, String> getter, Format format) implements Segment {
+        public void render(ContactEntity contact, StringBuilder out) {
+            String value = getter.apply(contact);
+            if (value != null) {
+                format.append(value, out);
+            }
+        }
+    }
+
+    private record Conditional(Function<ContactEntity, String> getter, Segment[] then, Segment[] otherwise)
+            implements Segment {
+        public void render(ContactEntity contact, StringBuilder out) {
+            for (Segment segment : isBlank(getter.apply(contact)) ? otherwise : then) {
+                segment.render(contact, out);
+            }
+        }
+    }
+
+    /**
+     * Field resolved at compile time: a contact getter, or a constant for product fields
+     */
+    private record Field(Function<ContactEntity, String> getter, String constant) {
+    }
+
+    /**
+     * Segments of the template or of an open {{#if}}, merging adjacent literals
+     */
+    private static final class Block {
+        private final String openTag;
+        private final Field condition;
+        private final Block parent;
+        private final List<Segment> then = new ArrayList<>();
+        private final List<Segment> otherwise = new ArrayList<>();
+        private boolean inElse;
+
+        Block(String openTag, Field condition, Block parent) {
+            this.openTag = openTag;
+            this.condition = condition;
+            this.parent = parent;
+        }
+
+        List<Segment> target() {
+            return inElse ? otherwise : then;
+        }
+
+        void literal(String text) {
+            if (text.isEmpty()) {
+                return;
+            }
+            List<Segment> segments = target();
+            int last = segments.size() - 1;
+            if (last >= 0 && segments.get(last) instanceof Literal previous) {
+                segments.set(last, new Literal(previous.text() + text));
+            } else {
+                segments.add(new Literal(text));
+            }
+        }
+
+        void add(Segment segment) {
+            target().add(segment);
+        }
+
+        /**
+         * Segments replacing the closed {{#if}}: the chosen branch when the
+         * condition is known at compile time, otherwise a Conditional
+         */
+        List<Segment> resolve() {
+            if (condition == null) {
+                return otherwise;
+            }
+            if (condition.constant != null) {
+                return isBlank(condition.constant) ? otherwise : then;
+            }
+            return List.of(new Conditional(condition.getter,
+                    then.toArray(Segment[]::new), otherwise.toArray(Segment[]::new)));
+        }
+    }
+
+    private enum Format {
+        TEXT, NUMBER, CURRENCY;
+
+        static Format of(String name) {
+            return switch (name) {
+                case "number" -> NUMBER;
+                case "currency" -> CURRENCY;
+                default -> null;
+            };
+        }
+
+        void append(String value, StringBuilder out) {
+            if (this == TEXT) {
+                out.append(value);
+                return;
+            }
+            BigDecimal number;
+            try {
+                number = new BigDecimal(value.trim());
+            } catch (NumberFormatException e) {
+                out.append(value);
+                return;
+            }
+            if (this == CURRENCY) {
+                out.append('$');
+                number = number.setScale(number.stripTrailingZeros().scale() > 0 ? 2 : 0, RoundingMode.HALF_UP);
+            }
+            appendGrouped(number, out);
+        }
+
+        // es-CO style: '.' between thousands, ',' before decimals
+        private static void appendGrouped(BigDecimal number, StringBuilder out) {
+            String plain = number.toPlainString();
+            int start = plain.startsWith("-") ? 1 : 0;
+            int dot = plain.indexOf('.');
+            int intEnd = dot < 0 ? plain.length() : dot;
+            out.append(plain, 0, start);
+            for (int i = start; i < intEnd; i++) {
+                if (i > start && (intEnd - i) % 3 == 0) {
+                    out.append('.');
+                }
+                out.append(plain.charAt(i));
+            }
+            if (dot >= 0) {
+                out.append(',').append(plain, dot + 1, plain.length());
+            }
+        }
+    }
+}
@@ -31,22 +31,32 @@ public class EvolutionService {
     private String globalApiKey;
 
     public Mono<String> sendMessage(CampaignEntity campaign, ContactEntity contact, String formattedMessage) {
-        return channelConfigRepository.findById(campaign.getChannelId())
-                .flatMap(config -> {
-                    String phone = contact.getPhone().replaceAll("[^0-9]", "");
-                    String apiKey = config.getApiKey() != null ? config.getApiKey() : globalApiKey;
-
-                    // 1. Simulate "composing" presence before sending
-                    return sendPresence(config.getInstanceName(), phone, apiKey)
-                            .then(Mono.delay(Duration.ofMillis(1500 + (long)(Math.random() * 2000))))
-                            .then(Mono.defer(() -> {
-                                if (campaign.getMediaUrl() != null && !campaign.getMediaUrl().isEmpty()) {
-                                    return sendMedia(config, phone, campaign.getMediaUrl(), campaign.getMediaType(), formattedMessage, apiKey);
-                                } else {
-                                    return sendText(config, phone, formattedMessage, apiKey);
-                                }
-                            }));
-                });
+        return findChannel(campaign)
+                .flatMap(config -> sendMessage(config, campaign, contact, formattedMessage));
+    }
+
+    /**
+     * Channel (Evolution instance) the campaign sends through
+     */
+    public Mono<ChannelConfig> findChannel(CampaignEntity campaign) {
+        return channelConfigRepository.findById(campaign.getChannelId());
+    }
+
+    public Mono<String> sendMessage(ChannelConfig config, CampaignEntity campaign, ContactEntity contact,
+                                    String formattedMessage) {
+        String phone = contact.getPhone().replaceAll("[^0-9]", "");
+        String apiKey = config.getApiKey() != null ? config.getApiKey() : globalApiKey;
+
+        // 1. Simulate "composing" presence before sending
+        return sendPresence(config.getInstanceName(), phone, apiKey)
+                .then(Mono.delay(Duration.ofMillis(1500 + (long)(Math.random() * 2000))))
+                .then(Mono.defer(() -> {
+                    if (campaign.getMediaUrl() != null && !campaign.getMediaUrl().isEmpty()) {
+                        return sendMedia(config, phone, campaign.getMediaUrl(), campaign.getMediaType(), formattedMessage, apiKey);
+                    } else {
+                        return sendText(config, phone, formattedMessage, apiKey);
+                    }
+                }));
     }
 
     /**
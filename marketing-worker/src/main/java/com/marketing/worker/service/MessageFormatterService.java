@@ -28,23 +28,38 @@ public class MessageFormatterService {
             '\uFEFF'  // zero-width no-break space
     };
 
-    public Mono<String> formatMessage(CampaignEntity campaign, ContactEntity contact) {
+    // Render buffer per thread, reused across contacts; dropped when a message made it too large
+    private static final int MAX_KEPT_BUFFER = 16 * 1024;
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(512));
+
+    /**
+     * Compiles the campaign message (see CompiledTemplate) and renders the
+     * product details once per run instead of once per contact.
+     */
+    public Mono<MessageTemplate> prepare(CampaignEntity campaign) {
         String baseMessage = campaign.getMessage() != null ? campaign.getMessage() : "";
-        
-        // Personalization
-        String formatted = baseMessage
-                .replace("{{nombre}}", contact.getName() != null ? contact.getName() : "")
-                .replace("{{email}}", contact.getEmail() != null ? contact.getEmail() : "")
-                .replace("{{phone}}", contact.getPhone() != null ? contact.getPhone() : "");
 
         if (campaign.getProductId() != null) {
             return productRepository.findById(campaign.getProductId())
-                    .map(product -> appendProductDetails(formatted, product))
-                    .defaultIfEmpty(formatted)
-                    .map(this::addInvisibleFingerprint);
+                    .map(product -> new MessageTemplate(CompiledTemplate.compile(baseMessage, product),
+                            appendProductDetails("", product)))
+                    .defaultIfEmpty(new MessageTemplate(CompiledTemplate.compile(baseMessage, null), ""));
         }
-        
-        return Mono.just(addInvisibleFingerprint(formatted));
+
+        return Mono.just(new MessageTemplate(CompiledTemplate.compile(baseMessage, null), ""));
+    }
+
+    public String format(MessageTemplate template, ContactEntity contact) {
+        StringBuilder sb = BUFFER.get();
+        sb.setLength(0);
+        template.body().render(contact, sb);
+        sb.append(template.productDetails());
+        addInvisibleFingerprint(sb);
+        String message = sb.toString();
+        if (sb.capacity() > MAX_KEPT_BUFFER) {
+            BUFFER.remove();
+        }
+        return message;
     }
 
     /**
@@ -52,13 +67,11 @@ public class MessageFormatterService {
      * This ensures no two messages are byte-identical, which helps avoid
      * WhatsApp's duplicate/spam detection.
      */
-    private String addInvisibleFingerprint(String message) {
-        StringBuilder sb = new StringBuilder(message);
+    private void addInvisibleFingerprint(StringBuilder sb) {
         int len = 3 + ThreadLocalRandom.current().nextInt(5); // 3-7 invisible chars
         for (int i = 0; i < len; i++) {
             sb.append(INVISIBLE_CHARS[ThreadLocalRandom.current().nextInt(INVISIBLE_CHARS.length)]);
         }
-        return sb.toString();
     }
 
     private String appendProductDetails(String message, Product product) {
@@ -82,4 +95,10 @@ public class MessageFormatterService {
         
         return sb.toString();
     }
+
+    /**
+     * Compiled campaign message with its product details already rendered
+     */
+    public record MessageTemplate(CompiledTemplate body, String productDetails) {
+    }
 }
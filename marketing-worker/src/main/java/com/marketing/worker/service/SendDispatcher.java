@@ -0,0 +1,285 @@
+package com.marketing.worker.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Central pacing for outgoing campaign messages.
+ *
+ * Every Evolution instance has a token bucket with the provider's allowed
+ * send rate, so campaigns sharing a WhatsApp number share its budget. Ready
+ * sends are picked round-robin across tenants, then across the tenant's
+ * instances, then across the campaigns queued on that instance, and at most
+ * max-in-flight sends run at once. Throughput is set by these limits, not by
+ * how many campaigns are running.
+ */
+@Service
+@Slf4j
+public class SendDispatcher {
+
+    private final int maxInFlight;
+    private final int burst;
+    private final double tokensPerMs;
+
+    private final Scheduler timer = Schedulers.newSingle("send-dispatcher");
+
+    // Guarded by this
+    private final RoundRobin<Long, RoundRobin<String, Lane>> tenants = new RoundRobin<>();
+    private final Map<String, TokenBucket> buckets = new HashMap<>();
+    private int inFlight;
+    private long wakeUpAt = Long.MAX_VALUE;
+
+    public SendDispatcher(@Value("${dispatcher.max-in-flight:8}") int maxInFlight,
+                          @Value("${dispatcher.instance.messages-per-minute:6}") double messagesPerMinute,
+                          @Value("${dispatcher.instance.burst:2}") int burst) {
+        if (messagesPerMinute <= 0) {
+            throw new IllegalArgumentException("dispatcher.instance.messages-per-minute must be positive");
+        }
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.burst = Math.max(1, burst);
+        this.tokensPerMs = messagesPerMinute / TimeUnit.MINUTES.toMillis(1);
+        log.info("🚦 Send dispatcher: {} in flight, {} msg/min per instance (burst {})",
+                this.maxInFlight, messagesPerMinute, this.burst);
+    }
+
+    /**
+     * Queues a send on the instance's lane. The returned Mono subscribes to
+     * {@code send} once the instance has budget and a slot is free, and
+     * relays its result.
+     */
+    public <T> Mono<T> submit(Long tenantId, String instanceName, Long campaignId, Mono<T> send) {
+        return Mono.create(sink -> {
+            Job<T> job = new Job<>(send, sink);
+            sink.onCancel(job::cancel);
+            synchronized (this) {
+                TokenBucket bucket = buckets.computeIfAbsent(instanceName,
+                        key -> new TokenBucket(burst, tokensPerMs, System.currentTimeMillis()));
+                tenants.computeIfAbsent(tenantId, key -> new RoundRobin<>())
+                        .computeIfAbsent(instanceName, key -> new Lane(bucket))
+                        .add(campaignId, job);
+            }
+            drain();
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.dispose();
+    }
+
+    private void drain() {
+        List<Job<?>> ready = new ArrayList<>();
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            while (inFlight < maxInFlight) {
+                Job<?> job = pollReady(now);
+                if (job == null) {
+                    break;
+                }
+                inFlight++;
+                ready.add(job);
+            }
+            tenants.removeIf(lanes -> {
+                lanes.removeIf(lane -> !lane.hasPending());
+                return lanes.isEmpty();
+            });
+            if (inFlight < maxInFlight) {
+                scheduleWakeUp(now);
+            }
+        }
+        // Outside the lock: subscribing may complete synchronously and re-enter drain()
+        ready.forEach(job -> job.run(this::release));
+    }
+
+    private void release() {
+        synchronized (this) {
+            inFlight--;
+        }
+        drain();
+    }
+
+    /**
+     * Next send whose instance has a token, in fair order; null if none
+     */
+    private Job<?> pollReady(long now) {
+        Lane[] chosen = new Lane[1];
+        tenants.next(lanes -> {
+            chosen[0] = lanes.next(lane -> lane.hasPending() && lane.bucket.tryAcquire(now));
+            return chosen[0] != null;
+        });
+        return chosen[0] != null ? chosen[0].poll() : null;
+    }
+
+    /**
+     * Wakes the dispatcher when the first waiting instance gets a token
+     */
+    private void scheduleWakeUp(long now) {
+        long delay = Long.MAX_VALUE;
+        for (RoundRobin<String, Lane> lanes : tenants.values()) {
+            for (Lane lane : lanes.values()) {
+                if (lane.hasPending()) {
+                    delay = Math.min(delay, lane.bucket.millisUntilToken(now));
+                }
+            }
+        }
+        if (delay == Long.MAX_VALUE || now + delay >= wakeUpAt) {
+            return;
+        }
+        wakeUpAt = now + delay;
+        timer.schedule(() -> {
+            synchronized (this) {
+                wakeUpAt = Long.MAX_VALUE;
+            }
+            drain();
+        }, Math.max(1, delay), TimeUnit.MILLISECONDS);
+    }
+
+    private static final class Job<T> {
+        private final Mono<T> send;
+        private final MonoSink<T> sink;
+        private volatile boolean cancelled;
+        private volatile Disposable subscription;
+
+        Job(Mono<T> send, MonoSink<T> sink) {
+            this.send = send;
+            this.sink = sink;
+        }
+
+        void run(Runnable onDone) {
+            if (cancelled) {
+                onDone.run();
+                return;
+            }
+            subscription = send
+                    .doFinally(signal -> onDone.run())
+                    .subscribe(sink::success, sink::error, sink::success);
+        }
+
+        void cancel() {
+            cancelled = true;
+            Disposable current = subscription;
+            if (current != null) {
+                current.dispose();
+            }
+        }
+    }
+
+    /**
+     * Sends queued on one instance, rotated across campaigns
+     */
+    private static final class Lane {
+        private final TokenBucket bucket;
+        private final RoundRobin<Long, Deque<Job<?>>> campaigns = new RoundRobin<>();
+
+        Lane(TokenBucket bucket) {
+            this.bucket = bucket;
+        }
+
+        void add(Long campaignId, Job<?> job) {
+            campaigns.computeIfAbsent(campaignId, key -> new ArrayDeque<>()).add(job);
+        }
+
+        boolean hasPending() {
+            campaigns.removeIf(queue -> {
+                while (!queue.isEmpty() && queue.peek().cancelled) {
+                    queue.poll();
+                }
+                return queue.isEmpty();
+            });
+            return !campaigns.isEmpty();
+        }
+
+        Job<?> poll() {
+            Deque<Job<?>> queue = campaigns.next(q -> !q.isEmpty());
+            return queue != null ? queue.poll() : null;
+        }
+    }
+
+    private static final class TokenBucket {
+        private final double capacity;
+        private final double tokensPerMs;
+        private double tokens;
+        private long updatedAt;
+
+        TokenBucket(double capacity, double tokensPerMs, long now) {
+            this.capacity = capacity;
+            this.tokensPerMs = tokensPerMs;
+            this.tokens = capacity;
+            this.updatedAt = now;
+        }
+
+        boolean tryAcquire(long now) {
+            refill(now);
+            if (tokens >= 1) {
+                tokens -= 1;
+                return true;
+            }
+            return false;
+        }
+
+        long millisUntilToken(long now) {
+            refill(now);
+            return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / tokensPerMs);
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(capacity, tokens + (now - updatedAt) * tokensPerMs);
+            updatedAt = now;
+        }
+    }
+
+    /**
+     * Insertion-ordered map whose picked entry moves to the back
+     */
+    private static final class RoundRobin<K, V> {
+        private final LinkedHashMap<K, V> entries = new LinkedHashMap<>();
+
+        V computeIfAbsent(K key, Function<K, V> factory) {
+            return entries.computeIfAbsent(key, factory);
+        }
+
+        V next(Predicate<V> predicate) {
+            Iterator<Map.Entry<K, V>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<K, V> entry = it.next();
+                if (predicate.test(entry.getValue())) {
+                    it.remove();
+                    entries.put(entry.getKey(), entry.getValue());
+                    return entry.getValue();
+                }
+            }
+            return null;
+        }
+
+        void removeIf(Predicate<V> predicate) {
+            entries.values().removeIf(predicate);
+        }
+
+        Iterable<V> values() {
+            return entries.values();
+        }
+
+        boolean isEmpty() {
+            return entries.isEmpty();
+        }
+    }
+}
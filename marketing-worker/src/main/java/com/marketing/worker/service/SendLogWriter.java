@@ -0,0 +1,276 @@
+package com.marketing.worker.service;
+
+import com.marketing.worker.persistence.entity.CampaignSendLogEntity;
+import io.r2dbc.spi.R2dbcNonTransientException;
+import io.r2dbc.spi.R2dbcNonTransientResourceException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.dao.NonTransientDataAccessResourceException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Buffers campaign send logs and writes them as multi-row inserts.
+ *
+ * A batch is written when batch-size logs are buffered or every
+ * flush-interval, whichever comes first. Batches are written one after
+ * another, so flush() completing means every log added before it is stored;
+ * campaign checkpoints call it before moving their cursor.
+ *
+ * When a batch fails with a transient error (connection, timeout, lock) its
+ * rows are written again ahead of the next batch, so a later flush() only
+ * completes once they are stored too. When that retry fails as well, or the
+ * first error is permanent (a constraint violation after a campaign or
+ * contact was deleted, a bad value), the rows are written one by one: a row
+ * rejected with a permanent error is logged and dropped, so it cannot block
+ * the logs of other campaigns, and a row still failing after
+ * MAX_RETRY_TIME is dropped too.
+ */
+@Service
+@Slf4j
+public class SendLogWriter {
+
+    private static final String INSERT_SQL = "INSERT INTO campaign_send_logs " +
+            "(campaign_id, contact_id, destination, status, error_message, provider_message_id, sent_at, created_at) VALUES ";
+
+    // uq_campaign_contact: a contact sent again after a lease handover keeps its latest outcome.
+    // Row alias instead of VALUES(), which is deprecated since MySQL 8.0.20
+    private static final String ON_DUPLICATE_SQL = " AS new ON DUPLICATE KEY UPDATE status = new.status, " +
+            "error_message = new.error_message, provider_message_id = new.provider_message_id, " +
+            "sent_at = new.sent_at";
+
+    static final Duration MAX_RETRY_TIME = Duration.ofMinutes(10);
+
+    private final DatabaseClient databaseClient;
+    private final int batchSize;
+
+    private final Sinks.Many<Batch> batches = Sinks.many().unicast().onBackpressureBuffer();
+    private final Disposable writer;
+    private final Disposable timer;
+
+    // Guarded by this
+    private List<CampaignSendLogEntity> buffer = new ArrayList<>();
+    // Rows of the last failed batch, written again with the next one. Guarded by this
+    private List<Pending> failed = new ArrayList<>();
+
+    public SendLogWriter(DatabaseClient databaseClient,
+                         @Value("${send-log.batch-size:50}") int batchSize,
+                         @Value("${send-log.flush-interval:2s}") Duration flushInterval) {
+        this.databaseClient = databaseClient;
+        this.batchSize = Math.max(1, batchSize);
+        this.writer = batches.asFlux()
+                .concatMap(batch -> Mono.defer(() -> {
+                    List<Pending> rows = withFailed(batch.rows());
+                    return write(rows.stream().map(Pending::row).toList())
+                            .doOnSuccess(ignored -> batch.done().tryEmitEmpty())
+                            .onErrorResume(e -> recover(rows, e)
+                                    .doOnNext(remaining -> {
+                                        keepFailed(remaining);
+                                        if (remaining.isEmpty()) {
+                                            batch.done().tryEmitEmpty();
+                                        } else {
+                                            batch.done().tryEmitError(e);
+                                        }
+                                    })
+                                    .then());
+                }))
+                .subscribe();
+        this.timer = Flux.interval(flushInterval)
+                .subscribe(tick -> emit(false));
+    }
+
+    /**
+     * Queues a log; it is written with the next batch
+     */
+    public void add(CampaignSendLogEntity sendLog) {
+        boolean full;
+        synchronized (this) {
+            buffer.add(sendLog);
+            full = buffer.size() >= batchSize;
+        }
+        if (full) {
+            emit(false);
+        }
+    }
+
+    /**
+     * Completes once every log added so far has been written (or dropped
+     * after a permanent error), or errors if any of them could not be
+     * written yet
+     */
+    public Mono<Void> flush() {
+        return Mono.defer(() -> emit(true).asMono());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.dispose();
+        try {
+            flush().block(Duration.ofSeconds(10));
+        } catch (Exception e) {
+            log.warn("Could not flush send logs on shutdown: {}", e.getMessage());
+        }
+        writer.dispose();
+    }
+
+    /**
+     * Hands the buffered logs to the writer. An empty batch is only queued
+     * when a caller waits for it, to learn when earlier batches are done, or
+     * to retry the rows of a failed batch.
+     */
+    private Sinks.One<Void> emit(boolean always) {
+        Sinks.One<Void> done = Sinks.one();
+        synchronized (this) {
+            if (buffer.isEmpty() && failed.isEmpty() && !always) {
+                return done;
+            }
+            Batch batch = new Batch(buffer, done);
+            buffer = new ArrayList<>();
+            // Serialized by the lock, as the unicast sink requires
+            batches.emitNext(batch, Sinks.EmitFailureHandler.FAIL_FAST);
+        }
+        return done;
+    }
+
+    /**
+     * Batch rows preceded by the rows of the last failed batch, if any
+     */
+    private synchronized List<Pending> withFailed(List<CampaignSendLogEntity> rows) {
+        List<Pending> merged = failed;
+        failed = new ArrayList<>();
+        rows.forEach(row -> merged.add(new Pending(row, 0L)));
+        return merged;
+    }
+
+    private synchronized void keepFailed(List<Pending> rows) {
+        failed = new ArrayList<>(rows);
+    }
+
+    /**
+     * Rows left to retry after a failed write. A first transient failure
+     * keeps them all; otherwise they are written one by one and only the
+     * rows that failed transiently, within MAX_RETRY_TIME, are kept. Once a
+     * row fails transiently the database is taken as unavailable and the
+     * rest are kept without trying them.
+     */
+    private Mono<List<Pending>> recover(List<Pending> rows, Throwable e) {
+        long now = System.currentTimeMillis();
+        boolean retried = rows.stream().anyMatch(pending -> pending.firstFailure() > 0);
+        if (!retried && !isPermanent(e)) {
+            log.error("❌ Could not write {} send logs, retrying with the next batch: {}", rows.size(), e.getMessage());
+            return Mono.just(rows.stream().map(pending -> pending.failedAt(now)).toList());
+        }
+
+        log.warn("⚠️ Writing {} send logs one by one after: {}", rows.size(), e.getMessage());
+        List<Pending> remaining = new ArrayList<>();
+        return Flux.fromIterable(rows)
+                .concatMap(pending -> {
+                    if (!remaining.isEmpty()) {
+                        remaining.add(pending.failedAt(now));
+                        return Mono.empty();
+                    }
+                    return insert(List.of(pending.row()))
+                            .onErrorResume(rowError -> {
+                                if (isPermanent(rowError)) {
+                                    drop(pending, rowError);
+                                } else if (pending.firstFailure() > 0
+                                        && now - pending.firstFailure() > MAX_RETRY_TIME.toMillis()) {
+                                    drop(pending, rowError);
+                                } else {
+                                    remaining.add(pending.failedAt(now));
+                                }
+                                return Mono.empty();
+                            });
+                })
+                .then(Mono.fromSupplier(() -> remaining));
+    }
+
+    private void drop(Pending pending, Throwable e) {
+        CampaignSendLogEntity row = pending.row();
+        log.error("❌ Dropping send log of campaign {} contact {} ({}): {}", row.getCampaignId(),
+                row.getContactId(), row.getStatus(), e.getMessage());
+    }
+
+    /**
+     * Errors that writing the same row again cannot fix. Resource failures
+     * (lost connection, database down) are retried even though Spring and
+     * R2DBC class them as non-transient.
+     */
+    static boolean isPermanent(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof NonTransientDataAccessResourceException
+                    || cause instanceof R2dbcNonTransientResourceException) {
+                return false;
+            }
+            if (cause instanceof NonTransientDataAccessException || cause instanceof R2dbcNonTransientException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes the rows in inserts of at most batch-size rows; retried rows can
+     * make a batch larger than that
+     */
+    private Mono<Void> write(List<CampaignSendLogEntity> rows) {
+        return Flux.range(0, (rows.size() + batchSize - 1) / batchSize)
+                .concatMap(chunk -> insert(rows.subList(chunk * batchSize,
+                        Math.min(rows.size(), (chunk + 1) * batchSize))))
+                .then();
+    }
+
+    private Mono<Void> insert(List<CampaignSendLogEntity> rows) {
+        StringBuilder sql = new StringBuilder(INSERT_SQL);
+        for (int i = 0; i < rows.size(); i++) {
+            sql.append(i > 0 ? ", " : "")
+                    .append("(:campaignId").append(i).append(", :contactId").append(i)
+                    .append(", :destination").append(i).append(", :status").append(i)
+                    .append(", :errorMessage").append(i).append(", :providerMessageId").append(i)
+                    .append(", :sentAt").append(i).append(", :createdAt").append(i).append(")");
+        }
+        sql.append(ON_DUPLICATE_SQL);
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (int i = 0; i < rows.size(); i++) {
+            CampaignSendLogEntity row = rows.get(i);
+            spec = bind(spec, "campaignId" + i, row.getCampaignId(), Long.class);
+            spec = bind(spec, "contactId" + i, row.getContactId(), Long.class);
+            spec = bind(spec, "destination" + i, row.getDestination(), String.class);
+            spec = bind(spec, "status" + i, row.getStatus(), String.class);
+            spec = bind(spec, "errorMessage" + i, row.getErrorMessage(), String.class);
+            spec = bind(spec, "providerMessageId" + i, row.getProviderMessageId(), String.class);
+            spec = bind(spec, "sentAt" + i, row.getSentAt(), LocalDateTime.class);
+            spec = bind(spec, "createdAt" + i, row.getCreatedAt(), LocalDateTime.class);
+        }
+        return spec.fetch().rowsUpdated().then();
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec, String name,
+                                                          Object value, Class<?> type) {
+        return value != null ? spec.bind(name, value) : spec.bindNull(name, type);
+    }
+
+    private record Batch(List<CampaignSendLogEntity> rows, Sinks.One<Void> done) {
+    }
+
+    /**
+     * Row waiting to be written; firstFailure is 0 until a write of it fails
+     */
+    private record Pending(CampaignSendLogEntity row, long firstFailure) {
+        Pending failedAt(long now) {
+            return firstFailure > 0 ? this : new Pending(row, now);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.marketing.worker.service;
+
+import com.marketing.worker.persistence.repository.CampaignRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CampaignCheckpointServiceTest {
+
+    @Mock
+    private CampaignRepository campaignRepository;
+
+    private CampaignCheckpointService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new CampaignCheckpointService(campaignRepository);
+    }
+
+    @Test
+    void claimTakesAFreeCampaignAndResetsTheCursorOnRestart() {
+        when(campaignRepository.claim(eq(1L), anyString(), any(), any())).thenReturn(Mono.just(1));
+        when(campaignRepository.resetCursor(eq(1L), anyString())).thenReturn(Mono.just(1));
+
+        assertThat(service.claim(1L, true).block()).isTrue();
+        verify(campaignRepository).resetCursor(eq(1L), anyString());
+    }
+
+    @Test
+    void claimFailsWhileAnotherWorkerHoldsTheLease() {
+        when(campaignRepository.claim(eq(1L), anyString(), any(), any())).thenReturn(Mono.just(0));
+
+        assertThat(service.claim(1L, true).block()).isFalse();
+        verify(campaignRepository, never()).resetCursor(anyLong(), anyString());
+    }
+
+    @Test
+    void secondClaimInTheSameProcessIsRejected() {
+        when(campaignRepository.claim(eq(1L), anyString(), any(), any())).thenReturn(Mono.just(1));
+
+        assertThat(service.claim(1L, false).block()).isTrue();
+        // Duplicate Kafka trigger: no second claim and no cursor reset
+        assertThat(service.claim(1L, true).block()).isFalse();
+
+        verify(campaignRepository, times(1)).claim(eq(1L), anyString(), any(), any());
+        verify(campaignRepository, never()).resetCursor(anyLong(), anyString());
+    }
+
+    @Test
+    void campaignCanBeClaimedAgainAfterItsRunEnds() {
+        when(campaignRepository.claim(eq(1L), anyString(), any(), any())).thenReturn(Mono.just(1));
+
+        assertThat(service.claim(1L, false).block()).isTrue();
+        service.end(1L, false);
+
+        assertThat(service.claim(1L, false).block()).isTrue();
+    }
+
+    @Test
+    void stolenCampaignCanBeClaimedLaterFromThisProcess() {
+        when(campaignRepository.claim(eq(1L), anyString(), any(), any()))
+                .thenReturn(Mono.just(0))
+                .thenReturn(Mono.just(1));
+
+        assertThat(service.claim(1L, false).block()).isFalse();
+        assertThat(service.claim(1L, false).block()).isTrue();
+    }
+
+    @Test
+    void checkpointFailsWhenTheLeaseWasLost() {
+        when(campaignRepository.checkpoint(eq(1L), anyString(), anyLong(), anyInt(), anyInt(), any()))
+                .thenReturn(Mono.just(0));
+
+        assertThatThrownBy(() -> service.checkpoint(1L, 10L, 5, 0).block())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Lease lost");
+    }
+
+    @Test
+    void onlyRunningCampaignsHaveTheirLeaseRenewed() {
+        when(campaignRepository.claim(anyLong(), anyString(), any(), any())).thenReturn(Mono.just(1));
+        when(campaignRepository.renewLeases(any(), anyString(), any())).thenReturn(Mono.just(1));
+
+        service.claim(1L, false).block();
+        service.claim(2L, false).block();
+        service.end(2L, false);
+
+        service.renewLeases().block();
+
+        verify(campaignRepository).renewLeases(eq(List.of(1L)), anyString(), any());
+    }
+
+    @Test
+    void nothingIsRenewedWithoutRunningCampaigns() {
+        assertThat(service.renewLeases().block()).isZero();
+        verify(campaignRepository, never()).renewLeases(any(), anyString(), any());
+    }
+
+    @Test
+    void failedRunReleasesItsLeaseAndCountsTheFailure() {
+        when(campaignRepository.claim(eq(1L), anyString(), any(), any())).thenReturn(Mono.just(1));
+        when(campaignRepository.fail(eq(1L), anyString(), any(), anyInt(), anyInt())).thenReturn(Mono.just(1));
+        LocalDateTime before = LocalDateTime.now();
+
+        service.claim(1L, false).block();
+        service.end(1L, true);
+
+        // Backoff starts now and the campaign turns FAILED after MAX_ATTEMPTS failed runs
+        verify(campaignRepository).fail(eq(1L), anyString(),
+                argThat(now -> !now.isBefore(before) && !now.isAfter(LocalDateTime.now())),
+                eq(CampaignCheckpointService.RETRY_BACKOFF_MINUTES),
+                eq(CampaignCheckpointService.MAX_ATTEMPTS));
+        verify(campaignRepository, never()).renewLeases(any(), anyString(), any());
+    }
+
+    @Test
+    void successfulRunDoesNotCountAFailure() {
+        when(campaignRepository.claim(eq(1L), anyString(), any(), any())).thenReturn(Mono.just(1));
+
+        service.claim(1L, false).block();
+        service.end(1L, false);
+
+        verify(campaignRepository, never()).fail(anyLong(), anyString(), any(), anyInt(), anyInt());
+    }
+}
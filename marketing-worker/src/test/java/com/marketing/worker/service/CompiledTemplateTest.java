@@ -0,0 +1,152 @@
+package com.marketing.worker.service;
+
+import com.marketing.worker.persistence.entity.ContactEntity;
+import com.marketing.worker.persistence.entity.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompiledTemplateTest {
+
+    private static final ContactEntity ANA = ContactEntity.builder()
+            .name("Ana")
+            .email("ana@mail.com")
+            .phone("3001112233")
+            .build();
+
+    private static final ContactEntity NO_EMAIL = ContactEntity.builder()
+            .name("Luis")
+            .phone("3004445566")
+            .build();
+
+    @Test
+    void replacesContactFields() {
+        assertThat(render("Hola {{nombre}}, te escribimos al {{ phone }}", ANA))
+                .isEqualTo("Hola Ana, te escribimos al 3001112233");
+    }
+
+    @Test
+    void missingContactFieldRendersEmpty() {
+        assertThat(render("Correo: [{{email}}]", NO_EMAIL)).isEqualTo("Correo: []");
+    }
+
+    @Test
+    void ifRendersThenOrElseBranch() {
+        String source = "{{#if email}}Te escribimos a {{email}}{{else}}Sin correo{{/if}}.";
+
+        assertThat(render(source, ANA)).isEqualTo("Te escribimos a ana@mail.com.");
+        assertThat(render(source, NO_EMAIL)).isEqualTo("Sin correo.");
+    }
+
+    @Test
+    void nestedIfsAreEvaluatedIndependently() {
+        String source = "{{#if email}}E{{#if direccion}}+D{{else}}-D{{/if}}{{else}}"
+                + "{{#if phone}}P{{else}}-{{/if}}{{/if}}";
+        ContactEntity withAddress = ContactEntity.builder().email("a@b.co").address("Calle 1").build();
+
+        assertThat(render(source, withAddress)).isEqualTo("E+D");
+        assertThat(render(source, ANA)).isEqualTo("E-D");
+        assertThat(render(source, NO_EMAIL)).isEqualTo("P");
+        assertThat(render(source, new ContactEntity())).isEqualTo("-");
+    }
+
+    @Test
+    void blankFieldIsFalse() {
+        ContactEntity blank = ContactEntity.builder().email("  ").build();
+
+        assertThat(render("{{#if email}}si{{else}}no{{/if}}", blank)).isEqualTo("no");
+    }
+
+    @Test
+    void unknownFieldsAndFormatsStayLiteral() {
+        assertThat(render("Hola {{apodo}} {{nombre|mayusculas}}", ANA))
+                .isEqualTo("Hola {{apodo}} {{nombre|mayusculas}}");
+    }
+
+    @Test
+    void ifOnUnknownFieldIsFalse() {
+        assertThat(render("{{#if apodo}}si{{else}}no{{/if}}", ANA)).isEqualTo("no");
+    }
+
+    @Test
+    void unclosedIfKeepsItsTagAndContent() {
+        assertThat(render("{{#if email}}Hola {{nombre}}", ANA)).isEqualTo("{{#if email}}Hola Ana");
+        assertThat(render("{{#if email}}A{{else}}B {{nombre}}", NO_EMAIL))
+                .isEqualTo("{{#if email}}A{{else}}B Luis");
+    }
+
+    @Test
+    void strayAndUnterminatedTagsStayLiteral() {
+        assertThat(render("Hola {{nombre", ANA)).isEqualTo("Hola {{nombre");
+        assertThat(render("fin{{/if}} {{else}}", ANA)).isEqualTo("fin{{/if}} {{else}}");
+        assertThat(render("{{ {{nombre}}", ANA)).isEqualTo("{{ Ana");
+    }
+
+    @Test
+    void currencyUsesColombianGroupingAndDecimalsOnlyWhenNeeded() {
+        assertThat(render("{{precio|currency}}", product("1234567", null))).isEqualTo("$1.234.567");
+        assertThat(render("{{precio|currency}}", product("1234567.00", null))).isEqualTo("$1.234.567");
+        assertThat(render("{{precio|currency}}", product("1234.5", null))).isEqualTo("$1.234,50");
+        assertThat(render("{{precio|currency}}", product("999", null))).isEqualTo("$999");
+    }
+
+    @Test
+    void numberGroupsThousandsAndKeepsDecimals() {
+        assertThat(render("{{precio|number}}", product("1234567.891", null))).isEqualTo("1.234.567,891");
+        assertThat(render("{{precio|number}}", product("100", null))).isEqualTo("100");
+    }
+
+    @Test
+    void nonNumericValueIsRenderedAsIs() {
+        assertThat(render("{{nombre|number}}", ANA)).isEqualTo("Ana");
+    }
+
+    @Test
+    void salePriceWinsOverPrice() {
+        assertThat(render("{{producto}}: {{precio|currency}}", product("50000", "45000")))
+                .isEqualTo("Camiseta: $45.000");
+    }
+
+    @Test
+    void productConditionIsResolvedWhileCompiling() {
+        String source = "{{#if sku}}Ref {{sku}}{{else}}Sin referencia{{/if}}";
+
+        assertThat(render(source, product("1", null))).isEqualTo("Ref CAM-01");
+        // Without a product, sku is an unknown field
+        assertThat(render(source, ANA)).isEqualTo("Sin referencia");
+    }
+
+    @Test
+    void renderAppendsToTheCallerBuffer() {
+        CompiledTemplate template = CompiledTemplate.compile("Hola {{nombre}}", null);
+        StringBuilder out = new StringBuilder(">");
+
+        template.render(ANA, out);
+        template.render(NO_EMAIL, out);
+
+        assertThat(out).hasToString(">Hola AnaHola Luis");
+    }
+
+    private static String render(String source, ContactEntity contact) {
+        StringBuilder out = new StringBuilder();
+        CompiledTemplate.compile(source, null).render(contact, out);
+        return out.toString();
+    }
+
+    private static String render(String source, Product product) {
+        StringBuilder out = new StringBuilder();
+        CompiledTemplate.compile(source, product).render(ANA, out);
+        return out.toString();
+    }
+
+    private static Product product(String price, String salePrice) {
+        return Product.builder()
+                .productName("Camiseta")
+                .price(new BigDecimal(price))
+                .salePrice(salePrice != null ? new BigDecimal(salePrice) : null)
+                .sku("CAM-01")
+                .build();
+    }
+}
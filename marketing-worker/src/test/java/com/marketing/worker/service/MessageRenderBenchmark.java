@@ -0,0 +1,66 @@
+package com.marketing.worker.service;
+
+import com.marketing.worker.persistence.entity.ContactEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-contact cost of the String.replace chain MessageFormatterService used
+ * before CompiledTemplate, against rendering the compiled message.
+ *
+ * Not a test: run it with
+ *   mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *       -Dexec.args="-cp %classpath org.openjdk.jmh.Main MessageRenderBenchmark"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageRenderBenchmark {
+
+    private static final String MESSAGE = "Hola {{nombre}}! Tenemos una oferta para ti. "
+            + "Te enviaremos los detalles a {{email}} y te llamaremos al {{phone}}. "
+            + "Responde STOP para no recibir más mensajes.";
+
+    private ContactEntity contact;
+    private CompiledTemplate compiled;
+    private StringBuilder buffer;
+
+    @Setup
+    public void setUp() {
+        contact = ContactEntity.builder()
+                .name("Ana María")
+                .email("ana@mail.com")
+                .phone("3001112233")
+                .build();
+        compiled = CompiledTemplate.compile(MESSAGE, null);
+        buffer = new StringBuilder(512);
+    }
+
+    @Benchmark
+    public String replaceChain() {
+        return MESSAGE
+                .replace("{{nombre}}", contact.getName() != null ? contact.getName() : "")
+                .replace("{{email}}", contact.getEmail() != null ? contact.getEmail() : "")
+                .replace("{{phone}}", contact.getPhone() != null ? contact.getPhone() : "");
+    }
+
+    @Benchmark
+    public String compiledRender() {
+        buffer.setLength(0);
+        compiled.render(contact, buffer);
+        return buffer.toString();
+    }
+}
@@ -0,0 +1,172 @@
+package com.marketing.worker.service;
+
+import com.marketing.worker.persistence.entity.CampaignSendLogEntity;
+import io.r2dbc.spi.R2dbcDataIntegrityViolationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.FetchSpec;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SendLogWriterTest {
+
+    @Mock
+    private DatabaseClient databaseClient;
+    @Mock
+    private DatabaseClient.GenericExecuteSpec spec;
+    @Mock
+    private FetchSpec<Map<String, Object>> fetchSpec;
+
+    private SendLogWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(databaseClient.sql(anyString())).thenReturn(spec);
+        lenient().when(spec.bind(anyString(), any())).thenReturn(spec);
+        lenient().when(spec.bindNull(anyString(), any())).thenReturn(spec);
+        lenient().when(spec.fetch()).thenReturn(fetchSpec);
+        // Batches of two; the timer never fires during a test
+        writer = new SendLogWriter(databaseClient, 2, Duration.ofHours(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.shutdown();
+    }
+
+    @Test
+    void flushAfterAFailedBatchWritesItsRowsAgain() {
+        when(fetchSpec.rowsUpdated())
+                .thenReturn(Mono.error(new RuntimeException("db down")))
+                .thenReturn(Mono.just(2L));
+
+        // Size-triggered batch fails
+        writer.add(sendLog(1L));
+        writer.add(sendLog(2L));
+        writer.add(sendLog(3L));
+
+        writer.flush().block();
+
+        // Contacts 1 and 2 went in the failed insert and again, ahead of contact 3
+        verify(spec, times(2)).bind(eq("contactId0"), eq(1L));
+        verify(spec, times(2)).bind(eq("contactId1"), eq(2L));
+        verify(spec).bind(eq("contactId0"), eq(3L));
+    }
+
+    @Test
+    void flushFailsWhileAFailedBatchCannotBeWritten() {
+        when(fetchSpec.rowsUpdated()).thenReturn(Mono.error(new RuntimeException("db down")));
+
+        writer.add(sendLog(1L));
+        writer.add(sendLog(2L));
+
+        // Nothing new was added, but the failed rows are not stored yet
+        assertThatThrownBy(() -> writer.flush().block()).hasMessageContaining("db down");
+        // Failed batch, retry with the flush, then one by one (stops at the first transient error)
+        verify(spec, times(3)).bind(eq("contactId0"), eq(1L));
+        verify(spec, never()).bind(eq("contactId0"), eq(2L));
+    }
+
+    @Test
+    void rowRejectedWithAPermanentErrorIsDroppedAndLaterBatchesAreWritten() {
+        when(fetchSpec.rowsUpdated())
+                // Batch and then contact 1 alone violate fk_csl_contact; contact 2 is fine
+                .thenReturn(Mono.error(new DataIntegrityViolationException("fk_csl_contact")))
+                .thenReturn(Mono.error(new DataIntegrityViolationException("fk_csl_contact")))
+                .thenReturn(Mono.just(1L));
+
+        writer.add(sendLog(1L));
+        writer.add(sendLog(2L));
+        writer.flush().block();
+
+        verify(spec, times(2)).bind(eq("contactId0"), eq(1L));
+        verify(spec).bind(eq("contactId0"), eq(2L));
+
+        // The dropped row is not put in front of the next batch
+        writer.add(sendLog(3L));
+        writer.flush().block();
+        verify(spec, times(2)).bind(eq("contactId0"), eq(1L));
+        verify(spec).bind(eq("contactId0"), eq(3L));
+    }
+
+    @Test
+    void retryThatFailsAgainIsWrittenOneByOne() {
+        when(fetchSpec.rowsUpdated())
+                .thenReturn(Mono.error(new RuntimeException("lock wait timeout")))
+                .thenReturn(Mono.error(new DataIntegrityViolationException("bad value")))
+                .thenReturn(Mono.error(new DataIntegrityViolationException("bad value")))
+                .thenReturn(Mono.just(1L));
+
+        writer.add(sendLog(1L));
+        writer.add(sendLog(2L));
+        writer.flush().block();
+
+        // Batch, retry, then row by row: contact 1 is dropped, contact 2 stored
+        verify(spec, times(3)).bind(eq("contactId0"), eq(1L));
+        verify(spec).bind(eq("contactId0"), eq(2L));
+    }
+
+    @Test
+    void connectionFailuresAreRetriedAndConstraintViolationsAreNot() {
+        assertThat(SendLogWriter.isPermanent(new DataIntegrityViolationException("fk"))).isTrue();
+        assertThat(SendLogWriter.isPermanent(new R2dbcDataIntegrityViolationException("fk"))).isTrue();
+        assertThat(SendLogWriter.isPermanent(new DataAccessResourceFailureException("down"))).isFalse();
+        assertThat(SendLogWriter.isPermanent(new RuntimeException("timeout"))).isFalse();
+    }
+
+    @Test
+    void flushWithNothingBufferedCompletesWithoutWriting() {
+        writer.flush().block();
+
+        verify(databaseClient, never()).sql(anyString());
+    }
+
+    @Test
+    void duplicatesKeepTheLatestOutcomeThroughARowAlias() {
+        when(fetchSpec.rowsUpdated()).thenReturn(Mono.just(1L));
+
+        writer.add(sendLog(1L));
+        writer.flush().block();
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(databaseClient).sql(sql.capture());
+        assertThat(sql.getValue())
+                .contains(" AS new ON DUPLICATE KEY UPDATE status = new.status")
+                .doesNotContain("VALUES(");
+    }
+
+    private static CampaignSendLogEntity sendLog(Long contactId) {
+        LocalDateTime now = LocalDateTime.now();
+        return CampaignSendLogEntity.builder()
+                .campaignId(10L)
+                .contactId(contactId)
+                .destination("300000000" + contactId)
+                .status("SENT")
+                .sentAt(now)
+                .createdAt(now)
+                .build();
+    }
+}